@@ -0,0 +1,73 @@
+package cn.powernukkitx.benchmarks;
+
+import cn.nukkit.level.format.anvil.Anvil;
+import cn.nukkit.level.format.anvil.Chunk;
+import cn.nukkit.level.format.anvil.ChunkSection;
+import cn.nukkit.nbt.NBTIO;
+import cn.nukkit.utils.BinaryStream;
+import cn.nukkit.utils.Zlib;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving and loading of anvil chunks and the network encoding of the sections.
+ * <p>{@code loadStreamed} is the chunk loading used by the server, {@code loadTree} is the old way of reading the
+ * whole NBT tree first. Run with {@code -prof gc} to compare the allocations.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkSerializationBenchmark {
+    @Param({"0", "64"})
+    public int entities;
+
+    private Chunk chunk;
+    private byte[] binary;
+    private byte[] inflated;
+    private BinaryStream stream;
+
+    @Setup
+    public void setup() throws IOException {
+        chunk = Fixtures.createChunk(Fixtures.knownStates(), 42);
+        binary = Fixtures.withEntities(chunk.toBinary(), entities);
+        inflated = Zlib.inflate(binary);
+        stream = new BinaryStream(new byte[64 * 1024]);
+    }
+
+    @Benchmark
+    public byte[] save() {
+        return chunk.toBinary();
+    }
+
+    @Benchmark
+    public Chunk loadStreamed() {
+        return Chunk.fromBinary(binary);
+    }
+
+    @Benchmark
+    public Chunk loadStreamedUncompressed() {
+        return Chunk.fromFastBinary(inflated);
+    }
+
+    @Benchmark
+    public Chunk loadTree() throws IOException {
+        return new Chunk(Anvil.class, NBTIO.read(Zlib.inflate(binary), ByteOrder.BIG_ENDIAN).getCompound("Level"));
+    }
+
+    @Benchmark
+    public int writeSections() {
+        stream.reset();
+        for (cn.nukkit.level.format.ChunkSection section : chunk.getSections()) {
+            if (section instanceof ChunkSection && !section.isEmpty()) {
+                ((ChunkSection) section).writeTo(stream);
+            }
+        }
+        return stream.getCount();
+    }
+}
@@ -0,0 +1,89 @@
+package cn.powernukkitx.benchmarks;
+
+import cn.nukkit.math.AxisAlignedBB;
+import cn.nukkit.math.SimpleAxisAlignedBB;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The collision resolution of {@link cn.nukkit.entity.Entity#move(double, double, double)}: the boxes of the
+ * blocks around the entity are collected and the motion is clipped on each axis.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    private static final int ENTITIES = 64;
+
+    private AxisAlignedBB[] blocks;
+    private AxisAlignedBB[] entities;
+    private double[] motions;
+    private final List<AxisAlignedBB> candidates = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<AxisAlignedBB> terrain = new ArrayList<>();
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                terrain.add(new SimpleAxisAlignedBB(x, 63, z, x + 1, 64, z + 1));
+                if (random.nextInt(5) == 0) {
+                    terrain.add(new SimpleAxisAlignedBB(x, 64, z, x + 1, 65, z + 1));
+                }
+            }
+        }
+        blocks = terrain.toArray(new AxisAlignedBB[0]);
+
+        entities = new AxisAlignedBB[ENTITIES];
+        motions = new double[ENTITIES * 3];
+        for (int i = 0; i < ENTITIES; i++) {
+            double x = 1 + random.nextDouble() * 14;
+            double z = 1 + random.nextDouble() * 14;
+            entities[i] = new SimpleAxisAlignedBB(x - 0.3, 64, z - 0.3, x + 0.3, 65.8, z + 0.3);
+            motions[i * 3] = random.nextDouble() - 0.5;
+            motions[i * 3 + 1] = -0.08;
+            motions[i * 3 + 2] = random.nextDouble() - 0.5;
+        }
+    }
+
+    @Benchmark
+    public double move() {
+        double total = 0;
+        for (int i = 0; i < ENTITIES; i++) {
+            AxisAlignedBB bb = entities[i].clone();
+            double dx = motions[i * 3];
+            double dy = motions[i * 3 + 1];
+            double dz = motions[i * 3 + 2];
+
+            AxisAlignedBB area = bb.addCoord(dx, dy, dz);
+            candidates.clear();
+            for (AxisAlignedBB block : blocks) {
+                if (block.intersectsWith(area)) {
+                    candidates.add(block);
+                }
+            }
+
+            for (AxisAlignedBB block : candidates) {
+                dy = block.calculateYOffset(bb, dy);
+            }
+            bb.offset(0, dy, 0);
+            for (AxisAlignedBB block : candidates) {
+                dx = block.calculateXOffset(bb, dx);
+            }
+            bb.offset(dx, 0, 0);
+            for (AxisAlignedBB block : candidates) {
+                dz = block.calculateZOffset(bb, dz);
+            }
+            bb.offset(0, 0, dz);
+            total += bb.getMinX() + bb.getMinY() + bb.getMinZ();
+        }
+        return total;
+    }
+}
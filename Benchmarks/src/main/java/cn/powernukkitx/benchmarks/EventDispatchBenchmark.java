@@ -0,0 +1,95 @@
+package cn.powernukkitx.benchmarks;
+
+import cn.nukkit.event.EventHandler;
+import cn.nukkit.event.EventPriority;
+import cn.nukkit.event.HandlerList;
+import cn.nukkit.event.Listener;
+import cn.nukkit.event.server.ServerCommandEvent;
+import cn.nukkit.plugin.PluginBase;
+import cn.nukkit.plugin.PluginDescription;
+import cn.nukkit.plugin.PluginManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PluginManager#callEvent(cn.nukkit.event.Event)} of an event with listeners at every priority, as with a few
+ * plugins installed. The timings are disabled, as they are by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDispatchBenchmark {
+    @Param({"1", "8"})
+    public int plugins;
+
+    private PluginManager pluginManager;
+    private BenchmarkPlugin[] registered;
+
+    @Setup
+    public void setup() {
+        pluginManager = new PluginManager(null, null);
+        registered = new BenchmarkPlugin[plugins];
+        for (int i = 0; i < plugins; i++) {
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("name", "Benchmark" + i);
+            description.put("version", "1.0.0");
+            description.put("main", BenchmarkPlugin.class.getName());
+            description.put("api", "1.0.0");
+            BenchmarkPlugin plugin = new BenchmarkPlugin();
+            plugin.init(null, null, new PluginDescription(description), new File("."), new File("."));
+            plugin.setEnabled(true);
+            pluginManager.registerEvents(new CommandListener(), plugin);
+            registered[i] = plugin;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (BenchmarkPlugin plugin : registered) {
+            HandlerList.unregisterAll(plugin);
+        }
+    }
+
+    @Benchmark
+    public ServerCommandEvent callEvent() {
+        ServerCommandEvent event = new ServerCommandEvent(null, "say hello");
+        pluginManager.callEvent(event);
+        return event;
+    }
+
+    public static class BenchmarkPlugin extends PluginBase {
+    }
+
+    public static class CommandListener implements Listener {
+        private int calls;
+
+        @EventHandler(priority = EventPriority.LOWEST)
+        public void onLowest(ServerCommandEvent event) {
+            calls++;
+        }
+
+        @EventHandler
+        public void onNormal(ServerCommandEvent event) {
+            if (event.getCommand().isEmpty()) {
+                event.setCancelled();
+            }
+        }
+
+        @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+        public void onHigh(ServerCommandEvent event) {
+            calls++;
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onMonitor(ServerCommandEvent event) {
+            calls += event.getCommand().length();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package cn.powernukkitx.benchmarks;
+
+import cn.nukkit.Server;
+import cn.nukkit.block.Block;
+import cn.nukkit.block.BlockID;
+import cn.nukkit.blockstate.BlockState;
+import cn.nukkit.blockstate.BlockStateRegistry;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.anvil.Anvil;
+import cn.nukkit.level.format.anvil.Chunk;
+import cn.nukkit.level.format.anvil.RegionLoader;
+import cn.nukkit.level.generator.Flat;
+import cn.nukkit.level.generator.Generator;
+import cn.nukkit.nbt.NBTIO;
+import cn.nukkit.nbt.tag.CompoundTag;
+import cn.nukkit.nbt.tag.DoubleTag;
+import cn.nukkit.nbt.tag.FloatTag;
+import cn.nukkit.nbt.tag.ListTag;
+import cn.nukkit.utils.Zlib;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Shared data of the benchmarks. Everything here works without a running {@link Server}.
+ */
+public final class Fixtures {
+    private static boolean initialized;
+    private static Server server;
+
+    private Fixtures() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Registers the blocks and the block states, only the first call does something.
+     */
+    public static synchronized void init() {
+        if (!initialized) {
+            Block.init();
+            initialized = true;
+        }
+    }
+
+    /**
+     * Installs a mocked {@link Server} as the server instance, only the first call does something.
+     * <p>The configuration answers the default values and every other call answers a mock or zero, which is enough for
+     * the levels of the benchmarks, they are never ticked and have no player.</p>
+     */
+    public static synchronized Server mockServer() {
+        init();
+        if (server == null) {
+            server = mock(Server.class, invocation -> {
+                if (invocation.getMethod().getName().equals("getConfig") && invocation.getArguments().length == 2) {
+                    return invocation.getArgument(1);
+                }
+                return RETURNS_DEEP_STUBS.answer(invocation);
+            });
+            try {
+                Field instance = Server.class.getDeclaredField("instance");
+                instance.setAccessible(true);
+                instance.set(null, server);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Unable to install the mocked server", e);
+            }
+            Generator.addGenerator(Flat.class, "flat", Generator.TYPE_FLAT);
+        }
+        return server;
+    }
+
+    /**
+     * Creates an empty flat level in the folder, on the {@link #mockServer() mocked server}.
+     */
+    public static Level createLevel(File folder, String name) {
+        Server server = mockServer();
+        String path = folder.getAbsolutePath() + File.separator;
+        try {
+            Anvil.generate(path, name, 0, Flat.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Level(server, name, path, Anvil.class);
+    }
+
+    /**
+     * @return every block state known by the runtime id table, except air
+     */
+    public static List<BlockState> knownStates() {
+        init();
+        List<BlockState> states = new ArrayList<>();
+        for (int runtimeId = 0; BlockStateRegistry.getKnownBlockStateIdByRuntimeId(runtimeId) != null; runtimeId++) {
+            BlockState state = BlockStateRegistry.getBlockStateByRuntimeId(runtimeId);
+            if (state != null && state.getBlockId() != BlockID.AIR) {
+                states.add(state);
+            }
+        }
+        return states;
+    }
+
+    /**
+     * @return the compounds of the bundled {@code canonical_block_states.nbt}, as the client receives them
+     */
+    public static List<CompoundTag> canonicalStateTags() {
+        List<CompoundTag> tags = new ArrayList<>();
+        try (InputStream stream = Server.class.getClassLoader().getResourceAsStream("canonical_block_states.nbt")) {
+            if (stream == null) {
+                throw new IllegalStateException("Unable to locate block state nbt");
+            }
+            try (BufferedInputStream bis = new BufferedInputStream(stream)) {
+                while (bis.available() > 0) {
+                    tags.add(NBTIO.read(bis, ByteOrder.BIG_ENDIAN, true));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tags;
+    }
+
+    /**
+     * Creates a chunk which looks like a generated one: solid stone up to y=60 and a sparse mix of
+     * the known states above it, so the palettes have many entries.
+     */
+    public static Chunk createChunk(List<BlockState> states, long seed) {
+        init();
+        SplittableRandom random = new SplittableRandom(seed);
+        BlockState stone = BlockState.of(BlockID.STONE);
+        Chunk chunk = new Chunk(Anvil.class);
+        chunk.setPosition(0, 0);
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                for (int y = 0; y < 60; y++) {
+                    chunk.setBlockStateAt(x, y, z, 0, stone);
+                }
+                for (int y = 60; y < 96; y++) {
+                    if (random.nextInt(4) == 0) {
+                        chunk.setBlockStateAt(x, y, z, 0, states.get(random.nextInt(states.size())));
+                    }
+                }
+            }
+        }
+        chunk.recalculateHeightMap();
+        return chunk;
+    }
+
+    /**
+     * Adds {@code count} saved item entities to a binary chunk, the entities are not created when the chunk is
+     * loaded so this only measures the NBT work.
+     */
+    public static byte[] withEntities(byte[] binaryChunk, int count) {
+        try {
+            CompoundTag root = NBTIO.read(Zlib.inflate(binaryChunk), ByteOrder.BIG_ENDIAN);
+            ListTag<CompoundTag> entities = new ListTag<>("Entities");
+            for (int i = 0; i < count; i++) {
+                entities.add(new CompoundTag()
+                        .putString("id", "Item")
+                        .putList(new ListTag<DoubleTag>("Pos")
+                                .add(new DoubleTag("", i % 16 + 0.5))
+                                .add(new DoubleTag("", 64))
+                                .add(new DoubleTag("", i / 16 + 0.5)))
+                        .putList(new ListTag<DoubleTag>("Motion")
+                                .add(new DoubleTag("", 0))
+                                .add(new DoubleTag("", 0))
+                                .add(new DoubleTag("", 0)))
+                        .putList(new ListTag<FloatTag>("Rotation")
+                                .add(new FloatTag("", 0))
+                                .add(new FloatTag("", 0)))
+                        .putShort("Health", 5)
+                        .putShort("Age", i)
+                        .putCompound("Item", new CompoundTag()
+                                .putString("Name", "minecraft:dirt")
+                                .putByte("Count", 1)
+                                .putShort("Damage", 0)));
+            }
+            root.getCompound("Level").putList(entities);
+            return Zlib.deflate(NBTIO.write(root, ByteOrder.BIG_ENDIAN), RegionLoader.COMPRESSION_LEVEL);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package cn.powernukkitx.benchmarks;
+
+import cn.nukkit.level.format.anvil.Anvil;
+import cn.nukkit.level.format.anvil.Chunk;
+import cn.nukkit.level.generator.Flat;
+import cn.nukkit.level.generator.SingleChunkManager;
+import cn.nukkit.math.NukkitRandom;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation and population of a new chunk by the flat generator, as done by the generation tasks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+    private static final long SEED = 42;
+
+    private SingleChunkManager manager;
+    private Flat generator;
+    private int chunkX;
+
+    @Setup
+    public void setup() {
+        Fixtures.init();
+        manager = new SingleChunkManager(SEED);
+        generator = new Flat();
+        generator.init(manager, new NukkitRandom(SEED));
+    }
+
+    @Benchmark
+    public Chunk generate() {
+        int x = chunkX++;
+        Chunk chunk = new Chunk(Anvil.class);
+        chunk.setPosition(x, 0);
+        manager.setChunk(x, 0, null);
+        manager.setChunk(x, 0, chunk);
+        generator.generateChunk(x, 0);
+        generator.populateChunk(x, 0);
+        return chunk;
+    }
+}
@@ -0,0 +1,39 @@
+package cn.powernukkitx.benchmarks;
+
+import cn.nukkit.level.format.anvil.Chunk;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The light work done for every generated or loaded chunk: the height map and the sky light of the columns.
+ * <p>The block light propagation between chunks is done by the {@link cn.nukkit.level.Level} and needs a
+ * running server, it is covered by the load test instead.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LightBenchmark {
+    private Chunk chunk;
+
+    @Setup
+    public void setup() {
+        chunk = Fixtures.createChunk(Fixtures.knownStates(), 42);
+        chunk.populateSkyLight();
+    }
+
+    @Benchmark
+    public Chunk recalculateHeightMap() {
+        chunk.recalculateHeightMap();
+        return chunk;
+    }
+
+    @Benchmark
+    public Chunk populateSkyLight() {
+        chunk.populateSkyLight();
+        return chunk;
+    }
+}
@@ -0,0 +1,91 @@
+package cn.powernukkitx.benchmarks;
+
+import cn.nukkit.block.Block;
+import cn.nukkit.block.BlockID;
+import cn.nukkit.block.BlockLiquid;
+import cn.nukkit.blockstate.BlockState;
+import cn.nukkit.level.Level;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Drains a lake of flowing water without sources, the scenario which used to overwhelm the tick. Every liquid of the
+ * lake receives its scheduled update, pass after pass, until no water is left. The lake is filled again before each
+ * drain, out of the measured time.
+ * <p>The flow cost search of the liquids goes through the {@link cn.nukkit.level.liquid.LiquidFlowEngine} of the level.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LiquidDrainBenchmark {
+    private static final int Y = 10;
+    private static final int MAX_PASSES = 64;
+
+    @Param({"64"})
+    public int size;
+
+    private File folder;
+    private Level level;
+
+    @Setup
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("liquid-drain").toFile();
+        level = Fixtures.createLevel(folder, "LiquidDrain");
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Invocation)
+    public void fillLake() {
+        for (int x = -1; x <= size; x++) {
+            for (int z = -1; z <= size; z++) {
+                level.setBlockStateAt(x, Y - 1, z, BlockState.of(BlockID.STONE));
+                boolean wall = x < 0 || z < 0 || x == size || z == size;
+                level.setBlockStateAt(x, Y, z, wall ? BlockState.of(BlockID.STONE) : BlockState.of(BlockID.FLOWING_WATER, 1));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        try (Stream<Path> files = Files.walk(folder.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the number of passes needed to drain the lake
+     */
+    @Benchmark
+    public int drain() {
+        int passes = 0;
+        boolean drained = false;
+        while (!drained && passes++ < MAX_PASSES) {
+            drained = true;
+            for (int x = 0; x < size; x++) {
+                for (int z = 0; z < size; z++) {
+                    Block block = level.getBlock(x, Y, z);
+                    if (block instanceof BlockLiquid) {
+                        drained = false;
+                        block.onUpdate(Level.BLOCK_UPDATE_SCHEDULED);
+                    }
+                }
+            }
+        }
+        if (!drained) {
+            throw new IllegalStateException("The lake was not drained after " + MAX_PASSES + " passes");
+        }
+        return passes;
+    }
+}
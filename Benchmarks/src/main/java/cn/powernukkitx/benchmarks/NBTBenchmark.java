@@ -0,0 +1,83 @@
+package cn.powernukkitx.benchmarks;
+
+import cn.nukkit.nbt.NBTIO;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
+import cn.nukkit.nbt.tag.CompoundTag;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing of the bundled block state compounds, with the usual {@link CompoundTag} and with the
+ * {@link CompactCompoundTag}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NBTBenchmark {
+    private List<CompoundTag> tags;
+    private List<CompoundTag> compactTags;
+    private List<byte[]> encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        tags = Fixtures.canonicalStateTags();
+        encoded = new ArrayList<>(tags.size());
+        compactTags = new ArrayList<>(tags.size());
+        for (CompoundTag tag : tags) {
+            byte[] bytes = NBTIO.write(tag, ByteOrder.LITTLE_ENDIAN);
+            encoded.add(bytes);
+            compactTags.add(NBTIO.readCompact(bytes, ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) throws IOException {
+        for (byte[] bytes : encoded) {
+            blackhole.consume(NBTIO.read(bytes, ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    @Benchmark
+    public void readCompact(Blackhole blackhole) throws IOException {
+        for (byte[] bytes : encoded) {
+            blackhole.consume(NBTIO.readCompact(bytes, ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    @Benchmark
+    public void write(Blackhole blackhole) throws IOException {
+        for (CompoundTag tag : tags) {
+            blackhole.consume(NBTIO.write(tag, ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    @Benchmark
+    public void writeCompact(Blackhole blackhole) throws IOException {
+        for (CompoundTag tag : compactTags) {
+            blackhole.consume(NBTIO.write(tag, ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    @Benchmark
+    public void writeNetwork(Blackhole blackhole) throws IOException {
+        for (CompoundTag tag : tags) {
+            blackhole.consume(NBTIO.write(tag, ByteOrder.LITTLE_ENDIAN, true));
+        }
+    }
+
+    @Benchmark
+    public void copy(Blackhole blackhole) {
+        for (CompoundTag tag : tags) {
+            blackhole.consume(tag.copy());
+        }
+    }
+}
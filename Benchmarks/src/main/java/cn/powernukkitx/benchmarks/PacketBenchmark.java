@@ -0,0 +1,112 @@
+package cn.powernukkitx.benchmarks;
+
+import cn.nukkit.network.Network;
+import cn.nukkit.network.protocol.DataPacket;
+import cn.nukkit.network.protocol.MovePlayerPacket;
+import cn.nukkit.network.protocol.TextPacket;
+import cn.nukkit.utils.BinaryStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding, decoding and batching of the packets which are sent the most.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketBenchmark {
+    private static final int BATCH_SIZE = 64;
+
+    private MovePlayerPacket move;
+    private TextPacket text;
+    private byte[] moveBytes;
+    private byte[] textBytes;
+    private byte[][] batch;
+    private BinaryStream varInts;
+
+    @Setup
+    public void setup() {
+        move = new MovePlayerPacket();
+        move.eid = 1234;
+        move.x = 100.5f;
+        move.y = 64f;
+        move.z = -200.25f;
+        move.yaw = 90f;
+        move.headYaw = 90f;
+        move.pitch = 12.5f;
+        move.onGround = true;
+        move.frame = 5000;
+        move.encode();
+        moveBytes = move.getBuffer();
+
+        text = new TextPacket();
+        text.type = TextPacket.TYPE_CHAT;
+        text.source = "Steve";
+        text.message = "Hello world, this is a chat message of a usual length";
+        text.encode();
+        textBytes = text.getBuffer();
+
+        batch = new byte[BATCH_SIZE * 2][];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            BinaryStream length = new BinaryStream();
+            length.putUnsignedVarInt(moveBytes.length);
+            batch[i * 2] = length.getBuffer();
+            batch[i * 2 + 1] = moveBytes;
+        }
+
+        varInts = new BinaryStream(new byte[BATCH_SIZE * 10]);
+    }
+
+    @Benchmark
+    public byte[] encodeMovePlayer() {
+        move.encode();
+        return move.getBuffer();
+    }
+
+    @Benchmark
+    public MovePlayerPacket decodeMovePlayer() {
+        return decode(new MovePlayerPacket(), moveBytes);
+    }
+
+    @Benchmark
+    public byte[] encodeText() {
+        text.encode();
+        return text.getBuffer();
+    }
+
+    @Benchmark
+    public TextPacket decodeText() {
+        return decode(new TextPacket(), textBytes);
+    }
+
+    @Benchmark
+    public byte[] compressBatch() throws IOException {
+        return Network.deflateRaw(batch, 7);
+    }
+
+    @Benchmark
+    public long varInts() {
+        varInts.reset();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            varInts.putVarLong(i * 0x1_0000_0001L);
+        }
+        varInts.setOffset(0);
+        long sum = 0;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            sum += varInts.getVarLong();
+        }
+        return sum;
+    }
+
+    private static <T extends DataPacket> T decode(T packet, byte[] bytes) {
+        packet.setBuffer(bytes);
+        packet.getUnsignedVarInt();
+        packet.decode();
+        return packet;
+    }
+}
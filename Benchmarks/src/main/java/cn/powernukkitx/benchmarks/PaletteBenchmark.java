@@ -0,0 +1,73 @@
+package cn.powernukkitx.benchmarks;
+
+import cn.nukkit.blockstate.BlockState;
+import cn.nukkit.blockstate.BlockStateRegistry;
+import cn.nukkit.level.format.anvil.util.BlockStorage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block reads and writes on the storage of a chunk section and the runtime id lookup done when it is sent.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaletteBenchmark {
+    private static final int BLOCKS = 16 * 16 * 16;
+
+    /**
+     * How many different states are written, which decides the bits per block of the palette.
+     */
+    @Param({"2", "16", "256"})
+    public int distinctStates;
+
+    private BlockState[] states;
+    private BlockStorage storage;
+
+    @Setup
+    public void setup() {
+        List<BlockState> known = Fixtures.knownStates();
+        SplittableRandom random = new SplittableRandom(42);
+        BlockState[] palette = new BlockState[distinctStates];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = known.get(random.nextInt(known.size()));
+        }
+        states = new BlockState[BLOCKS];
+        for (int i = 0; i < BLOCKS; i++) {
+            states[i] = palette[random.nextInt(palette.length)];
+        }
+        storage = new BlockStorage();
+        set();
+    }
+
+    @Benchmark
+    public BlockStorage set() {
+        for (int i = 0; i < BLOCKS; i++) {
+            storage.setBlockState(i >> 8, i & 0xF, (i >> 4) & 0xF, states[i]);
+        }
+        return storage;
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (int i = 0; i < BLOCKS; i++) {
+            blackhole.consume(storage.getBlockState(i >> 8, i & 0xF, (i >> 4) & 0xF));
+        }
+    }
+
+    @Benchmark
+    public int runtimeIds() {
+        int sum = 0;
+        for (BlockState state : states) {
+            sum += BlockStateRegistry.getRuntimeId(state);
+        }
+        return sum;
+    }
+}
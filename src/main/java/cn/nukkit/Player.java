@@ -9,7 +9,6 @@ import cn.nukkit.block.*;
 import cn.nukkit.blockentity.*;
 import cn.nukkit.command.Command;
 import cn.nukkit.command.CommandSender;
-import cn.nukkit.command.data.CommandDataVersions;
 import cn.nukkit.entity.*;
 import cn.nukkit.entity.data.IntPositionEntityData;
 import cn.nukkit.entity.data.ShortEntityData;
@@ -49,6 +48,8 @@ import cn.nukkit.lang.TranslationContainer;
 import cn.nukkit.level.*;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.level.map.MapData;
+import cn.nukkit.level.map.MapManager;
 import cn.nukkit.level.particle.PunchBlockParticle;
 import cn.nukkit.math.*;
 import cn.nukkit.metadata.MetadataValue;
@@ -68,6 +69,7 @@ import cn.nukkit.positiontracking.PositionTracking;
 import cn.nukkit.positiontracking.PositionTrackingService;
 import cn.nukkit.potion.Effect;
 import cn.nukkit.resourcepacks.ResourcePack;
+import cn.nukkit.resourcepacks.ResourcePackManager;
 import cn.nukkit.scheduler.AsyncTask;
 import cn.nukkit.scheduler.Task;
 import cn.nukkit.scheduler.TaskHandler;
@@ -95,8 +97,6 @@ import org.powernukkit.version.Version;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
@@ -230,6 +230,8 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
 
     protected int chunkLoadCount = 0;
     protected final Long2ObjectLinkedOpenHashMap<Boolean> loadQueue = new Long2ObjectLinkedOpenHashMap<>();
+
+    private final Queue<ResourcePackChunkRequestPacket> resourcePackChunkRequests = new ArrayDeque<>();
     protected int nextChunkOrderRun = 1;
 
     protected final Map<UUID, Player> hiddenPlayers = new HashMap<>();
@@ -650,20 +652,9 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
         if (!spawned) {
             return;
         }
-        AvailableCommandsPacket pk = new AvailableCommandsPacket();
-        Map<String, CommandDataVersions> data = new HashMap<>();
-        int count = 0;
-        for (Command command : this.server.getCommandMap().getCommands().values()) {
-            if (!command.testPermissionSilent(this) || !command.isRegistered()) {
-                continue;
-            }
-            ++count;
-            CommandDataVersions data0 = command.generateCustomCommandData(this);
-            data.put(command.getName(), data0);
-        }
-        if (count > 0) {
-            //TODO: structure checking
-            pk.commands = data;
+        // Built and compressed once for all the players who can see the same commands when possible
+        DataPacket pk = this.server.getCommandMap().getCommandDataPacket(this);
+        if (pk != null) {
             this.dataPacket(pk);
         }
     }
@@ -885,11 +876,7 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
         this.dataPacket(packet);
 
         if (this.spawned) {
-            for (Entity entity : this.level.getChunkEntities(x, z).values()) {
-                if (this != entity && !entity.closed && entity.isAlive()) {
-                    entity.spawnTo(this);
-                }
-            }
+            this.level.getEntityTracker().onPlayerMoved(this);
         }
     }
 
@@ -910,11 +897,7 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
         this.dataPacket(pk);
 
         if (this.spawned) {
-            for (Entity entity : this.level.getChunkEntities(x, z).values()) {
-                if (this != entity && !entity.closed && entity.isAlive()) {
-                    entity.spawnTo(this);
-                }
-            }
+            this.level.getEntityTracker().onPlayerMoved(this);
         }
     }
 
@@ -1025,15 +1008,7 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
         this.getServer().sendRecipeList(this);
 
 
-        for (long index : this.usedChunks.keySet()) {
-            int chunkX = Level.getHashX(index);
-            int chunkZ = Level.getHashZ(index);
-            for (Entity entity : this.level.getChunkEntities(chunkX, chunkZ).values()) {
-                if (this != entity && !entity.closed && entity.isAlive()) {
-                    entity.spawnTo(this);
-                }
-            }
-        }
+        this.level.getEntityTracker().onPlayerMoved(this);
 
         int experience = this.getExperience();
         if (experience != 0) {
@@ -1201,7 +1176,7 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
             return false;
         }
 
-        try (Timing ignored = Timings.getSendDataPacketTiming(packet)) {
+        try (Timing ignored = Timings.getSendDataPacketTiming(packet).startTiming()) {
             DataPacketSendEvent ev = new DataPacketSendEvent(this, packet);
             this.server.getPluginManager().callEvent(ev);
             if (ev.isCancelled()) {
@@ -2101,7 +2076,12 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
         return null;
     }
 
+    @PowerNukkitDifference(info = "Sends the requested resource pack chunks", since = "1.6.0.0-PNX")
     public void checkNetwork() {
+        if (!this.resourcePackChunkRequests.isEmpty()) {
+            this.sendResourcePackChunks();
+        }
+
         if (!this.isOnline()) {
             return;
         }
@@ -2115,6 +2095,51 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
         }
     }
 
+    /**
+     * Sends the image of a map drawn by a plugin into an item frame near the player.
+     */
+    private void sendFramedMapImage(long mapId) {
+        int radius = Math.min(this.chunkRadius, 4);
+        for (int chunkX = this.getChunkX() - radius; chunkX <= this.getChunkX() + radius; chunkX++) {
+            for (int chunkZ = this.getChunkZ() - radius; chunkZ <= this.getChunkZ() + radius; chunkZ++) {
+                BaseFullChunk chunk = this.level.getChunkIfLoaded(chunkX, chunkZ);
+                if (chunk == null) {
+                    continue;
+                }
+                for (BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+                    if (blockEntity instanceof BlockEntityItemFrame) {
+                        Item item = ((BlockEntityItemFrame) blockEntity).getItem();
+                        if (item instanceof ItemMap && ((ItemMap) item).getMapId() == mapId) {
+                            ((ItemMap) item).trySendImage(this);
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void sendResourcePackChunks() {
+        if (!this.connected) {
+            this.resourcePackChunkRequests.clear();
+            return;
+        }
+
+        ResourcePackManager resourcePackManager = this.server.getResourcePackManager();
+        for (int i = resourcePackManager.getChunksPerTick(); i > 0; i--) {
+            ResourcePackChunkRequestPacket requestPacket = this.resourcePackChunkRequests.poll();
+            if (requestPacket == null) {
+                break;
+            }
+
+            ResourcePack resourcePack = resourcePackManager.getPackById(requestPacket.getPackId());
+            BatchPacket chunkPacket = resourcePack != null ? resourcePackManager.getChunkPacket(resourcePack, requestPacket.chunkIndex) : null;
+            if (chunkPacket != null) {
+                this.dataResourcePacket(chunkPacket);
+            }
+        }
+    }
+
     public boolean canInteract(Vector3 pos, double maxDistance) {
         return this.canInteract(pos, maxDistance, 6.0);
     }
@@ -2393,7 +2418,7 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
             return;
         }
 
-        try (Timing ignored = Timings.getReceiveDataPacketTiming(packet)) {
+        try (Timing ignored = Timings.getReceiveDataPacketTiming(packet).startTiming()) {
             DataPacketReceiveEvent ev = new DataPacketReceiveEvent(this, packet);
             this.server.getPluginManager().callEvent(ev);
             if (ev.isCancelled()) {
@@ -2589,14 +2614,8 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
                         break;
                     }
 
-                    int maxChunkSize = server.getResourcePackManager().getMaxChunkSize();
-                    ResourcePackChunkDataPacket dataPacket = new ResourcePackChunkDataPacket();
-                    dataPacket.setPackId(resourcePack.getPackId());
-                    dataPacket.setPackVersion(new Version(resourcePack.getPackVersion()));
-                    dataPacket.chunkIndex = requestPacket.chunkIndex;
-                    dataPacket.data = resourcePack.getPackChunk(maxChunkSize * requestPacket.chunkIndex, maxChunkSize);
-                    dataPacket.progress = maxChunkSize * (long) requestPacket.chunkIndex;
-                    this.dataResourcePacket(dataPacket);
+                    // Answered in checkNetwork, a few chunks per tick
+                    this.resourcePackChunkRequests.offer(requestPacket);
                     break;
                 }
                 case ProtocolInfo.SET_LOCAL_PLAYER_AS_INITIALIZED_PACKET:
@@ -3474,63 +3493,43 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
                     break;
                 case ProtocolInfo.MAP_INFO_REQUEST_PACKET:
                     MapInfoRequestPacket pk = (MapInfoRequestPacket) packet;
-                    Item mapItem = null;
+                    ItemMap mapItem = null;
 
                     for (Item item1 : this.offhandInventory.getContents().values()) {
                         if (item1 instanceof ItemMap && ((ItemMap) item1).getMapId() == pk.mapId) {
-                            mapItem = item1;
+                            mapItem = (ItemMap) item1;
                         }
                     }
 
                     if (mapItem == null) {
                         for (Item item1 : this.inventory.getContents().values()) {
                             if (item1 instanceof ItemMap && ((ItemMap) item1).getMapId() == pk.mapId) {
-                                mapItem = item1;
+                                mapItem = (ItemMap) item1;
                             }
                         }
                     }
 
+                    MapManager mapManager = this.server.getMapManager();
                     if (mapItem == null) {
-                        for (BlockEntity be : this.level.getBlockEntities().values()) {
-                            if (be instanceof BlockEntityItemFrame) {
-                                BlockEntityItemFrame itemFrame1 = (BlockEntityItemFrame) be;
-
-                                if (itemFrame1.getItem() instanceof ItemMap && ((ItemMap) itemFrame1.getItem()).getMapId() == pk.mapId) {
-                                    ((ItemMap) itemFrame1.getItem()).sendImage(this);
-                                    break;
-                                }
-                            }
+                        // Most likely in an item frame, the drawn maps are found by id
+                        MapData mapData = mapManager.getMap(pk.mapId);
+                        if (mapData != null) {
+                            mapManager.sendMap(this, mapData);
+                        } else {
+                            this.sendFramedMapImage(pk.mapId);
                         }
+                        break;
                     }
 
-                    if (mapItem != null) {
-                        PlayerMapInfoRequestEvent event;
-                        getServer().getPluginManager().callEvent(event = new PlayerMapInfoRequestEvent(this, mapItem));
-
-                        if (!event.isCancelled()) {
-                            ItemMap map = (ItemMap) mapItem;
-                            if (map.trySendImage(this)) {
-                                return;
-                            }
-                            try {
-                                BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_INT_RGB);
-                                Graphics2D graphics = image.createGraphics();
-
-                                int worldX = (this.getFloorX () / 128) << 7;
-                                int worldZ = (this.getFloorZ () / 128) << 7;
-                                for (int x = 0; x < 128; x++) {
-                                    for (int y = 0; y < 128; y++) {
-                                        graphics.setColor(new Color(this.getLevel().getMapColorAt(worldX + x, worldZ + y).getRGB()));
-                                        graphics.fillRect(x, y, x + 1, y + 1);
-                                    }
-                                }
+                    PlayerMapInfoRequestEvent event;
+                    getServer().getPluginManager().callEvent(event = new PlayerMapInfoRequestEvent(this, mapItem));
 
-                                map.setImage(image);
-                                map.sendImage(this);
-                            } catch (Exception ex) {
-                                this.getServer().getLogger().debug("There was an error while generating map image", ex);
-                            }
+                    if (!event.isCancelled() && !mapItem.trySendImage(this)) {
+                        MapData mapData = mapManager.getMap(pk.mapId);
+                        if (mapData == null) {
+                            mapData = mapManager.createMap(pk.mapId, this.level, this.getFloorX(), this.getFloorZ());
                         }
+                        mapManager.sendMap(this, mapData);
                     }
 
                     break;
@@ -4934,6 +4933,9 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
                 this.server.broadcast(ev.getDeathMessage(), Server.BROADCAST_CHANNEL_USERS);
             }
 
+            // The death screen follows the flags set while dying
+            this.flushDataProperties();
+
             RespawnPacket pk = new RespawnPacket();
             Position pos = this.getSpawn();
             pk.x = (float) pos.x;
@@ -5311,7 +5313,11 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
         this.sendPosition(pos, yaw, pitch, mode, null);
     }
 
+    @PowerNukkitDifference(info = "Sends the pending data properties first", since = "1.6.0.0-PNX")
     public void sendPosition(Vector3 pos, double yaw, double pitch, int mode, Player[] targets) {
+        // The flags changed before moving, like sleeping or gliding, must be known by the client at the new position
+        this.flushDataProperties();
+
         MovePlayerPacket pk = new MovePlayerPacket();
         pk.eid = this.getId();
         pk.x = (float) pos.x;
@@ -5342,30 +5348,15 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
             }
             this.chunk = this.level.getChunk((int) this.x >> 4, (int) this.z >> 4, true);
 
-            if (!this.justCreated) {
-                Map<Integer, Player> newChunk = this.level.getChunkPlayers((int) this.x >> 4, (int) this.z >> 4);
-                newChunk.remove(this.getLoaderId());
-
-                //List<Player> reload = new ArrayList<>();
-                for (Player player : new ArrayList<>(this.hasSpawned.values())) {
-                    if (!newChunk.containsKey(player.getLoaderId())) {
-                        this.despawnFrom(player);
-                    } else {
-                        newChunk.remove(player.getLoaderId());
-                        //reload.add(player);
-                    }
-                }
-
-                for (Player player : newChunk.values()) {
-                    this.spawnTo(player);
-                }
-            }
-
             if (this.chunk == null) {
                 return;
             }
 
             this.chunk.addEntity(this);
+
+            if (!this.justCreated) {
+                this.level.getEntityTracker().onEntityMoved(this);
+            }
         }
     }
 
@@ -6416,7 +6407,7 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
             return false;
         }
 
-        try (Timing ignored = Timings.getSendDataPacketTiming(packet)) {
+        try (Timing ignored = Timings.getSendDataPacketTiming(packet).startTiming()) {
             DataPacketSendEvent ev = new DataPacketSendEvent(this, packet);
             this.server.getPluginManager().callEvent(ev);
             if (ev.isCancelled()) {
@@ -6440,7 +6431,7 @@ public class Player extends EntityHuman implements CommandSender, InventoryHolde
             return false;
         }
 
-        try (Timing ignored = Timings.getSendDataPacketTiming(packet)) {
+        try (Timing ignored = Timings.getSendDataPacketTiming(packet).startTiming()) {
             DataPacketSendEvent ev = new DataPacketSendEvent(this, packet);
             this.server.getPluginManager().callEvent(ev);
             if (ev.isCancelled()) {
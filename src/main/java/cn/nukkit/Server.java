@@ -24,6 +24,7 @@ import cn.nukkit.event.server.BatchPacketsEvent;
 import cn.nukkit.event.server.PlayerDataSerializeEvent;
 import cn.nukkit.event.server.QueryRegenerateEvent;
 import cn.nukkit.event.server.ServerStopEvent;
+import cn.nukkit.inventory.BaseInventory;
 import cn.nukkit.inventory.CraftingManager;
 import cn.nukkit.inventory.Recipe;
 import cn.nukkit.item.Item;
@@ -32,6 +33,7 @@ import cn.nukkit.item.enchantment.Enchantment;
 import cn.nukkit.lang.BaseLang;
 import cn.nukkit.lang.TextContainer;
 import cn.nukkit.lang.TranslationContainer;
+import cn.nukkit.level.ChunkResidencyManager;
 import cn.nukkit.level.EnumLevel;
 import cn.nukkit.level.GlobalBlockPalette;
 import cn.nukkit.level.Level;
@@ -41,12 +43,14 @@ import cn.nukkit.level.format.LevelProvider;
 import cn.nukkit.level.format.LevelProviderManager;
 import cn.nukkit.level.format.anvil.Anvil;
 import cn.nukkit.level.generator.*;
+import cn.nukkit.level.map.MapManager;
 import cn.nukkit.level.terra.PNXPlatform;
 import cn.nukkit.math.NukkitMath;
 import cn.nukkit.metadata.EntityMetadataStore;
 import cn.nukkit.metadata.LevelMetadataStore;
 import cn.nukkit.metadata.PlayerMetadataStore;
 import cn.nukkit.metrics.NukkitMetrics;
+import cn.nukkit.metrics.PerformanceMetrics;
 import cn.nukkit.nbt.NBTIO;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.nbt.tag.DoubleTag;
@@ -76,10 +80,12 @@ import cn.nukkit.positiontracking.PositionTrackingService;
 import cn.nukkit.potion.Effect;
 import cn.nukkit.potion.Potion;
 import cn.nukkit.resourcepacks.ResourcePackManager;
+import cn.nukkit.scheduler.AsyncRejectionPolicy;
 import cn.nukkit.scheduler.ServerScheduler;
 import cn.nukkit.scheduler.Task;
 import cn.nukkit.scoreboard.ScoreboardManager;
 import cn.nukkit.scoreboard.storage.JSONScoreboardStorage;
+import cn.nukkit.timings.jfr.AutoSaveEvent;
 import cn.nukkit.utils.*;
 import cn.nukkit.utils.bugreport.ExceptionHandler;
 import co.aikar.timings.Timings;
@@ -103,6 +109,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
@@ -152,6 +159,8 @@ public class Server {
 
     private float maxUse = 0;
 
+    private long lastTickNanos;
+
     private int sendUsageTicker = 0;
 
     private boolean dispatchSignals = false;
@@ -165,16 +174,24 @@ public class Server {
 
     private ResourcePackManager resourcePackManager;
 
+    private MapManager mapManager;
+
     private ConsoleCommandSender consoleSender;
 
     private ScoreboardManager scoreboardManager;
 
+    private ChunkResidencyManager chunkResidencyManager;
+
     private int maxPlayers;
 
     private boolean autoSave = true;
 
     private boolean redstoneEnabled = true;
 
+    private int commandBlockExecutionsPerTick = 1000;
+    private int commandBlockExecutions;
+    private int commandBlockExecutionsTick = -1;
+
     private RCON rcon;
 
     private EntityMetadataStore entityMetadata;
@@ -224,6 +241,8 @@ public class Server {
 
     private final Map<UUID, Player> playerList = new HashMap<>();
 
+    private final Queue<BaseInventory> dirtyInventories = new ConcurrentLinkedQueue<>();
+
     private PositionTrackingService positionTrackingService;
 
     private final Map<Integer, Level> levels = new HashMap<Integer, Level>() {
@@ -326,6 +345,7 @@ public class Server {
         commandMap = new SimpleCommandMap(this);
         scoreboardManager = new ScoreboardManager(new JSONScoreboardStorage(this.commandDataPath + "/scoreboard.json"));
         scoreboardManager.init();
+        chunkResidencyManager = new ChunkResidencyManager(this);
 
         setMaxPlayers(10);
 
@@ -594,6 +614,25 @@ public class Server {
 
         ServerScheduler.WORKERS = (int) poolSize;
 
+        Object ioPoolSize = this.getConfig("settings.async-io-workers", (Object) "auto");
+        if (!(ioPoolSize instanceof Integer)) {
+            try {
+                ioPoolSize = Integer.valueOf((String) ioPoolSize);
+            } catch (Exception e) {
+                ioPoolSize = Math.max(Runtime.getRuntime().availableProcessors(), 4);
+            }
+        }
+
+        ServerScheduler.IO_WORKERS = (int) ioPoolSize;
+        ServerScheduler.QUEUE_SIZE = Math.max(1, this.getConfig("settings.async-queue-size", 4096));
+        String rejectionPolicy = this.getConfig("settings.async-rejection-policy", "caller-runs");
+        try {
+            ServerScheduler.REJECTION_POLICY = AsyncRejectionPolicy.valueOf(rejectionPolicy.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown async-rejection-policy {}, using caller-runs", rejectionPolicy);
+        }
+        ServerScheduler.SYNC_TASK_BUDGET_MS = Math.max(0, this.getConfig("settings.sync-task-budget-ms", 25));
+
         this.networkZlibProvider = this.getConfig("network.zlib-provider", 2);
         Zlib.setProvider(this.networkZlibProvider);
 
@@ -605,6 +644,7 @@ public class Server {
         this.alwaysTickPlayers = this.getConfig("level-settings.always-tick-players", false);
         this.baseTickRate = this.getConfig("level-settings.base-tick-rate", 1);
         this.redstoneEnabled = this.getConfig("level-settings.tick-redstone", true);
+        this.commandBlockExecutionsPerTick = this.getConfig("level-settings.command-block-executions-per-tick", 1000);
         this.safeSpawn = this.getConfig().getBoolean("settings.safe-spawn", true);
         this.forceSkinTrusted = this.getConfig().getBoolean("player.force-skin-trusted", false);
         this.checkMovement = this.getConfig().getBoolean("player.check-movement", true);
@@ -619,6 +659,8 @@ public class Server {
             }
         }
 
+        PerformanceMetrics.init(this);
+
         this.entityMetadata = new EntityMetadataStore();
         this.playerMetadata = new PlayerMetadataStore();
         this.levelMetadata = new LevelMetadataStore();
@@ -662,6 +704,7 @@ public class Server {
         this.commandMap = new SimpleCommandMap(this);
         scoreboardManager = new ScoreboardManager(new JSONScoreboardStorage(this.commandDataPath + "/scoreboard.json"));
         scoreboardManager.init();
+        chunkResidencyManager = new ChunkResidencyManager(this);
 
         // Initialize metrics
         NukkitMetrics.startNow(this);
@@ -693,6 +736,9 @@ public class Server {
 
         this.craftingManager = new CraftingManager();
         this.resourcePackManager = new ResourcePackManager(new File(Nukkit.DATA_PATH, "resource_packs"));
+        this.resourcePackManager.setChunksPerTick(this.getConfig("network.resource-pack-chunks-per-tick", 4));
+        this.resourcePackManager.setChunkCacheSize(this.getConfig("network.resource-pack-cache-mb", 64) * 1024L * 1024L);
+        this.mapManager = new MapManager(this, new File(Nukkit.DATA_PATH, "maps.dat"));
 
         this.pluginManager = new PluginManager(this, this.commandMap);
         this.pluginManager.subscribeToPermission(Server.BROADCAST_CHANNEL_ADMINISTRATIVE, this.consoleSender);
@@ -1003,6 +1049,31 @@ public class Server {
         return false;
     }
 
+    /**
+     * Dispatches a command line compiled by {@link SimpleCommandMap#compile(String)}, like the string version does.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean dispatchCommand(CommandSender sender, CompiledCommand command) throws ServerException {
+        if (!this.isPrimaryThread()) {
+            log.warn("Command Dispatched Async: {}\nPlease notify author of plugin causing this execution to fix this bug!", command.getCommandLine(),
+                    new ConcurrentModificationException("Command Dispatched Async: " + command.getCommandLine()));
+
+            this.scheduler.scheduleTask(null, () -> dispatchCommand(sender, command));
+            return true;
+        }
+
+        if (sender == null) {
+            throw new ServerException("CommandSender is not valid");
+        }
+
+        if (this.commandMap.getCommand(command.getLabel()) == null) {
+            sender.sendMessage(new TranslationContainer(TextFormat.RED + "%commands.generic.unknown", command.getCommandLine()));
+        }
+
+        return this.commandMap.dispatch(sender, command);
+    }
+
     //todo: use ticker to check console
     public ConsoleCommandSender getConsoleSender() {
         return consoleSender;
@@ -1084,6 +1155,11 @@ public class Server {
             this.scheduler.cancelAllTasks();
             this.scheduler.mainThreadHeartbeat(Integer.MAX_VALUE);
 
+            if (this.mapManager != null) {
+                log.debug("Saving the maps");
+                this.mapManager.save(false);
+            }
+
             log.debug("Unloading all levels");
             for (Level level : this.levelArray) {
                 this.unloadLevel(level, true);
@@ -1109,6 +1185,9 @@ public class Server {
 
             log.debug("Disabling timings");
             Timings.stopServer();
+
+            log.debug("Stopping the performance metrics");
+            PerformanceMetrics.stop();
             //todo other things
         } catch (Exception e) {
             log.fatal("Exception happened while shutting down, exiting the process", e);
@@ -1221,6 +1300,28 @@ public class Server {
         }
     }
 
+    /**
+     * Schedules the changed slots of the inventory to be sent at the end of the current tick.
+     *
+     * @see BaseInventory#markSlotDirty(int)
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void queueInventorySync(BaseInventory inventory) {
+        this.dirtyInventories.add(inventory);
+    }
+
+    private void flushInventories() {
+        // The inventories changed while flushing go to the next tick
+        for (int i = this.dirtyInventories.size(); i > 0; i--) {
+            BaseInventory inventory = this.dirtyInventories.poll();
+            if (inventory == null) {
+                break;
+            }
+            inventory.flushSlots();
+        }
+    }
+
     public void addPlayer(InetSocketAddress socketAddress, Player player) {
         this.players.put(socketAddress, player);
     }
@@ -1321,9 +1422,11 @@ public class Server {
             }
 
             try {
-                long levelTime = System.currentTimeMillis();
+                long levelTime = System.nanoTime();
                 level.doTick(currentTick);
-                int tickMs = (int) (System.currentTimeMillis() - levelTime);
+                long levelNanos = System.nanoTime() - levelTime;
+                level.metrics.recordTick(levelNanos);
+                int tickMs = (int) (levelNanos / 1_000_000);
                 level.tickRateTime = tickMs;
 
                 if (this.autoTickRate) {
@@ -1354,6 +1457,10 @@ public class Server {
 
     public void doAutoSave() {
         if (this.getAutoSave()) {
+            AutoSaveEvent event = new AutoSaveEvent();
+            event.begin();
+            event.players = this.players.size();
+            event.levels = this.levelArray.length;
             Timings.levelSaveTimer.startTiming();
             for (Player player : new ArrayList<>(this.players.values())) {
                 if (player.isOnline()) {
@@ -1366,7 +1473,9 @@ public class Server {
             for (Level level : this.levelArray) {
                 level.save();
             }
+            this.mapManager.save(true);
             Timings.levelSaveTimer.stopTiming();
+            event.commit();
         }
     }
 
@@ -1406,6 +1515,8 @@ public class Server {
 
         this.checkTickUpdates(this.tickCounter, tickTime);
 
+        this.flushInventories();
+
         for (Player player : new ArrayList<>(this.players.values())) {
             player.checkNetwork();
         }
@@ -1446,12 +1557,17 @@ public class Server {
             }
         }
 
+        this.chunkResidencyManager.tick(this.tickCounter);
+
         Timings.fullServerTickTimer.stopTiming();
         //long now = System.currentTimeMillis();
         long nowNano = System.nanoTime();
         //float tick = Math.min(20, 1000 / Math.max(1, now - tickTime));
         //float use = Math.min(1, (now - tickTime) / 50);
 
+        this.lastTickNanos = nowNano - tickTimeNano;
+        PerformanceMetrics.recordTick(this.lastTickNanos);
+
         float tick = (float) Math.min(20, 1000000000 / Math.max(1000000, ((double) nowNano - tickTimeNano)));
         float use = (float) Math.min(1, ((double) (nowNano - tickTimeNano)) / 50000000);
 
@@ -1767,6 +1883,21 @@ public class Server {
         return resourcePackManager;
     }
 
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public MapManager getMapManager() {
+        return mapManager;
+    }
+
+    /**
+     * Keeps the memory used by the loaded chunks within the configured budget.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public ChunkResidencyManager getChunkResidencyManager() {
+        return chunkResidencyManager;
+    }
+
     public ScoreboardManager getScoreboardManager() {
         return scoreboardManager;
     }
@@ -1796,6 +1927,15 @@ public class Server {
         return (float) NukkitMath.round(this.maxUse * 100, 2);
     }
 
+    /**
+     * @return how long the last complete tick took to run, in nanoseconds
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
     public float getTickUsageAverage() {
         float sum = 0;
         int count = this.useAverage.length;
@@ -2335,6 +2475,40 @@ public class Server {
         this.redstoneEnabled = redstoneEnabled;
     }
 
+    /**
+     * @return How many commands the command blocks can execute in a tick, {@code 0} for no limit
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getCommandBlockExecutionsPerTick() {
+        return commandBlockExecutionsPerTick;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void setCommandBlockExecutionsPerTick(int commandBlockExecutionsPerTick) {
+        this.commandBlockExecutionsPerTick = Math.max(0, commandBlockExecutionsPerTick);
+    }
+
+    /**
+     * Takes a command block execution from the budget of the current tick.
+     *
+     * @return {@code false} if the command blocks already executed all the commands allowed in this tick
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean tryExecuteCommandBlock() {
+        if (this.commandBlockExecutionsTick != this.tickCounter) {
+            this.commandBlockExecutionsTick = this.tickCounter;
+            this.commandBlockExecutions = 0;
+        }
+        if (this.commandBlockExecutionsPerTick > 0 && this.commandBlockExecutions >= this.commandBlockExecutionsPerTick) {
+            return false;
+        }
+        this.commandBlockExecutions++;
+        return true;
+    }
+
     public Network getNetwork() {
         return network;
     }
@@ -12,13 +12,12 @@ import cn.nukkit.item.Item;
 import cn.nukkit.item.ItemBlock;
 import cn.nukkit.level.Level;
 import cn.nukkit.level.Sound;
+import cn.nukkit.level.liquid.LiquidFlowEngine;
 import cn.nukkit.level.particle.SmokeParticle;
 import cn.nukkit.math.AxisAlignedBB;
 import cn.nukkit.math.BlockFace;
 import cn.nukkit.math.Vector3;
 import cn.nukkit.network.protocol.LevelEventPacket;
-import it.unimi.dsi.fastutil.longs.Long2ByteMap;
-import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
 
 import javax.annotation.Nonnull;
 import java.util.Random;
@@ -36,12 +35,8 @@ public abstract class BlockLiquid extends BlockTransparentMeta {
     @Since("1.4.0.0-PN")
     public static final BlockProperties PROPERTIES = new BlockProperties(LIQUID_DEPTH);
 
-    private static final byte CAN_FLOW_DOWN = 1;
-    private static final byte CAN_FLOW = 0;
-    private static final byte BLOCKED = -1;
     public int adjacentSources = 0;
     protected Vector3 flowVector = null;
-    private final Long2ByteMap flowCostVisited = new Long2ByteOpenHashMap();
 
     protected BlockLiquid(int meta) {
         super(meta);
@@ -159,7 +154,6 @@ public abstract class BlockLiquid extends BlockTransparentMeta {
 
     public void clearCaches() {
         this.flowVector = null;
-        this.flowCostVisited.clear();
     }
 
     public Vector3 getFlowVector() {
@@ -250,20 +244,25 @@ public abstract class BlockLiquid extends BlockTransparentMeta {
             this.level.scheduleUpdate(this, this.tickRate());
             return 0;
         } else if (type == Level.BLOCK_UPDATE_SCHEDULED) {
+            LiquidFlowEngine engine = this.level.getLiquidFlowEngine();
+            int id = this.getId();
+            int x = (int) this.x;
+            int y = (int) this.y;
+            int z = (int) this.z;
             int decay = this.getFlowDecay(this);
             int multiplier = this.getFlowDecayPerBlock();
             if (decay > 0) {
                 int smallestFlowDecay = -100;
                 this.adjacentSources = 0;
-                smallestFlowDecay = this.getSmallestFlowDecay(this.level.getBlock((int) this.x, (int) this.y, (int) this.z - 1), smallestFlowDecay);
-                smallestFlowDecay = this.getSmallestFlowDecay(this.level.getBlock((int) this.x, (int) this.y, (int) this.z + 1), smallestFlowDecay);
-                smallestFlowDecay = this.getSmallestFlowDecay(this.level.getBlock((int) this.x - 1, (int) this.y, (int) this.z), smallestFlowDecay);
-                smallestFlowDecay = this.getSmallestFlowDecay(this.level.getBlock((int) this.x + 1, (int) this.y, (int) this.z), smallestFlowDecay);
+                smallestFlowDecay = this.getSmallestFlowDecay(engine.getFlowDecay(id, x, y, z - 1), smallestFlowDecay);
+                smallestFlowDecay = this.getSmallestFlowDecay(engine.getFlowDecay(id, x, y, z + 1), smallestFlowDecay);
+                smallestFlowDecay = this.getSmallestFlowDecay(engine.getFlowDecay(id, x - 1, y, z), smallestFlowDecay);
+                smallestFlowDecay = this.getSmallestFlowDecay(engine.getFlowDecay(id, x + 1, y, z), smallestFlowDecay);
                 int newDecay = smallestFlowDecay + multiplier;
                 if (newDecay >= 8 || smallestFlowDecay < 0) {
                     newDecay = -1;
                 }
-                int topFlowDecay = this.getFlowDecay(this.level.getBlock((int) this.x, (int) this.y + 1, (int) this.z));
+                int topFlowDecay = engine.getFlowDecay(id, x, y + 1, z);
                 if (topFlowDecay >= 0) {
                     newDecay = topFlowDecay | 0x08;
                 }
@@ -292,7 +291,8 @@ public abstract class BlockLiquid extends BlockTransparentMeta {
                     BlockFromToEvent event = new BlockFromToEvent(this, to);
                     level.getServer().getPluginManager().callEvent(event);
                     if (!event.isCancelled()) {
-                        this.level.setBlock(this, layer, event.getTo(), true, true);
+                        // Not direct, the changes are sent together at the end of the tick
+                        this.level.setBlock(this, layer, event.getTo(), false, true);
                         if (!decayed) {
                             this.level.scheduleUpdate(this, this.tickRate());
                         }
@@ -300,7 +300,7 @@ public abstract class BlockLiquid extends BlockTransparentMeta {
                 }
             }
             if (decay >= 0) {
-                Block bottomBlock = this.level.getBlock((int) this.x, (int) this.y - 1, (int) this.z);
+                Block bottomBlock = this.level.getBlock(x, y - 1, z);
                 this.flowIntoBlock(bottomBlock, decay | 0x08);
                 if (decay == 0 || !(usesWaterLogging()? bottomBlock.canWaterloggingFlowInto(): bottomBlock.canBeFlowedInto())) {
                     int adjacentDecay;
@@ -310,18 +310,18 @@ public abstract class BlockLiquid extends BlockTransparentMeta {
                         adjacentDecay = decay + multiplier;
                     }
                     if (adjacentDecay < 8) {
-                        boolean[] flags = this.getOptimalFlowDirections();
-                        if (flags[0]) {
-                            this.flowIntoBlock(this.level.getBlock((int) this.x - 1, (int) this.y, (int) this.z), adjacentDecay);
+                        int directions = engine.getOptimalFlowDirections(this);
+                        if ((directions & 0x1) != 0) {
+                            this.flowIntoBlock(this.level.getBlock(x - 1, y, z), adjacentDecay);
                         }
-                        if (flags[1]) {
-                            this.flowIntoBlock(this.level.getBlock((int) this.x + 1, (int) this.y, (int) this.z), adjacentDecay);
+                        if ((directions & 0x2) != 0) {
+                            this.flowIntoBlock(this.level.getBlock(x + 1, y, z), adjacentDecay);
                         }
-                        if (flags[2]) {
-                            this.flowIntoBlock(this.level.getBlock((int) this.x, (int) this.y, (int) this.z - 1), adjacentDecay);
+                        if ((directions & 0x4) != 0) {
+                            this.flowIntoBlock(this.level.getBlock(x, y, z - 1), adjacentDecay);
                         }
-                        if (flags[3]) {
-                            this.flowIntoBlock(this.level.getBlock((int) this.x, (int) this.y, (int) this.z + 1), adjacentDecay);
+                        if ((directions & 0x8) != 0) {
+                            this.flowIntoBlock(this.level.getBlock(x, y, z + 1), adjacentDecay);
                         }
                     }
                 }
@@ -350,60 +350,12 @@ public abstract class BlockLiquid extends BlockTransparentMeta {
                 if (block.layer == 0 && block.getId() > 0) {
                     this.level.useBreakOn(block, block.getId() == COBWEB ? Item.get(Item.WOODEN_SWORD) : null);
                 }
-                this.level.setBlock(block, block.layer, getBlock(newFlowDecay), true, true);
+                this.level.setBlock(block, block.layer, getBlock(newFlowDecay), false, true);
                 this.level.scheduleUpdate(block, this.tickRate());
             }
         }
     }
 
-    private int calculateFlowCost(int blockX, int blockY, int blockZ, int accumulatedCost, int maxCost, int originOpposite, int lastOpposite) {
-        int cost = 1000;
-        for (int j = 0; j < 4; ++j) {
-            if (j == originOpposite || j == lastOpposite) {
-                continue;
-            }
-            int x = blockX;
-            int y = blockY;
-            int z = blockZ;
-            if (j == 0) {
-                --x;
-            } else if (j == 1) {
-                ++x;
-            } else if (j == 2) {
-                --z;
-            } else if (j == 3) {
-                ++z;
-            }
-            long hash = Level.blockHash(x, y, z, this.getLevel());
-            if (!this.flowCostVisited.containsKey(hash)) {
-                Block blockSide = this.level.getBlock(x, y, z);
-                if (!this.canFlowInto(blockSide)) {
-                    this.flowCostVisited.put(hash, BLOCKED);
-                } else if (usesWaterLogging()?
-                        this.level.getBlock(x, y - 1, z).canWaterloggingFlowInto() :
-                        this.level.getBlock(x, y - 1, z).canBeFlowedInto()) {
-                    this.flowCostVisited.put(hash, CAN_FLOW_DOWN);
-                } else {
-                    this.flowCostVisited.put(hash, CAN_FLOW);
-                }
-            }
-            byte status = this.flowCostVisited.get(hash);
-            if (status == BLOCKED) {
-                continue;
-            } else if (status == CAN_FLOW_DOWN) {
-                return accumulatedCost;
-            }
-            if (accumulatedCost >= maxCost) {
-                continue;
-            }
-            int realCost = this.calculateFlowCost(x, y, z, accumulatedCost + 1, maxCost, originOpposite, j ^ 0x01);
-            if (realCost < cost) {
-                cost = realCost;
-            }
-        }
-        return cost;
-    }
-
     @Override
     public double getHardness() {
         return 100d;
@@ -414,58 +366,7 @@ public abstract class BlockLiquid extends BlockTransparentMeta {
         return 500;
     }
 
-    private boolean[] getOptimalFlowDirections() {
-        int[] flowCost = new int[]{
-                1000,
-                1000,
-                1000,
-                1000
-        };
-        int maxCost = 4 / this.getFlowDecayPerBlock();
-        for (int j = 0; j < 4; ++j) {
-            int x = (int) this.x;
-            int y = (int) this.y;
-            int z = (int) this.z;
-            if (j == 0) {
-                --x;
-            } else if (j == 1) {
-                ++x;
-            } else if (j == 2) {
-                --z;
-            } else {
-                ++z;
-            }
-            Block block = this.level.getBlock(x, y, z);
-            if (!this.canFlowInto(block)) {
-                this.flowCostVisited.put(Level.blockHash(x, y, z, this.getLevel()), BLOCKED);
-            } else if (usesWaterLogging()?
-                    this.level.getBlock(x, y - 1, z).canWaterloggingFlowInto():
-                    this.level.getBlock(x, y - 1, z).canBeFlowedInto()) {
-                this.flowCostVisited.put(Level.blockHash(x, y, z, this.getLevel()), CAN_FLOW_DOWN);
-                flowCost[j] = maxCost = 0;
-            } else if (maxCost > 0) {
-                this.flowCostVisited.put(Level.blockHash(x, y, z, this.getLevel()), CAN_FLOW);
-                flowCost[j] = this.calculateFlowCost(x, y, z, 1, maxCost, j ^ 0x01, j ^ 0x01);
-                maxCost = Math.min(maxCost, flowCost[j]);
-            }
-        }
-        this.flowCostVisited.clear();
-        double minCost = Double.MAX_VALUE;
-        for (int i = 0; i < 4; i++) {
-            double d = flowCost[i];
-            if (d < minCost) {
-                minCost = d;
-            }
-        }
-        boolean[] isOptimalFlowDirection = new boolean[4];
-        for (int i = 0; i < 4; ++i) {
-            isOptimalFlowDirection[i] = (flowCost[i] == minCost);
-        }
-        return isOptimalFlowDirection;
-    }
-
-    private int getSmallestFlowDecay(Block block, int decay) {
-        int blockDecay = this.getFlowDecay(block);
+    private int getSmallestFlowDecay(int blockDecay, int decay) {
         if (blockDecay < 0) {
             return decay;
         } else if (blockDecay == 0) {
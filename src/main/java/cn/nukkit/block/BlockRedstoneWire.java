@@ -12,6 +12,7 @@ import cn.nukkit.item.Item;
 import cn.nukkit.item.ItemRedstone;
 import cn.nukkit.level.Level;
 import cn.nukkit.level.Position;
+import cn.nukkit.level.redstone.RedstoneWireEngine;
 import cn.nukkit.math.BlockFace;
 import cn.nukkit.math.BlockFace.Plane;
 import cn.nukkit.math.Vector3;
@@ -20,8 +21,6 @@ import cn.nukkit.utils.RedstoneComponent;
 
 import javax.annotation.Nonnull;
 import java.util.EnumSet;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * @author Angelic47 (Nukkit Project)
@@ -34,7 +33,6 @@ public class BlockRedstoneWire extends BlockFlowable implements RedstoneComponen
     public static final BlockProperties PROPERTIES = CommonBlockProperties.REDSTONE_SIGNAL_BLOCK_PROPERTY;
 
     private boolean canProvidePower = true;
-    private final Set<Vector3> blocksNeedingUpdate = new HashSet<>();
 
     public BlockRedstoneWire() {
         this(0);
@@ -114,14 +112,21 @@ public class BlockRedstoneWire extends BlockFlowable implements RedstoneComponen
 
     @PowerNukkitDifference(info = "Let redstone go down transparent blocks.", since = "1.4.0.0-PN")
     private void calculateCurrentChanges(boolean force) {
+        RedstoneWireEngine engine = this.level.getRedstoneWireEngine();
+        if (engine != null) {
+            if (!engine.updateWire(this) && force) {
+                for (BlockFace face : BlockFace.values()) {
+                    RedstoneComponent.updateAroundRedstone(getSide(face), face.getOpposite());
+                }
+            }
+            return;
+        }
+
         Vector3 pos = this.getLocation();
 
         int meta = this.getDamage();
         int maxStrength = meta;
-        this.canProvidePower = false;
-        int power = this.getIndirectPower();
-
-        this.canProvidePower = true;
+        int power = this.getExternalPower();
 
         if (power > 0 && power > maxStrength - 1) {
             maxStrength = power;
@@ -323,6 +328,18 @@ public class BlockRedstoneWire extends BlockFlowable implements RedstoneComponen
         return this.canProvidePower;
     }
 
+    /**
+     * The power received by this wire from everything that is not a redstone wire.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getExternalPower() {
+        this.canProvidePower = false;
+        int power = this.getIndirectPower();
+        this.canProvidePower = true;
+        return power;
+    }
+
     private int getIndirectPower() {
         int power = 0;
         Vector3 pos = getLocation();
@@ -9,6 +9,7 @@ import cn.nukkit.block.Block;
 import cn.nukkit.block.BlockID;
 import cn.nukkit.level.Position;
 import cn.nukkit.level.format.FullChunk;
+import cn.nukkit.math.BlockFace;
 import cn.nukkit.math.Vector3;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.scheduler.Task;
@@ -230,6 +231,16 @@ public abstract class BlockEntity extends Position {
 
     public abstract boolean isBlockEntityValid();
 
+    /**
+     * Updates this block entity once per tick while it's awake.
+     * <p>Returning {@code true} keeps the block entity awake, so existing block entities are updated every tick
+     * like before. Returning {@code false} puts it to sleep, it will not be updated again until {@link #wakeUp()}
+     * is called. That happens automatically when the inventory of this block entity or of an adjacent block entity
+     * changes, when a neighbour block changes, when an item enters the block space or the space above and after
+     * the time given to {@link #wakeUpAfter(int)}.</p>
+     *
+     * @return {@code false} to sleep until something wakes this block entity up
+     */
     public boolean onUpdate() {
         return false;
     }
@@ -238,6 +249,53 @@ public abstract class BlockEntity extends Position {
         this.level.scheduleBlockEntityUpdate(this);
     }
 
+    /**
+     * Schedules an update for the next tick if this block entity is still valid.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void wakeUp() {
+        if (!this.closed && this.level != null) {
+            this.scheduleUpdate();
+        }
+    }
+
+    /**
+     * Wakes this block entity up after the given amount of ticks, used to sleep between periodic work
+     * instead of being updated every tick.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void wakeUpAfter(int ticks) {
+        if (!this.closed && this.level != null) {
+            this.level.scheduleBlockEntityWakeUp(this, ticks);
+        }
+    }
+
+    /**
+     * Wakes up this block entity and the block entities adjacent to it, like the hoppers pushing or pulling items.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void wakeUpAround() {
+        if (this.closed || this.level == null) {
+            return;
+        }
+        this.scheduleUpdate();
+        int bx = getFloorX();
+        int by = getFloorY();
+        int bz = getFloorZ();
+        for (BlockFace face : BlockFace.values()) {
+            this.level.wakeUpBlockEntity(bx + face.getXOffset(), by + face.getYOffset(), bz + face.getZOffset());
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean isSleeping() {
+        return this.closed || this.level == null || !this.level.isBlockEntityUpdateScheduled(this);
+    }
+
     public void close() {
         if (!this.closed) {
             this.closed = true;
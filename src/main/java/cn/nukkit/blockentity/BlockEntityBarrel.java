@@ -4,6 +4,7 @@ import cn.nukkit.api.PowerNukkitOnly;
 import cn.nukkit.block.BlockID;
 import cn.nukkit.inventory.BarrelInventory;
 import cn.nukkit.level.format.FullChunk;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 
 @PowerNukkitOnly
@@ -27,7 +28,7 @@ public class BlockEntityBarrel extends BlockEntitySpawnableContainer implements
 
     @Override
     public CompoundTag getSpawnCompound() {
-        return new CompoundTag()
+        return new CompactCompoundTag()
                 .putString("id", BlockEntity.BARREL)
                 .putInt("x", (int) this.x)
                 .putInt("y", (int) this.y)
@@ -8,6 +8,7 @@ import cn.nukkit.inventory.BeaconInventory;
 import cn.nukkit.item.ItemBlock;
 import cn.nukkit.level.Sound;
 import cn.nukkit.level.format.FullChunk;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.potion.Effect;
 
@@ -53,7 +54,7 @@ public class BlockEntityBeacon extends BlockEntitySpawnable {
 
     @Override
     public CompoundTag getSpawnCompound() {
-        return new CompoundTag()
+        return new CompactCompoundTag()
                 .putString("id", BlockEntity.BEACON)
                 .putInt("x", (int) this.x)
                 .putInt("y", (int) this.y)
@@ -2,6 +2,7 @@ package cn.nukkit.blockentity;
 
 import cn.nukkit.item.Item;
 import cn.nukkit.level.format.FullChunk;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.utils.DyeColor;
 
@@ -41,7 +42,7 @@ public class BlockEntityBed extends BlockEntitySpawnable {
 
     @Override
     public CompoundTag getSpawnCompound() {
-        return new CompoundTag()
+        return new CompactCompoundTag()
                 .putString("id", BlockEntity.BED)
                 .putInt("x", (int) this.x)
                 .putInt("y", (int) this.y)
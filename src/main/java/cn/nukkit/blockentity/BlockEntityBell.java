@@ -6,6 +6,7 @@ import cn.nukkit.block.Block;
 import cn.nukkit.level.Sound;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.nbt.tag.ByteTag;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.nbt.tag.IntTag;
 
@@ -130,7 +131,7 @@ public class BlockEntityBell extends BlockEntitySpawnable {
 
     @Override
     public CompoundTag getSpawnCompound() {
-        CompoundTag tag = new CompoundTag()
+        CompoundTag tag = new CompactCompoundTag()
                 .putString("id", BlockEntity.BELL)
                 .putInt("x", (int) this.x)
                 .putInt("y", (int) this.y)
@@ -15,6 +15,7 @@ import cn.nukkit.item.Item;
 import cn.nukkit.item.ItemBlock;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.nbt.NBTIO;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 
 import java.util.HashSet;
@@ -172,7 +173,7 @@ public class BlockEntityCampfire extends BlockEntitySpawnable implements Invento
 
     @Override
     public CompoundTag getSpawnCompound() {
-        CompoundTag c = new CompoundTag()
+        CompoundTag c = new CompactCompoundTag()
                 .putString("id", BlockEntity.CAMPFIRE)
                 .putInt("x", (int) this.x)
                 .putInt("y", (int) this.y)
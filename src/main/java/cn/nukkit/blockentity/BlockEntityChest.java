@@ -7,6 +7,7 @@ import cn.nukkit.inventory.ChestInventory;
 import cn.nukkit.inventory.DoubleChestInventory;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.math.Vector3;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 
 import java.util.HashSet;
@@ -160,7 +161,7 @@ public class BlockEntityChest extends BlockEntitySpawnableContainer implements B
     public CompoundTag getSpawnCompound() {
         CompoundTag c;
         if (this.isPaired()) {
-            c = new CompoundTag()
+            c = new CompactCompoundTag()
                     .putString("id", BlockEntity.CHEST)
                     .putInt("x", (int) this.x)
                     .putInt("y", (int) this.y)
@@ -168,7 +169,7 @@ public class BlockEntityChest extends BlockEntitySpawnableContainer implements B
                     .putInt("pairx", this.namedTag.getInt("pairx"))
                     .putInt("pairz", this.namedTag.getInt("pairz"));
         } else {
-            c = new CompoundTag()
+            c = new CompactCompoundTag()
                     .putString("id", BlockEntity.CHEST)
                     .putInt("x", (int) this.x)
                     .putInt("y", (int) this.y)
@@ -8,6 +8,7 @@ import cn.nukkit.block.Block;
 import cn.nukkit.block.BlockCommandBlock;
 import cn.nukkit.block.BlockCommandBlockChain;
 import cn.nukkit.block.BlockID;
+import cn.nukkit.command.CompiledCommand;
 import cn.nukkit.event.block.CommandBlockExecuteEvent;
 import cn.nukkit.inventory.CommandBlockInventory;
 import cn.nukkit.inventory.Inventory;
@@ -53,6 +54,9 @@ public class BlockEntityCommandBlock extends BlockEntitySpawnable implements ICo
     protected final Set<Player> viewers = Sets.newHashSet();
     protected int currentTick;
 
+    // Parsed once with its selectors, until the command changes
+    private CompiledCommand compiledCommand;
+
     public BlockEntityCommandBlock(FullChunk chunk, CompoundTag nbt) {
         super(chunk, nbt);
     }
@@ -293,6 +297,14 @@ public class BlockEntityCommandBlock extends BlockEntitySpawnable implements ICo
                             cmd = cmd.substring(1);
                         }
 
+                        if (!this.getServer().tryExecuteCommandBlock()) {
+                            // The command blocks used their budget of this tick, the repeating ones run again anyway
+                            if (this.getMode() != MODE_REPEATING) {
+                                this.getServer().getScheduler().scheduleDelayedTask(new CommandBlockTrigger(this, chain), 1);
+                            }
+                            return false;
+                        }
+
                         CommandBlockExecuteEvent event = new CommandBlockExecuteEvent(this.getBlock(),cmd);
                         Server.getInstance().getPluginManager().callEvent(event);
                         if(event.isCancelled()){
@@ -306,7 +318,11 @@ public class BlockEntityCommandBlock extends BlockEntitySpawnable implements ICo
                                 this.successCount = 0;
                             }
                         } else {
-                            if (Server.getInstance().dispatchCommand(this, cmd)) {
+                            CompiledCommand compiled = this.compiledCommand;
+                            if (compiled == null || !compiled.getCommandLine().equals(cmd)) {
+                                compiled = this.compiledCommand = this.getServer().getCommandMap().compile(cmd);
+                            }
+                            if (Server.getInstance().dispatchCommand(this, compiled)) {
                                 this.successCount = 1; //TODO: >1
                             } else {
                                 this.successCount = 0;
@@ -351,6 +367,7 @@ public class BlockEntityCommandBlock extends BlockEntitySpawnable implements ICo
     @Override
     public void setCommand(String command) {
         this.command = command;
+        this.compiledCommand = null;
         this.successCount = 0;
     }
 
@@ -15,6 +15,7 @@ import cn.nukkit.level.biome.type.SnowyBiome;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.math.SimpleAxisAlignedBB;
 import cn.nukkit.math.Vector2;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.potion.Effect;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
@@ -368,7 +369,7 @@ public class BlockEntityConduit extends BlockEntitySpawnable {
 
     @Override
     public CompoundTag getSpawnCompound() {
-        CompoundTag tag = new CompoundTag()
+        CompoundTag tag = new CompactCompoundTag()
                 .putString("id", BlockEntity.CONDUIT)
                 .putInt("x", (int) this.x)
                 .putInt("y", (int) this.y)
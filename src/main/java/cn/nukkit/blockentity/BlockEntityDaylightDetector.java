@@ -9,6 +9,7 @@ import cn.nukkit.nbt.tag.CompoundTag;
 
 @PowerNukkitOnly
 public class BlockEntityDaylightDetector extends BlockEntity {
+    private static final int UPDATE_INTERVAL = 20;
 
     @PowerNukkitOnly
     public BlockEntityDaylightDetector(FullChunk chunk, CompoundTag nbt) {
@@ -30,7 +31,9 @@ public class BlockEntityDaylightDetector extends BlockEntity {
         Block block = getLevelBlock();
         if (block instanceof BlockDaylightDetector) {
             ((BlockDaylightDetector) getBlock()).updatePower();
-            return true;
+            // The daylight changes slowly, there's no need to check it every tick
+            wakeUpAfter(UPDATE_INTERVAL);
+            return false;
         } else {
             return false;
         }
@@ -9,6 +9,7 @@ import cn.nukkit.item.Item;
 import cn.nukkit.item.ItemBlock;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.nbt.NBTIO;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.nbt.tag.ListTag;
 
@@ -102,7 +103,7 @@ public abstract class BlockEntityEjectable  extends BlockEntitySpawnable impleme
 
     @Override
     public CompoundTag getSpawnCompound() {
-        CompoundTag c = new CompoundTag()
+        CompoundTag c = new CompactCompoundTag()
                 .putString("id", getBlockEntityName())
                 .putInt("x", (int) this.x)
                 .putInt("y", (int) this.y)
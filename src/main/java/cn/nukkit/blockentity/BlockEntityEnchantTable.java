@@ -2,6 +2,7 @@ package cn.nukkit.blockentity;
 
 import cn.nukkit.block.Block;
 import cn.nukkit.level.format.FullChunk;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 
 /**
@@ -40,7 +41,7 @@ public class BlockEntityEnchantTable extends BlockEntitySpawnable implements Blo
 
     @Override
     public CompoundTag getSpawnCompound() {
-        CompoundTag c = new CompoundTag()
+        CompoundTag c = new CompactCompoundTag()
                 .putString("id", BlockEntity.ENCHANT_TABLE)
                 .putInt("x", (int) this.x)
                 .putInt("y", (int) this.y)
@@ -2,6 +2,7 @@ package cn.nukkit.blockentity;
 
 import cn.nukkit.block.Block;
 import cn.nukkit.level.format.FullChunk;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 
 public class BlockEntityEnderChest extends BlockEntitySpawnable {
@@ -22,7 +23,7 @@ public class BlockEntityEnderChest extends BlockEntitySpawnable {
 
     @Override
     public CompoundTag getSpawnCompound() {
-        return new CompoundTag()
+        return new CompactCompoundTag()
                 .putString("id", BlockEntity.ENDER_CHEST)
                 .putInt("x", (int) this.x)
                 .putInt("y", (int) this.y)
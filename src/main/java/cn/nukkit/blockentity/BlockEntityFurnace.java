@@ -16,6 +16,7 @@ import cn.nukkit.item.ItemBucket;
 import cn.nukkit.level.Sound;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.nbt.NBTIO;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.nbt.tag.ListTag;
 import cn.nukkit.network.protocol.ContainerSetDataPacket;
@@ -358,7 +359,7 @@ public class BlockEntityFurnace extends BlockEntitySpawnable implements Inventor
 
     @Override
     public CompoundTag getSpawnCompound() {
-        CompoundTag c = new CompoundTag()
+        CompoundTag c = new CompactCompoundTag()
                 .putString("id", getClientName())
                 .putInt("x", (int) this.x)
                 .putInt("y", (int) this.y)
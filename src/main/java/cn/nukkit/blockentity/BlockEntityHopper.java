@@ -22,6 +22,7 @@ import cn.nukkit.math.BlockFace;
 import cn.nukkit.math.BlockVector3;
 import cn.nukkit.math.SimpleAxisAlignedBB;
 import cn.nukkit.nbt.NBTIO;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.nbt.tag.ListTag;
 
@@ -212,8 +213,8 @@ public class BlockEntityHopper extends BlockEntitySpawnable implements Inventory
             setDirty();
         }
 
-
-        return true;
+        // When nothing could be moved the hopper sleeps until an inventory, a neighbour block or the items above changes
+        return changed;
     }
 
     @Since("1.4.0.0-PN")
@@ -549,7 +550,7 @@ public class BlockEntityHopper extends BlockEntitySpawnable implements Inventory
 
     @Override
     public CompoundTag getSpawnCompound() {
-        CompoundTag c = new CompoundTag()
+        CompoundTag c = new CompactCompoundTag()
                 .putString("id", BlockEntity.HOPPER)
                 .putInt("x", (int) this.x)
                 .putInt("y", (int) this.y)
@@ -6,6 +6,7 @@ import cn.nukkit.block.BlockID;
 import cn.nukkit.blockproperty.value.NetherReactorState;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.math.MathHelper;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 
 /**
@@ -86,7 +87,7 @@ public class BlockEntityNetherReactor extends BlockEntitySpawnable {
     @Override
     public CompoundTag getSpawnCompound() {
         NetherReactorState reactorState = getReactorState();
-        return new CompoundTag()
+        return new CompactCompoundTag()
                 .putString("id", BlockEntity.NETHER_REACTOR)
                 .putInt("x", (int) this.x)
                 .putInt("y", (int) this.y)
@@ -93,10 +93,19 @@ public abstract class Command {
 
     public void setCommandParameters(Map<String, CommandParameter[]> commandParameters) {
         this.commandParameters = commandParameters;
+        this.invalidateCommandData();
     }
 
     public void addCommandParameters(String key, CommandParameter[] parameters) {
         this.commandParameters.put(key, parameters);
+        this.invalidateCommandData();
+    }
+
+    // The players are sent the command data cached by the command map
+    private void invalidateCommandData() {
+        if (this.commandMap instanceof SimpleCommandMap) {
+            ((SimpleCommandMap) this.commandMap).invalidateCommandData();
+        }
     }
 
     /**
@@ -253,10 +262,12 @@ public abstract class Command {
         if (!this.isRegistered()) {
             this.activeAliases = aliases;
         }
+        this.invalidateCommandData();
     }
 
     public void setDescription(String description) {
         this.description = description;
+        this.invalidateCommandData();
     }
 
     public void setPermissionMessage(String permissionMessage) {
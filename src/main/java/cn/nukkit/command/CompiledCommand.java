@@ -0,0 +1,57 @@
+package cn.nukkit.command;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+
+import java.util.List;
+
+/**
+ * A command line parsed once by {@link SimpleCommandMap#compile(String)} to be dispatched many times, like the
+ * command of a command block. It keeps the compiled selectors of its arguments, so they are shared with the commands
+ * matching them for as long as the command line doesn't change.
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public final class CompiledCommand {
+    private final String commandLine;
+    private final String label;
+    private final String[] args;
+    private final List<EntitySelector.Compiled> selectors;
+
+    CompiledCommand(String commandLine, String label, String[] args, List<EntitySelector.Compiled> selectors) {
+        this.commandLine = commandLine;
+        this.label = label;
+        this.args = args;
+        this.selectors = selectors;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public String getCommandLine() {
+        return commandLine;
+    }
+
+    /**
+     * @return The lower case name or alias of the command, empty if the command line is empty
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return A copy of the arguments, the commands are free to change it
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public String[] getArgs() {
+        return args.clone();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public List<EntitySelector.Compiled> getSelectors() {
+        return selectors;
+    }
+}
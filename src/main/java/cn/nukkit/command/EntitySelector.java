@@ -1,6 +1,9 @@
 package cn.nukkit.command;
 
 import cn.nukkit.Player;
+import cn.nukkit.api.PowerNukkitDifference;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.command.exceptions.SelectorSyntaxException;
 import cn.nukkit.entity.Entity;
 import cn.nukkit.level.Level;
@@ -9,13 +12,17 @@ import cn.nukkit.network.protocol.AddEntityPacket;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.*;
+import lombok.extern.log4j.Log4j2;
 
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
+@Log4j2
 public final class EntitySelector {
 
     private static final Map<Integer, String> ENTITY_ID2NAME = AddEntityPacket.LEGACY_IDS;
@@ -56,92 +63,202 @@ public final class EntitySelector {
     private static final Set<String> LEVEL_ARGS = Sets.newHashSet(ARG_X, ARG_Y, ARG_Z, ARG_DX, ARG_DY, ARG_DZ, ARG_RM, ARG_R);
     private static final Predicate<String> VALID_ARGUMENT = arg -> arg != null && ARGS.contains(arg);
 
+    // The invalid tokens are cached too, bounded by the size, the others live while a command block references them
+    private static final Compiled INVALID = new Compiled("s", Collections.emptyMap());
+    private static final Cache<String, Compiled> COMPILED = CacheBuilder.newBuilder().maximumSize(4096).weakValues().build();
+
     private static String registerArgument(String arg) {
         ARGS.add(arg);
         return arg;
     }
 
+    /**
+     * Finds the entities matched by the selector, compiling it once for all the senders using the same token.
+     *
+     * @return The matched entities, empty if the token isn't a valid selector
+     */
+    @PowerNukkitDifference(info = "Compiles the selector once and looks up the entities in its bounds", since = "1.6.0.0-PNX")
     public static List<Entity> matchEntities(CommandSender sender, String token) {
-        Matcher matcher = ENTITY_SELECTOR.matcher(token);
+        Compiled selector = compile(token);
+        return selector != null ? selector.match(sender) : Collections.emptyList();
+    }
+
+    /**
+     * Parses the selector and builds the filters which don't depend on the sender. The compiled selectors are shared
+     * while something references them, like the compiled command of a command block.
+     *
+     * @return The compiled selector, or {@code null} if the token isn't a valid selector
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Nullable
+    public static Compiled compile(String token) {
+        Compiled selector = COMPILED.getIfPresent(token);
+        if (selector != null) {
+            return selector == INVALID ? null : selector;
+        }
 
+        Matcher matcher = ENTITY_SELECTOR.matcher(token);
+        selector = INVALID;
         if (matcher.matches()) {
-            Map<String, List<String>> args = null;
             try {
-                args = getArgumentMap(matcher.group(2));
+                Map<String, List<String>> args = getArgumentMap(matcher.group(2));
+                if (isEntityTypeValid(args)) {
+                    selector = new Compiled(matcher.group(1), args);
+                }
             } catch (SelectorSyntaxException e) {
-                e.printStackTrace();
+                log.debug("Invalid selector {}", token, e);
             }
+        }
+        COMPILED.put(token, selector);
+        return selector == INVALID ? null : selector;
+    }
+
+    /**
+     * A selector parsed once and matched against the entities of the sender's levels each time it is used.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static final class Compiled {
+        private final String selectorType;
+        private final Map<String, List<String>> args;
+        private final List<Predicate<Entity>> predicates;
+        private final boolean levelArgument;
+        private final boolean box;
+        private final int dx;
+        private final int dy;
+        private final int dz;
+        private final int r;
+        private final int c;
+
+        private Compiled(String selectorType, Map<String, List<String>> args) {
+            this.selectorType = selectorType;
+            this.args = args;
+
+            List<Predicate<Entity>> predicates = Lists.newArrayList();
+            predicates.addAll(getTypePredicates(args, selectorType));
+            predicates.addAll(getXpLevelPredicates(args));
+            predicates.addAll(getGamemodePredicates(args));
+            predicates.addAll(getNamePredicates(args));
+            predicates.addAll(getRotationsPredicates(args));
+            predicates.addAll(getTagsPredicates(args));
+            this.predicates = predicates;
+
+            this.levelArgument = hasLevelArgument(args);
+            this.box = args.containsKey(ARG_DX) || args.containsKey(ARG_DY) || args.containsKey(ARG_DZ);
+            this.dx = getInt(args, ARG_DX, 0);
+            this.dy = getInt(args, ARG_DY, 0);
+            this.dz = getInt(args, ARG_DZ, 0);
+            this.r = getInt(args, ARG_R, -1);
+            this.c = getInt(args, ARG_C, !selectorType.equals("a") && !selectorType.equals("e") ? 1 : 0);
+        }
+
+        @PowerNukkitOnly
+        @Since("1.6.0.0-PNX")
+        public List<Entity> match(CommandSender sender) {
+            BlockVector3 blockVec = getBlockVectorFromArguments(args, sender);
+            Vector3 vec = getVector3FromArguments(args, sender);
+
+            // The distance is the cheapest filter to reject an entity
+            List<Predicate<Entity>> predicates = Lists.newArrayList(getRadiusPredicates(args, vec));
+            predicates.addAll(this.predicates);
 
-            if (isEntityTypeValid(args)) {
-                String selectorType = matcher.group(1);
-
-                BlockVector3 blockVec = getBlockVectorFromArguments(args, sender);
-                Vector3 vec = getVector3FromArguments(args, sender);
-                List<Level> levels = getLevels(sender, args);
-
-                List<Entity> matchingEntities = Lists.newArrayList();
-
-                for (Level level : levels) {
-                    if (level != null) {
-                        List<Predicate<Entity>> predicates = Lists.newArrayList();
-                        predicates.addAll(getTypePredicates(args, selectorType));
-                        predicates.addAll(getXpLevelPredicates(args));
-                        predicates.addAll(getGamemodePredicates(args));
-                        predicates.addAll(getNamePredicates(args));
-                        predicates.addAll(getRadiusPredicates(args, vec));
-                        predicates.addAll(getRotationsPredicates(args));
-                        predicates.addAll(getTagsPredicates(args));
-
-                        if ("s".equalsIgnoreCase(selectorType)) {
-                            Entity entity = null;
-                            if (sender.isEntity()){
-                                entity = sender.asEntity();
-                            }
-                            if (entity != null) {
-                                if (args.containsKey(ARG_DX) || args.containsKey(ARG_DY) || args.containsKey(ARG_DZ)) {
-                                    int dx = getInt(args, ARG_DX, 0);
-                                    int dy = getInt(args, ARG_DY, 0);
-                                    int dz = getInt(args, ARG_DZ, 0);
-                                    AxisAlignedBB aabb = getAABB(blockVec, dx, dy, dz);
-
-                                    if (!aabb.intersectsWith(entity.getBoundingBox())) {
-                                        return Collections.emptyList();
-                                    }
-                                }
-
-                                for (Predicate<Entity> predicate : predicates) {
-                                    if (!predicate.apply(entity)) {
-                                        return Collections.emptyList();
-                                    }
-                                }
-
-                                return Lists.newArrayList(entity);
-                            }else {
-                                return Collections.emptyList();
-                            }
-                        }
-
-                        matchingEntities.addAll(filterResults(args, predicates, selectorType, level, blockVec));
+            if ("s".equalsIgnoreCase(selectorType)) {
+                Entity entity = null;
+                if (sender.isEntity()) {
+                    entity = sender.asEntity();
+                }
+                if (entity == null) {
+                    return Collections.emptyList();
+                }
+                if (box && !getAABB(blockVec, dx, dy, dz).intersectsWith(entity.getBoundingBox())) {
+                    return Collections.emptyList();
+                }
+                for (Predicate<Entity> predicate : predicates) {
+                    if (!predicate.apply(entity)) {
+                        return Collections.emptyList();
                     }
                 }
+                return Lists.newArrayList(entity);
+            }
 
-                return getEntitiesFromPredicates(matchingEntities, args, sender, selectorType, vec);
+            List<Entity> matchingEntities = Lists.newArrayList();
+            Predicate<Entity> predicate = Predicates.and(predicates);
+            if (levelArgument) {
+                Level level = sender.getPosition().getLevel();
+                if (level != null) {
+                    filterResults(level, blockVec, predicate, matchingEntities);
+                }
+            } else {
+                for (Level level : sender.getServer().getLevels().values()) {
+                    filterResults(level, blockVec, predicate, matchingEntities);
+                }
             }
+
+            return getEntitiesFromPredicates(matchingEntities, sender, vec);
         }
 
-        return Collections.emptyList();
-    }
+        private void filterResults(Level level, BlockVector3 vec, Predicate<Entity> predicate, List<Entity> results) {
+            List<String> types = getArgument(args, ARG_TYPE);
 
-    private static List<Level> getLevels(CommandSender sender, Map<String, List<String>> argumentMap) {
-        List<Level> levels = Lists.newArrayList();
+            boolean playerOnly = !selectorType.equals("e");
+            boolean random = selectorType.equals("r") && types != null;
 
-        if (hasLevelArgument(argumentMap)) {
-            levels.add(sender.getPosition().getLevel());
-        } else {
-            levels.addAll(sender.getServer().getLevels().values());
+            if (!box) {
+                if (r >= 0) {
+                    AxisAlignedBB aabb = new SimpleAxisAlignedBB(vec.getX() - r, vec.getY() - r, vec.getZ() - r, vec.getX() + r + 1, vec.getY() + r + 1, vec.getZ() + r + 1);
+
+                    if (playerOnly && !random) {
+                        results.addAll(getPlayers(level, predicate));
+                    } else {
+                        results.addAll(getNearbyEntities(level, aabb, predicate));
+                    }
+                } else if (selectorType.equals("a")) {
+                    results.addAll(getPlayers(level, predicate));
+                } else if (!selectorType.equals("p") && (!selectorType.equals("r") || random)) {
+                    results.addAll(getEntities(level, predicate));
+                } else {
+                    results.addAll(getPlayers(level, predicate));
+                }
+            } else {
+                AxisAlignedBB aabb = getAABB(vec, dx, dy, dz);
+
+                if (playerOnly && !random) {
+                    results.addAll(getPlayers(level, Predicates.and(entity -> entity != null && aabb.intersectsWith(entity.getBoundingBox()), predicate)));
+                } else {
+                    results.addAll(getNearbyEntities(level, aabb, predicate));
+                }
+            }
         }
 
-        return levels;
+        private List<Entity> getEntitiesFromPredicates(List<Entity> matchingEntities, CommandSender sender, Vector3 vec) {
+            if (!selectorType.equals("p") && !selectorType.equals("a") && !selectorType.equals("e")) {
+                if (selectorType.equals("r")) {
+                    Collections.shuffle(matchingEntities);
+                }
+            } else {
+                matchingEntities.sort((entity1, entity2) -> ComparisonChain.start().compare(entity1.distanceSquared(vec), entity2.distanceSquared(vec)).result());
+            }
+
+            Entity entity = null;
+            if (sender.isEntity()) {
+                entity = sender.asEntity();
+            }
+
+            if (entity != null && c == 1 && matchingEntities.contains(entity) && !"r".equals(selectorType)) {
+                matchingEntities = Lists.newArrayList(entity);
+            }
+
+            if (c != 0) {
+                if (c < 0) {
+                    Collections.reverse(matchingEntities);
+                }
+
+                matchingEntities = matchingEntities.subList(0, Math.min(Math.abs(c), matchingEntities.size()));
+            }
+
+            return matchingEntities;
+        }
     }
 
     private static boolean isEntityTypeValid(Map<String, List<String>> params) {
@@ -378,84 +495,6 @@ public final class EntitySelector {
         return angle;
     }
 
-    private static List<Entity> filterResults(Map<String, List<String>> params, List<Predicate<Entity>> predicates, String selectorType, Level level, BlockVector3 vec) {
-        List<Entity> results = Lists.newArrayList();
-
-        List<String> types = getArgument(params, ARG_TYPE);
-
-        if (types != null) types = types.stream().map(type -> type.startsWith("!") ? type.substring(1) : type).collect(Collectors.toList());
-        ///todo: check what the use of value "types"
-
-        boolean playerOnly = !selectorType.equals("e");
-        boolean random = selectorType.equals("r") && types != null;
-
-        int dx = getInt(params, ARG_DX, 0);
-        int dy = getInt(params, ARG_DY, 0);
-        int dz = getInt(params, ARG_DZ, 0);
-        int r = getInt(params, ARG_R, -1);
-
-        Predicate<Entity> predicate = Predicates.and(predicates);
-
-        if (!params.containsKey(ARG_DX) && !params.containsKey(ARG_DY) && !params.containsKey(ARG_DZ)) {
-            if (r >= 0) {
-                AxisAlignedBB aabb = new SimpleAxisAlignedBB(vec.getX() - r, vec.getY() - r, vec.getZ() - r, vec.getX() + r + 1, vec.getY() + r + 1, vec.getZ() + r + 1);
-
-                if (playerOnly && !random) {
-                    results.addAll(getPlayers(level, predicate));
-                } else {
-                    results.addAll(getNearbyEntities(level, aabb, predicate));
-                }
-            } else if (selectorType.equals("a")) {
-                results.addAll(getPlayers(level, predicate));
-            } else if (!selectorType.equals("p") && (!selectorType.equals("r") || random)) {
-                results.addAll(getEntities(level, predicate));
-            } else {
-                results.addAll(getPlayers(level, predicate));
-            }
-        } else {
-            AxisAlignedBB aabb = getAABB(vec, dx, dy, dz);
-
-            if (playerOnly && !random) {
-                results.addAll(getPlayers(level, Predicates.and(entity -> entity != null && aabb.intersectsWith(entity.getBoundingBox()), predicate)));
-            } else {
-                results.addAll(getNearbyEntities(level, aabb, predicate));
-            }
-        }
-
-        return results;
-    }
-
-    private static List<Entity> getEntitiesFromPredicates(List<Entity> matchingEntities, Map<String, List<String>> params, CommandSender sender, String selectorType, Vector3 vec) {
-        int c = getInt(params, ARG_C, !selectorType.equals("a") && !selectorType.equals("e") ? 1 : 0);
-
-        if (!selectorType.equals("p") && !selectorType.equals("a") && !selectorType.equals("e")) {
-            if (selectorType.equals("r")) {
-                Collections.shuffle(matchingEntities);
-            }
-        } else {
-            matchingEntities.sort((entity1, entity2) -> ComparisonChain.start().compare(entity1.distanceSquared(vec), entity2.distanceSquared(vec)).result());
-        }
-
-        Entity entity = null;
-        if (sender.isEntity()) {
-            entity = sender.asEntity();
-        }
-
-        if (entity != null && c == 1 && matchingEntities.contains(entity) && !"r".equals(selectorType)) {
-            matchingEntities = Lists.newArrayList(entity);
-        }
-
-        if (c != 0) {
-            if (c < 0) {
-                Collections.reverse(matchingEntities);
-            }
-
-            matchingEntities = matchingEntities.subList(0, Math.min(Math.abs(c), matchingEntities.size()));
-        }
-
-        return matchingEntities;
-    }
-
     private static AxisAlignedBB getAABB(BlockVector3 vec, int dx, int dy, int dz) {
         boolean negativeX = dx < 0;
         boolean negativeY = dy < 0;
@@ -582,6 +621,13 @@ public final class EntitySelector {
     }
 
     private static List<Entity> getNearbyEntities(Level level, AxisAlignedBB aabb, Predicate<Entity> filter) {
+        long chunks = (long) ((MathHelper.floor(aabb.getMaxX()) >> 4) - (MathHelper.floor(aabb.getMinX()) >> 4) + 1)
+                * ((MathHelper.floor(aabb.getMaxZ()) >> 4) - (MathHelper.floor(aabb.getMinZ()) >> 4) + 1);
+        if (chunks > level.getChunks().size()) {
+            // Bounds larger than the loaded area, looking at every entity is cheaper than looking at every chunk
+            return getEntities(level, Predicates.and(entity -> entity != null && aabb.intersectsWith(entity.getBoundingBox()), filter));
+        }
+
         List<Entity> entities = Lists.newArrayList();
 
         for (Entity entity : level.getNearbyEntities(aabb)) {
@@ -1,15 +1,24 @@
 package cn.nukkit.command;
 
+import cn.nukkit.Player;
 import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.command.data.CommandDataVersions;
 import cn.nukkit.command.data.CommandParameter;
 import cn.nukkit.command.defaults.*;
 import cn.nukkit.command.simple.*;
+import cn.nukkit.event.server.DataPacketSendEvent;
 import cn.nukkit.lang.TranslationContainer;
+import cn.nukkit.network.protocol.AvailableCommandsPacket;
+import cn.nukkit.network.protocol.BatchPacket;
+import cn.nukkit.network.protocol.DataPacket;
 import cn.nukkit.utils.TextFormat;
 import cn.nukkit.utils.Utils;
 import io.netty.util.internal.EmptyArrays;
 import lombok.extern.log4j.Log4j2;
 
+import javax.annotation.Nullable;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.Map.Entry;
@@ -24,6 +33,17 @@ public class SimpleCommandMap implements CommandMap {
 
     private final Server server;
 
+    // The distinct registered commands, their index is their bit in the fingerprint of the commands visible to a player
+    private Command[] dataCommands;
+
+    // The commands of dataCommands which override Command.generateCustomCommandData, their data can't be shared
+    private BitSet customDataCommands;
+
+    private int dataCommandsSize;
+
+    // The compressed AvailableCommandsPacket sent to every player who can see the same commands
+    private final Map<BitSet, BatchPacket> commandDataPackets = new HashMap<>();
+
     public SimpleCommandMap(Server server) {
         this.server = server;
         this.setDefaultCommands();
@@ -88,6 +108,11 @@ public class SimpleCommandMap implements CommandMap {
         this.register("nukkit", new StatusCommand("status"));
         this.register("nukkit", new GarbageCollectorCommand("gc"));
         this.register("nukkit", new TimingsCommand("timings"));
+        // The simulated clients load the server like real players, so the load tests must be enabled on purpose
+        if (Boolean.parseBoolean(System.getProperty("enableLoadTest", "false"))) {
+            this.register("nukkit", new LoadTestCommand("loadtest"));
+        }
+        this.register("nukkit", new PerfCommand("perf"));
         this.register("nukkit", new DebugPasteCommand("debugpaste"));
         //this.register("nukkit", new DumpMemoryCommand("dumpmemory"));
 //        }
@@ -130,6 +155,7 @@ public class SimpleCommandMap implements CommandMap {
         }
 
         command.register(this);
+        this.invalidateCommandData();
 
         return registered;
     }
@@ -262,6 +288,48 @@ public class SimpleCommandMap implements CommandMap {
 
         String sentCommandLabel = parsed.remove(0).toLowerCase();
         String[] args = parsed.toArray(EmptyArrays.EMPTY_STRINGS);
+        return this.execute(sender, cmdLine, sentCommandLabel, args);
+    }
+
+    /**
+     * Parses the command line once, with its selectors, to {@link #dispatch(CommandSender, CompiledCommand) dispatch}
+     * it many times.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public CompiledCommand compile(String cmdLine) {
+        ArrayList<String> parsed = parseArguments(cmdLine);
+        if (parsed.size() == 0) {
+            return new CompiledCommand(cmdLine, "", EmptyArrays.EMPTY_STRINGS, Collections.emptyList());
+        }
+
+        String label = parsed.remove(0).toLowerCase();
+        List<EntitySelector.Compiled> selectors = new ArrayList<>();
+        for (String arg : parsed) {
+            if (EntitySelector.hasArguments(arg)) {
+                EntitySelector.Compiled selector = EntitySelector.compile(arg);
+                if (selector != null) {
+                    selectors.add(selector);
+                }
+            }
+        }
+        return new CompiledCommand(cmdLine, label, parsed.toArray(EmptyArrays.EMPTY_STRINGS), selectors);
+    }
+
+    /**
+     * Executes the command of a compiled command line. The command is looked up again, it may have been replaced since
+     * the command line was compiled.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean dispatch(CommandSender sender, CompiledCommand command) {
+        if (command.getLabel().isEmpty()) {
+            return false;
+        }
+        return this.execute(sender, command.getCommandLine(), command.getLabel(), command.getArgs());
+    }
+
+    private boolean execute(CommandSender sender, String cmdLine, String sentCommandLabel, String[] args) {
         Command target = this.getCommand(sentCommandLabel);
 
         if (target == null) {
@@ -289,6 +357,7 @@ public class SimpleCommandMap implements CommandMap {
         }
         this.knownCommands.clear();
         this.setDefaultCommands();
+        this.invalidateCommandData();
     }
 
     @Override
@@ -341,5 +410,92 @@ public class SimpleCommandMap implements CommandMap {
                 this.knownCommands.remove(alias.toLowerCase());
             }
         }
+        this.invalidateCommandData();
+    }
+
+    /**
+     * The commands the player can see, in an {@link AvailableCommandsPacket}.
+     * <p>While no plugin listens to the {@link DataPacketSendEvent}, the packet of a player who can only see commands
+     * which don't override {@link Command#generateCustomCommandData(Player)} is compressed once and shared with every
+     * player who can see the same commands. Otherwise a new packet is generated for the player, so the listeners
+     * receive an {@link AvailableCommandsPacket} they can change and the commands generate their data for the player.</p>
+     *
+     * @return The shared {@link BatchPacket}, a new {@link AvailableCommandsPacket}, or {@code null} if the player can't
+     * see any command
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Nullable
+    public synchronized DataPacket getCommandDataPacket(Player player) {
+        Command[] commands = this.getDataCommands();
+        BitSet visible = new BitSet(commands.length);
+        for (int i = 0; i < commands.length; i++) {
+            if (commands[i].isRegistered() && commands[i].testPermissionSilent(player)) {
+                visible.set(i);
+            }
+        }
+        if (visible.isEmpty()) {
+            return null;
+        }
+
+        if (!DataPacketSendEvent.getHandlers().isEmpty() || visible.intersects(this.customDataCommands)) {
+            return createCommandDataPacket(commands, visible, player);
+        }
+        BatchPacket packet = this.commandDataPackets.get(visible);
+        if (packet == null) {
+            AvailableCommandsPacket pk = createCommandDataPacket(commands, visible, player);
+            pk.tryEncode();
+            packet = pk.compress();
+            this.commandDataPackets.put(visible, packet);
+        }
+        return packet;
+    }
+
+    private Command[] getDataCommands() {
+        Command[] commands = this.dataCommands;
+        if (commands == null || this.dataCommandsSize != this.knownCommands.size()) {
+            // The map can be changed through getCommands()
+            this.invalidateCommandData();
+            commands = this.dataCommands = new LinkedHashSet<>(this.knownCommands.values()).toArray(new Command[0]);
+            this.dataCommandsSize = this.knownCommands.size();
+            BitSet custom = new BitSet(commands.length);
+            for (int i = 0; i < commands.length; i++) {
+                if (hasCustomCommandData(commands[i])) {
+                    custom.set(i);
+                }
+            }
+            this.customDataCommands = custom;
+        }
+        return commands;
+    }
+
+    private static boolean hasCustomCommandData(Command command) {
+        try {
+            return command.getClass().getMethod("generateCustomCommandData", Player.class).getDeclaringClass() != Command.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    private static AvailableCommandsPacket createCommandDataPacket(Command[] commands, BitSet visible, Player player) {
+        AvailableCommandsPacket pk = new AvailableCommandsPacket();
+        pk.commands = new HashMap<>();
+        for (int i = visible.nextSetBit(0); i >= 0; i = visible.nextSetBit(i + 1)) {
+            CommandDataVersions data = commands[i].generateCustomCommandData(player);
+            pk.commands.put(commands[i].getName(), data);
+        }
+        return pk;
+    }
+
+    /**
+     * Forgets the command data sent to the players. It is called when a command is registered or when its description,
+     * aliases or parameters are changed with the setters, it must be called after changing them in another way.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized void invalidateCommandData() {
+        this.dataCommands = null;
+        this.customDataCommands = null;
+        this.commandDataPackets.clear();
     }
 }
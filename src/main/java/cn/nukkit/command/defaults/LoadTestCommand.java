@@ -0,0 +1,140 @@
+package cn.nukkit.command.defaults;
+
+import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.command.CommandSender;
+import cn.nukkit.command.data.CommandEnum;
+import cn.nukkit.command.data.CommandParamType;
+import cn.nukkit.command.data.CommandParameter;
+import cn.nukkit.lang.TranslationContainer;
+import cn.nukkit.network.simulation.LoadTest;
+import cn.nukkit.network.simulation.LoadTestReport;
+import cn.nukkit.utils.TextFormat;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Runs a {@link LoadTest} against this server and prints its report.
+ * <p>It is only registered when the server is started with {@code -DenableLoadTest=true}.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Log4j2
+public class LoadTestCommand extends VanillaCommand {
+    private LoadTest loadTest;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public LoadTestCommand(String name) {
+        super(name, "Runs a load test with simulated clients", "/loadtest start <clients> [seconds] [radius] | stop | status");
+        this.setPermission("nukkit.command.loadtest");
+        this.commandParameters.clear();
+        this.commandParameters.put("start", new CommandParameter[]{
+                CommandParameter.newEnum("start", new CommandEnum("LoadTestStart", "start")),
+                CommandParameter.newType("clients", CommandParamType.INT),
+                CommandParameter.newType("seconds", true, CommandParamType.INT),
+                CommandParameter.newType("radius", true, CommandParamType.INT)
+        });
+        this.commandParameters.put("default", new CommandParameter[]{
+                CommandParameter.newEnum("action", new CommandEnum("LoadTestAction", "stop", "status"))
+        });
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String commandLabel, String[] args) {
+        if (!this.testPermission(sender)) {
+            return true;
+        }
+
+        if (args.length == 0) {
+            sender.sendMessage(new TranslationContainer("commands.generic.usage", usageMessage));
+            return true;
+        }
+
+        switch (args[0].toLowerCase()) {
+            case "start":
+                return start(sender, args);
+            case "stop":
+                if (loadTest == null || !loadTest.isRunning()) {
+                    sender.sendMessage(TextFormat.RED + "No load test is running");
+                } else {
+                    loadTest.stop();
+                }
+                return true;
+            case "status":
+                if (loadTest == null) {
+                    sender.sendMessage(TextFormat.RED + "No load test was started");
+                } else {
+                    sendReport(sender, loadTest.getReport());
+                }
+                return true;
+            default:
+                sender.sendMessage(new TranslationContainer("commands.generic.usage", usageMessage));
+                return true;
+        }
+    }
+
+    private boolean start(CommandSender sender, String[] args) {
+        if (args.length < 2 || args.length > 4) {
+            sender.sendMessage(new TranslationContainer("commands.generic.usage", usageMessage));
+            return true;
+        }
+
+        Server server = sender.getServer();
+        if (loadTest != null && loadTest.isRunning()) {
+            sender.sendMessage(TextFormat.RED + "A load test is already running");
+            return true;
+        }
+        if (server.getPropertyBoolean("xbox-auth")) {
+            sender.sendMessage(TextFormat.RED + "The simulated clients can't log in while xbox-auth is enabled");
+            return true;
+        }
+
+        int clients;
+        int seconds;
+        int radius;
+        try {
+            clients = Integer.parseInt(args[1]);
+            seconds = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+            radius = args.length > 3 ? Integer.parseInt(args[3]) : LoadTest.DEFAULT_CHUNK_RADIUS;
+        } catch (NumberFormatException e) {
+            sender.sendMessage(new TranslationContainer("commands.generic.usage", usageMessage));
+            return true;
+        }
+        if (clients <= 0 || seconds < 0 || radius <= 0) {
+            sender.sendMessage(new TranslationContainer("commands.generic.usage", usageMessage));
+            return true;
+        }
+        if (server.getOnlinePlayers().size() + clients > server.getMaxPlayers()) {
+            sender.sendMessage(TextFormat.GOLD + "The server is limited to " + server.getMaxPlayers() +
+                    " players, the clients above the limit will be disconnected");
+        }
+
+        loadTest = new LoadTest(server, clients, radius, seconds, report -> {
+            sendReport(sender, report);
+            File file = new File(server.getDataPath(), "loadtest-" + new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss").format(new Date()) + ".json");
+            try {
+                report.save(file);
+                sender.sendMessage(TextFormat.GOLD + "The report was saved to " + file.getName());
+            } catch (IOException e) {
+                log.error("Could not save the load test report to {}", file, e);
+            }
+        });
+        loadTest.start();
+        sender.sendMessage(TextFormat.GREEN + "Load test started with " + clients + " clients" +
+                (seconds > 0 ? " for " + seconds + " seconds" : ", run /loadtest stop to finish it"));
+        return true;
+    }
+
+    private static void sendReport(CommandSender sender, LoadTestReport report) {
+        sender.sendMessage(TextFormat.GREEN + "---- " + TextFormat.WHITE + "Load test" + TextFormat.GREEN + " ----");
+        for (String line : report.toLines()) {
+            sender.sendMessage(TextFormat.GOLD + line);
+        }
+    }
+}
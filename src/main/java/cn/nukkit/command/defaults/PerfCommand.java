@@ -0,0 +1,120 @@
+package cn.nukkit.command.defaults;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.command.CommandSender;
+import cn.nukkit.command.data.CommandEnum;
+import cn.nukkit.command.data.CommandParameter;
+import cn.nukkit.lang.TranslationContainer;
+import cn.nukkit.math.NukkitMath;
+import cn.nukkit.metrics.LatencyHistogram;
+import cn.nukkit.metrics.LevelMetrics;
+import cn.nukkit.metrics.PerformanceMetrics;
+import cn.nukkit.metrics.TickPhase;
+import cn.nukkit.utils.TextFormat;
+
+import java.util.Map;
+
+/**
+ * Shows the tick time percentiles and counters of the {@link PerformanceMetrics}.
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class PerfCommand extends VanillaCommand {
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public PerfCommand(String name) {
+        super(name, "Shows the tick time percentiles and the network and chunk counters", "/perf [status|packets|on|off|reset]");
+        this.setPermission("nukkit.command.perf");
+        this.commandParameters.clear();
+        this.commandParameters.put("default", new CommandParameter[]{
+                CommandParameter.newEnum("action", true, new CommandEnum("PerfAction", "status", "packets", "on", "off", "reset"))
+        });
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String commandLabel, String[] args) {
+        if (!this.testPermission(sender)) {
+            return true;
+        }
+
+        switch (args.length == 0 ? "status" : args[0].toLowerCase()) {
+            case "status":
+                sendStatus(sender);
+                return true;
+            case "packets":
+                sendPackets(sender);
+                return true;
+            case "on":
+                PerformanceMetrics.setEnabled(true);
+                sender.sendMessage(TextFormat.GREEN + "Performance metrics enabled");
+                return true;
+            case "off":
+                PerformanceMetrics.setEnabled(false);
+                sender.sendMessage(TextFormat.GREEN + "Performance metrics disabled");
+                return true;
+            case "reset":
+                PerformanceMetrics.reset();
+                sender.sendMessage(TextFormat.GREEN + "Performance metrics reset");
+                return true;
+            default:
+                sender.sendMessage(new TranslationContainer("commands.generic.usage", usageMessage));
+                return true;
+        }
+    }
+
+    private static void sendStatus(CommandSender sender) {
+        sender.sendMessage(TextFormat.GREEN + "---- " + TextFormat.WHITE + "Performance" + TextFormat.GREEN + " ----");
+        sender.sendMessage(TextFormat.GOLD + "Metrics: " + (PerformanceMetrics.isEnabled() ? TextFormat.GREEN + "enabled" : TextFormat.RED + "disabled") +
+                TextFormat.GOLD + ", HTTP endpoint: " + (PerformanceMetrics.isServingHttp() ? TextFormat.GREEN + "serving" : TextFormat.RED + "off"));
+
+        LatencyHistogram tick = PerformanceMetrics.getFullTick();
+        sender.sendMessage(TextFormat.GOLD + "Tick (" + tick.getCount() + "): " + describe(tick));
+        for (LevelMetrics level : PerformanceMetrics.getLevels()) {
+            sender.sendMessage(TextFormat.GOLD + "World \"" + level.getLevel() + "\" (" + level.getTick().getCount() + "): " + describe(level.getTick()));
+            StringBuilder phases = new StringBuilder(TextFormat.GOLD + "  p99 per phase:");
+            for (TickPhase phase : TickPhase.values()) {
+                phases.append(' ').append(TextFormat.GRAY).append(phase.getLabel()).append(' ')
+                        .append(color(level.getPhase(phase).getPercentileMillis(99)));
+            }
+            sender.sendMessage(phases.toString());
+            sender.sendMessage(TextFormat.GOLD + "  Merging: " + TextFormat.GREEN + level.getEntitiesMerged() + " merged, " +
+                    level.getMergeCandidatesChecked() + " checked, " + level.getMergeCandidatesDeferred() + " deferred, " +
+                    level.getMergeEntitiesAvoided() + " entities avoided.");
+        }
+
+        sender.sendMessage(TextFormat.GOLD + "Chunks: " + TextFormat.GREEN + PerformanceMetrics.getChunksLoaded() + " loaded, " +
+                PerformanceMetrics.getChunksGenerated() + " generated, " + PerformanceMetrics.getChunksPopulated() + " populated, " +
+                PerformanceMetrics.getChunksSent() + " sent.");
+    }
+
+    private static void sendPackets(CommandSender sender) {
+        sender.sendMessage(TextFormat.GREEN + "---- " + TextFormat.WHITE + "Packets by bytes sent" + TextFormat.GREEN + " ----");
+        int shown = 0;
+        for (Map.Entry<String, long[]> entry : PerformanceMetrics.getPacketStatistics().entrySet()) {
+            if (shown++ == 10) {
+                break;
+            }
+            long[] row = entry.getValue();
+            sender.sendMessage(TextFormat.GOLD + entry.getKey() + ": " + TextFormat.GREEN +
+                    row[2] + " sent (" + (row[3] >> 10) + " kB), " + row[0] + " received (" + (row[1] >> 10) + " kB)");
+        }
+        if (shown == 0) {
+            sender.sendMessage(TextFormat.GRAY + "No packet was counted yet");
+        }
+    }
+
+    private static String describe(LatencyHistogram histogram) {
+        return TextFormat.GREEN + "mean " + NukkitMath.round(histogram.getMeanMillis(), 2) + " ms" +
+                ", p50 " + color(histogram.getPercentileMillis(50)) +
+                TextFormat.GREEN + ", p95 " + color(histogram.getPercentileMillis(95)) +
+                TextFormat.GREEN + ", p99 " + color(histogram.getPercentileMillis(99)) +
+                TextFormat.GREEN + ", p99.9 " + color(histogram.getPercentileMillis(99.9)) +
+                TextFormat.GREEN + ", max " + color(histogram.getMaxMillis());
+    }
+
+    private static String color(double millis) {
+        TextFormat color = millis >= 50 ? TextFormat.RED : millis >= 25 ? TextFormat.YELLOW : TextFormat.GREEN;
+        return color.toString() + NukkitMath.round(millis, 2) + " ms";
+    }
+}
@@ -3,8 +3,11 @@ package cn.nukkit.command.defaults;
 import cn.nukkit.Nukkit;
 import cn.nukkit.Server;
 import cn.nukkit.command.CommandSender;
+import cn.nukkit.level.ChunkResidencyManager;
 import cn.nukkit.level.Level;
 import cn.nukkit.math.NukkitMath;
+import cn.nukkit.scheduler.AsyncTaskCategory;
+import cn.nukkit.scheduler.AsyncWorkerPool;
 import cn.nukkit.utils.TextFormat;
 
 import java.util.Objects;
@@ -77,6 +80,20 @@ public class StatusCommand extends VanillaCommand {
 
         sender.sendMessage(TextFormat.GOLD + "Available processors: " + TextFormat.GREEN + runtime.availableProcessors());
 
+        ChunkResidencyManager residency = server.getChunkResidencyManager();
+        long budget = residency.getMemoryBudget();
+        sender.sendMessage(TextFormat.GOLD + "Chunk memory: " + TextFormat.GREEN + residency.getResidentChunks() + " chunks, " +
+                (residency.getResidentBytes() >> 20) + " MB" + (budget > 0 ? " of " + (budget >> 20) + " MB" : "") +
+                ", " + residency.getEvictions() + " evicted, " + residency.getCompressions() + " compressed.");
+
+        for (AsyncTaskCategory category : AsyncTaskCategory.values()) {
+            AsyncWorkerPool pool = server.getScheduler().getAsyncPool(category);
+            sender.sendMessage(TextFormat.GOLD + "Async " + pool.getName() + " tasks: " + TextFormat.GREEN +
+                    pool.getRunningCount() + " running, " + pool.getQueueDepth() + " queued, " +
+                    (pool.getRejectedCount() > 0 ? TextFormat.RED : TextFormat.GREEN) + pool.getRejectedCount() + " rejected" +
+                    TextFormat.GREEN + ", " + NukkitMath.round(pool.getAverageQueueNanos() / 1e6, 2) + " ms average wait.");
+        }
+
 
         TextFormat playerColor = TextFormat.GREEN;
         if (((float) server.getOnlinePlayers().size() / (float) server.getMaxPlayers()) > 0.85) {
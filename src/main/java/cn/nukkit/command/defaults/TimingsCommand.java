@@ -18,7 +18,7 @@ public class TimingsCommand extends VanillaCommand {
         this.setPermission("nukkit.command.timings");
         this.commandParameters.clear();
         this.commandParameters.put("default", new CommandParameter[]{
-                CommandParameter.newEnum("action", new CommandEnum("TimingsAction", "on", "off", "paste", "verbon", "verboff", "reset", "report"))
+                CommandParameter.newEnum("action", new CommandEnum("TimingsAction", "on", "off", "paste", "verbon", "verboff", "reset", "report", "export"))
         });
     }
 
@@ -68,6 +68,10 @@ public class TimingsCommand extends VanillaCommand {
             case "paste":
                 TimingsExport.reportTimings(sender);
                 break;
+            case "export":
+                sender.sendMessage("Exporting the timings to the timings folder...");
+                TimingsExport.exportTimings(sender);
+                break;
         }
         return true;
     }
@@ -529,6 +529,15 @@ public abstract class Entity extends Location implements Metadatable {
 
     public int noDamageTicks;
     public boolean justCreated;
+
+    private int activatedTick = Integer.MIN_VALUE;
+    private EntityActivationType activationType;
+
+    /**
+     * The ids of the data properties changed since they were last sent to the viewers.
+     */
+    private final BitSet dirtyDataProperties = new BitSet();
+    private boolean dataFlushQueued;
     public boolean fireProof;
     public boolean invulnerable;
 
@@ -990,7 +999,8 @@ public abstract class Entity extends Location implements Metadatable {
         this.dataProperties.put(bbH);
         this.dataProperties.put(bbW);
         if (send) {
-            sendData(this.hasSpawned.values().toArray(Player.EMPTY_ARRAY), new EntityMetadata().put(bbH).put(bbW));
+            this.markDataPropertyDirty(DATA_BOUNDING_BOX_HEIGHT);
+            this.markDataPropertyDirty(DATA_BOUNDING_BOX_WIDTH);
         }
     }
 
@@ -1175,9 +1185,10 @@ public abstract class Entity extends Location implements Metadatable {
         return getDefaultNBT(pos, motion, 0, 0);
     }
 
+    @PowerNukkitDifference(info = "Returns a CompactCompoundTag", since = "1.6.0.0-PNX")
     @Nonnull
     public static CompoundTag getDefaultNBT(@Nonnull Vector3 pos, @Nullable Vector3 motion, float yaw, float pitch) {
-        return new CompoundTag()
+        return new CompactCompoundTag()
                 .putList(new ListTag<DoubleTag>("Pos")
                         .add(new DoubleTag("", pos.x))
                         .add(new DoubleTag("", pos.y))
@@ -1365,16 +1376,18 @@ public abstract class Entity extends Location implements Metadatable {
         this.sendData(players, null);
     }
 
+    @PowerNukkitDifference(info = "The packet is encoded once and shared by all players", since = "1.6.0.0-PNX")
     public void sendData(Player[] players, EntityMetadata data) {
         SetEntityDataPacket pk = new SetEntityDataPacket();
         pk.eid = this.getId();
         pk.metadata = data == null ? this.dataProperties : data;
+        pk.tryEncode();
 
         for (Player player : players) {
             if (player == this) {
                 continue;
             }
-            player.dataPacket(pk.clone());
+            player.dataPacket(pk);
         }
         if (this instanceof Player) {
             ((Player) this).dataPacket(pk);
@@ -1417,6 +1430,7 @@ public abstract class Entity extends Location implements Metadatable {
             this.setAbsorption(Math.max(0, this.getAbsorption() + source.getDamage(EntityDamageEvent.DamageModifier.ABSORPTION)));
         }
         setLastDamageCause(source);
+        activate(20);
 
         float newHealth = getHealth() - source.getFinalDamage();
         if (newHealth < 1 && this instanceof Player) {
@@ -1989,6 +2003,51 @@ public abstract class Entity extends Location implements Metadatable {
         this.level.updateEntities.put(this.id, this);
     }
 
+    /**
+     * The category which decides the activation range of this entity.
+     *
+     * @see cn.nukkit.level.EntityActivationRange
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public EntityActivationType getActivationType() {
+        EntityActivationType type = this.activationType;
+        if (type == null) {
+            this.activationType = type = EntityActivationType.of(this);
+        }
+        return type;
+    }
+
+    /**
+     * The last server tick where this entity gets full ticks even when it's away from the players.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getActivatedTick() {
+        return activatedTick;
+    }
+
+    /**
+     * Gives full ticks to this entity for the current tick and the given amount of ticks after it,
+     * even when it's away from the players.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void activate(int ticks) {
+        this.activatedTick = Math.max(this.activatedTick, this.server.getTick() + ticks);
+    }
+
+    /**
+     * Entities which are immune get full ticks even when they are away from the players.
+     * Overridden by the entities that must not freeze while they are doing something, like flying projectiles.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean isActivationImmune() {
+        return this.isPlayer || this.justCreated || this.noDamageTicks > 0 || this.riding != null || !this.passengers.isEmpty()
+                || this instanceof EntityExplosive;
+    }
+
     public boolean isOnFire() {
         return this.fireTicks > 0;
     }
@@ -2689,26 +2748,15 @@ public abstract class Entity extends Location implements Metadatable {
             }
             this.chunk = this.level.getChunk((int) this.x >> 4, (int) this.z >> 4, true);
 
-            if (!this.justCreated) {
-                Map<Integer, Player> newChunk = this.level.getChunkPlayers((int) this.x >> 4, (int) this.z >> 4);
-                for (Player player : new ArrayList<>(this.hasSpawned.values())) {
-                    if (!newChunk.containsKey(player.getLoaderId())) {
-                        this.despawnFrom(player);
-                    } else {
-                        newChunk.remove(player.getLoaderId());
-                    }
-                }
-
-                for (Player player : newChunk.values()) {
-                    this.spawnTo(player);
-                }
-            }
-
             if (this.chunk == null) {
                 return;
             }
 
             this.chunk.addEntity(this);
+
+            if (!this.justCreated) {
+                this.level.getEntityTracker().onEntityMoved(this);
+            }
         }
     }
 
@@ -2791,6 +2839,7 @@ public abstract class Entity extends Location implements Metadatable {
         return this.teleport(location, PlayerTeleportEvent.TeleportCause.PLUGIN);
     }
 
+    @PowerNukkitDifference(info = "Sends the pending data properties before the movement", since = "1.6.0.0-PNX")
     public boolean teleport(Location location, PlayerTeleportEvent.TeleportCause cause) {
         double yaw = location.yaw;
         double pitch = location.pitch;
@@ -2819,6 +2868,8 @@ public abstract class Entity extends Location implements Metadatable {
             this.resetFallDistance();
             this.onGround = this.noClip ? false : true;
 
+            // The viewers receive the pending data properties before the entity moves
+            this.flushDataProperties();
             this.updateMovement();
 
             return true;
@@ -2853,13 +2904,15 @@ public abstract class Entity extends Location implements Metadatable {
         }
     }
 
+    @PowerNukkitDifference(info = "Only spawns to the players within the tracking range of the entity", since = "1.6.0.0-PNX")
     public void spawnToAll() {
         if (this.chunk == null || this.closed) {
             return;
         }
 
+        EntityTracker tracker = this.level.getEntityTracker();
         for (Player player : this.level.getChunkPlayers(this.chunk.getX(), this.chunk.getZ()).values()) {
-            if (player.isOnline()) {
+            if (player.isOnline() && tracker.canView(player, this)) {
                 this.spawnTo(player);
             }
         }
@@ -2933,6 +2986,13 @@ public abstract class Entity extends Location implements Metadatable {
         return setDataProperty(data, true);
     }
 
+    /**
+     * Changes a data property of this entity.
+     * <p>When {@code send} is {@code true} the property is only marked as changed, all the properties changed
+     * during a tick are sent together in a single packet by {@link #flushDataProperties()} at the end of the level tick,
+     * or earlier when the entity is teleported or a player's position is sent.</p>
+     */
+    @PowerNukkitDifference(info = "The change is sent at the end of the tick together with the other changes", since = "1.6.0.0-PNX")
     public boolean setDataProperty(EntityData data, boolean send) {
         if (Objects.equals(data, this.getDataProperties().get(data.getId()))) {
             return false;
@@ -2940,14 +3000,77 @@ public abstract class Entity extends Location implements Metadatable {
 
         this.getDataProperties().put(data);
         if (send) {
-            EntityMetadata metadata = new EntityMetadata();
-            metadata.put(this.dataProperties.get(data.getId()));
-            if (data.getId() == DATA_FLAGS_EXTENDED) {
+            this.markDataPropertyDirty(data.getId());
+        }
+        return true;
+    }
+
+    /**
+     * Changes a data property of this entity and sends it to the viewers right away, together with the other pending
+     * changes. Must be used when the viewers need the new value before the next packets sent by the caller.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean setDataPropertyImmediately(EntityData data) {
+        boolean changed = this.setDataProperty(data, true);
+        this.flushDataProperties();
+        return changed;
+    }
+
+    /**
+     * Marks a data property to be sent to the viewers at the end of the tick.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void markDataPropertyDirty(int id) {
+        Level level = this.level;
+        boolean queue;
+        synchronized (this.dirtyDataProperties) {
+            this.dirtyDataProperties.set(id);
+            queue = !this.dataFlushQueued && level != null;
+            if (queue) {
+                this.dataFlushQueued = true;
+            }
+        }
+        if (queue) {
+            level.queueEntityDataFlush(this);
+        } else if (level == null) {
+            this.flushDataProperties();
+        }
+    }
+
+    /**
+     * Sends the data properties changed since the last flush to the viewers in a single packet.
+     * <p>The level calls it once per tick for every changed entity, it can be called earlier to force the pending
+     * changes to be sent before other packets.</p>
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void flushDataProperties() {
+        EntityMetadata metadata;
+        synchronized (this.dirtyDataProperties) {
+            this.dataFlushQueued = false;
+            if (this.dirtyDataProperties.isEmpty()) {
+                return;
+            }
+            metadata = new EntityMetadata();
+            BitSet dirty = this.dirtyDataProperties;
+            for (int id = dirty.nextSetBit(0); id >= 0; id = dirty.nextSetBit(id + 1)) {
+                EntityData data = this.dataProperties.get(id);
+                if (data != null) {
+                    metadata.put(data);
+                }
+            }
+            // The client reads both flag sets together
+            if (dirty.get(DATA_FLAGS_EXTENDED) && !dirty.get(DATA_FLAGS)) {
                 metadata.put(this.dataProperties.get(DATA_FLAGS));
             }
-            this.sendData(this.hasSpawned.values().toArray(new Player[0]), metadata);
+            dirty.clear();
         }
-        return true;
+        if (this.closed) {
+            return;
+        }
+        this.sendData(this.hasSpawned.values().toArray(Player.EMPTY_ARRAY), metadata);
     }
 
     public EntityMetadata getDataProperties() {
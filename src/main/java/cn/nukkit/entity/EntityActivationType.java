@@ -0,0 +1,50 @@
+package cn.nukkit.entity;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.entity.item.EntityItem;
+import cn.nukkit.entity.item.EntityXPOrb;
+import cn.nukkit.entity.mob.EntityMob;
+import cn.nukkit.entity.projectile.EntityProjectile;
+
+/**
+ * The categories which have their own activation range in {@code level-settings.entity-activation-range}.
+ *
+ * @see cn.nukkit.level.EntityActivationRange
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public enum EntityActivationType {
+    MONSTER("monsters"),
+    ANIMAL("animals"),
+    ITEM("items"),
+    PROJECTILE("projectiles"),
+    MISC("misc");
+
+    private final String configName;
+
+    EntityActivationType(String configName) {
+        this.configName = configName;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public String getConfigName() {
+        return configName;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static EntityActivationType of(Entity entity) {
+        if (entity instanceof EntityMob) {
+            return MONSTER;
+        } else if (entity instanceof EntityCreature) {
+            return ANIMAL;
+        } else if (entity instanceof EntityItem || entity instanceof EntityXPOrb) {
+            return ITEM;
+        } else if (entity instanceof EntityProjectile) {
+            return PROJECTILE;
+        }
+        return MISC;
+    }
+}
@@ -274,4 +274,12 @@ public class EntityFallingBlock extends Entity {
     public String getOriginalName() {
         return "Falling Block";
     }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public boolean isActivationImmune() {
+        // Must land before the chunk is saved, or the block would be lost
+        return true;
+    }
 }
@@ -1,6 +1,5 @@
 package cn.nukkit.entity.item;
 
-import cn.nukkit.Server;
 import cn.nukkit.api.PowerNukkitDifference;
 import cn.nukkit.api.PowerNukkitOnly;
 import cn.nukkit.api.Since;
@@ -11,13 +10,13 @@ import cn.nukkit.event.entity.EntityDamageEvent.DamageCause;
 import cn.nukkit.event.entity.ItemDespawnEvent;
 import cn.nukkit.event.entity.ItemSpawnEvent;
 import cn.nukkit.item.Item;
+import cn.nukkit.level.EntityMerger;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.nbt.NBTIO;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.nbt.tag.ListTag;
 import cn.nukkit.network.protocol.AddItemEntityPacket;
 import cn.nukkit.network.protocol.DataPacket;
-import cn.nukkit.network.protocol.EntityEventPacket;
 
 /**
  * @author MagicDroidX
@@ -42,6 +41,13 @@ public class EntityItem extends Entity {
 
     protected int pickupDelay;
 
+    private int nextMergeTick;
+
+    // The block position where the hoppers were last woken up, the hoppers don't need to be woken while the item stays there
+    private int collectorBlockX;
+    private int collectorBlockY = Integer.MIN_VALUE;
+    private int collectorBlockZ;
+
     @Override
     public float getWidth() {
         return 0.25f;
@@ -150,34 +156,11 @@ public class EntityItem extends Entity {
 
         this.timing.startTiming();
 
-        if (this.age % 60 == 0 && this.onGround && this.getItem() != null && this.isAlive()) {
-            if (this.getItem().getCount() < this.getItem().getMaxStackSize()) {
-                for (Entity entity : this.getLevel().getNearbyEntities(getBoundingBox().grow(1, 1, 1), this, false)) {
-                    if (entity instanceof EntityItem) {
-                        if (!entity.isAlive()) {
-                            continue;
-                        }
-                        Item closeItem = ((EntityItem) entity).getItem();
-                        if (!closeItem.equals(getItem(), true, true)) {
-                            continue;
-                        }
-                        if (!entity.isOnGround()) {
-                            continue;
-                        }
-                        int newAmount = this.getItem().getCount() + closeItem.getCount();
-                        if (newAmount > this.getItem().getMaxStackSize()) {
-                            continue;
-                        }
-                        entity.close();
-                        this.getItem().setCount(newAmount);
-                        EntityEventPacket packet = new EntityEventPacket();
-                        packet.eid = getId();
-                        packet.data = newAmount;
-                        packet.event = EntityEventPacket.MERGE_ITEMS;
-                        Server.broadcastPacket(this.getViewers().values(), packet);
-                    }
-                }
-            }
+        if (this.onGround && currentTick >= this.nextMergeTick && this.getItem() != null && this.isAlive()
+                && this.getItem().getCount() < this.getItem().getMaxStackSize()) {
+            EntityMerger merger = this.level.getEntityMerger();
+            this.nextMergeTick = currentTick + merger.getCheckInterval();
+            merger.addCandidate(this);
         }
 
         boolean hasUpdate = this.entityBaseTick(tickDiff);
@@ -246,6 +229,7 @@ public class EntityItem extends Entity {
             }
 
             this.updateMovement();
+            this.wakeUpCollectors();
 
             if (this.age > 6000) {
                 ItemDespawnEvent ev = new ItemDespawnEvent(this);
@@ -264,6 +248,23 @@ public class EntityItem extends Entity {
         return hasUpdate || !this.onGround || Math.abs(this.motionX) > 0.00001 || Math.abs(this.motionY) > 0.00001 || Math.abs(this.motionZ) > 0.00001;
     }
 
+    /**
+     * Wakes up the sleeping block entities that can pick this item up, like the hoppers, when the item enters a new block.
+     */
+    private void wakeUpCollectors() {
+        int blockX = getFloorX();
+        int blockY = getFloorY();
+        int blockZ = getFloorZ();
+        if (blockX == collectorBlockX && blockY == collectorBlockY && blockZ == collectorBlockZ) {
+            return;
+        }
+        collectorBlockX = blockX;
+        collectorBlockY = blockY;
+        collectorBlockZ = blockZ;
+        this.level.wakeUpBlockEntity(blockX, blockY, blockZ);
+        this.level.wakeUpBlockEntity(blockX, blockY - 1, blockZ);
+    }
+
     @Override
     public void setOnFire(int seconds) {
         if (item != null && item.isLavaResistant()) {
@@ -4,8 +4,10 @@ import cn.nukkit.Player;
 import cn.nukkit.api.PowerNukkitOnly;
 import cn.nukkit.api.Since;
 import cn.nukkit.entity.Entity;
+import cn.nukkit.entity.data.IntEntityData;
 import cn.nukkit.event.entity.EntityDamageEvent;
 import cn.nukkit.event.entity.EntityDamageEvent.DamageCause;
+import cn.nukkit.level.EntityMerger;
 import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.nbt.tag.CompoundTag;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
@@ -67,6 +69,7 @@ public class EntityXPOrb extends Entity {
     private int age;
     private int pickupDelay;
     private int exp;
+    private int nextMergeTick;
 
     public Player closestPlayer = null;
 
@@ -122,6 +125,11 @@ public class EntityXPOrb extends Entity {
 
         boolean hasUpdate = entityBaseTick(tickDiff);
         if (this.isAlive()) {
+            if (currentTick >= this.nextMergeTick) {
+                EntityMerger merger = this.level.getEntityMerger();
+                this.nextMergeTick = currentTick + merger.getCheckInterval();
+                merger.addCandidate(this);
+            }
 
             if (this.pickupDelay > 0 && this.pickupDelay < 32767) { //Infinite delay
                 this.pickupDelay -= tickDiff;
@@ -223,6 +231,7 @@ public class EntityXPOrb extends Entity {
             throw new IllegalArgumentException("XP amount must be greater than 0, got " + exp);
         }
         this.exp = exp;
+        this.setDataProperty(new IntEntityData(DATA_EXPERIENCE_VALUE, exp));
     }
 
     @Override
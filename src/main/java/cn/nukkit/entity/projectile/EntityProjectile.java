@@ -152,6 +152,14 @@ public abstract class EntityProjectile extends Entity {
         }
     }
 
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public boolean isActivationImmune() {
+        // A projectile in flight must not freeze in the air
+        return super.isActivationImmune() || !this.hadCollision;
+    }
+
     @PowerNukkitOnly
     @Since("1.4.0.0-PN")
     protected void updateMotion() {
@@ -2,7 +2,9 @@ package cn.nukkit.inventory;
 
 import cn.nukkit.Player;
 import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitDifference;
 import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.block.Block;
 import cn.nukkit.block.BlockID;
 import cn.nukkit.blockentity.BlockEntity;
@@ -15,6 +17,7 @@ import cn.nukkit.item.ItemID;
 import cn.nukkit.network.protocol.InventoryContentPacket;
 import cn.nukkit.network.protocol.InventorySlotPacket;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 /**
@@ -32,7 +35,14 @@ public abstract class BaseInventory implements Inventory {
 
     protected final String title;
 
-    public final Map<Integer, Item> slots = new HashMap<>();
+    private final InventorySlotMap slotMap = new InventorySlotMap();
+
+    public final Map<Integer, Item> slots = slotMap;
+
+    // The slots changed since the last flush, sent to every viewer once per tick
+    private final BitSet dirtySlots = new BitSet();
+
+    private boolean syncQueued;
 
     protected final Set<Player> viewers = new HashSet<>();
 
@@ -102,7 +112,26 @@ public abstract class BaseInventory implements Inventory {
 
     @Override
     public Item getItem(int index) {
-        return this.slots.containsKey(index) ? this.slots.get(index).clone() : new ItemBlock(Block.get(BlockID.AIR), null, 0);
+        Item item = this.slotMap.getSlot(index);
+        return item != null ? item.clone() : new ItemBlock(Block.get(BlockID.AIR), null, 0);
+    }
+
+    /**
+     * The item stored in the slot, without the copy made by {@link #getItem(int)}. It must not be modified,
+     * {@link #setItem(int, Item)} must be used with a copy instead.
+     *
+     * @return The stored item, or {@code null} if the slot is empty
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Nullable
+    public Item getItemUnsafe(int index) {
+        return this.slotMap.getSlot(index);
+    }
+
+    // Every slot holding an item is below it, including the ones above the size like the armor of the player inventory
+    private int getSlotLimit() {
+        return Math.max(this.getSize(), this.slotMap.getCapacity());
     }
 
     @Override
@@ -166,6 +195,7 @@ public abstract class BaseInventory implements Inventory {
 
         if (holder instanceof BlockEntity) {
             ((BlockEntity) holder).setDirty();
+            ((BlockEntity) holder).wakeUpAround();
         }
 
         Item old = this.getItem(index);
@@ -180,8 +210,9 @@ public abstract class BaseInventory implements Inventory {
         int count = Math.max(1, item.getCount());
         boolean checkDamage = item.hasMeta() && item.getDamage() >= 0;
         boolean checkTag = item.getCompoundTag() != null;
-        for (Item i : this.getContents().values()) {
-            if (item.equals(i, checkDamage, checkTag)) {
+        for (int slot = 0, limit = this.getSlotLimit(); slot < limit; slot++) {
+            Item i = this.getItemUnsafe(slot);
+            if (i != null && item.equals(i, checkDamage, checkTag)) {
                 count -= i.getCount();
                 if (count <= 0) {
                     return true;
@@ -197,9 +228,10 @@ public abstract class BaseInventory implements Inventory {
         Map<Integer, Item> slots = new HashMap<>();
         boolean checkDamage = item.hasMeta() && item.getDamage() >= 0;
         boolean checkTag = item.getCompoundTag() != null;
-        for (Map.Entry<Integer, Item> entry : this.getContents().entrySet()) {
-            if (item.equals(entry.getValue(), checkDamage, checkTag)) {
-                slots.put(entry.getKey(), entry.getValue());
+        for (int slot = 0, limit = this.getSlotLimit(); slot < limit; slot++) {
+            Item i = this.getItemUnsafe(slot);
+            if (i != null && item.equals(i, checkDamage, checkTag)) {
+                slots.put(slot, i);
             }
         }
 
@@ -210,9 +242,10 @@ public abstract class BaseInventory implements Inventory {
     public void remove(Item item) {
         boolean checkDamage = item.hasMeta();
         boolean checkTag = item.getCompoundTag() != null;
-        for (Map.Entry<Integer, Item> entry : this.getContents().entrySet()) {
-            if (item.equals(entry.getValue(), checkDamage, checkTag)) {
-                this.clear(entry.getKey());
+        for (int slot = 0, limit = this.getSlotLimit(); slot < limit; slot++) {
+            Item i = this.getItemUnsafe(slot);
+            if (i != null && item.equals(i, checkDamage, checkTag)) {
+                this.clear(slot);
             }
         }
     }
@@ -222,9 +255,10 @@ public abstract class BaseInventory implements Inventory {
         int count = Math.max(1, item.getCount());
         boolean checkDamage = item.hasMeta();
         boolean checkTag = item.getCompoundTag() != null;
-        for (Map.Entry<Integer, Item> entry : this.getContents().entrySet()) {
-            if (item.equals(entry.getValue(), checkDamage, checkTag) && (entry.getValue().getCount() == count || (!exact && entry.getValue().getCount() > count))) {
-                return entry.getKey();
+        for (int slot = 0, limit = this.getSlotLimit(); slot < limit; slot++) {
+            Item i = this.getItemUnsafe(slot);
+            if (i != null && item.equals(i, checkDamage, checkTag) && (i.getCount() == count || (!exact && i.getCount() > count))) {
+                return slot;
             }
         }
 
@@ -234,7 +268,8 @@ public abstract class BaseInventory implements Inventory {
     @Override
     public int firstEmpty(Item item) {
         for (int i = 0; i < this.size; ++i) {
-            if (this.getItem(i).getId() == Item.AIR) {
+            Item slot = this.getItemUnsafe(i);
+            if (slot == null || slot.getId() == Item.AIR) {
                 return i;
             }
         }
@@ -258,14 +293,14 @@ public abstract class BaseInventory implements Inventory {
         boolean checkDamage = item.hasMeta();
         boolean checkTag = item.getCompoundTag() != null;
         for (int i = 0; i < this.getSize(); ++i) {
-            Item slot = this.getItem(i);
-            if (item.equals(slot, checkDamage, checkTag)) {
+            Item slot = this.getItemUnsafe(i);
+            if (slot == null || slot.getId() == Item.AIR) {
+                item.setCount(item.getCount() - Math.min(item.getMaxStackSize(), this.getMaxStackSize()));
+            } else if (item.equals(slot, checkDamage, checkTag)) {
                 int diff;
                 if ((diff = Math.min(slot.getMaxStackSize(), this.getMaxStackSize()) - slot.getCount()) > 0) {
                     item.setCount(item.getCount() - diff);
                 }
-            } else if (slot.getId() == Item.AIR) {
-                item.setCount(item.getCount() - Math.min(slot.getMaxStackSize(), this.getMaxStackSize()));
             }
 
             if (item.getCount() <= 0) {
@@ -288,23 +323,27 @@ public abstract class BaseInventory implements Inventory {
         List<Integer> emptySlots = new ArrayList<>();
 
         for (int i = 0; i < this.getSize(); ++i) {
-            Item item = this.getItem(i);
-            if (item.getId() == Item.AIR || item.getCount() <= 0) {
+            Item item = this.getItemUnsafe(i);
+            if (item == null || item.getId() == Item.AIR || item.getCount() <= 0) {
                 emptySlots.add(i);
+                continue;
             }
 
-            for (Item slot : new ArrayList<>(itemSlots)) {
+            for (Iterator<Item> iterator = itemSlots.iterator(); iterator.hasNext(); ) {
+                Item slot = iterator.next();
                 if (slot.equals(item)) {
                     int maxStackSize = Math.min(this.getMaxStackSize() ,item.getMaxStackSize());
                     if (item.getCount() < maxStackSize) {
                         int amount = Math.min(maxStackSize - item.getCount(), slot.getCount());
                         amount = Math.min(amount, this.getMaxStackSize());
                         if (amount > 0) {
+                            // Only the stacks which change are copied
+                            item = item.clone();
                             slot.setCount(slot.getCount() - amount);
                             item.setCount(item.getCount() + amount);
                             this.setItem(i, item);
                             if (slot.getCount() <= 0) {
-                                itemSlots.remove(slot);
+                                iterator.remove();
                             }
                         }
                     }
@@ -346,19 +385,21 @@ public abstract class BaseInventory implements Inventory {
         }
 
         for (int i = 0; i < this.size; ++i) {
-            Item item = this.getItem(i);
-            if (item.getId() == Item.AIR || item.getCount() <= 0) {
+            Item item = this.getItemUnsafe(i);
+            if (item == null || item.getId() == Item.AIR || item.getCount() <= 0) {
                 continue;
             }
 
-            for (Item slot : new ArrayList<>(itemSlots)) {
+            for (Iterator<Item> iterator = itemSlots.iterator(); iterator.hasNext(); ) {
+                Item slot = iterator.next();
                 if (slot.equals(item, item.hasMeta(), item.getCompoundTag() != null)) {
                     int amount = Math.min(item.getCount(), slot.getCount());
+                    item = item.clone();
                     slot.setCount(slot.getCount() - amount);
                     item.setCount(item.getCount() - amount);
                     this.setItem(i, item);
                     if (slot.getCount() <= 0) {
-                        itemSlots.remove(slot);
+                        iterator.remove();
                     }
 
                 }
@@ -402,8 +443,10 @@ public abstract class BaseInventory implements Inventory {
 
     @Override
     public void clearAll() {
-        for (Integer index : this.getContents().keySet()) {
-            this.clear(index);
+        for (int index = 0, limit = this.getSlotLimit(); index < limit; index++) {
+            if (this.getItemUnsafe(index) != null) {
+                this.clear(index);
+            }
         }
     }
 
@@ -450,17 +493,20 @@ public abstract class BaseInventory implements Inventory {
         this.viewers.remove(who);
     }
 
+    @PowerNukkitDifference(info = "The slot is sent at the end of the tick together with the other changed slots", since = "1.6.0.0-PNX")
     @Override
     public void onSlotChange(int index, Item before, boolean send) {
         if (send) {
-            this.sendSlot(index, this.getViewers());
+            this.markSlotDirty(index);
         }
 
         if (holder instanceof BlockEntity) {
             ((BlockEntity) holder).setDirty();
+            ((BlockEntity) holder).wakeUpAround();
         }
 
-        if (before.getId() == ItemID.LODESTONE_COMPASS || getItem(index).getId() == ItemID.LODESTONE_COMPASS) {
+        Item after = this.getItemUnsafe(index);
+        if (before.getId() == ItemID.LODESTONE_COMPASS || after != null && after.getId() == ItemID.LODESTONE_COMPASS) {
             if (holder instanceof Player) {
                 ((Player) holder).updateTrackingPositions(true);
             }
@@ -476,6 +522,69 @@ public abstract class BaseInventory implements Inventory {
         }
     }
 
+    /**
+     * Marks a slot to be sent to the viewers at the end of the tick.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void markSlotDirty(int index) {
+        Server server = Server.getInstance();
+        boolean queue;
+        synchronized (this.dirtySlots) {
+            this.dirtySlots.set(index);
+            queue = !this.syncQueued && server != null;
+            if (queue) {
+                this.syncQueued = true;
+            }
+        }
+        if (queue) {
+            server.queueInventorySync(this);
+        } else if (server == null) {
+            this.flushSlots();
+        }
+    }
+
+    /**
+     * Sends the slots changed since the last flush to the viewers, one slot at a time or, when at least
+     * {@link #getContentSyncThreshold()} slots changed, the whole inventory in a single packet.
+     * <p>The server calls it once per tick for every changed inventory, it can be called earlier to force the pending
+     * changes to be sent before other packets.</p>
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void flushSlots() {
+        int[] changed;
+        synchronized (this.dirtySlots) {
+            this.syncQueued = false;
+            if (this.dirtySlots.isEmpty()) {
+                return;
+            }
+            changed = this.dirtySlots.stream().toArray();
+            this.dirtySlots.clear();
+        }
+
+        Player[] viewers = this.getViewers().toArray(Player.EMPTY_ARRAY);
+        if (viewers.length == 0) {
+            return;
+        }
+        if (changed.length >= this.getContentSyncThreshold()) {
+            this.sendContents(viewers);
+        } else {
+            for (int index : changed) {
+                this.sendSlot(index, viewers);
+            }
+        }
+    }
+
+    /**
+     * How many slots must change in a tick for the whole inventory to be sent instead of the changed slots.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getContentSyncThreshold() {
+        return Math.max(4, this.getSize() / 4);
+    }
+
     @Override
     public void sendContents(Player player) {
         this.sendContents(new Player[]{player});
@@ -532,9 +641,10 @@ public abstract class BaseInventory implements Inventory {
 
     public int getFreeSpace(Item item) {
         int maxStackSize = Math.min(item.getMaxStackSize(), this.getMaxStackSize());
-        int space = (this.getSize() - this.slots.size()) * maxStackSize;
+        int space = 0;
 
-        for (Item slot : this.getContents().values()) {
+        for (int index = 0; index < this.getSize(); index++) {
+            Item slot = this.getItemUnsafe(index);
             if (slot == null || slot.getId() == 0) {
                 space += maxStackSize;
                 continue;
@@ -2,6 +2,8 @@ package cn.nukkit.inventory;
 
 import cn.nukkit.Player;
 import cn.nukkit.api.PowerNukkitDifference;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.block.BlockTrappedChest;
 import cn.nukkit.blockentity.BlockEntityChest;
 import cn.nukkit.event.redstone.RedstoneUpdateEvent;
@@ -103,4 +105,12 @@ public class ChestInventory extends ContainerInventory {
             super.sendSlot(index, players);
         }
     }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public int getContentSyncThreshold() {
+        // The viewers of a double chest have no window for this half, only the slots can be sent through the double chest
+        return this.doubleInventory != null ? Integer.MAX_VALUE : super.getContentSyncThreshold();
+    }
 }
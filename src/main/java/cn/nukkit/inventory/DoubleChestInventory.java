@@ -2,6 +2,8 @@ package cn.nukkit.inventory;
 
 import cn.nukkit.Player;
 import cn.nukkit.api.PowerNukkitDifference;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.blockentity.BlockEntityChest;
 import cn.nukkit.item.Item;
 import cn.nukkit.level.Level;
@@ -62,6 +64,13 @@ public class DoubleChestInventory extends ContainerInventory implements Inventor
         return index < this.left.getSize() ? this.left.getItem(index) : this.right.getItem(index - this.right.getSize());
     }
 
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public Item getItemUnsafe(int index) {
+        return index < this.left.getSize() ? this.left.getItemUnsafe(index) : this.right.getItemUnsafe(index - this.right.getSize());
+    }
+
     @Override
     public boolean setItem(int index, Item item, boolean send) {
         return index < this.left.getSize() ? this.left.setItem(index, item, send) : this.right.setItem(index - this.right.getSize(), item, send);
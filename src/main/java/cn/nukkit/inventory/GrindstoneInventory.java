@@ -230,6 +230,20 @@ public class GrindstoneInventory extends FakeBlockUIComponent {
         return super.getItem(index);
     }
 
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public Item getItemUnsafe(int index) {
+        if (index < 0 || index > 3) {
+            return null;
+        }
+        if (index == 2) {
+            index = SLOT_RESULT;
+        }
+
+        return super.getItemUnsafe(index);
+    }
+
     @Override
     public boolean setItem(int index, Item item, boolean send) {
         if (index < 0 || index > 3) {
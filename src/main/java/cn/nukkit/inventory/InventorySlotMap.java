@@ -0,0 +1,215 @@
+package cn.nukkit.inventory;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.item.Item;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * The items of an inventory in a dense array indexed by slot, seen as a map of the non-empty slots.
+ * <p>The inventories read their slots by index without boxing or hashing, while the plugins and block entities
+ * using {@link BaseInventory#slots} as a map keep working. The entries are iterated by increasing slot.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class InventorySlotMap extends AbstractMap<Integer, Item> {
+    private Item[] items;
+    private int count;
+    private EntrySet entrySet;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public InventorySlotMap() {
+        this(0);
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public InventorySlotMap(int capacity) {
+        this.items = new Item[capacity];
+    }
+
+    /**
+     * @return The item in the slot, not cloned, or {@code null} if the slot is empty
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Nullable
+    public Item getSlot(int slot) {
+        return slot >= 0 && slot < this.items.length ? this.items[slot] : null;
+    }
+
+    /**
+     * Stores the item in the slot, as is, emptying the slot if it is {@code null}.
+     *
+     * @return The previous item of the slot, or {@code null}
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Nullable
+    public Item setSlot(int slot, @Nullable Item item) {
+        if (slot < 0) {
+            // Corrupted saved inventories can have them, no inventory could ever read them
+            return null;
+        }
+        if (slot >= this.items.length) {
+            if (item == null) {
+                return null;
+            }
+            this.items = Arrays.copyOf(this.items, Math.max(slot + 1, this.items.length * 2));
+        }
+
+        Item old = this.items[slot];
+        this.items[slot] = item;
+        if (old == null && item != null) {
+            this.count++;
+        } else if (old != null && item == null) {
+            this.count--;
+        }
+        return old;
+    }
+
+    /**
+     * The slots which can hold an item without growing the array; every slot above it is empty.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getCapacity() {
+        return this.items.length;
+    }
+
+    @Override
+    public int size() {
+        return this.count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && getSlot((Integer) key) != null;
+    }
+
+    @Override
+    public Item get(Object key) {
+        return key instanceof Integer ? getSlot((Integer) key) : null;
+    }
+
+    @Override
+    public Item put(Integer key, Item value) {
+        return setSlot(key, value);
+    }
+
+    @Override
+    public Item remove(Object key) {
+        if (!(key instanceof Integer)) {
+            return null;
+        }
+        return setSlot((Integer) key, null);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.items, null);
+        this.count = 0;
+    }
+
+    @Override
+    public Set<Entry<Integer, Item>> entrySet() {
+        EntrySet entrySet = this.entrySet;
+        return entrySet != null ? entrySet : (this.entrySet = new EntrySet());
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<Integer, Item>> {
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public void clear() {
+            InventorySlotMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Entry<Integer, Item>> iterator() {
+            return new Iterator<>() {
+                private int next = advance(0);
+                private int last = -1;
+
+                private int advance(int from) {
+                    while (from < items.length && items[from] == null) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < items.length;
+                }
+
+                @Override
+                public Entry<Integer, Item> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int slot = this.last = this.next;
+                    this.next = advance(slot + 1);
+                    return new SlotEntry(slot);
+                }
+
+                @Override
+                public void remove() {
+                    if (this.last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    setSlot(this.last, null);
+                    this.last = -1;
+                }
+            };
+        }
+    }
+
+    private final class SlotEntry implements Entry<Integer, Item> {
+        private final int slot;
+
+        private SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public Integer getKey() {
+            return this.slot;
+        }
+
+        @Override
+        public Item getValue() {
+            return getSlot(this.slot);
+        }
+
+        @Override
+        public Item setValue(Item value) {
+            return setSlot(this.slot, Objects.requireNonNull(value));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> entry = (Entry<?, ?>) o;
+            return getKey().equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return this.slot ^ Objects.hashCode(getValue());
+        }
+    }
+}
@@ -50,6 +50,13 @@ public class PlayerUIComponent extends BaseInventory {
         return this.playerUI.getItem(index + this.offset);
     }
 
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public Item getItemUnsafe(int index) {
+        return this.playerUI.getItemUnsafe(index + this.offset);
+    }
+
     @Override
     public boolean setItem(int index, Item item, boolean send) {
         Item before = playerUI.getItem(index + this.offset);
@@ -2,6 +2,7 @@ package cn.nukkit.inventory;
 
 import cn.nukkit.Player;
 import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.item.Item;
 import cn.nukkit.network.protocol.InventorySlotPacket;
 import cn.nukkit.network.protocol.types.ContainerIds;
@@ -78,6 +79,13 @@ public class PlayerUIInventory extends BaseInventory {
     public void sendContents(Player... target) {
         //doesn't work here
     }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public int getContentSyncThreshold() {
+        return Integer.MAX_VALUE;
+    }
     
     @Override
     public void onSlotChange(int index, Item before, boolean send) {
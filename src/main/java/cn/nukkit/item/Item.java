@@ -1273,9 +1273,10 @@ public class Item implements Cloneable, BlockID, ItemID {
         return this.setCompoundTag(EmptyArrays.EMPTY_BYTES);
     }
 
+    @PowerNukkitDifference(info = "Returns a CompactCompoundTag", since = "1.6.0.0-PNX")
     public static CompoundTag parseCompoundTag(byte[] tag) {
         try {
-            return NBTIO.read(tag, ByteOrder.LITTLE_ENDIAN);
+            return NBTIO.readCompact(tag, ByteOrder.LITTLE_ENDIAN);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
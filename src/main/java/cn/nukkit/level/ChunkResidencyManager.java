@@ -0,0 +1,323 @@
+package cn.nukkit.level;
+
+import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.level.format.FullChunk;
+import cn.nukkit.level.format.LevelProvider;
+import cn.nukkit.level.format.anvil.ChunkSection;
+import cn.nukkit.level.format.generic.BaseChunk;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import co.aikar.timings.Timings;
+import it.unimi.dsi.fastutil.objects.ObjectAVLTreeSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Keeps the memory used by the loaded chunks of all levels within a budget.
+ * <p>The heap used by each chunk is estimated from its section palettes and light arrays when it is loaded, and
+ * estimated again only after it changed. The providers keep the running total of their chunks, so reading it costs
+ * nothing. Every {@code check-interval} ticks up to {@code chunks-per-check} chunks of each level are looked at, after
+ * the chunks looked at by the previous check, with a cursor of its own. Among them, the chunks which were not used for
+ * {@code compress-after-ticks} ticks get their light and block palettes compressed in place, no more than
+ * {@code compressions-per-check} chunks per check. The least recently used chunks which are not in use by any loader
+ * are remembered across the checks, and when the total goes over {@code memory-budget-mb} they are unloaded until the
+ * total fits again. A changed chunk is only unloaded when its level saves it on unload, so no change is ever lost by
+ * an eviction.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Log4j2
+public class ChunkResidencyManager {
+    private static final String CONFIG_PREFIX = "chunk-residency.";
+    // The least recently used evictable chunks kept between the checks, so the eviction order is not limited to the
+    // chunks looked at by the last check
+    private static final int MAX_CANDIDATES = 1024;
+    private static final long[] EMPTY_INDEXES = new long[0];
+
+    private final Server server;
+    private final long memoryBudget;
+    private final int checkInterval;
+    private final int chunksPerCheck;
+    private final int compressAfterTicks;
+    private final int compressionsPerCheck;
+
+    private final Reference2ObjectOpenHashMap<Level, ChunkCursor> cursors = new Reference2ObjectOpenHashMap<>();
+    private final ObjectAVLTreeSet<Resident> candidates = new ObjectAVLTreeSet<>(
+            Comparator.<Resident>comparingLong(resident -> resident.lastAccessTick)
+                    .thenComparingLong(resident -> resident.sequence));
+    private final Reference2ObjectOpenHashMap<BaseFullChunk, Resident> candidatesByChunk = new Reference2ObjectOpenHashMap<>();
+    private long candidateSequence;
+
+    private volatile int residentChunks;
+    private volatile long residentBytes;
+    private volatile long evictions;
+    private volatile long compressions;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public ChunkResidencyManager(Server server) {
+        this.server = server;
+        this.memoryBudget = Math.max(0, server.getConfig(CONFIG_PREFIX + "memory-budget-mb", 0)) * 1024L * 1024L;
+        this.checkInterval = Math.max(1, server.getConfig(CONFIG_PREFIX + "check-interval", 100));
+        this.chunksPerCheck = Math.max(1, server.getConfig(CONFIG_PREFIX + "chunks-per-check", 256));
+        this.compressAfterTicks = server.getConfig(CONFIG_PREFIX + "compress-after-ticks", 1200);
+        this.compressionsPerCheck = Math.max(0, server.getConfig(CONFIG_PREFIX + "compressions-per-check", 8));
+    }
+
+    /**
+     * @return the memory budget of the chunks in bytes, {@code 0} if the chunks are never evicted for their memory
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getResidentChunks() {
+        return residentChunks;
+    }
+
+    /**
+     * @return the estimated heap used by the loaded chunks during the last check, in bytes
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getEvictions() {
+        return evictions;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getCompressions() {
+        return compressions;
+    }
+
+    /**
+     * Called by the server every tick.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void tick(int currentTick) {
+        if (currentTick % checkInterval != 0) {
+            return;
+        }
+        Timings.chunkResidencyTimer.startTiming();
+        try {
+            check();
+        } finally {
+            Timings.chunkResidencyTimer.stopTiming();
+        }
+    }
+
+    /**
+     * Looks at the next chunks of every level, compresses the idle ones and evicts while the total is over the budget.
+     */
+    void check() {
+        Collection<Level> levels = server.getLevels().values();
+        cursors.keySet().retainAll(levels);
+        forgetUnloadedCandidates();
+
+        int compressionsLeft = compressionsPerCheck;
+        int chunks = 0;
+        long bytes = 0;
+        for (Level level : levels) {
+            LevelProvider provider = level.getProvider();
+            if (provider == null) {
+                continue;
+            }
+            long now = level.getCurrentTick();
+            Map<Long, ? extends FullChunk> loaded = provider.getLoadedChunks();
+            ChunkCursor cursor = cursors.computeIfAbsent(level, l -> new ChunkCursor());
+            int checks = Math.min(chunksPerCheck, loaded.size());
+            for (int i = 0; i < checks; i++) {
+                FullChunk fullChunk = loaded.get(cursor.next(loaded));
+                if (!(fullChunk instanceof BaseFullChunk)) {
+                    continue;
+                }
+                BaseFullChunk chunk = (BaseFullChunk) fullChunk;
+                long idleTicks = now - chunk.getLastAccessTick();
+                if (compressAfterTicks > 0 && idleTicks >= compressAfterTicks && compressionsLeft > 0
+                        && compressSections(chunk)) {
+                    compressionsLeft--;
+                }
+                provider.updateMemoryUsage(chunk);
+                updateCandidate(level, chunk);
+            }
+            chunks += provider.getLoadedChunkCount();
+            bytes += provider.getLoadedChunksMemoryUsage();
+        }
+
+        if (memoryBudget > 0 && bytes > memoryBudget && !candidates.isEmpty()) {
+            long bytesBefore = bytes;
+            long evictionsBefore = evictions;
+            bytes = evict(bytes);
+            int evicted = (int) (evictions - evictionsBefore);
+            chunks -= evicted;
+            if (bytes > memoryBudget) {
+                log.debug("The loaded chunks use about {} MB after evicting {} chunks, the budget is {} MB",
+                        bytes >> 20, evicted, memoryBudget >> 20);
+            } else if (evicted > 0) {
+                log.debug("Evicted {} chunks to free about {} MB", evicted, (bytesBefore - bytes) >> 20);
+            }
+        }
+
+        residentChunks = chunks;
+        residentBytes = bytes;
+    }
+
+    /**
+     * Keeps the chunk among the eviction candidates if it is one of the {@link #MAX_CANDIDATES} least recently used
+     * evictable chunks seen so far.
+     */
+    private void updateCandidate(Level level, BaseFullChunk chunk) {
+        Resident previous = candidatesByChunk.remove(chunk);
+        if (previous != null) {
+            candidates.remove(previous);
+        }
+        if (memoryBudget <= 0 || !canEvict(level, chunk)) {
+            return;
+        }
+        long lastAccessTick = chunk.getLastAccessTick();
+        if (candidates.size() >= MAX_CANDIDATES) {
+            Resident newest = candidates.last();
+            if (newest.lastAccessTick <= lastAccessTick) {
+                return;
+            }
+            candidates.remove(newest);
+            candidatesByChunk.remove(newest.chunk);
+        }
+        Resident resident = new Resident(level, chunk, lastAccessTick, chunk.getMemoryUsage(), candidateSequence++);
+        candidates.add(resident);
+        candidatesByChunk.put(chunk, resident);
+    }
+
+    private void forgetUnloadedCandidates() {
+        ObjectIterator<Resident> iterator = candidates.iterator();
+        while (iterator.hasNext()) {
+            Resident resident = iterator.next();
+            if (!isLoaded(resident)) {
+                iterator.remove();
+                candidatesByChunk.remove(resident.chunk);
+            }
+        }
+    }
+
+    private static boolean isLoaded(Resident resident) {
+        LevelProvider provider = resident.level.getProvider();
+        BaseFullChunk chunk = resident.chunk;
+        return provider != null && provider.getLoadedChunks().get(chunk.getIndex()) == chunk;
+    }
+
+    /**
+     * Unloads the candidates, the least recently used first, until the total fits in the budget. The candidates which
+     * were used or became unevictable since they were looked at are only forgotten.
+     *
+     * @return the total after the evictions
+     */
+    private long evict(long bytes) {
+        ObjectIterator<Resident> iterator = candidates.iterator();
+        while (bytes > memoryBudget && iterator.hasNext()) {
+            Resident resident = iterator.next();
+            iterator.remove();
+            BaseFullChunk chunk = resident.chunk;
+            candidatesByChunk.remove(chunk);
+            if (chunk.getLastAccessTick() != resident.lastAccessTick || !isLoaded(resident)
+                    || !canEvict(resident.level, chunk)) {
+                continue;
+            }
+            int chunkX = chunk.getX();
+            int chunkZ = chunk.getZ();
+            resident.level.unloadChunk(chunkX, chunkZ, true, true);
+            if (!resident.level.isChunkLoaded(chunkX, chunkZ)) {
+                resident.level.cancelUnloadChunkRequest(chunkX, chunkZ);
+                bytes -= resident.bytes;
+                evictions++;
+            }
+        }
+        return bytes;
+    }
+
+    private boolean compressSections(BaseFullChunk chunk) {
+        if (!(chunk instanceof BaseChunk)) {
+            return false;
+        }
+        boolean compressed = false;
+        for (cn.nukkit.level.format.ChunkSection section : ((BaseChunk) chunk).getSections()) {
+            if (section instanceof ChunkSection) {
+                ChunkSection anvilSection = (ChunkSection) section;
+                if (!anvilSection.isEmpty() && !anvilSection.isLightCompressed()) {
+                    anvilSection.compressStorageLayers();
+                    compressed |= anvilSection.compress();
+                }
+            }
+        }
+        if (compressed) {
+            chunk.invalidateMemoryUsage();
+            compressions++;
+        }
+        return compressed;
+    }
+
+    private static boolean canEvict(Level level, BaseFullChunk chunk) {
+        int chunkX = chunk.getX();
+        int chunkZ = chunk.getZ();
+        if (level.isChunkInUse(chunk.getIndex()) || level.isSpawnChunk(chunkX, chunkZ)) {
+            return false;
+        }
+        // The level only saves on unload when auto save is on, a changed chunk would lose its changes otherwise
+        return level.getAutoSave() || !chunk.hasChanged();
+    }
+
+    private static final class Resident {
+        private final Level level;
+        private final BaseFullChunk chunk;
+        private final long lastAccessTick;
+        private final long bytes;
+        // Orders the candidates used at the same tick
+        private final long sequence;
+
+        private Resident(Level level, BaseFullChunk chunk, long lastAccessTick, long bytes, long sequence) {
+            this.level = level;
+            this.chunk = chunk;
+            this.lastAccessTick = lastAccessTick;
+            this.bytes = bytes;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * The position of the residency checks in the loaded chunks of a level. It walks a copy of the chunk indexes
+     * taken at the start of each cycle, so it never reorders the idle check order of the provider used by the chunk
+     * garbage collection, and the chunks loaded during a cycle are looked at by the next one.
+     */
+    private static final class ChunkCursor {
+        private long[] indexes = EMPTY_INDEXES;
+        private int position;
+
+        private long next(Map<Long, ? extends FullChunk> loaded) {
+            if (position >= indexes.length) {
+                indexes = new long[loaded.size()];
+                int i = 0;
+                for (Long index : loaded.keySet()) {
+                    indexes[i++] = index;
+                }
+                position = 0;
+            }
+            return indexes[position++];
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package cn.nukkit.level;
+
+import cn.nukkit.Player;
+import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.entity.Entity;
+import cn.nukkit.entity.EntityActivationType;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+
+/**
+ * Decides which entities of a level get a full tick.
+ * <p>An entity is active while it is inside the activation range of its {@link EntityActivationType} around any player,
+ * while it is {@linkplain Entity#isActivationImmune() immune} or after it was {@linkplain Entity#activate(int) woken up}.
+ * The inactive entities are only ticked once every {@code inactive-tick-interval} ticks, the ticks they skipped are
+ * given to them as the tick difference of that update. A range of {@code 0} keeps the entities of that type always active,
+ * which is the default of every type.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class EntityActivationRange {
+    private static final String CONFIG_PREFIX = "level-settings.entity-activation-range.";
+
+    private final Level level;
+    private final int[] ranges = new int[EntityActivationType.values().length];
+    private final int maxRange;
+    private final int inactiveTickInterval;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public EntityActivationRange(Level level) {
+        this.level = level;
+        Server server = level.getServer();
+        int max = 0;
+        for (EntityActivationType type : EntityActivationType.values()) {
+            int range = Math.max(0, server.getConfig(CONFIG_PREFIX + type.getConfigName(), 0));
+            ranges[type.ordinal()] = range;
+            max = Math.max(max, range);
+        }
+        this.maxRange = max;
+        this.inactiveTickInterval = Math.max(1, server.getConfig(CONFIG_PREFIX + "inactive-tick-interval", 20));
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getRange(EntityActivationType type) {
+        return ranges[type.ordinal()];
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getInactiveTickInterval() {
+        return inactiveTickInterval;
+    }
+
+    /**
+     * Activates the entities which are in range of the players of the level, must be called once per tick
+     * before the entities are ticked.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void activateEntities(int currentTick) {
+        if (maxRange == 0) {
+            return;
+        }
+        int chunkRadius = (maxRange >> 4) + 1;
+        for (Player player : level.getPlayers().values()) {
+            int playerChunkX = player.getChunkX();
+            int playerChunkZ = player.getChunkZ();
+            for (int chunkX = playerChunkX - chunkRadius; chunkX <= playerChunkX + chunkRadius; chunkX++) {
+                for (int chunkZ = playerChunkZ - chunkRadius; chunkZ <= playerChunkZ + chunkRadius; chunkZ++) {
+                    BaseFullChunk chunk = level.getChunkIfLoaded(chunkX, chunkZ);
+                    if (chunk == null) {
+                        continue;
+                    }
+                    for (Entity entity : chunk.getEntities().values()) {
+                        if (entity.getActivatedTick() >= currentTick) {
+                            continue;
+                        }
+                        int range = ranges[entity.getActivationType().ordinal()];
+                        if (range > 0 && entity.distanceSquared(player) <= range * range) {
+                            entity.activate(0);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the entity must get a full tick, {@code false} if it can skip this tick
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean shouldTick(Entity entity, int currentTick) {
+        if (ranges[entity.getActivationType().ordinal()] == 0 || entity.getActivatedTick() >= currentTick || entity.isActivationImmune()) {
+            return true;
+        }
+        // Spreads the inactive entities over the interval
+        return (currentTick + entity.getId()) % inactiveTickInterval == 0;
+    }
+}
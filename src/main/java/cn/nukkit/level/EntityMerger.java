@@ -0,0 +1,335 @@
+package cn.nukkit.level;
+
+import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.entity.Entity;
+import cn.nukkit.entity.item.EntityItem;
+import cn.nukkit.entity.item.EntityXPOrb;
+import cn.nukkit.item.Item;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.metrics.LevelMetrics;
+import cn.nukkit.metrics.PerformanceMetrics;
+import cn.nukkit.network.protocol.EntityEventPacket;
+import cn.nukkit.utils.Hash;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+
+import java.util.Iterator;
+
+/**
+ * Merges the dropped items and the experience orbs which lie close to each other.
+ * <p>The entities ask to be merged with {@link #addCandidate(Entity)} instead of searching their surroundings
+ * themselves. Once per tick, the entities of the chunks around the candidates are put in a coarse spatial hash whose
+ * buckets are keyed by cell and item type, so each candidate only compares itself with the entities of the same
+ * type in the cells next to it. At most {@code max-per-tick} candidates are handled per tick, the others wait for the
+ * next tick.</p>
+ * <p>The counters of each pass are also added to the {@link LevelMetrics} of the level.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class EntityMerger {
+    private static final String CONFIG_PREFIX = "level-settings.entity-merging.";
+
+    private static final int XP_ORB_TYPE = -1;
+
+    private final Level level;
+    private final double radius;
+    private final int cellSize;
+    private final int maxPerTick;
+    private final int checkInterval;
+    private final int itemStackLimit;
+    private final int xpOrbValueLimit;
+
+    private final LevelMetrics metrics;
+
+    private final ReferenceLinkedOpenHashSet<Entity> candidates = new ReferenceLinkedOpenHashSet<>();
+
+    private long merges;
+    private long candidatesChecked;
+    private long candidatesDeferred;
+    private long entitiesAvoided;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public EntityMerger(Level level) {
+        this.level = level;
+        Server server = level.getServer();
+        this.radius = Math.max(0, parseDouble(server.getConfig(CONFIG_PREFIX + "radius", (Object) 1.0), 1.0));
+        this.cellSize = Math.max(1, (int) Math.ceil(radius));
+        this.maxPerTick = Math.max(1, server.getConfig(CONFIG_PREFIX + "max-per-tick", 256));
+        this.checkInterval = Math.max(1, server.getConfig(CONFIG_PREFIX + "check-interval", 60));
+        this.itemStackLimit = server.getConfig(CONFIG_PREFIX + "item-stack-limit", 0);
+        this.xpOrbValueLimit = server.getConfig(CONFIG_PREFIX + "xp-orb-value-limit", EntityXPOrb.ORB_SPLIT_SIZES[0]);
+        this.metrics = PerformanceMetrics.getLevelMetrics(level);
+    }
+
+    private static double parseDouble(Object value, double defaultValue) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return Double.parseDouble(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return how many ticks the entities wait before asking to be merged again
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public double getRadius() {
+        return radius;
+    }
+
+    /**
+     * @return how many entities were removed by merging them into another one
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getMerges() {
+        return merges;
+    }
+
+    /**
+     * @return how many candidates were checked, each one used to search all the entities around it
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getCandidatesChecked() {
+        return candidatesChecked;
+    }
+
+    /**
+     * @return how many times a candidate was left to the next tick because the budget of the tick was spent
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getCandidatesDeferred() {
+        return candidatesDeferred;
+    }
+
+    /**
+     * @return how many entities of the chunks around the candidates were never compared with them, because they are
+     * in another cell or of another type, that a search of the surroundings of each candidate would have looked at
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getEntitiesAvoided() {
+        return entitiesAvoided;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getPendingCandidates() {
+        return candidates.size();
+    }
+
+    /**
+     * Asks to merge the entity with the items or orbs around it during the next merge pass.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized void addCandidate(Entity entity) {
+        if (entity instanceof EntityXPOrb && xpOrbValueLimit <= 0) {
+            return;
+        }
+        candidates.add(entity);
+    }
+
+    /**
+     * Merges the pending candidates, called once per tick by the level.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void mergeCandidates() {
+        ObjectArrayList<Entity> batch;
+        int deferred;
+        synchronized (this) {
+            if (candidates.isEmpty()) {
+                return;
+            }
+            batch = new ObjectArrayList<>(Math.min(candidates.size(), maxPerTick));
+            Iterator<Entity> iterator = candidates.iterator();
+            while (iterator.hasNext() && batch.size() < maxPerTick) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            deferred = candidates.size();
+            candidatesDeferred += deferred;
+        }
+
+        long mergesBefore = merges;
+        int checked = 0;
+        long avoided = 0;
+        // Cell -> type -> entities, filled one chunk at a time as the candidates need them
+        Long2ObjectOpenHashMap<Long2ObjectOpenHashMap<ObjectArrayList<Entity>>> cells = new Long2ObjectOpenHashMap<>();
+        // Chunk -> entities, of the indexed chunks
+        Long2IntOpenHashMap indexedChunks = new Long2IntOpenHashMap();
+        indexedChunks.defaultReturnValue(-1);
+        for (Entity candidate : batch) {
+            if (!isMergeable(candidate) || candidate.getLevel() != level) {
+                continue;
+            }
+            checked++;
+            int cellX = floorDiv(candidate.x);
+            int cellY = floorDiv(candidate.y);
+            int cellZ = floorDiv(candidate.z);
+            long type = getType(candidate);
+            // The cells next to the candidate cover every entity within the radius
+            int nearby = 0;
+            for (int chunkX = ((cellX - 1) * cellSize) >> 4; chunkX <= ((cellX + 2) * cellSize - 1) >> 4; chunkX++) {
+                for (int chunkZ = ((cellZ - 1) * cellSize) >> 4; chunkZ <= ((cellZ + 2) * cellSize - 1) >> 4; chunkZ++) {
+                    nearby += indexChunk(chunkX, chunkZ, cells, indexedChunks);
+                }
+            }
+            int compared = 0;
+            search:
+            for (int x = cellX - 1; x <= cellX + 1; x++) {
+                for (int z = cellZ - 1; z <= cellZ + 1; z++) {
+                    for (int y = cellY - 1; y <= cellY + 1; y++) {
+                        Long2ObjectOpenHashMap<ObjectArrayList<Entity>> types = cells.get(Hash.hashBlockPosition(x, y, z));
+                        ObjectArrayList<Entity> sameType = types == null ? null : types.get(type);
+                        if (sameType == null) {
+                            continue;
+                        }
+                        compared += sameType.size();
+                        if (!merge(candidate, sameType)) {
+                            break search;
+                        }
+                    }
+                }
+            }
+            avoided += Math.max(0, nearby - compared);
+        }
+
+        candidatesChecked += checked;
+        entitiesAvoided += avoided;
+        metrics.recordEntityMerge(merges - mergesBefore, checked, deferred, avoided);
+    }
+
+    /**
+     * Merges the entities of the list into the candidate while it has room for them.
+     *
+     * @return {@code false} if the candidate can't take any more entities
+     */
+    private boolean merge(Entity candidate, ObjectArrayList<Entity> entities) {
+        for (Entity other : entities) {
+            if (other == candidate || !isMergeable(other)
+                    || Math.abs(other.x - candidate.x) > radius
+                    || Math.abs(other.y - candidate.y) > radius
+                    || Math.abs(other.z - candidate.z) > radius) {
+                continue;
+            }
+            if (candidate instanceof EntityItem) {
+                Item item = ((EntityItem) candidate).getItem();
+                Item otherItem = ((EntityItem) other).getItem();
+                int limit = getStackLimit(item);
+                if (item.getCount() >= limit) {
+                    return false;
+                }
+                if (!otherItem.equals(item, true, true)) {
+                    continue;
+                }
+                int newAmount = item.getCount() + otherItem.getCount();
+                if (newAmount > limit) {
+                    continue;
+                }
+                other.close();
+                if (!other.closed) {
+                    continue;
+                }
+                item.setCount(newAmount);
+                EntityEventPacket packet = new EntityEventPacket();
+                packet.eid = candidate.getId();
+                packet.data = newAmount;
+                packet.event = EntityEventPacket.MERGE_ITEMS;
+                Server.broadcastPacket(candidate.getViewers().values(), packet);
+            } else {
+                EntityXPOrb orb = (EntityXPOrb) candidate;
+                if (orb.getExp() >= xpOrbValueLimit) {
+                    return false;
+                }
+                int newValue = orb.getExp() + ((EntityXPOrb) other).getExp();
+                if (newValue > xpOrbValueLimit) {
+                    continue;
+                }
+                other.close();
+                if (!other.closed) {
+                    continue;
+                }
+                orb.setExp(newValue);
+            }
+            merges++;
+        }
+        return true;
+    }
+
+    private int getStackLimit(Item item) {
+        int max = item.getMaxStackSize();
+        return itemStackLimit > 0 ? Math.min(itemStackLimit, max) : max;
+    }
+
+    /**
+     * Puts the mergeable entities of the chunk in the cells, once per pass.
+     *
+     * @return the number of entities in the chunk
+     */
+    private int indexChunk(int chunkX, int chunkZ,
+                           Long2ObjectOpenHashMap<Long2ObjectOpenHashMap<ObjectArrayList<Entity>>> cells,
+                           Long2IntOpenHashMap indexedChunks) {
+        long index = Level.chunkHash(chunkX, chunkZ);
+        int entities = indexedChunks.get(index);
+        if (entities >= 0) {
+            return entities;
+        }
+        BaseFullChunk chunk = level.getChunkIfLoaded(chunkX, chunkZ);
+        entities = chunk == null ? 0 : chunk.getEntities().size();
+        indexedChunks.put(index, entities);
+        if (chunk == null) {
+            return 0;
+        }
+        for (Entity entity : chunk.getEntities().values()) {
+            if (!isMergeable(entity)) {
+                continue;
+            }
+            long cell = Hash.hashBlockPosition(floorDiv(entity.x), floorDiv(entity.y), floorDiv(entity.z));
+            cells.computeIfAbsent(cell, k -> new Long2ObjectOpenHashMap<>())
+                    .computeIfAbsent(getType(entity), k -> new ObjectArrayList<>())
+                    .add(entity);
+        }
+        return entities;
+    }
+
+    private static boolean isMergeable(Entity entity) {
+        if (entity.closed || !entity.isAlive()) {
+            return false;
+        }
+        if (entity instanceof EntityItem) {
+            return entity.isOnGround() && ((EntityItem) entity).getItem() != null;
+        }
+        return entity instanceof EntityXPOrb;
+    }
+
+    private static long getType(Entity entity) {
+        if (entity instanceof EntityXPOrb) {
+            return XP_ORB_TYPE;
+        }
+        Item item = ((EntityItem) entity).getItem();
+        return ((long) item.getId() << 32) | (item.getDamage() & 0xFFFFFFFFL);
+    }
+
+    private int floorDiv(double coordinate) {
+        return Math.floorDiv((int) Math.floor(coordinate), cellSize);
+    }
+}
@@ -0,0 +1,253 @@
+package cn.nukkit.level;
+
+import cn.nukkit.Player;
+import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.entity.Entity;
+import cn.nukkit.entity.EntityActivationType;
+import cn.nukkit.entity.EntityHuman;
+import cn.nukkit.level.format.FullChunk;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+
+import java.util.Map;
+
+/**
+ * Keeps the viewers of the entities of a level up to date.
+ * <p>The viewers are only recalculated for the entities and the players which moved to another chunk, or players which
+ * received a new chunk, instead of walking every player of the level on each move. An entity which moved is only
+ * checked against its current viewers and the players loading its new chunk. A player views an entity while the chunk
+ * of the entity was sent to it and is within the tracking range of the entity type, configured in
+ * {@code level-settings.entity-tracking-range}. A range of {@code 0}, the default, tracks the entity in all the chunks
+ * sent to the player.</p>
+ * <p>The spawns and despawns found during a tick are sent once, grouped by player, when the level calls
+ * {@link #update()}.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class EntityTracker {
+    private static final String CONFIG_PREFIX = "level-settings.entity-tracking-range.";
+
+    /**
+     * Above this radius the chunks sent to the player are walked instead of the square around it.
+     */
+    private static final int MAX_SCANNED_RADIUS = 32;
+
+    private final Level level;
+    private final int[] chunkRadius = new int[EntityActivationType.values().length];
+    private final int playerChunkRadius;
+    private final int maxChunkRadius;
+
+    /**
+     * The ids of the entities which each player views, by player id. Entities spawned or despawned outside of the
+     * tracker are reconciled the next time the player is checked.
+     */
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> trackedByPlayer = new Long2ObjectOpenHashMap<>();
+    private ReferenceLinkedOpenHashSet<Entity> dirtyEntities = new ReferenceLinkedOpenHashSet<>();
+    private ReferenceLinkedOpenHashSet<Player> dirtyPlayers = new ReferenceLinkedOpenHashSet<>();
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public EntityTracker(Level level) {
+        this.level = level;
+        Server server = level.getServer();
+        int max = 0;
+        for (EntityActivationType type : EntityActivationType.values()) {
+            int radius = toChunkRadius(server.getConfig(CONFIG_PREFIX + type.getConfigName(), 0));
+            chunkRadius[type.ordinal()] = radius;
+            max = Math.max(max, radius);
+        }
+        this.playerChunkRadius = toChunkRadius(server.getConfig(CONFIG_PREFIX + "players", 0));
+        this.maxChunkRadius = Math.max(max, playerChunkRadius);
+    }
+
+    private static int toChunkRadius(int range) {
+        return range <= 0 ? Integer.MAX_VALUE : (range + 15) >> 4;
+    }
+
+    /**
+     * @return the distance in chunks from the player within which the entity is tracked
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getChunkRadius(Entity entity) {
+        if (entity instanceof EntityHuman) {
+            return playerChunkRadius;
+        }
+        return chunkRadius[entity.getActivationType().ordinal()];
+    }
+
+    /**
+     * @return {@code true} if the entity should be spawned to the player
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean canView(Player player, Entity entity) {
+        FullChunk chunk = entity.chunk;
+        if (player == entity || chunk == null || entity.closed || !entity.isAlive()
+                || !player.spawned || !player.isOnline() || player.getLevel() != level || entity.getLevel() != level) {
+            return false;
+        }
+        if (entity instanceof Player && !player.canSee((Player) entity)) {
+            return false;
+        }
+        int chunkX = chunk.getX();
+        int chunkZ = chunk.getZ();
+        if (!player.usedChunks.containsKey(Level.chunkHash(chunkX, chunkZ))) {
+            return false;
+        }
+        int radius = getChunkRadius(entity);
+        return Math.abs(player.getChunkX() - chunkX) <= radius && Math.abs(player.getChunkZ() - chunkZ) <= radius;
+    }
+
+    /**
+     * Must be called when the entity moved to another chunk.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized void onEntityMoved(Entity entity) {
+        dirtyEntities.add(entity);
+        if (entity instanceof Player) {
+            dirtyPlayers.add((Player) entity);
+        }
+    }
+
+    /**
+     * Must be called when the player can see new entities without moving, like after receiving a chunk.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized void onPlayerMoved(Player player) {
+        dirtyPlayers.add(player);
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized void removePlayer(Player player) {
+        trackedByPlayer.remove(player.getId());
+        dirtyPlayers.remove(player);
+    }
+
+    /**
+     * Spawns and despawns the entities for the players whose view changed since the last update.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void update() {
+        ReferenceLinkedOpenHashSet<Entity> entities;
+        ReferenceLinkedOpenHashSet<Player> players;
+        synchronized (this) {
+            if (dirtyEntities.isEmpty() && dirtyPlayers.isEmpty()) {
+                return;
+            }
+            entities = dirtyEntities;
+            players = dirtyPlayers;
+            dirtyEntities = new ReferenceLinkedOpenHashSet<>();
+            dirtyPlayers = new ReferenceLinkedOpenHashSet<>();
+        }
+
+        Reference2ObjectLinkedOpenHashMap<Player, ReferenceLinkedOpenHashSet<Entity>> spawns = new Reference2ObjectLinkedOpenHashMap<>();
+        Reference2ObjectLinkedOpenHashMap<Player, ReferenceLinkedOpenHashSet<Entity>> despawns = new Reference2ObjectLinkedOpenHashMap<>();
+
+        for (Entity entity : entities) {
+            FullChunk chunk = entity.chunk;
+            if (entity.closed || chunk == null || entity.getLevel() != level) {
+                continue;
+            }
+            // The players which may lose the entity view it already, the others must load its new chunk
+            Map<Integer, Player> viewers = entity.getViewers();
+            for (Player player : viewers.values().toArray(Player.EMPTY_ARRAY)) {
+                if (canView(player, entity)) {
+                    getTracked(player).add(entity.getId());
+                } else {
+                    despawns.computeIfAbsent(player, p -> new ReferenceLinkedOpenHashSet<>()).add(entity);
+                }
+            }
+            for (Player player : level.getChunkPlayers(chunk.getX(), chunk.getZ()).values()) {
+                if (!viewers.containsKey(player.getLoaderId()) && canView(player, entity)) {
+                    spawns.computeIfAbsent(player, p -> new ReferenceLinkedOpenHashSet<>()).add(entity);
+                }
+            }
+        }
+
+        for (Player player : players) {
+            if (player.getLevel() == level && !player.closed) {
+                checkPlayer(player, spawns, despawns);
+            }
+        }
+
+        despawns.forEach((player, toDespawn) -> {
+            LongOpenHashSet tracked = getTracked(player);
+            for (Entity entity : toDespawn) {
+                entity.despawnFrom(player);
+                tracked.remove(entity.getId());
+            }
+        });
+        spawns.forEach((player, toSpawn) -> {
+            LongOpenHashSet tracked = getTracked(player);
+            for (Entity entity : toSpawn) {
+                entity.spawnTo(player);
+                if (entity.getViewers().containsKey(player.getLoaderId())) {
+                    tracked.add(entity.getId());
+                }
+            }
+        });
+    }
+
+    private void checkPlayer(Player player,
+                             Reference2ObjectLinkedOpenHashMap<Player, ReferenceLinkedOpenHashSet<Entity>> spawns,
+                             Reference2ObjectLinkedOpenHashMap<Player, ReferenceLinkedOpenHashSet<Entity>> despawns) {
+        LongOpenHashSet tracked = getTracked(player);
+        int loaderId = player.getLoaderId();
+        for (LongIterator iterator = tracked.iterator(); iterator.hasNext(); ) {
+            Entity entity = level.getEntity(iterator.nextLong());
+            if (entity == null || !entity.getViewers().containsKey(loaderId)) {
+                iterator.remove();
+            } else if (!canView(player, entity)) {
+                despawns.computeIfAbsent(player, p -> new ReferenceLinkedOpenHashSet<>()).add(entity);
+            }
+        }
+
+        int playerChunkX = player.getChunkX();
+        int playerChunkZ = player.getChunkZ();
+        long side = 2L * maxChunkRadius + 1;
+        if (maxChunkRadius <= MAX_SCANNED_RADIUS && side * side < player.usedChunks.size()) {
+            for (int chunkX = playerChunkX - maxChunkRadius; chunkX <= playerChunkX + maxChunkRadius; chunkX++) {
+                for (int chunkZ = playerChunkZ - maxChunkRadius; chunkZ <= playerChunkZ + maxChunkRadius; chunkZ++) {
+                    checkChunk(player, tracked, chunkX, chunkZ, spawns);
+                }
+            }
+        } else {
+            for (long index : player.usedChunks.keySet()) {
+                checkChunk(player, tracked, Level.getHashX(index), Level.getHashZ(index), spawns);
+            }
+        }
+    }
+
+    private void checkChunk(Player player, LongOpenHashSet tracked, int chunkX, int chunkZ,
+                            Reference2ObjectLinkedOpenHashMap<Player, ReferenceLinkedOpenHashSet<Entity>> spawns) {
+        BaseFullChunk chunk = level.getChunkIfLoaded(chunkX, chunkZ);
+        if (chunk == null) {
+            return;
+        }
+        int loaderId = player.getLoaderId();
+        for (Entity entity : chunk.getEntities().values()) {
+            if (entity.getViewers().containsKey(loaderId)) {
+                tracked.add(entity.getId());
+            } else if (canView(player, entity)) {
+                spawns.computeIfAbsent(player, p -> new ReferenceLinkedOpenHashSet<>()).add(entity);
+            }
+        }
+    }
+
+    private LongOpenHashSet getTracked(Player player) {
+        synchronized (this) {
+            return trackedByPlayer.computeIfAbsent(player.getId(), id -> new LongOpenHashSet());
+        }
+    }
+}
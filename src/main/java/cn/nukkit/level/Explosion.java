@@ -22,10 +22,12 @@ import cn.nukkit.event.entity.EntityExplodeEvent;
 import cn.nukkit.inventory.InventoryHolder;
 import cn.nukkit.item.Item;
 import cn.nukkit.item.ItemBlock;
+import cn.nukkit.level.explosion.ExplosionBatch;
+import cn.nukkit.level.explosion.ExplosionRayCaster;
 import cn.nukkit.level.particle.HugeExplodeSeedParticle;
 import cn.nukkit.math.*;
 import cn.nukkit.utils.Hash;
-import it.unimi.dsi.fastutil.longs.LongArraySet;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
 
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
@@ -38,7 +40,6 @@ import java.util.concurrent.ThreadLocalRandom;
  */
 public class Explosion {
 
-    private final int rays = 16; //Rays
     private final Level level;
     private final Position source;
     private final double size;
@@ -46,7 +47,6 @@ public class Explosion {
     private double fireChance;
     private Set<Block> affectedBlocks;
     private Set<Block> fireIgnitions;
-    private final double stepLen = 0.3d;
 
     private final Object what;
     private boolean doesDamage = true;
@@ -139,54 +139,16 @@ public class Explosion {
         }
         
         ThreadLocalRandom random = ThreadLocalRandom.current();
-
-        Vector3 vector = new Vector3(0, 0, 0);
-        Vector3 vBlock = new Vector3(0, 0, 0);
-
-        int mRays = this.rays - 1;
-        for (int i = 0; i < this.rays; ++i) {
-            for (int j = 0; j < this.rays; ++j) {
-                for (int k = 0; k < this.rays; ++k) {
-                    if (i == 0 || i == mRays || j == 0 || j == mRays || k == 0 || k == mRays) {
-                        vector.setComponents((double) i / (double) mRays * 2d - 1, (double) j / (double) mRays * 2d - 1, (double) k / (double) mRays * 2d - 1);
-                        double len = vector.length();
-                        vector.setComponents((vector.x / len) * this.stepLen, (vector.y / len) * this.stepLen, (vector.z / len) * this.stepLen);
-                        double pointerX = this.source.x;
-                        double pointerY = this.source.y;
-                        double pointerZ = this.source.z;
-
-                        for (double blastForce = this.size * (random.nextInt(700, 1301)) / 1000d; blastForce > 0; blastForce -= this.stepLen * 0.75d) {
-                            int x = (int) pointerX;
-                            int y = (int) pointerY;
-                            int z = (int) pointerZ;
-                            vBlock.x = pointerX >= x ? x : x - 1;
-                            vBlock.y = pointerY >= y ? y : y - 1;
-                            vBlock.z = pointerZ >= z ? z : z - 1;
-                            if (!this.level.isYInRange((int) vBlock.y)) {
-                                break;
-                            }
-                            Block block = this.level.getBlock(vBlock);
-
-                            if (block.getId() != 0) {
-                                Block layer1 = block.getLevelBlockAtLayer(1);
-                                double resistance = Math.max(block.getResistance(), layer1.getResistance());
-                                blastForce -= (resistance / 5 + 0.3d) * this.stepLen;
-                                if (blastForce > 0) {
-                                    if (this.affectedBlocks.add(block)) {
-                                        if (incendiary && random.nextDouble() <= fireChance) {
-                                            this.fireIgnitions.add(block);
-                                        }
-                                        if (layer1.getId() != BlockID.AIR) {
-                                            this.affectedBlocks.add(layer1);
-                                        }
-                                    }
-                                }
-                            }
-                            pointerX += vector.x;
-                            pointerY += vector.y;
-                            pointerZ += vector.z;
-                        }
-                    }
+        LongLinkedOpenHashSet affected = ExplosionRayCaster.castRays(this.level, this.source.x, this.source.y, this.source.z, this.size);
+        for (long hash : affected) {
+            Block block = this.level.getBlock(Hash.hashBlockPositionX(hash), Hash.hashBlockPositionY(hash), Hash.hashBlockPositionZ(hash));
+            if (this.affectedBlocks.add(block)) {
+                if (incendiary && random.nextDouble() <= fireChance) {
+                    this.fireIgnitions.add(block);
+                }
+                Block layer1 = block.getLevelBlockAtLayer(1);
+                if (layer1.getId() != BlockID.AIR) {
+                    this.affectedBlocks.add(layer1);
                 }
             }
         }
@@ -197,9 +159,6 @@ public class Explosion {
     @PowerNukkitDifference(info = "Using new method to play sounds", since = "1.4.0.0-PN")
     public boolean explodeB() {
 
-        LongArraySet updateBlocks = new LongArraySet();
-        List<Vector3> send = new ArrayList<>();
-
         Vector3 source = (new Vector3(this.source.x, this.source.y, this.source.z)).floor();
         double yield = (1d / this.size) * 100d;
         
@@ -268,6 +227,7 @@ public class Explosion {
         }
 
         ItemBlock air = new ItemBlock(Block.get(BlockID.AIR));
+        ExplosionBatch batch = this.level.getExplosionBatch();
         BlockEntity container;
 
         for (Block block : this.affectedBlocks) {
@@ -289,35 +249,7 @@ public class Explosion {
                 }
             }
 
-            this.level.setBlockAtLayer((int) block.x, (int) block.y, (int) block.z, block.layer, BlockID.AIR);
-
-            if (block.layer != 0) {
-                continue;
-            }
-
-            Vector3 pos = new Vector3(block.x, block.y, block.z);
-
-            for (BlockFace side : BlockFace.values()) {
-                Vector3 sideBlock = pos.getSide(side);
-                long index = Hash.hashBlock((int) sideBlock.x, (int) sideBlock.y, (int) sideBlock.z);
-                if (!this.affectedBlocks.contains(sideBlock) && !updateBlocks.contains(index)) {
-                    BlockUpdateEvent ev = new BlockUpdateEvent(this.level.getBlock(sideBlock));
-                    this.level.getServer().getPluginManager().callEvent(ev);
-                    if (!ev.isCancelled()) {
-                        ev.getBlock().onUpdate(Level.BLOCK_UPDATE_NORMAL);
-                    }
-                    Block layer1 = this.level.getBlock(sideBlock, 1);
-                    if (layer1.getId() != BlockID.AIR) {
-                        ev = new BlockUpdateEvent(layer1);
-                        this.level.getServer().getPluginManager().callEvent(ev);
-                        if (!ev.isCancelled()) {
-                            ev.getBlock().onUpdate(Level.BLOCK_UPDATE_NORMAL);
-                        }
-                    }
-                    updateBlocks.add(index);
-                }   
-            }
-            send.add(new Vector3(block.x - source.x, block.y - source.y, block.z - source.z));
+            batch.removeBlock(block);
         }
 
         for (Vector3 remainingPos : fireIgnitions) {
@@ -27,6 +27,7 @@ import cn.nukkit.item.ItemBlock;
 import cn.nukkit.item.ItemBucket;
 import cn.nukkit.item.enchantment.Enchantment;
 import cn.nukkit.level.biome.Biome;
+import cn.nukkit.level.explosion.ExplosionBatch;
 import cn.nukkit.level.format.Chunk;
 import cn.nukkit.level.format.ChunkSection;
 import cn.nukkit.level.format.FullChunk;
@@ -40,13 +41,20 @@ import cn.nukkit.level.generator.PopChunkManager;
 import cn.nukkit.level.generator.task.GenerationTask;
 import cn.nukkit.level.generator.task.LightPopulationTask;
 import cn.nukkit.level.generator.task.PopulationTask;
+import cn.nukkit.level.liquid.LiquidFlowEngine;
+import cn.nukkit.level.map.MapManager;
 import cn.nukkit.level.particle.DestroyBlockParticle;
 import cn.nukkit.level.particle.Particle;
+import cn.nukkit.level.redstone.RedstoneWireEngine;
+import cn.nukkit.level.redstone.RedstoneWireMode;
 import cn.nukkit.math.*;
 import cn.nukkit.math.BlockFace.Plane;
 import cn.nukkit.metadata.BlockMetadataStore;
 import cn.nukkit.metadata.MetadataValue;
 import cn.nukkit.metadata.Metadatable;
+import cn.nukkit.metrics.LevelMetrics;
+import cn.nukkit.metrics.PerformanceMetrics;
+import cn.nukkit.metrics.TickPhase;
 import cn.nukkit.nbt.NBTIO;
 import cn.nukkit.nbt.tag.*;
 import cn.nukkit.network.protocol.*;
@@ -54,7 +62,11 @@ import cn.nukkit.plugin.Plugin;
 import cn.nukkit.scheduler.AsyncTask;
 import cn.nukkit.scheduler.BlockUpdateScheduler;
 import cn.nukkit.timings.LevelTimings;
+import cn.nukkit.timings.jfr.BlockUpdatesEvent;
+import cn.nukkit.timings.jfr.ChunkSendEvent;
+import cn.nukkit.timings.jfr.EntityTickEvent;
 import cn.nukkit.utils.*;
+import co.aikar.timings.Timing;
 import co.aikar.timings.Timings;
 import co.aikar.timings.TimingsHistory;
 import com.google.common.base.Preconditions;
@@ -62,6 +74,7 @@ import it.unimi.dsi.fastutil.ints.Int2IntMap;
 import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectRBTreeMap;
 import it.unimi.dsi.fastutil.longs.*;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import lombok.AllArgsConstructor;
@@ -126,9 +139,18 @@ public class Level implements ChunkManager, Metadatable {
     // Lower values use less memory
     public static final int MAX_BLOCK_CACHE = 512;
 
+    // The chunk garbage collection looks at every loaded chunk in about this many runs
+    private static final int CHUNK_GC_CYCLE_RUNS = 5;
+    private static final int CHUNK_GC_MIN_CHECKS = 1024;
+    // How long a chunk must stay unused before the garbage collection asks to unload it
+    private static final int CHUNK_GC_IDLE_TICKS = 200;
+
     // The blocks that can randomly tick
     private static final boolean[] randomTickBlocks = new boolean[Block.MAX_BLOCK_ID];
 
+    // Changes every time randomTickBlocks is modified, so the cached counts in the chunk sections get recounted
+    private static volatile int randomTickVersion;
+
     static {
         randomTickBlocks[BlockID.GRASS] = true;
         randomTickBlocks[BlockID.FARMLAND] = true;
@@ -196,6 +218,13 @@ public class Level implements ChunkManager, Metadatable {
     @Since("1.4.0.0-PN")
     public static void setCanRandomTick(int blockId, boolean newValue) {
         randomTickBlocks[blockId] = newValue;
+        randomTickVersion++;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static int getRandomTickVersion() {
+        return randomTickVersion;
     }
 
     private final Long2ObjectOpenHashMap<BlockEntity> blockEntities = new Long2ObjectOpenHashMap<>();
@@ -206,8 +235,28 @@ public class Level implements ChunkManager, Metadatable {
 
     public final Long2ObjectOpenHashMap<Entity> updateEntities = new Long2ObjectOpenHashMap<>();
 
+    /**
+     * Reused every tick to iterate {@link #updateEntities} while the entities add and remove themselves from it.
+     */
+    private Entity[] tickingEntities = new Entity[0];
+    private EntityActivationRange entityActivationRange;
+    private EntityTracker entityTracker;
+    private EntityMerger entityMerger;
+
     private final ConcurrentLinkedQueue<BlockEntity> updateBlockEntities = new ConcurrentLinkedQueue<>();
 
+    // The ids of the block entities in updateBlockEntities, ConcurrentLinkedQueue.contains is too slow with lots of hoppers
+    private final Set<Long> scheduledBlockEntities = ConcurrentHashMap.newKeySet();
+
+    // Sleeping block entities which must be woken at the given server tick
+    private final Int2ObjectRBTreeMap<List<BlockEntity>> blockEntityWakeUps = new Int2ObjectRBTreeMap<>();
+    // The tick in blockEntityWakeUps of each block entity id, a block entity has only one pending wake up
+    private final Long2IntOpenHashMap blockEntityWakeUpTicks = new Long2IntOpenHashMap();
+    // The block entity being updated and the block entities woken up during their own update, which are still in
+    // scheduledBlockEntities at that moment and would go to sleep if their update returns false
+    private BlockEntity updatingBlockEntity;
+    private final List<BlockEntity> blockEntitiesWokenUpWhileUpdating = new ArrayList<>();
+
     private boolean cacheChunks = false;
 
     private final Server server;
@@ -253,6 +302,12 @@ public class Level implements ChunkManager, Metadatable {
 
     private final BlockUpdateScheduler updateQueue;
     private final Queue<QueuedUpdate> normalUpdateQueue = new ConcurrentLinkedDeque<>();
+
+    @Nullable
+    private RedstoneWireEngine redstoneWireEngine;
+    private final LiquidFlowEngine liquidFlowEngine = new LiquidFlowEngine(this);
+    private final ExplosionBatch explosionBatch = new ExplosionBatch(this);
+    private final Queue<Entity> dirtyDataEntities = new ConcurrentLinkedQueue<>();
 //    private final TreeSet<BlockUpdateEntry> updateQueue = new TreeSet<>();
 //    private final List<BlockUpdateEntry> nextTickUpdates = Lists.newArrayList();
     //private final Map<BlockVector3, Integer> updateQueueIndex = new HashMap<>();
@@ -288,6 +343,10 @@ public class Level implements ChunkManager, Metadatable {
 
     public LevelTimings timings;
 
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public final LevelMetrics metrics;
+
     private int tickRate;
     public int tickRateTime = 0;
     public int tickRateCounter = 0;
@@ -361,7 +420,9 @@ public class Level implements ChunkManager, Metadatable {
         this.autoSave = server.getAutoSave();
         this.provider = provider.apply(this, path);
         LevelProvider levelProvider = requireProvider();
+        this.folderName = name;
         this.timings = new LevelTimings(this);
+        this.metrics = PerformanceMetrics.getLevelMetrics(this);
         levelProvider.updateLevelName(name);
 
         log.info(this.server.getLanguage().translateString("nukkit.level.preparing",
@@ -371,7 +432,6 @@ public class Level implements ChunkManager, Metadatable {
 
         this.useSections = usesChunkSection.getAsBoolean();
 
-        this.folderName = name;
         this.time = levelProvider.getTime();
 
         this.raining = levelProvider.isRaining();
@@ -397,6 +457,11 @@ public class Level implements ChunkManager, Metadatable {
         this.chunkTickList.clear();
         this.clearChunksOnTick = this.server.getConfig("chunk-ticking.clear-tick-list", true);
         this.cacheChunks = this.server.getConfig("chunk-sending.cache-chunks", false);
+        this.redstoneWireEngine = RedstoneWireMode.fromConfig(this.server.getConfig("level-settings.redstone-wire-engine", RedstoneWireMode.ALTERNATE_CURRENT.getConfigName()))
+                .createEngine(this);
+        this.entityActivationRange = new EntityActivationRange(this);
+        this.entityTracker = new EntityTracker(this);
+        this.entityMerger = new EntityMerger(this);
         this.temporalPosition = new Position(0, 0, 0, this);
         this.temporalVector = new Vector3(0, 0, 0);
         this.tickRate = 1;
@@ -546,6 +611,7 @@ public class Level implements ChunkManager, Metadatable {
 
         this.provider = null;
         this.blockMetadata = null;
+        PerformanceMetrics.removeLevel(this);
         this.temporalPosition = null;
         this.server.getLevels().remove(this.levelId);
         this.generators.clean();
@@ -901,6 +967,8 @@ public class Level implements ChunkManager, Metadatable {
 
         requireProvider();
 
+        // Explosions caused outside of the tick, by players or plugins
+        explosionBatch.flush();
         updateBlockLight(lightQueue);
         this.checkTime();
         if (currentTick >= nextTimeSendTick) { // Send time to client every 30 seconds to make sure it
@@ -933,18 +1001,8 @@ public class Level implements ChunkManager, Metadatable {
             }
 
             if (this.isThundering()) {
-                Map<Long, ? extends FullChunk> chunks = getChunks();
-                if (chunks instanceof Long2ObjectOpenHashMap) {
-                    Long2ObjectOpenHashMap<? extends FullChunk> fastChunks = (Long2ObjectOpenHashMap) chunks;
-                    ObjectIterator<? extends Long2ObjectMap.Entry<? extends FullChunk>> iter = fastChunks.long2ObjectEntrySet().fastIterator();
-                    while (iter.hasNext()) {
-                        Long2ObjectMap.Entry<? extends FullChunk> entry = iter.next();
-                        performThunder(entry.getLongKey(), entry.getValue());
-                    }
-                } else {
-                    for (Map.Entry<Long, ? extends FullChunk> entry : getChunks().entrySet()) {
-                        performThunder(entry.getKey(), entry.getValue());
-                    }
+                for (FullChunk chunk : getChunks().values()) {
+                    performThunder(chunk.getIndex(), chunk);
                 }
             }
         }
@@ -953,7 +1011,13 @@ public class Level implements ChunkManager, Metadatable {
 
         this.levelCurrentTick++;
 
+        long phase = this.metrics.start();
         this.unloadChunks();
+        this.metrics.record(TickPhase.CHUNK_UNLOAD, phase);
+
+        phase = this.metrics.start();
+        BlockUpdatesEvent blockUpdatesEvent = new BlockUpdatesEvent();
+        blockUpdatesEvent.begin();
         this.timings.doTickPending.startTiming();
 
         int polled = 0;
@@ -963,6 +1027,7 @@ public class Level implements ChunkManager, Metadatable {
 
         while (!this.normalUpdateQueue.isEmpty()) {
             QueuedUpdate queuedUpdate = this.normalUpdateQueue.poll();
+            blockUpdatesEvent.neighbourUpdates++;
             Block block = getBlock(queuedUpdate.block, queuedUpdate.block.layer);
             BlockUpdateEvent event = new BlockUpdateEvent(block);
             this.server.getPluginManager().callEvent(event);
@@ -972,34 +1037,86 @@ public class Level implements ChunkManager, Metadatable {
                 if (queuedUpdate.neighbor != null) {
                     block.onNeighborChange(queuedUpdate.neighbor.getOpposite());
                 }
+                if (block.layer == 0) {
+                    this.wakeUpBlockEntity(block.getFloorX(), block.getFloorY(), block.getFloorZ());
+                }
             }
         }
 
+        blockUpdatesEvent.commit(this);
+        this.metrics.record(TickPhase.BLOCK_UPDATES, phase);
+
+        phase = this.metrics.start();
         TimingsHistory.entityTicks += this.updateEntities.size();
+        EntityTickEvent entityTickEvent = new EntityTickEvent();
+        entityTickEvent.begin();
+        entityTickEvent.entities = this.updateEntities.size();
         this.timings.entityTick.startTiming();
 
         if (!this.updateEntities.isEmpty()) {
-            for (long id : new ArrayList<>(this.updateEntities.keySet())) {
-                Entity entity = this.updateEntities.get(id);
-                if (entity == null) {
+            this.entityActivationRange.activateEntities(currentTick);
+            int size = this.updateEntities.size();
+            Entity[] entities = this.tickingEntities = this.updateEntities.values().toArray(this.tickingEntities);
+            for (int i = 0; i < size; i++) {
+                Entity entity = entities[i];
+                entities[i] = null;
+                long id = entity.getId();
+                if (this.updateEntities.get(id) != entity) {
+                    // Removed or moved to another level by the entities ticked before it
+                    continue;
+                }
+                if (entity.closed) {
                     this.updateEntities.remove(id);
                     continue;
                 }
-                if (entity.closed || !entity.onUpdate(currentTick)) {
+                if (!this.entityActivationRange.shouldTick(entity, currentTick)) {
+                    // Stays scheduled, the skipped ticks are caught up by the next update
+                    continue;
+                }
+                Timing timing = this.timings.getEntityTick(entity.getActivationType());
+                timing.startTiming();
+                if (!entity.onUpdate(currentTick)) {
                     this.updateEntities.remove(id);
                 }
+                timing.stopTiming();
             }
         }
         this.timings.entityTick.stopTiming();
+        entityTickEvent.commit(this);
+        this.metrics.record(TickPhase.ENTITIES, phase);
+
+        phase = this.metrics.start();
+        this.timings.entityMerge.startTiming();
+        this.entityMerger.mergeCandidates();
+        this.timings.entityMerge.stopTiming();
+        this.metrics.record(TickPhase.ENTITY_MERGE, phase);
 
+        phase = this.metrics.start();
         TimingsHistory.tileEntityTicks += this.updateBlockEntities.size();
         this.timings.blockEntityTick.startTiming();
-        this.updateBlockEntities.removeIf(blockEntity -> !blockEntity.isValid() || !blockEntity.onUpdate());
+        this.tickBlockEntities(currentTick);
         this.timings.blockEntityTick.stopTiming();
+        this.metrics.record(TickPhase.BLOCK_ENTITIES, phase);
 
+        phase = this.metrics.start();
         this.timings.tickChunks.startTiming();
         this.tickChunks();
         this.timings.tickChunks.stopTiming();
+        this.metrics.record(TickPhase.CHUNKS, phase);
+
+        explosionBatch.flush();
+
+        phase = this.metrics.start();
+        this.timings.entityTracker.startTiming();
+        this.entityTracker.update();
+        this.timings.entityTracker.stopTiming();
+        this.metrics.record(TickPhase.ENTITY_TRACKER, phase);
+
+        phase = this.metrics.start();
+        this.timings.entityDataFlush.startTiming();
+        this.flushEntityData();
+        this.timings.entityDataFlush.stopTiming();
+        this.metrics.record(TickPhase.ENTITY_DATA_FLUSH, phase);
 
         synchronized (changedBlocks) {
             if (!this.changedBlocks.isEmpty()) {
@@ -1034,7 +1151,9 @@ public class Level implements ChunkManager, Metadatable {
             }
         }
 
+        phase = this.metrics.start();
         this.processChunkRequest();
+        this.metrics.record(TickPhase.CHUNK_SEND, phase);
 
         if (this.sleepTicks > 0 && --this.sleepTicks <= 0) {
             this.checkSleep();
@@ -1291,6 +1410,10 @@ public class Level implements ChunkManager, Metadatable {
                 } else if (loaders <= 0) {
                     iter.remove();
                 }
+                if (chunk instanceof BaseFullChunk) {
+                    // Ticked chunks are the ones around the loaders, the chunk garbage collection leaves them alone
+                    ((BaseFullChunk) chunk).touch(this.levelCurrentTick);
+                }
 
                 for (Entity entity : chunk.getEntities().values()) {
                     entity.scheduleUpdate();
@@ -1300,7 +1423,8 @@ public class Level implements ChunkManager, Metadatable {
                 if (tickSpeed > 0) {
                     if (this.useSections) {
                         for (ChunkSection section : ((Chunk) chunk).getSections()) {
-                            if (!(section instanceof EmptyChunkSection)) {
+                            // Sections without random tickable blocks would only waste the random positions
+                            if (!(section instanceof EmptyChunkSection) && section.hasRandomTickableBlocks()) {
                                 int Y = section.getY();
                                 for (int i = 0; i < tickSpeed; ++i) {
                                     int lcg = this.getUpdateLCG();
@@ -1384,6 +1508,88 @@ public class Level implements ChunkManager, Metadatable {
         RedstoneComponent.updateAroundRedstone(loc, face);
     }
 
+    /**
+     * The engine which calculates the power of the redstone wires in this level.
+     *
+     * @return {@code null} when each wire uses the legacy recursive calculation
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Nullable
+    public RedstoneWireEngine getRedstoneWireEngine() {
+        return redstoneWireEngine;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void setRedstoneWireEngine(@Nullable RedstoneWireEngine redstoneWireEngine) {
+        this.redstoneWireEngine = redstoneWireEngine;
+    }
+
+    /**
+     * The engine used by the liquids of this level to look at the blocks around them while they flow.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public LiquidFlowEngine getLiquidFlowEngine() {
+        return liquidFlowEngine;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public EntityActivationRange getEntityActivationRange() {
+        return entityActivationRange;
+    }
+
+    /**
+     * Decides which players see the entities of this level.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public EntityTracker getEntityTracker() {
+        return entityTracker;
+    }
+
+    /**
+     * Merges the dropped items and the experience orbs of this level.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public EntityMerger getEntityMerger() {
+        return entityMerger;
+    }
+
+    /**
+     * Schedules the changed data properties of the entity to be sent at the end of the current tick.
+     *
+     * @see Entity#markDataPropertyDirty(int)
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void queueEntityDataFlush(Entity entity) {
+        this.dirtyDataEntities.add(entity);
+    }
+
+    private void flushEntityData() {
+        // The entities changed while flushing go to the next tick
+        for (int i = this.dirtyDataEntities.size(); i > 0; i--) {
+            Entity entity = this.dirtyDataEntities.poll();
+            if (entity == null) {
+                break;
+            }
+            entity.flushDataProperties();
+        }
+    }
+
+    /**
+     * The blocks removed by the explosions of this level, their light and neighbours are updated once per tick.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public ExplosionBatch getExplosionBatch() {
+        return explosionBatch;
+    }
+
     public void updateComparatorOutputLevel(Vector3 v) {
         updateComparatorOutputLevelSelective(v, true);
     }
@@ -1439,6 +1645,18 @@ public class Level implements ChunkManager, Metadatable {
         updateAround(new Vector3(x, y, z));
     }
 
+    /**
+     * Queues a normal update to the block at the given face of the position, like {@link #updateAround(Vector3)}
+     * does for all faces.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void updateSide(int x, int y, int z, BlockFace face) {
+        Block side = getBlock(x + face.getXOffset(), y + face.getYOffset(), z + face.getZOffset());
+        normalUpdateQueue.add(new QueuedUpdate(side, face));
+        normalUpdateQueue.add(new QueuedUpdate(side.getLevelBlockAtLayer(1), face));
+    }
+
     public void scheduleUpdate(Block pos, int delay) {
         this.scheduleUpdate(pos, pos, delay, 0, true);
     }
@@ -2072,6 +2290,8 @@ public class Level implements ChunkManager, Metadatable {
         if (state.equals(statePrevious)) {
             return false;
         }
+        liquidFlowEngine.onBlockChanged(x, y, z);
+        this.markMapsDirty(x, z);
         block.x = x;
         block.y = y;
         block.z = z;
@@ -2123,6 +2343,14 @@ public class Level implements ChunkManager, Metadatable {
     private void addBlockChange(int x, int y, int z) {
         long index = Level.chunkHash(x >> 4, z >> 4);
         addBlockChange(index, x, y, z);
+        this.markMapsDirty(x, z);
+    }
+
+    private void markMapsDirty(int x, int z) {
+        MapManager mapManager = this.server.getMapManager();
+        if (mapManager != null) {
+            mapManager.onBlockChanged(this, x, z);
+        }
     }
 
     private void addBlockChange(long index, int x, int y, int z) {
@@ -2889,6 +3117,9 @@ public class Level implements ChunkManager, Metadatable {
     public synchronized boolean setBlockStateAt(int x, int y, int z, int layer, BlockState state) {
         BaseFullChunk chunk = this.getChunk(x >> 4, z >> 4, true);
         boolean changed = chunk.setBlockStateAtLayer(x & 0x0f, ensureY(y), z & 0x0f, layer, state);
+        if (changed) {
+            liquidFlowEngine.onBlockChanged(x, y, z);
+        }
         addBlockChange(x, y, z);
         temporalVector.setComponents(x, y, z);
         for (ChunkLoader loader : this.getChunkLoaders(x >> 4, z >> 4)) {
@@ -2974,10 +3205,20 @@ public class Level implements ChunkManager, Metadatable {
         this.getChunk(x >> 4, z >> 4, true).setHeightMap(x & 0x0f, z & 0x0f, value & 0x0f);
     }
 
+    /**
+     * @return the loaded chunks, with the default providers it is a read-only snapshot which is only copied again after
+     * a chunk was loaded or unloaded
+     */
     public Map<Long, ? extends FullChunk> getChunks() {
         return requireProvider().getLoadedChunks();
     }
 
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getLoadedChunkCount() {
+        return requireProvider().getLoadedChunkCount();
+    }
+
     @Override
     public BaseFullChunk getChunk(int chunkX, int chunkZ) {
         return this.getChunk(chunkX, chunkZ, false);
@@ -3015,6 +3256,7 @@ public class Level implements ChunkManager, Metadatable {
             this.chunkPopulationQueue.remove(index);
             chunk.setProvider(levelProvider);
             this.setChunk(x, z, chunk, false);
+            PerformanceMetrics.chunkPopulated();
             chunk = this.getChunk(x, z, false);
             if (chunk != null && (oldChunk == null || !isPopulated) && chunk.isPopulated()
                     && chunk.getProvider() != null) {
@@ -3029,6 +3271,7 @@ public class Level implements ChunkManager, Metadatable {
             this.chunkPopulationLock.remove(index);
             chunk.setProvider(levelProvider);
             this.setChunk(x, z, chunk, false);
+            PerformanceMetrics.chunkGenerated();
         } else {
             chunk.setProvider(levelProvider);
             this.setChunk(x, z, chunk, false);
@@ -3196,6 +3439,7 @@ public class Level implements ChunkManager, Metadatable {
             for (Player player : this.chunkSendQueue.get(index).values()) {
                 if (player.isConnected() && player.usedChunks.containsKey(index)) {
                     player.sendChunk(x, z, packet);
+                    PerformanceMetrics.chunkSent();
                 }
             }
 
@@ -3205,6 +3449,9 @@ public class Level implements ChunkManager, Metadatable {
     }
 
     private void processChunkRequest() {
+        ChunkSendEvent event = new ChunkSendEvent();
+        event.begin();
+        event.chunks = this.chunkSendQueue.size();
         this.timings.syncChunkSendTimer.startTiming();
         for (long index : this.chunkSendQueue.keySet()) {
             if (this.chunkSendTasks.contains(index)) {
@@ -3215,6 +3462,7 @@ public class Level implements ChunkManager, Metadatable {
             this.chunkSendTasks.add(index);
             BaseFullChunk chunk = getChunk(x, z);
             if (chunk != null) {
+                chunk.touch(this.levelCurrentTick);
                 BatchPacket packet = chunk.getChunkPacket();
                 if (packet != null) {
                     this.sendChunk(x, z, index, packet);
@@ -3229,6 +3477,7 @@ public class Level implements ChunkManager, Metadatable {
             this.timings.syncChunkSendPrepareTimer.stopTiming();
         }
         this.timings.syncChunkSendTimer.stopTiming();
+        event.commit(this);
     }
 
     public void chunkRequestCallback(long timestamp, int x, int z, int subChunkCount, byte[] payload) {
@@ -3266,6 +3515,7 @@ public class Level implements ChunkManager, Metadatable {
 
         if (entity instanceof Player) {
             this.players.remove(entity.getId());
+            this.entityTracker.removePlayer((Player) entity);
             this.checkSleep();
         } else {
             entity.close();
@@ -3296,8 +3546,109 @@ public class Level implements ChunkManager, Metadatable {
     public void scheduleBlockEntityUpdate(BlockEntity entity) {
         Preconditions.checkNotNull(entity, "entity");
         Preconditions.checkArgument(entity.getLevel() == this, "BlockEntity is not in this level");
-        if (!updateBlockEntities.contains(entity)) {
+        if (scheduledBlockEntities.add(entity.getId())) {
             updateBlockEntities.add(entity);
+        } else if (entity == updatingBlockEntity) {
+            blockEntitiesWokenUpWhileUpdating.add(entity);
+        }
+    }
+
+    /**
+     * Checks if the block entity will be updated in the next tick.
+     * Block entities which are not scheduled are sleeping until something wakes them up.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean isBlockEntityUpdateScheduled(BlockEntity entity) {
+        return scheduledBlockEntities.contains(entity.getId());
+    }
+
+    /**
+     * Wakes up the block entity after the given amount of server ticks.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void scheduleBlockEntityWakeUp(BlockEntity entity, int ticks) {
+        Preconditions.checkNotNull(entity, "entity");
+        Preconditions.checkArgument(entity.getLevel() == this, "BlockEntity is not in this level");
+        if (ticks <= 0) {
+            scheduleBlockEntityUpdate(entity);
+            return;
+        }
+        int tick = this.server.getTick() + ticks;
+        synchronized (blockEntityWakeUps) {
+            if (blockEntityWakeUpTicks.containsKey(entity.getId())) {
+                int pending = blockEntityWakeUpTicks.get(entity.getId());
+                if (pending <= tick) {
+                    return;
+                }
+                List<BlockEntity> pendingList = blockEntityWakeUps.get(pending);
+                if (pendingList != null) {
+                    pendingList.remove(entity);
+                }
+            }
+            blockEntityWakeUpTicks.put(entity.getId(), tick);
+            List<BlockEntity> list = blockEntityWakeUps.get(tick);
+            if (list == null) {
+                list = new ArrayList<>();
+                blockEntityWakeUps.put(tick, list);
+            }
+            list.add(entity);
+        }
+    }
+
+    /**
+     * Wakes up the block entity at the given position, if there is one.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void wakeUpBlockEntity(int x, int y, int z) {
+        if (!isYInRange(y)) {
+            return;
+        }
+        FullChunk chunk = this.getChunkIfLoaded(x >> 4, z >> 4);
+        if (chunk != null) {
+            BlockEntity blockEntity = chunk.getTile(x & 0x0f, ensureY(y), z & 0x0f);
+            if (blockEntity != null) {
+                blockEntity.wakeUp();
+            }
+        }
+    }
+
+    /**
+     * Wakes up the block entities whose time has come and updates the scheduled ones, the block entities whose update
+     * returns {@code false} go to sleep unless they were woken up during that update.
+     */
+    void tickBlockEntities(int currentTick) {
+        this.wakeUpBlockEntities(currentTick);
+        this.updateBlockEntities.removeIf(blockEntity -> {
+            this.updatingBlockEntity = blockEntity;
+            try {
+                if (blockEntity.isValid() && blockEntity.onUpdate()) {
+                    return false;
+                }
+            } finally {
+                this.updatingBlockEntity = null;
+            }
+            this.scheduledBlockEntities.remove(blockEntity.getId());
+            return true;
+        });
+        if (!this.blockEntitiesWokenUpWhileUpdating.isEmpty()) {
+            for (BlockEntity blockEntity : this.blockEntitiesWokenUpWhileUpdating) {
+                blockEntity.wakeUp();
+            }
+            this.blockEntitiesWokenUpWhileUpdating.clear();
+        }
+    }
+
+    private void wakeUpBlockEntities(int currentTick) {
+        synchronized (blockEntityWakeUps) {
+            while (!blockEntityWakeUps.isEmpty() && blockEntityWakeUps.firstIntKey() <= currentTick) {
+                for (BlockEntity blockEntity : blockEntityWakeUps.remove(blockEntityWakeUps.firstIntKey())) {
+                    blockEntityWakeUpTicks.remove(blockEntity.getId());
+                    blockEntity.wakeUp();
+                }
+            }
         }
     }
 
@@ -3305,7 +3656,17 @@ public class Level implements ChunkManager, Metadatable {
         Preconditions.checkNotNull(entity, "entity");
         Preconditions.checkArgument(entity.getLevel() == this, "BlockEntity is not in this level");
         blockEntities.remove(entity.getId());
-        updateBlockEntities.remove(entity);
+        if (scheduledBlockEntities.remove(entity.getId())) {
+            updateBlockEntities.remove(entity);
+        }
+        synchronized (blockEntityWakeUps) {
+            if (blockEntityWakeUpTicks.containsKey(entity.getId())) {
+                List<BlockEntity> pendingList = blockEntityWakeUps.get(blockEntityWakeUpTicks.remove(entity.getId()));
+                if (pendingList != null) {
+                    pendingList.remove(entity);
+                }
+            }
+        }
     }
 
     public boolean isChunkInUse(int x, int z) {
@@ -3349,6 +3710,7 @@ public class Level implements ChunkManager, Metadatable {
 
         chunk.backwardCompatibilityUpdate(this);
         chunk.initChunk();
+        PerformanceMetrics.chunkLoaded();
 
         if (!chunk.isLightPopulated() && chunk.isPopulated()
                 && this.getServer().getConfig("chunk-ticking.light-updates", false)) {
@@ -3676,17 +4038,19 @@ public class Level implements ChunkManager, Metadatable {
             }
         }
 
-        for (Map.Entry<Long, ? extends FullChunk> entry : requireProvider().getLoadedChunks().entrySet()) {
-            long index = entry.getKey();
-            if (!this.unloadQueue.containsKey(index)) {
-                FullChunk chunk = entry.getValue();
+        // Only a part of the chunks is looked at each time, the ones that were used recently are left alone
+        LevelProvider provider = requireProvider();
+        int maxChecks = Math.max(CHUNK_GC_MIN_CHECKS, provider.getLoadedChunkCount() / CHUNK_GC_CYCLE_RUNS);
+        provider.forEachIdleChunk(this.levelCurrentTick - CHUNK_GC_IDLE_TICKS, maxChecks, chunk -> {
+            long index = chunk.getIndex();
+            if (!this.unloadQueue.containsKey(index) && !this.isChunkInUse(index)) {
                 int X = chunk.getX();
                 int Z = chunk.getZ();
                 if (!this.isSpawnChunk(X, Z)) {
                     this.unloadChunkRequest(X, Z, true);
                 }
             }
-        }
+        });
 
         this.requireProvider().doGarbageCollection();
         this.timings.doChunkGC.stopTiming();
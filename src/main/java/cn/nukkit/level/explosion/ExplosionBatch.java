@@ -0,0 +1,111 @@
+package cn.nukkit.level.explosion;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.block.Block;
+import cn.nukkit.block.BlockID;
+import cn.nukkit.blockstate.BlockState;
+import cn.nukkit.event.block.BlockUpdateEvent;
+import cn.nukkit.level.Level;
+import cn.nukkit.math.BlockFace;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import static cn.nukkit.level.explosion.ExplosionRayCaster.*;
+
+/**
+ * Collects the blocks removed by all explosions of a level during a tick.
+ * <p>The blocks are removed from the chunks immediately, so the next explosions of the same tick see the craters left
+ * by the previous ones. The light and the neighbours around the merged craters are updated only once, when the level
+ * calls {@link #flush()}, and the blocks inside the craters are never notified.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class ExplosionBatch {
+    private final Level level;
+    private LongOpenHashSet removed = new LongOpenHashSet();
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public ExplosionBatch(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Replaces the block with air, without updating the light or the neighbours until the batch is flushed.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void removeBlock(Block block) {
+        int x = block.getFloorX();
+        int y = block.getFloorY();
+        int z = block.getFloorZ();
+        level.setBlockStateAt(x, y, z, block.layer, BlockState.AIR);
+        if (block.layer == 0) {
+            removed.add(pack(x, y, z));
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean isEmpty() {
+        return removed.isEmpty();
+    }
+
+    /**
+     * Updates the light and notifies the neighbours of all blocks removed since the last flush.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void flush() {
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        // The neighbours may cause more explosions, which must go to the next flush
+        LongOpenHashSet craters = removed;
+        removed = new LongOpenHashSet();
+
+        long[] positions = craters.toLongArray();
+        // From top to bottom, so each column recalculates its height map only once
+        LongArrays.quickSort(positions, (a, b) -> Integer.compare(unpackY(b), unpackY(a)));
+        LongLinkedOpenHashSet sides = new LongLinkedOpenHashSet();
+        for (long hash : positions) {
+            int x = unpackX(hash);
+            int y = unpackY(hash);
+            int z = unpackZ(hash);
+            level.updateBlockSkyLight(x, y, z);
+            level.addLightUpdate(x, y, z);
+            for (BlockFace face : BlockFace.values()) {
+                int sy = y + face.getYOffset();
+                if (!level.isYInRange(sy)) {
+                    continue;
+                }
+                long side = pack(x + face.getXOffset(), sy, z + face.getZOffset());
+                if (!craters.contains(side)) {
+                    sides.add(side);
+                }
+            }
+        }
+
+        for (long hash : sides) {
+            int x = unpackX(hash);
+            int y = unpackY(hash);
+            int z = unpackZ(hash);
+            update(level.getBlock(x, y, z, 0));
+            Block layer1 = level.getBlock(x, y, z, 1);
+            if (layer1.getId() != BlockID.AIR) {
+                update(layer1);
+            }
+        }
+    }
+
+    private void update(Block block) {
+        BlockUpdateEvent ev = new BlockUpdateEvent(block);
+        level.getServer().getPluginManager().callEvent(ev);
+        if (!ev.isCancelled()) {
+            ev.getBlock().onUpdate(Level.BLOCK_UPDATE_NORMAL);
+        }
+    }
+}
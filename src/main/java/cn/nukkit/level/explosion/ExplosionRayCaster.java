@@ -0,0 +1,327 @@
+package cn.nukkit.level.explosion;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.block.BlockID;
+import cn.nukkit.blockstate.BlockState;
+import cn.nukkit.blockstate.BlockStateRegistry;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.utils.Hash;
+import it.unimi.dsi.fastutil.longs.Long2FloatOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Casts the vanilla grid of explosion rays and finds the blocks which are destroyed by them.
+ * <p>The resistance of every position the rays can reach is copied from the chunks to a read-only snapshot first,
+ * then the rays are cast in parallel against that snapshot without touching the level. Explosions which are too large
+ * for a snapshot are cast in the calling thread, looking up and caching each position when a ray reaches it.</p>
+ * <p>The positions are packed with {@link Hash#hashBlockPosition(int, int, int)}.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public final class ExplosionRayCaster {
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static final int RAYS = 16;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static final double STEP_LENGTH = 0.3;
+
+    private static final double STEP_ATTENUATION = STEP_LENGTH * 0.75;
+    private static final double MAX_FORCE_MULTIPLIER = 1.3;
+    private static final int MAX_SNAPSHOT_VOLUME = 1 << 18;
+
+    /**
+     * The first layer is air, the ray goes through without losing force.
+     */
+    private static final float AIR = -1;
+
+    /**
+     * The chunk is not loaded, the ray stops.
+     */
+    private static final float UNLOADED = Float.POSITIVE_INFINITY;
+
+    private static final double[] RAY_X;
+    private static final double[] RAY_Y;
+    private static final double[] RAY_Z;
+
+    /**
+     * The resistance of each runtime id plus one, zero when it was not computed yet.
+     */
+    private static volatile float[] runtimeIdResistance = new float[0];
+
+    static {
+        int last = RAYS - 1;
+        int count = RAYS * RAYS * RAYS - (RAYS - 2) * (RAYS - 2) * (RAYS - 2);
+        RAY_X = new double[count];
+        RAY_Y = new double[count];
+        RAY_Z = new double[count];
+        int ray = 0;
+        for (int i = 0; i < RAYS; ++i) {
+            for (int j = 0; j < RAYS; ++j) {
+                for (int k = 0; k < RAYS; ++k) {
+                    if (i == 0 || i == last || j == 0 || j == last || k == 0 || k == last) {
+                        double x = (double) i / last * 2d - 1;
+                        double y = (double) j / last * 2d - 1;
+                        double z = (double) k / last * 2d - 1;
+                        double len = Math.sqrt(x * x + y * y + z * z);
+                        RAY_X[ray] = x / len * STEP_LENGTH;
+                        RAY_Y[ray] = y / len * STEP_LENGTH;
+                        RAY_Z[ray] = z / len * STEP_LENGTH;
+                        ray++;
+                    }
+                }
+            }
+        }
+    }
+
+    private ExplosionRayCaster() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Finds the positions destroyed by an explosion. Must be called from the thread which ticks the level.
+     *
+     * @return The packed positions where the first layer is not air and the explosion still had force left
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static LongLinkedOpenHashSet castRays(Level level, double sourceX, double sourceY, double sourceZ, double size) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double[] forces = new double[RAY_X.length];
+        for (int ray = 0; ray < forces.length; ray++) {
+            forces[ray] = size * random.nextInt(700, 1301) / 1000d;
+        }
+
+        // The farthest a ray can travel, plus the block where it starts
+        int reach = (int) Math.ceil(size * MAX_FORCE_MULTIPLIER / STEP_ATTENUATION * STEP_LENGTH) + 1;
+        int minX = floor(sourceX) - reach;
+        int minY = Math.max(level.getMinHeight(), floor(sourceY) - reach);
+        int minZ = floor(sourceZ) - reach;
+        int sizeX = reach * 2 + 1;
+        int sizeY = Math.min(level.getMaxHeight() - 1, floor(sourceY) + reach) - minY + 1;
+        int sizeZ = reach * 2 + 1;
+        if (sizeY <= 0) {
+            return new LongLinkedOpenHashSet();
+        }
+
+        if ((long) sizeX * sizeY * sizeZ > MAX_SNAPSHOT_VOLUME) {
+            return castRaysLazily(level, sourceX, sourceY, sourceZ, forces);
+        }
+
+        Snapshot snapshot = new Snapshot(level, minX, minY, minZ, sizeX, sizeY, sizeZ);
+        IntStream.range(0, forces.length).parallel()
+                .forEach(ray -> castRay(snapshot, ray, sourceX, sourceY, sourceZ, forces[ray]));
+
+        LongLinkedOpenHashSet affected = new LongLinkedOpenHashSet();
+        byte[] marks = snapshot.affected;
+        for (int index = 0; index < marks.length; index++) {
+            if (marks[index] != 0) {
+                int y = index % sizeY;
+                int z = index / sizeY % sizeZ;
+                int x = index / sizeY / sizeZ;
+                affected.add(Hash.hashBlockPosition(minX + x, minY + y, minZ + z));
+            }
+        }
+        return affected;
+    }
+
+    private static LongLinkedOpenHashSet castRaysLazily(Level level, double sourceX, double sourceY, double sourceZ, double[] forces) {
+        LazyWorld world = new LazyWorld(level);
+        for (int ray = 0; ray < forces.length; ray++) {
+            castRay(world, ray, sourceX, sourceY, sourceZ, forces[ray]);
+        }
+        return world.affected;
+    }
+
+    private static void castRay(RayWorld world, int ray, double pointerX, double pointerY, double pointerZ, double blastForce) {
+        double stepX = RAY_X[ray];
+        double stepY = RAY_Y[ray];
+        double stepZ = RAY_Z[ray];
+        for (; blastForce > 0; blastForce -= STEP_ATTENUATION) {
+            int x = floor(pointerX);
+            int y = floor(pointerY);
+            int z = floor(pointerZ);
+            float resistance = world.getResistance(x, y, z);
+            if (resistance == UNLOADED) {
+                break;
+            }
+            if (resistance != AIR) {
+                blastForce -= (resistance / 5 + 0.3d) * STEP_LENGTH;
+                if (blastForce > 0) {
+                    world.markAffected(x, y, z);
+                }
+            }
+            pointerX += stepX;
+            pointerY += stepY;
+            pointerZ += stepZ;
+        }
+    }
+
+    private static float getResistance(BlockState layer0, BlockState layer1) {
+        if (layer0.getBlockId() == BlockID.AIR) {
+            return AIR;
+        }
+        return Math.max(getResistance(layer0.getRuntimeId()), getResistance(layer1.getRuntimeId()));
+    }
+
+    private static float getResistance(int runtimeId) {
+        float[] cache = runtimeIdResistance;
+        if (runtimeId >= 0 && runtimeId < cache.length && cache[runtimeId] != 0) {
+            return cache[runtimeId] - 1;
+        }
+        return computeResistance(runtimeId);
+    }
+
+    private static synchronized float computeResistance(int runtimeId) {
+        float resistance = 0;
+        BlockState state = BlockStateRegistry.getBlockStateByRuntimeId(runtimeId);
+        if (state != null) {
+            try {
+                resistance = (float) state.getBlock().getResistance();
+            } catch (RuntimeException ignored) {
+                // Invalid states are repaired when the explosion breaks them
+            }
+        }
+        if (runtimeId < 0) {
+            return resistance;
+        }
+
+        float[] cache = runtimeIdResistance;
+        if (runtimeId >= cache.length) {
+            float[] grown = new float[Math.max(runtimeId + 1, cache.length * 2)];
+            System.arraycopy(cache, 0, grown, 0, cache.length);
+            cache = grown;
+        }
+        cache[runtimeId] = resistance + 1;
+        runtimeIdResistance = cache;
+        return resistance;
+    }
+
+    private static int floor(double value) {
+        int i = (int) value;
+        return value < i ? i - 1 : i;
+    }
+
+    private interface RayWorld {
+        float getResistance(int x, int y, int z);
+
+        void markAffected(int x, int y, int z);
+    }
+
+    /**
+     * The resistances of a box around the explosion, copied before the rays are cast.
+     * Every ray only reads the resistances and writes the same mark, so they can run in parallel.
+     */
+    private static final class Snapshot implements RayWorld {
+        private final int minX;
+        private final int minY;
+        private final int minZ;
+        private final int sizeX;
+        private final int sizeY;
+        private final int sizeZ;
+        private final float[] resistance;
+        private final byte[] affected;
+
+        Snapshot(Level level, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+            this.resistance = new float[sizeX * sizeY * sizeZ];
+            this.affected = new byte[resistance.length];
+
+            int maxY = minY + sizeY - 1;
+            for (int x = 0; x < sizeX; x++) {
+                int blockX = minX + x;
+                BaseFullChunk chunk = null;
+                int chunkZ = Integer.MIN_VALUE;
+                for (int z = 0; z < sizeZ; z++) {
+                    int blockZ = minZ + z;
+                    if (chunkZ != blockZ >> 4) {
+                        chunkZ = blockZ >> 4;
+                        chunk = level.getChunkIfLoaded(blockX >> 4, chunkZ);
+                    }
+                    int index = (x * sizeZ + z) * sizeY;
+                    for (int blockY = minY; blockY <= maxY; blockY++, index++) {
+                        if (chunk == null) {
+                            resistance[index] = UNLOADED;
+                        } else {
+                            resistance[index] = ExplosionRayCaster.getResistance(
+                                    chunk.getBlockState(blockX & 0xF, blockY, blockZ & 0xF, 0),
+                                    chunk.getBlockState(blockX & 0xF, blockY, blockZ & 0xF, 1)
+                            );
+                        }
+                    }
+                }
+            }
+        }
+
+        private int index(int x, int y, int z) {
+            x -= minX;
+            y -= minY;
+            z -= minZ;
+            if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) {
+                return -1;
+            }
+            return (x * sizeZ + z) * sizeY + y;
+        }
+
+        @Override
+        public float getResistance(int x, int y, int z) {
+            int index = index(x, y, z);
+            // Outside of the box only when the ray leaves the height limits
+            return index < 0 ? UNLOADED : resistance[index];
+        }
+
+        @Override
+        public void markAffected(int x, int y, int z) {
+            affected[index(x, y, z)] = 1;
+        }
+    }
+
+    private static final class LazyWorld implements RayWorld {
+        private final Level level;
+        private final Long2FloatOpenHashMap resistance = new Long2FloatOpenHashMap();
+        private final LongLinkedOpenHashSet affected = new LongLinkedOpenHashSet();
+
+        LazyWorld(Level level) {
+            this.level = level;
+            this.resistance.defaultReturnValue(Float.NaN);
+        }
+
+        @Override
+        public float getResistance(int x, int y, int z) {
+            if (!level.isYInRange(y)) {
+                return UNLOADED;
+            }
+            long hash = Hash.hashBlockPosition(x, y, z);
+            float value = resistance.get(hash);
+            if (Float.isNaN(value)) {
+                BaseFullChunk chunk = level.getChunkIfLoaded(x >> 4, z >> 4);
+                if (chunk == null) {
+                    value = UNLOADED;
+                } else {
+                    value = ExplosionRayCaster.getResistance(
+                            chunk.getBlockState(x & 0xF, y, z & 0xF, 0),
+                            chunk.getBlockState(x & 0xF, y, z & 0xF, 1)
+                    );
+                }
+                resistance.put(hash, value);
+            }
+            return value;
+        }
+
+        @Override
+        public void markAffected(int x, int y, int z) {
+            affected.add(Hash.hashBlockPosition(x, y, z));
+        }
+    }
+}
@@ -162,6 +162,16 @@ public interface ChunkSection {
         return !isEmpty();
     }
 
+    /**
+     * Checks if this section may have blocks which reacts to random ticks in the first layer.
+     * Sections which returns {@code false} are skipped by the random tick.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    default boolean hasRandomTickableBlocks() {
+        return !isEmpty();
+    }
+
     @PowerNukkitOnly
     @Since("1.4.0.0-PN")
     boolean setBlockStateAtLayer(int x, int y, int z, int layer, BlockState state);
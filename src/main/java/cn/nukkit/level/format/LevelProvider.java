@@ -10,6 +10,7 @@ import cn.nukkit.math.Vector3;
 import cn.nukkit.scheduler.AsyncTask;
 
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * @author MagicDroidX (Nukkit Project)
@@ -98,6 +99,50 @@ public interface LevelProvider {
 
     Map<Long, ? extends FullChunk> getLoadedChunks();
 
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    default int getLoadedChunkCount() {
+        return getLoadedChunks().size();
+    }
+
+    /**
+     * Gives the loaded chunks which were not accessed after the given level tick to the action, looking at no more than
+     * {@code maxChecks} chunks per call. Providers which don't know when their chunks were accessed give all of them.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    default void forEachIdleChunk(long idleSinceTick, int maxChecks, Consumer<? super BaseFullChunk> action) {
+        for (FullChunk chunk : getLoadedChunks().values()) {
+            if (chunk instanceof BaseFullChunk) {
+                action.accept((BaseFullChunk) chunk);
+            }
+        }
+    }
+
+    /**
+     * @return the estimated heap used by the loaded chunks, in bytes. Providers which don't keep a running total
+     * add up the estimations of all their chunks.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    default long getLoadedChunksMemoryUsage() {
+        long bytes = 0;
+        for (FullChunk chunk : getLoadedChunks().values()) {
+            if (chunk instanceof BaseFullChunk) {
+                bytes += ((BaseFullChunk) chunk).getMemoryUsage();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Counts again the memory usage of a loaded chunk in {@link #getLoadedChunksMemoryUsage()}, after it changed.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    default void updateMemoryUsage(BaseFullChunk chunk) {
+    }
+
     void doGarbageCollection();
 
     default void doGarbageCollection(long time) {
@@ -1,6 +1,9 @@
 package cn.nukkit.level.format.anvil;
 
 import cn.nukkit.Player;
+import cn.nukkit.api.PowerNukkitDifference;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.block.Block;
 import cn.nukkit.block.BlockID;
 import cn.nukkit.blockentity.BlockEntity;
@@ -11,6 +14,7 @@ import cn.nukkit.level.format.anvil.palette.BiomePalette;
 import cn.nukkit.level.format.generic.BaseChunk;
 import cn.nukkit.level.format.generic.EmptyChunkSection;
 import cn.nukkit.nbt.NBTIO;
+import cn.nukkit.nbt.stream.NBTInputStream;
 import cn.nukkit.nbt.tag.*;
 import cn.nukkit.utils.BinaryStream;
 import cn.nukkit.utils.BlockUpdateEntry;
@@ -18,8 +22,8 @@ import cn.nukkit.utils.ChunkException;
 import cn.nukkit.utils.Zlib;
 import lombok.extern.log4j.Log4j2;
 
+import javax.annotation.Nullable;
 import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.lang.reflect.Constructor;
@@ -57,6 +61,16 @@ public class Chunk extends BaseChunk {
     }
 
     public Chunk(LevelProvider level, CompoundTag nbt) {
+        this(level, nbt, null, null, null);
+    }
+
+    /**
+     * @param loadedSections the sections already decoded from the stream, {@code null} to read them from the nbt
+     * @param entities the entities of the chunk, {@code null} to read them from the nbt
+     * @param tiles the block entities of the chunk, {@code null} to read them from the nbt
+     */
+    private Chunk(LevelProvider level, CompoundTag nbt, @Nullable List<ChunkSection> loadedSections,
+                  @Nullable List<CompoundTag> entities, @Nullable List<CompoundTag> tiles) {
         this.provider = level;
         if (level != null) {
             this.providerClass = level.getClass();
@@ -74,16 +88,14 @@ public class Chunk extends BaseChunk {
             return;
         }
 
-        for (Tag section : nbt.getList("Sections").getAll()) {
-            if (section instanceof CompoundTag) {
-                int y = ((CompoundTag) section).getByte("Y");
-                if (y < getChunkSectionCount()) {
-                    final ChunkSection chunkSection = new ChunkSection((CompoundTag) section);
-                    if (chunkSection.hasBlocks()) {
-                        sections[y] = chunkSection;
-                    } else {
-                        sections[y] = EmptyChunkSection.EMPTY[y];
-                    }
+        if (loadedSections != null) {
+            for (ChunkSection section : loadedSections) {
+                putLoadedSection(section);
+            }
+        } else {
+            for (Tag section : nbt.getList("Sections").getAll()) {
+                if (section instanceof CompoundTag && ((CompoundTag) section).getByte("Y") < getChunkSectionCount()) {
+                    putLoadedSection(new ChunkSection((CompoundTag) section));
                 }
             }
         }
@@ -131,8 +143,8 @@ public class Chunk extends BaseChunk {
 
         if (!extraData.isEmpty()) this.extraData = extraData;
 
-        this.NBTentities = nbt.getList("Entities", CompoundTag.class).getAll();
-        this.NBTtiles = nbt.getList("TileEntities", CompoundTag.class).getAll();
+        this.NBTentities = entities != null ? entities : nbt.getList("Entities", CompoundTag.class).getAll();
+        this.NBTtiles = tiles != null ? tiles : nbt.getList("TileEntities", CompoundTag.class).getAll();
         if (this.NBTentities.isEmpty()) this.NBTentities = null;
         if (this.NBTtiles.isEmpty()) this.NBTtiles = null;
 
@@ -179,6 +191,13 @@ public class Chunk extends BaseChunk {
         }
     }
 
+    private void putLoadedSection(ChunkSection section) {
+        int y = section.getY();
+        if (y >= 0 && y < getChunkSectionCount()) {
+            sections[y] = section.hasBlocks() ? section : EmptyChunkSection.EMPTY[y];
+        }
+    }
+
     @Override
     public boolean isPopulated() {
         return this.terrainPopulated;
@@ -234,15 +253,11 @@ public class Chunk extends BaseChunk {
         return fromBinary(data, null);
     }
 
+    @PowerNukkitDifference(info = "The chunk is decoded while it is read, the entities and block entities are only " +
+            "created by initChunk", since = "1.6.0.0-PNX")
     public static Chunk fromBinary(byte[] data, LevelProvider provider) {
-        try {
-            CompoundTag chunk = NBTIO.read(new ByteArrayInputStream(Zlib.inflate(data)), ByteOrder.BIG_ENDIAN);
-
-            if (!chunk.contains("Level") || !(chunk.get("Level") instanceof CompoundTag)) {
-                return null;
-            }
-
-            return new Chunk(provider, chunk.getCompound("Level"));
+        try (NBTInputStream stream = new NBTInputStream(new ByteArrayInputStream(Zlib.inflate(data)), ByteOrder.BIG_ENDIAN)) {
+            return readChunk(stream, provider);
         } catch (Exception e) {
             log.error("An error has occurred while parsing a chunk from {}", provider.getName(), e);
             return null;
@@ -255,18 +270,70 @@ public class Chunk extends BaseChunk {
     }
 
     public static Chunk fromFastBinary(byte[] data, LevelProvider provider) {
-        try {
-            CompoundTag chunk = NBTIO.read(new DataInputStream(new ByteArrayInputStream(data)), ByteOrder.BIG_ENDIAN);
-            if (!chunk.contains("Level") || !(chunk.get("Level") instanceof CompoundTag)) {
-                return null;
-            }
-
-            return new Chunk(provider, chunk.getCompound("Level"));
+        try (NBTInputStream stream = new NBTInputStream(new ByteArrayInputStream(data), ByteOrder.BIG_ENDIAN)) {
+            return readChunk(stream, provider);
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * Reads the root compound of a chunk without creating a tag for the whole tree.
+     * <p>Each section is decoded into its block storage as soon as it is read, the entities and block entities are
+     * kept encoded until {@link #initChunk()} creates them, and only the small remaining tags are created.</p>
+     */
+    private static Chunk readChunk(NBTInputStream stream, LevelProvider provider) throws IOException {
+        if (stream.readByte() != Tag.TAG_Compound) {
+            return null;
+        }
+        stream.readUTF();
+        Chunk[] chunk = new Chunk[1];
+        stream.visitCompound((input, type, name) -> {
+            if (type != Tag.TAG_Compound || !"Level".equals(name) || chunk[0] != null) {
+                return false;
+            }
+            chunk[0] = readLevel(input, provider);
+            return true;
+        });
+        return chunk[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Chunk readLevel(NBTInputStream stream, LevelProvider provider) throws IOException {
+        CompoundTag nbt = new CompoundTag();
+        List<ChunkSection> sections = new ArrayList<>();
+        List<CompoundTag>[] entities = new List[2];
+        stream.visitCompound((input, type, name) -> {
+            switch (name) {
+                case "Sections":
+                    if (type != Tag.TAG_List) {
+                        return false;
+                    }
+                    input.visitList((element, elementType, index) -> {
+                        if (elementType != Tag.TAG_Compound) {
+                            return false;
+                        }
+                        sections.add(new ChunkSection((CompoundTag) element.readTag(elementType, "")));
+                        return true;
+                    });
+                    return true;
+                case "Entities":
+                case "TileEntities":
+                    if (type != Tag.TAG_List) {
+                        return false;
+                    }
+                    entities["Entities".equals(name) ? 0 : 1] = input.readLazyList();
+                    return true;
+                default:
+                    nbt.put(name, input.readTag(type, name));
+                    return true;
+            }
+        });
+        return new Chunk(provider, nbt, sections,
+                entities[0] != null ? entities[0] : new ArrayList<>(0),
+                entities[1] != null ? entities[1] : new ArrayList<>(0));
+    }
+
 
     @Override
     public byte[] toFastBinary() {
@@ -517,6 +584,19 @@ public class Chunk extends BaseChunk {
         }
     }
 
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public long estimateMemoryUsage() {
+        long bytes = super.estimateMemoryUsage();
+        for (cn.nukkit.level.format.ChunkSection section : getSections()) {
+            if (section instanceof ChunkSection) {
+                bytes += ((ChunkSection) section).estimateMemoryUsage();
+            }
+        }
+        return bytes;
+    }
+
     @Override
     public boolean compress() {
         super.compress();
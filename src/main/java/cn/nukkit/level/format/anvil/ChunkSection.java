@@ -103,6 +103,9 @@ public class ChunkSection implements cn.nukkit.level.format.ChunkSection {
         
         layerStorage.compress(this::setLayerStorage);
 
+        // Counts the random tickable blocks while still in the loading thread
+        getRandomTickableBlockCount();
+
         this.blockLight = nbt.getByteArray("BlockLight");
         this.skyLight = nbt.getByteArray("SkyLight");
     }
@@ -236,6 +239,19 @@ public class ChunkSection implements cn.nukkit.level.format.ChunkSection {
         return y;
     }
 
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getRandomTickableBlockCount() {
+        return layerStorage.getStorageOrEmpty(0).getRandomTickableBlockCount();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public boolean hasRandomTickableBlocks() {
+        return getRandomTickableBlockCount() > 0;
+    }
+
     @Override
     public int getBlockId(int x, int y, int z) {
         return getBlockId(x, y, z, 0);
@@ -755,6 +771,34 @@ public class ChunkSection implements cn.nukkit.level.format.ChunkSection {
         layerStorage.compress(this::setLayerStorage);
     }
 
+    /**
+     * @return a rough estimation of the heap used by the blocks and the light of this section, in bytes
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized long estimateMemoryUsage() {
+        long bytes = 64;
+        for (int layer = 0; layer < layerStorage.size(); layer++) {
+            BlockStorage storage = layerStorage.getStorageOrNull(layer);
+            if (storage != null) {
+                bytes += storage.estimateMemoryUsage();
+            }
+        }
+        bytes += blockLight != null ? blockLight.length : 0;
+        bytes += skyLight != null ? skyLight.length : 0;
+        bytes += compressedLight != null ? compressedLight.length : 0;
+        return bytes;
+    }
+
+    /**
+     * @return {@code true} if the light of this section is only kept compressed
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean isLightCompressed() {
+        return blockLight == null && skyLight == null;
+    }
+
     public boolean compress() {
         if (blockLight != null) {
             byte[] arr1 = blockLight;
@@ -9,6 +9,7 @@ import cn.nukkit.block.BlockID;
 import cn.nukkit.blockstate.BlockState;
 import cn.nukkit.blockstate.BlockStateRegistry;
 import cn.nukkit.blockstate.exception.InvalidBlockStateException;
+import cn.nukkit.level.Level;
 import cn.nukkit.level.util.PalettedBlockStorage;
 import cn.nukkit.utils.BinaryStream;
 import cn.nukkit.utils.functional.BlockPositionDataConsumer;
@@ -63,6 +64,16 @@ public class BlockStorage {
     @Nullable
     private BitSet denyStates = null;
 
+    /**
+     * Amount of states in this storage that can receive random ticks, -1 when it needs to be counted again.
+     */
+    private int randomTickableBlocks = -1;
+
+    /**
+     * The {@link Level#getRandomTickVersion()} when {@link #randomTickableBlocks} was counted.
+     */
+    private int randomTickableVersion = -1;
+
     public BlockStorage() {
         states = EMPTY.clone();
         palette = new PalettedBlockStorage();
@@ -77,6 +88,24 @@ public class BlockStorage {
         this.denyStates = denyStates;
     }
 
+    /**
+     * @return a rough estimation of the heap used by this storage, in bytes
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long estimateMemoryUsage() {
+        // Object headers plus the compressed references of the states array
+        long bytes = 64 + states.length * 4L;
+        bytes += palette.palette.size() * 4L;
+        if (palette.bitArray != null) {
+            bytes += palette.bitArray.getWords().length * 4L;
+        }
+        if (denyStates != null) {
+            bytes += denyStates.size() / 8;
+        }
+        return bytes;
+    }
+
     private static int getIndex(int x, int y, int z) {
         checkArg(x, "x");
         checkArg(y, "y");
@@ -216,6 +245,7 @@ public class BlockStorage {
         
         states[index] = state;
         updateFlags(index, previous, state);
+        updateRandomTickableBlocks(previous, state);
         if (getFlag(FLAG_PALETTE_UPDATED)) {
             int runtimeId = state.getRuntimeId();
             if (runtimeId == BlockStateRegistry.getFallbackRuntimeId() && !state.equals(BlockStateRegistry.getFallbackBlockState())) {
@@ -250,6 +280,48 @@ public class BlockStorage {
     @PowerNukkitOnly
     public void recheckBlocks() {
         flags = computeFlags((byte)(flags & FLAG_PALETTE_UPDATED), states);
+        randomTickableBlocks = -1;
+    }
+
+    /**
+     * The amount of blocks in this storage which reacts to random ticks.
+     * <p>The value is counted once after the storage is loaded and then maintained as the blocks are changed.</p>
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Nonnegative
+    public int getRandomTickableBlockCount() {
+        int version = Level.getRandomTickVersion();
+        if (randomTickableBlocks < 0 || randomTickableVersion != version) {
+            int count = 0;
+            for (BlockState state : states) {
+                if (Level.canRandomTick(state.getBlockId())) {
+                    count++;
+                }
+            }
+            randomTickableVersion = version;
+            randomTickableBlocks = count;
+        }
+        return randomTickableBlocks;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean hasRandomTickableBlocks() {
+        return getRandomTickableBlockCount() > 0;
+    }
+
+    private void updateRandomTickableBlocks(BlockState previous, BlockState state) {
+        if (randomTickableBlocks < 0) {
+            // Not counted yet, will be counted when it's requested
+            return;
+        }
+        if (Level.canRandomTick(previous.getBlockId())) {
+            randomTickableBlocks--;
+        }
+        if (Level.canRandomTick(state.getBlockId())) {
+            randomTickableBlocks++;
+        }
     }
     
     private void updateFlags(int index, BlockState previous, BlockState state) {
@@ -73,6 +73,14 @@ public abstract class BaseFullChunk implements FullChunk, ChunkManager {
 
     protected boolean isInit;
 
+    // Racy on purpose, it is only a hint for the chunk garbage collection, written by the load, the tick and the send
+    private long lastAccessTick;
+
+    /**
+     * The last result of {@link #estimateMemoryUsage()}, {@code -1} after a change of the chunk.
+     */
+    private volatile long memoryUsage = -1;
+
     protected BatchPacket chunkPacket;
 
     @Override
@@ -114,6 +122,7 @@ public abstract class BaseFullChunk implements FullChunk, ChunkManager {
             packet.trim();
         }
         this.chunkPacket = packet;
+        this.memoryUsage = -1;
     }
 
     public BatchPacket getChunkPacket() {
@@ -190,6 +199,24 @@ public abstract class BaseFullChunk implements FullChunk, ChunkManager {
         return hash;
     }
 
+    /**
+     * Records that the chunk was used at the given level tick.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void touch(long tick) {
+        this.lastAccessTick = tick;
+    }
+
+    /**
+     * @return the level tick of the last time the chunk was loaded, ticked or sent to a player
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getLastAccessTick() {
+        return lastAccessTick;
+    }
+
     @Override
     public final int getX() {
         return x;
@@ -538,6 +565,7 @@ public abstract class BaseFullChunk implements FullChunk, ChunkManager {
     public void setChanged() {
         this.changes++;
         chunkPacket = null;
+        memoryUsage = -1;
     }
 
     @Override
@@ -692,7 +720,51 @@ public abstract class BaseFullChunk implements FullChunk, ChunkManager {
         throw new UnsupportedOperationException("Chunk does not have a seed");
     }
 
+    /**
+     * @return a rough estimation of the heap used by this chunk, in bytes, not counting its entities and block entities
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long estimateMemoryUsage() {
+        long bytes = 256;
+        bytes += length(biomes) + length(blocks) + length(data) + length(skyLight) + length(blockLight) + length(heightMap);
+        BatchPacket pk = chunkPacket;
+        if (pk != null) {
+            bytes += length(pk.payload);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the {@link #estimateMemoryUsage() estimated heap} used by this chunk, which is only estimated again after
+     * a change of the chunk
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getMemoryUsage() {
+        long bytes = memoryUsage;
+        if (bytes < 0) {
+            memoryUsage = bytes = estimateMemoryUsage();
+        }
+        return bytes;
+    }
+
+    /**
+     * Makes the next {@link #getMemoryUsage()} estimate the heap used by this chunk again, for the changes of the
+     * sections which are not made through the chunk.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void invalidateMemoryUsage() {
+        memoryUsage = -1;
+    }
+
+    private static int length(byte[] array) {
+        return array == null ? 0 : array.length;
+    }
+
     public boolean compress() {
+        memoryUsage = -1;
         BatchPacket pk = chunkPacket;
         if (pk != null) {
             pk.trim();
@@ -18,17 +18,23 @@ import cn.nukkit.nbt.tag.StringTag;
 import cn.nukkit.utils.ChunkException;
 import cn.nukkit.utils.LevelException;
 import cn.nukkit.utils.Utils;
-import com.google.common.collect.ImmutableMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import lombok.extern.log4j.Log4j2;
 
+import javax.annotation.Nullable;
+
 import java.io.*;
 import java.nio.ByteOrder;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * @author MagicDroidX (Nukkit Project)
@@ -47,7 +53,30 @@ public abstract class BaseLevelProvider implements LevelProvider {
 
     protected final Long2ObjectMap<BaseRegionLoader> regions = new Long2ObjectOpenHashMap<>();
 
-    protected final Long2ObjectMap<BaseFullChunk> chunks = new Long2ObjectOpenHashMap<>();
+    /**
+     * The loaded chunks, changed and read while holding the map monitor. Every change forgets the
+     * {@link #chunksSnapshot snapshot}.
+     */
+    protected final Long2ObjectMap<BaseFullChunk> chunks = new ChunkMap();
+
+    /**
+     * A read-only copy of {@link #chunks}, taken by {@link #getLoadedChunks()} and {@code null} after a change. While
+     * it is set the lookups read it without locking.
+     */
+    private volatile Long2ObjectMap<BaseFullChunk> chunksSnapshot;
+
+    /**
+     * The loaded chunks, in the order they were last looked at by {@link #forEachIdleChunk}.
+     */
+    private final LongLinkedOpenHashSet idleCheckOrder = new LongLinkedOpenHashSet();
+
+    /**
+     * The memory usage of each loaded chunk as counted in {@link #loadedChunksMemoryUsage}, guarded by
+     * {@link #idleCheckOrder}.
+     */
+    private final Long2LongOpenHashMap countedMemoryUsage = new Long2LongOpenHashMap();
+
+    private volatile long loadedChunksMemoryUsage;
 
     private final AtomicReference<BaseFullChunk> lastChunk = new AtomicReference<>();
 
@@ -126,10 +155,19 @@ public abstract class BaseLevelProvider implements LevelProvider {
 
     @Override
     public void unloadChunks() {
-        ObjectIterator<BaseFullChunk> iter = chunks.values().iterator();
-        while (iter.hasNext()) {
-            iter.next().unload(true, false);
-            iter.remove();
+        synchronized (chunks) {
+            chunksSnapshot = null;
+            ObjectIterator<BaseFullChunk> iter = chunks.values().iterator();
+            while (iter.hasNext()) {
+                iter.next().unload(true, false);
+                iter.remove();
+            }
+        }
+        lastChunk.set(null);
+        synchronized (idleCheckOrder) {
+            idleCheckOrder.clear();
+            countedMemoryUsage.clear();
+            loadedChunksMemoryUsage = 0;
         }
     }
 
@@ -147,13 +185,127 @@ public abstract class BaseLevelProvider implements LevelProvider {
         };
     }
 
+    /**
+     * @return a read-only snapshot of the loaded chunks, which is shared by the calls and only copied again after a
+     * chunk was loaded or unloaded
+     */
+    @PowerNukkitDifference(info = "Returns a snapshot shared until the next change instead of a copy per call", since = "1.6.0.0-PNX")
     @Override
     public Map<Long, BaseFullChunk> getLoadedChunks() {
+        Long2ObjectMap<BaseFullChunk> snapshot = chunksSnapshot;
+        if (snapshot == null) {
+            synchronized (chunks) {
+                snapshot = chunksSnapshot;
+                if (snapshot == null) {
+                    chunksSnapshot = snapshot = Long2ObjectMaps.unmodifiable(new Long2ObjectOpenHashMap<>(chunks));
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public int getLoadedChunkCount() {
+        return size();
+    }
+
+    @Nullable
+    private BaseFullChunk lookup(long index) {
+        Long2ObjectMap<BaseFullChunk> snapshot = chunksSnapshot;
+        if (snapshot != null) {
+            return snapshot.get(index);
+        }
         synchronized (chunks) {
-            return ImmutableMap.copyOf(chunks);
+            return chunks.get(index);
         }
     }
 
+    /**
+     * Looks at up to {@code maxChecks} loaded chunks, resuming after the chunks looked at by the previous call,
+     * and gives the ones which were not accessed after {@code idleSinceTick} to the action. The memory usage of the
+     * chunks which changed since they were last looked at is counted again.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public void forEachIdleChunk(long idleSinceTick, int maxChecks, Consumer<? super BaseFullChunk> action) {
+        ObjectArrayList<BaseFullChunk> idle = new ObjectArrayList<>();
+        // Same lock order as the unloads, which leave the idle check order while holding the chunks
+        synchronized (chunks) {
+            synchronized (idleCheckOrder) {
+                int checks = Math.min(maxChecks, idleCheckOrder.size());
+                for (int i = 0; i < checks; i++) {
+                    long index = idleCheckOrder.firstLong();
+                    BaseFullChunk chunk = chunks.get(index);
+                    if (chunk == null) {
+                        idleCheckOrder.removeFirstLong();
+                        loadedChunksMemoryUsage -= countedMemoryUsage.remove(index);
+                        continue;
+                    }
+                    // Goes to the end of the queue either way, so the next call continues with the other chunks
+                    idleCheckOrder.addAndMoveToLast(index);
+                    countMemoryUsage(index, chunk);
+                    if (chunk.getLastAccessTick() <= idleSinceTick) {
+                        idle.add(chunk);
+                    }
+                }
+            }
+        }
+        idle.forEach(action);
+    }
+
+    /**
+     * @return the estimated heap used by the loaded chunks, as counted when they were loaded or last looked at by
+     * {@link #forEachIdleChunk} or {@link #updateMemoryUsage}
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public long getLoadedChunksMemoryUsage() {
+        return loadedChunksMemoryUsage;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public void updateMemoryUsage(BaseFullChunk chunk) {
+        long index = chunk.getIndex();
+        if (lookup(index) != chunk) {
+            return;
+        }
+        synchronized (idleCheckOrder) {
+            // Not counted anymore if it was unloaded in the meantime
+            if (countedMemoryUsage.containsKey(index)) {
+                countMemoryUsage(index, chunk);
+            }
+        }
+    }
+
+    private void onChunkAdded(long index, BaseFullChunk chunk) {
+        if (level != null) {
+            chunk.touch(level.getCurrentTick());
+        }
+        synchronized (idleCheckOrder) {
+            idleCheckOrder.add(index);
+            countMemoryUsage(index, chunk);
+        }
+    }
+
+    private void onChunkRemoved(long index) {
+        synchronized (idleCheckOrder) {
+            idleCheckOrder.remove(index);
+            loadedChunksMemoryUsage -= countedMemoryUsage.remove(index);
+        }
+    }
+
+    // Must hold the idleCheckOrder monitor
+    private void countMemoryUsage(long index, BaseFullChunk chunk) {
+        long bytes = chunk.getMemoryUsage();
+        loadedChunksMemoryUsage += bytes - countedMemoryUsage.put(index, bytes);
+    }
+
     @Override
     public boolean isChunkLoaded(int X, int Z) {
         return isChunkLoaded(Level.chunkHash(X, Z));
@@ -163,13 +315,12 @@ public abstract class BaseLevelProvider implements LevelProvider {
         synchronized (chunks) {
             chunks.put(index, chunk);
         }
+        onChunkAdded(index, chunk);
     }
 
     @Override
     public boolean isChunkLoaded(long hash) {
-        synchronized (chunks) {
-            return this.chunks.containsKey(hash);
-        }
+        return lookup(hash) != null;
     }
 
     public BaseRegionLoader getRegion(int x, int z) {
@@ -379,10 +530,8 @@ public abstract class BaseLevelProvider implements LevelProvider {
     @Override
     public boolean loadChunk(int chunkX, int chunkZ, boolean create) {
         long index = Level.chunkHash(chunkX, chunkZ);
-        synchronized (chunks) {
-            if (this.chunks.containsKey(index)) {
-                return true;
-            }
+        if (isChunkLoaded(index)) {
+            return true;
         }
         return loadChunk(index, chunkX, chunkZ, create) != null;
     }
@@ -400,6 +549,7 @@ public abstract class BaseLevelProvider implements LevelProvider {
             if (chunk != null && chunk.unload(false, safe)) {
                 lastChunk.set(null);
                 this.chunks.remove(index, chunk);
+                onChunkRemoved(index);
                 return true;
             }
         }
@@ -418,9 +568,7 @@ public abstract class BaseLevelProvider implements LevelProvider {
             return tmp;
         }
         long index = Level.chunkHash(chunkX, chunkZ);
-        synchronized (chunks) {
-            lastChunk.set(tmp = chunks.get(index));
-        }
+        lastChunk.set(tmp = lookup(index));
         return tmp;
     }
 
@@ -430,9 +578,7 @@ public abstract class BaseLevelProvider implements LevelProvider {
         if (tmp != null && tmp.getIndex() == hash) {
             return tmp;
         }
-        synchronized (chunks) {
-            lastChunk.set(tmp = chunks.get(hash));
-        }
+        lastChunk.set(tmp = lookup(hash));
         return tmp;
     }
 
@@ -443,9 +589,7 @@ public abstract class BaseLevelProvider implements LevelProvider {
             return tmp;
         }
         long index = Level.chunkHash(chunkX, chunkZ);
-        synchronized (chunks) {
-            lastChunk.set(tmp = chunks.get(index));
-        }
+        lastChunk.set(tmp = lookup(index));
         if (tmp != null) {
             return tmp;
         } else {
@@ -469,6 +613,7 @@ public abstract class BaseLevelProvider implements LevelProvider {
             }
             this.chunks.put(index, (BaseFullChunk) chunk);
         }
+        onChunkAdded(index, (BaseFullChunk) chunk);
     }
 
     @Override
@@ -502,4 +647,32 @@ public abstract class BaseLevelProvider implements LevelProvider {
         return region != null && region.chunkExists(chunkX - region.getX() * 32, chunkZ - region.getZ() * 32) && this.getChunk(chunkX - region.getX() * 32, chunkZ - region.getZ() * 32, true).isGenerated();
     }
 
+    /**
+     * Forgets the snapshot of the loaded chunks before every change, also the changes made by the subclasses.
+     */
+    private final class ChunkMap extends Long2ObjectOpenHashMap<BaseFullChunk> {
+        @Override
+        public BaseFullChunk put(long k, BaseFullChunk v) {
+            chunksSnapshot = null;
+            return super.put(k, v);
+        }
+
+        @Override
+        public BaseFullChunk remove(long k) {
+            chunksSnapshot = null;
+            return super.remove(k);
+        }
+
+        @Override
+        public boolean remove(long k, Object v) {
+            chunksSnapshot = null;
+            return super.remove(k, v);
+        }
+
+        @Override
+        public void clear() {
+            chunksSnapshot = null;
+            super.clear();
+        }
+    }
 }
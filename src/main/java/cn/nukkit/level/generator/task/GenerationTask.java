@@ -1,11 +1,15 @@
 package cn.nukkit.level.generator.task;
 
 import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.level.Level;
 import cn.nukkit.level.format.generic.BaseFullChunk;
 import cn.nukkit.level.generator.Generator;
 import cn.nukkit.level.generator.SimpleChunkManager;
 import cn.nukkit.scheduler.AsyncTask;
+import cn.nukkit.scheduler.AsyncTaskCategory;
+import cn.nukkit.scheduler.AsyncTaskPriority;
 
 /**
  * @author MagicDroidX (Nukkit Project)
@@ -79,4 +83,18 @@ public class GenerationTask extends AsyncTask {
             level.generateChunkCallback(chunk.getX(), chunk.getZ(), chunk);
         }
     }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public AsyncTaskCategory getCategory() {
+        return AsyncTaskCategory.CPU;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public AsyncTaskPriority getPriority() {
+        return AsyncTaskPriority.GENERATION;
+    }
 }
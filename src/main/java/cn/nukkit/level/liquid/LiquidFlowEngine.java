@@ -0,0 +1,279 @@
+package cn.nukkit.level.liquid;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.block.Block;
+import cn.nukkit.block.BlockLiquid;
+import cn.nukkit.blockstate.BlockState;
+import cn.nukkit.blockstate.BlockStateRegistry;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.utils.Hash;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+
+/**
+ * Answers the questions asked by {@link BlockLiquid} while it flows, reading the runtime ids stored in the chunks
+ * instead of creating a {@link Block} for every position that is looked at.
+ * <p>The properties needed by the liquids are computed once per runtime id. The flow status of the positions visited by
+ * the flow cost search is memoized until the end of the tick, so the liquids next to each other share the same lookups.
+ * The memoized status of a position is forgotten when a block is changed with
+ * {@link Level#setBlock(int, int, int, int, Block, boolean, boolean)} or {@link Level#setBlockStateAt(int, int, int, int, BlockState)}
+ * at or below that position.</p>
+ * <p>Positions in chunks that are not loaded are never flowed into, the flow does not load chunks.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class LiquidFlowEngine {
+    private static final byte CAN_FLOW_DOWN = 1;
+    private static final byte CAN_FLOW = 2;
+    private static final byte BLOCKED = 3;
+
+    private static final int COMPUTED = 0x1;
+    private static final int FLOWED_INTO = 0x2;
+    private static final int WATERLOGGING_FLOWED_INTO = 0x4;
+    private static final int LIQUID_SOURCE = 0x8;
+    private static final int DEPTH_SHIFT = 8;
+    private static final int ID_SHIFT = 12;
+
+    private static final int MAX_COST = 1000;
+    private static final int MAX_CACHED_STATUS = 1 << 16;
+
+    /**
+     * The packed properties of each runtime id, zero when they were not computed yet.
+     */
+    private static volatile int[] runtimeIdInfo = new int[0];
+
+    private final Level level;
+    private final Long2ByteOpenHashMap flowStatus = new Long2ByteOpenHashMap();
+    private final Long2ByteOpenHashMap waterloggingFlowStatus = new Long2ByteOpenHashMap();
+    private long statusTick = -1;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public LiquidFlowEngine(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Same as {@code BlockLiquid.getFlowDecay(Block)}.
+     *
+     * @param liquidId The block id of the liquid which is flowing
+     * @return The depth of the liquid with the given id at the position, checking both layers, or {@code -1}
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getFlowDecay(int liquidId, int x, int y, int z) {
+        BaseFullChunk chunk = getChunk(x, y, z);
+        if (chunk == null) {
+            return -1;
+        }
+        int info = getInfo(chunk, x, y, z, 0);
+        if (info >>> ID_SHIFT != liquidId) {
+            info = getInfo(chunk, x, y, z, 1);
+            if (info >>> ID_SHIFT != liquidId) {
+                return -1;
+            }
+        }
+        return info >> DEPTH_SHIFT & 0xF;
+    }
+
+    /**
+     * Finds the horizontal directions where the liquid reaches a hole with the lowest cost,
+     * searching up to {@code 4 / liquid.getFlowDecayPerBlock()} blocks away.
+     *
+     * @return A bit mask, where the bits {@code 0} to {@code 3} are west, east, north and south
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized int getOptimalFlowDirections(BlockLiquid liquid) {
+        Long2ByteOpenHashMap status = getFlowStatus(liquid.usesWaterLogging());
+        int[] flowCost = {MAX_COST, MAX_COST, MAX_COST, MAX_COST};
+        int maxCost = 4 / liquid.getFlowDecayPerBlock();
+        int blockX = liquid.getFloorX();
+        int y = liquid.getFloorY();
+        int blockZ = liquid.getFloorZ();
+        for (int j = 0; j < 4; ++j) {
+            int x = blockX + offsetX(j);
+            int z = blockZ + offsetZ(j);
+            byte flow = getStatus(status, liquid, x, y, z);
+            if (flow == CAN_FLOW_DOWN) {
+                flowCost[j] = maxCost = 0;
+            } else if (flow == CAN_FLOW && maxCost > 0) {
+                flowCost[j] = calculateFlowCost(status, liquid, x, y, z, 1, maxCost, j ^ 0x01, j ^ 0x01);
+                maxCost = Math.min(maxCost, flowCost[j]);
+            }
+        }
+
+        int minCost = Math.min(Math.min(flowCost[0], flowCost[1]), Math.min(flowCost[2], flowCost[3]));
+        int directions = 0;
+        for (int j = 0; j < 4; ++j) {
+            if (flowCost[j] == minCost) {
+                directions |= 1 << j;
+            }
+        }
+        return directions;
+    }
+
+    /**
+     * Forgets the memoized flow status which depends on the block at the given position.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized void onBlockChanged(int x, int y, int z) {
+        if (flowStatus.isEmpty() && waterloggingFlowStatus.isEmpty()) {
+            return;
+        }
+        // The status of a position depends on the block inside it and on the block below it
+        long hash = Hash.hashBlockPosition(x, y, z);
+        long above = Hash.hashBlockPosition(x, y + 1, z);
+        flowStatus.remove(hash);
+        flowStatus.remove(above);
+        waterloggingFlowStatus.remove(hash);
+        waterloggingFlowStatus.remove(above);
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized void clearCaches() {
+        flowStatus.clear();
+        waterloggingFlowStatus.clear();
+    }
+
+    private int calculateFlowCost(Long2ByteOpenHashMap status, BlockLiquid liquid, int blockX, int y, int blockZ, int accumulatedCost, int maxCost, int originOpposite, int lastOpposite) {
+        int cost = MAX_COST;
+        for (int j = 0; j < 4; ++j) {
+            if (j == originOpposite || j == lastOpposite) {
+                continue;
+            }
+            int x = blockX + offsetX(j);
+            int z = blockZ + offsetZ(j);
+            byte flow = getStatus(status, liquid, x, y, z);
+            if (flow == BLOCKED) {
+                continue;
+            } else if (flow == CAN_FLOW_DOWN) {
+                return accumulatedCost;
+            }
+            if (accumulatedCost >= maxCost) {
+                continue;
+            }
+            int realCost = calculateFlowCost(status, liquid, x, y, z, accumulatedCost + 1, maxCost, originOpposite, j ^ 0x01);
+            if (realCost < cost) {
+                cost = realCost;
+            }
+        }
+        return cost;
+    }
+
+    private Long2ByteOpenHashMap getFlowStatus(boolean waterlogging) {
+        long tick = level.getCurrentTick();
+        if (tick != statusTick || flowStatus.size() + waterloggingFlowStatus.size() > MAX_CACHED_STATUS) {
+            statusTick = tick;
+            clearCaches();
+        }
+        return waterlogging ? waterloggingFlowStatus : flowStatus;
+    }
+
+    private byte getStatus(Long2ByteOpenHashMap status, BlockLiquid liquid, int x, int y, int z) {
+        long hash = Hash.hashBlockPosition(x, y, z);
+        byte flow = status.get(hash);
+        if (flow == 0) {
+            flow = computeStatus(liquid.usesWaterLogging(), x, y, z);
+            status.put(hash, flow);
+        }
+        return flow;
+    }
+
+    private byte computeStatus(boolean waterlogging, int x, int y, int z) {
+        BaseFullChunk chunk = getChunk(x, y, z);
+        if (chunk == null) {
+            return BLOCKED;
+        }
+        // Same as BlockLiquid.canFlowInto(Block)
+        int info = getInfo(chunk, x, y, z, 0);
+        boolean canFlowInto;
+        if (waterlogging) {
+            canFlowInto = (info & WATERLOGGING_FLOWED_INTO) != 0 && (info & LIQUID_SOURCE) == 0
+                    && (getInfo(chunk, x, y, z, 1) & LIQUID_SOURCE) == 0;
+        } else {
+            canFlowInto = (info & FLOWED_INTO) != 0 && (info & LIQUID_SOURCE) == 0;
+        }
+        if (!canFlowInto) {
+            return BLOCKED;
+        }
+        int below = getInfo(chunk, x, y - 1, z, 0);
+        return (below & (waterlogging ? WATERLOGGING_FLOWED_INTO : FLOWED_INTO)) != 0 ? CAN_FLOW_DOWN : CAN_FLOW;
+    }
+
+    private BaseFullChunk getChunk(int x, int y, int z) {
+        if (!level.isYInRange(y)) {
+            return null;
+        }
+        return level.getChunkIfLoaded(x >> 4, z >> 4);
+    }
+
+    private int getInfo(BaseFullChunk chunk, int x, int y, int z, int layer) {
+        BlockState state;
+        if (level.isYInRange(y)) {
+            state = chunk.getBlockState(x & 0xF, y, z & 0xF, layer);
+        } else {
+            // Level.getBlock returns air outside of the height limits
+            state = BlockState.AIR;
+        }
+        return getRuntimeIdInfo(state.getRuntimeId());
+    }
+
+    private static int getRuntimeIdInfo(int runtimeId) {
+        int[] info = runtimeIdInfo;
+        if (runtimeId >= 0 && runtimeId < info.length && info[runtimeId] != 0) {
+            return info[runtimeId];
+        }
+        return computeRuntimeIdInfo(runtimeId);
+    }
+
+    private static synchronized int computeRuntimeIdInfo(int runtimeId) {
+        int value = COMPUTED;
+        BlockState state = BlockStateRegistry.getBlockStateByRuntimeId(runtimeId);
+        if (state != null) {
+            value |= state.getBlockId() << ID_SHIFT;
+            try {
+                Block block = state.getBlock();
+                if (block.canBeFlowedInto()) {
+                    value |= FLOWED_INTO;
+                }
+                if (block.canWaterloggingFlowInto()) {
+                    value |= WATERLOGGING_FLOWED_INTO;
+                }
+                if (block instanceof BlockLiquid) {
+                    int depth = ((BlockLiquid) block).getLiquidDepth();
+                    value |= (depth & 0xF) << DEPTH_SHIFT;
+                    if (depth == 0) {
+                        value |= LIQUID_SOURCE;
+                    }
+                }
+            } catch (RuntimeException ignored) {
+                // Invalid states are not flowed into, as the liquids would try to break them
+            }
+        }
+        if (runtimeId < 0) {
+            return value;
+        }
+
+        int[] info = runtimeIdInfo;
+        if (runtimeId >= info.length) {
+            int[] grown = new int[Math.max(runtimeId + 1, info.length * 2)];
+            System.arraycopy(info, 0, grown, 0, info.length);
+            info = grown;
+        }
+        info[runtimeId] = value;
+        runtimeIdInfo = info;
+        return value;
+    }
+
+    private static int offsetX(int direction) {
+        return direction == 0 ? -1 : direction == 1 ? 1 : 0;
+    }
+
+    private static int offsetZ(int direction) {
+        return direction == 2 ? -1 : direction == 3 ? 1 : 0;
+    }
+}
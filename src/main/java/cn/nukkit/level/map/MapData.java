@@ -0,0 +1,158 @@
+package cn.nukkit.level.map;
+
+import cn.nukkit.Player;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.network.protocol.BatchPacket;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A map drawn from a {@value #SIZE}x{@value #SIZE} area of a level, identified by the
+ * {@link cn.nukkit.item.ItemMap#getMapId() id} of its items.
+ * <p>The colours are kept in a buffer of {@value #BYTES_PER_PIXEL} bytes per pixel, red, green, blue and alpha, row by
+ * row from the north west corner. The buffer is replaced, never written, when the map is rendered again, so it can be
+ * read from any thread. The columns changed since the last rendering are marked dirty, and only them are read again
+ * from the level on the next rendering.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class MapData {
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static final int SIZE = 128;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static final int BYTES_PER_PIXEL = 4;
+
+    private final long id;
+    private final String levelName;
+    private final int originX;
+    private final int originZ;
+    private final BitSet dirty;
+    private volatile byte[] colors;
+
+    // Only used from the main thread by the map manager
+    BatchPacket packet;
+    boolean rendering;
+    final List<Player> waiting = new ArrayList<>();
+
+    MapData(long id, String levelName, int originX, int originZ, byte[] colors, BitSet dirty) {
+        this.id = id;
+        this.levelName = levelName;
+        this.originX = originX;
+        this.originZ = originZ;
+        this.colors = colors;
+        this.dirty = dirty;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return The folder name of the level drawn in the map
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public String getLevelName() {
+        return levelName;
+    }
+
+    /**
+     * @return The x coordinate of the westmost column of the map
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getOriginX() {
+        return originX;
+    }
+
+    /**
+     * @return The z coordinate of the northmost column of the map
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getOriginZ() {
+        return originZ;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean contains(int x, int z) {
+        return x >= this.originX && x < this.originX + SIZE && z >= this.originZ && z < this.originZ + SIZE;
+    }
+
+    /**
+     * @param x The column from the west side of the map, from {@code 0} to {@value #SIZE} excluded
+     * @param z The row from the north side of the map, from {@code 0} to {@value #SIZE} excluded
+     * @return The colour of the pixel as ARGB
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getColor(int x, int z) {
+        byte[] colors = this.colors;
+        int offset = (z * SIZE + x) * BYTES_PER_PIXEL;
+        return (colors[offset + 3] & 0xFF) << 24
+                | (colors[offset] & 0xFF) << 16
+                | (colors[offset + 1] & 0xFF) << 8
+                | colors[offset + 2] & 0xFF;
+    }
+
+    /**
+     * @return Whether some columns changed since the map was last rendered
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized boolean isDirty() {
+        return !this.dirty.isEmpty();
+    }
+
+    /**
+     * Marks the column of the level dirty if the map shows it, so it is read again on the next rendering.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void markDirty(int x, int z) {
+        if (this.contains(x, z)) {
+            int index = (z - this.originZ) * SIZE + x - this.originX;
+            synchronized (this) {
+                this.dirty.set(index);
+            }
+        }
+    }
+
+    /**
+     * Marks every column dirty, the whole map is read again on the next rendering.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized void markAllDirty() {
+        this.dirty.set(0, SIZE * SIZE);
+    }
+
+    byte[] getColors() {
+        return colors;
+    }
+
+    void setColors(byte[] colors) {
+        this.colors = colors;
+    }
+
+    synchronized BitSet copyDirty() {
+        return (BitSet) this.dirty.clone();
+    }
+
+    synchronized void clearDirty(BitSet columns) {
+        this.dirty.andNot(columns);
+    }
+
+    synchronized void markDirty(BitSet columns) {
+        this.dirty.or(columns);
+    }
+}
@@ -0,0 +1,332 @@
+package cn.nukkit.level.map;
+
+import cn.nukkit.Player;
+import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.blockstate.BlockState;
+import cn.nukkit.item.ItemMap;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.nbt.NBTIO;
+import cn.nukkit.nbt.tag.CompoundTag;
+import cn.nukkit.nbt.tag.ListTag;
+import cn.nukkit.network.protocol.BatchPacket;
+import cn.nukkit.scheduler.AsyncTask;
+import cn.nukkit.utils.BlockColor;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import lombok.extern.log4j.Log4j2;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The index of the maps drawn from the levels, saved with the server, and their rendering.
+ * <p>When a map is requested, the surface block of its dirty columns is read from the loaded chunks on the main
+ * thread, then the colours are drawn and the map packet is encoded and compressed by an asynchronous task. The packet
+ * is kept with the map and sent to every player requesting it until a block of the map changes. The columns of
+ * unloaded chunks stay dirty and keep their previous colours.</p>
+ * <p>The maps which plugins draw into an {@link ItemMap} with {@link ItemMap#setImage} are kept in their items,
+ * they are not in this index.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Log4j2
+public class MapManager {
+    private static final Map<BlockState, BlockColor> COLORS = new ConcurrentHashMap<>();
+
+    private final Server server;
+    private final File file;
+    private final Long2ObjectMap<MapData> maps = new Long2ObjectOpenHashMap<>();
+
+    // Replaced when a map is added, the block changes look it up without locking
+    private volatile Map<String, Long2ObjectMap<MapData[]>> areas = Collections.emptyMap();
+
+    private boolean changed;
+    private long saveVersion;
+    private long writtenVersion;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public MapManager(Server server, File file) {
+        this.server = server;
+        this.file = file;
+        this.load();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Nullable
+    public MapData getMap(long id) {
+        return this.maps.get(id);
+    }
+
+    /**
+     * Adds a map of the area of the level around the position, or returns the map which already has this id.
+     * The areas are aligned on a grid of {@value MapData#SIZE} blocks.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public MapData createMap(long id, Level level, int x, int z) {
+        MapData map = this.maps.get(id);
+        if (map != null) {
+            return map;
+        }
+
+        map = new MapData(id, level.getFolderName(),
+                Math.floorDiv(x, MapData.SIZE) * MapData.SIZE, Math.floorDiv(z, MapData.SIZE) * MapData.SIZE,
+                new byte[MapData.SIZE * MapData.SIZE * MapData.BYTES_PER_PIXEL], new BitSet());
+        map.markAllDirty();
+        this.add(map);
+        if (id >= ItemMap.mapCount) {
+            ItemMap.mapCount = (int) id + 1;
+        }
+        this.changed = true;
+        return map;
+    }
+
+    /**
+     * Sends the map to the player, rendering its dirty columns first. The player receives it when the rendering
+     * completes, with the other players who requested it meanwhile.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void sendMap(Player player, MapData map) {
+        if (!map.rendering && (map.packet == null || map.isDirty())) {
+            this.startRendering(map);
+        }
+
+        if (map.rendering) {
+            if (!map.waiting.contains(player)) {
+                map.waiting.add(player);
+            }
+        } else if (map.packet != null) {
+            player.dataPacket(map.packet);
+        }
+    }
+
+    /**
+     * Marks the column dirty in the maps showing it.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void onBlockChanged(Level level, int x, int z) {
+        Map<String, Long2ObjectMap<MapData[]>> areas = this.areas;
+        if (areas.isEmpty()) {
+            return;
+        }
+        Long2ObjectMap<MapData[]> levelAreas = areas.get(level.getFolderName());
+        if (levelAreas == null) {
+            return;
+        }
+        MapData[] maps = levelAreas.get(Level.chunkHash(x >> 7, z >> 7));
+        if (maps != null) {
+            for (MapData map : maps) {
+                map.markDirty(x, z);
+            }
+        }
+    }
+
+    private void startRendering(MapData map) {
+        BitSet columns = new BitSet();
+        BlockState[] surface = null;
+        Level level = this.server.getLevelByName(map.getLevelName());
+        if (level != null && map.isDirty()) {
+            surface = new BlockState[MapData.SIZE * MapData.SIZE];
+            BitSet dirty = map.copyDirty();
+            BaseFullChunk chunk = null;
+            int chunkX = Integer.MIN_VALUE;
+            int chunkZ = Integer.MIN_VALUE;
+            for (int index = dirty.nextSetBit(0); index >= 0; index = dirty.nextSetBit(index + 1)) {
+                int x = map.getOriginX() + index % MapData.SIZE;
+                int z = map.getOriginZ() + index / MapData.SIZE;
+                if (x >> 4 != chunkX || z >> 4 != chunkZ) {
+                    chunkX = x >> 4;
+                    chunkZ = z >> 4;
+                    chunk = level.getChunkIfLoaded(chunkX, chunkZ);
+                }
+                if (chunk != null) {
+                    surface[index] = getSurface(chunk, x & 0xF, z & 0xF);
+                    columns.set(index);
+                }
+            }
+            map.clearDirty(columns);
+        }
+
+        if (columns.isEmpty()) {
+            if (map.packet != null) {
+                // Nothing which can be read yet, the players get the map as it is
+                return;
+            }
+            surface = null;
+        }
+
+        map.rendering = true;
+        this.server.getScheduler().scheduleAsyncTask(new MapRenderTask(this, map, surface, columns));
+    }
+
+    // Like Level.getMapColorAt, the highest block which has a colour
+    private static BlockState getSurface(BaseFullChunk chunk, int x, int z) {
+        int y = chunk.getHighestBlockAt(x, z);
+        while (y > 1) {
+            BlockState state = chunk.getBlockState(x, y, z, 0);
+            if (getColor(state).getAlpha() != 0) {
+                return state;
+            }
+            y--;
+        }
+        return BlockState.AIR;
+    }
+
+    static BlockColor getColor(BlockState state) {
+        return COLORS.computeIfAbsent(state, s -> {
+            try {
+                return s.getBlock().getColor();
+            } catch (RuntimeException e) {
+                return BlockColor.VOID_BLOCK_COLOR;
+            }
+        });
+    }
+
+    void onRendered(MapData map, @Nullable byte[] colors, @Nullable BatchPacket packet, BitSet columns) {
+        map.rendering = false;
+        if (packet != null) {
+            map.setColors(colors);
+            map.packet = packet;
+            if (!columns.isEmpty()) {
+                this.changed = true;
+            }
+        } else {
+            map.markDirty(columns);
+        }
+
+        Player[] waiting = map.waiting.toArray(Player.EMPTY_ARRAY);
+        map.waiting.clear();
+        if (map.packet != null) {
+            for (Player player : waiting) {
+                if (player.isConnected()) {
+                    player.dataPacket(map.packet);
+                }
+            }
+        }
+    }
+
+    private void add(MapData map) {
+        this.maps.put(map.getId(), map);
+
+        Map<String, Long2ObjectMap<MapData[]>> areas = new HashMap<>(this.areas);
+        Long2ObjectMap<MapData[]> levelAreas = new Long2ObjectOpenHashMap<>(
+                areas.getOrDefault(map.getLevelName(), new Long2ObjectOpenHashMap<>()));
+        long area = Level.chunkHash(map.getOriginX() >> 7, map.getOriginZ() >> 7);
+        MapData[] maps = levelAreas.get(area);
+        if (maps == null) {
+            maps = new MapData[]{map};
+        } else {
+            maps = Arrays.copyOf(maps, maps.length + 1);
+            maps[maps.length - 1] = map;
+        }
+        levelAreas.put(area, maps);
+        areas.put(map.getLevelName(), levelAreas);
+        this.areas = areas;
+    }
+
+    private void load() {
+        if (!this.file.isFile()) {
+            return;
+        }
+
+        CompoundTag tag;
+        try (InputStream input = new FileInputStream(this.file)) {
+            tag = NBTIO.readCompressed(input, ByteOrder.BIG_ENDIAN);
+        } catch (IOException e) {
+            log.error("Could not load the maps from {}", this.file, e);
+            return;
+        }
+
+        long nextId = tag.getLong("NextId");
+        for (CompoundTag mapTag : tag.getList("Maps", CompoundTag.class).getAll()) {
+            byte[] colors = mapTag.getByteArray("Colors");
+            BitSet dirty = BitSet.valueOf(mapTag.getByteArray("Dirty"));
+            MapData map;
+            if (colors.length == MapData.SIZE * MapData.SIZE * MapData.BYTES_PER_PIXEL) {
+                map = new MapData(mapTag.getLong("Id"), mapTag.getString("Level"), mapTag.getInt("X"), mapTag.getInt("Z"), colors, dirty);
+            } else {
+                map = new MapData(mapTag.getLong("Id"), mapTag.getString("Level"), mapTag.getInt("X"), mapTag.getInt("Z"),
+                        new byte[MapData.SIZE * MapData.SIZE * MapData.BYTES_PER_PIXEL], dirty);
+                map.markAllDirty();
+            }
+            this.add(map);
+            nextId = Math.max(nextId, map.getId() + 1);
+        }
+        ItemMap.mapCount = (int) Math.max(ItemMap.mapCount, nextId);
+        log.debug("Loaded {} maps", this.maps.size());
+    }
+
+    /**
+     * Saves the maps if they changed since they were last saved.
+     *
+     * @param async Whether the file is written by an asynchronous task
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void save(boolean async) {
+        if (!this.changed) {
+            return;
+        }
+        this.changed = false;
+
+        ListTag<CompoundTag> list = new ListTag<>("Maps");
+        for (MapData map : this.maps.values()) {
+            list.add(new CompoundTag()
+                    .putLong("Id", map.getId())
+                    .putString("Level", map.getLevelName())
+                    .putInt("X", map.getOriginX())
+                    .putInt("Z", map.getOriginZ())
+                    // Never written once rendered, they can be saved from another thread
+                    .putByteArray("Colors", map.getColors())
+                    .putByteArray("Dirty", map.copyDirty().toByteArray()));
+        }
+        CompoundTag tag = new CompoundTag()
+                .putLong("NextId", ItemMap.mapCount)
+                .putList(list);
+
+        long version = ++this.saveVersion;
+        if (!async) {
+            this.write(tag, version);
+            return;
+        }
+        this.server.getScheduler().scheduleAsyncTask(new AsyncTask() {
+            @Override
+            public void onRun() {
+                write(tag, version);
+            }
+        });
+    }
+
+    private synchronized void write(CompoundTag tag, long version) {
+        if (version <= this.writtenVersion) {
+            // A later save was already written
+            return;
+        }
+        this.writtenVersion = version;
+
+        File temp = new File(this.file.getPath() + ".tmp");
+        try (OutputStream output = new FileOutputStream(temp)) {
+            NBTIO.writeGZIPCompressed(tag, output, ByteOrder.BIG_ENDIAN);
+        } catch (IOException e) {
+            log.error("Could not save the maps to {}", this.file, e);
+            return;
+        }
+        try {
+            Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Could not save the maps to {}", this.file, e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package cn.nukkit.level.map;
+
+import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.blockstate.BlockState;
+import cn.nukkit.network.protocol.BatchPacket;
+import cn.nukkit.network.protocol.ClientboundMapItemDataPacket;
+import cn.nukkit.scheduler.AsyncTask;
+import cn.nukkit.scheduler.AsyncTaskCategory;
+import cn.nukkit.scheduler.AsyncTaskPriority;
+import lombok.extern.log4j.Log4j2;
+
+import javax.annotation.Nullable;
+import java.util.BitSet;
+
+/**
+ * Draws the surface blocks read from the level into a copy of the colours of a map, then encodes and compresses
+ * the map packet shared by every player who requests the map.
+ */
+@Log4j2
+final class MapRenderTask extends AsyncTask {
+    private final MapManager manager;
+    private final MapData map;
+    private final byte[] previous;
+    @Nullable
+    private final BlockState[] surface;
+    private final BitSet columns;
+    private byte[] colors;
+    private BatchPacket packet;
+
+    /**
+     * @param surface The surface block of the columns read again, indexed like the pixels,
+     *                or {@code null} if only the packet is encoded
+     */
+    MapRenderTask(MapManager manager, MapData map, @Nullable BlockState[] surface, BitSet columns) {
+        this.manager = manager;
+        this.map = map;
+        this.previous = map.getColors();
+        this.surface = surface;
+        this.columns = columns;
+    }
+
+    @Override
+    public void onRun() {
+        try {
+            byte[] colors = this.previous;
+            if (this.surface != null) {
+                colors = colors.clone();
+                for (int index = this.columns.nextSetBit(0); index >= 0; index = this.columns.nextSetBit(index + 1)) {
+                    // The maps have no transparency, like the images they were drawn into
+                    int rgb = MapManager.getColor(this.surface[index]).getRGB();
+                    int offset = index * MapData.BYTES_PER_PIXEL;
+                    colors[offset] = (byte) (rgb >> 16);
+                    colors[offset + 1] = (byte) (rgb >> 8);
+                    colors[offset + 2] = (byte) rgb;
+                    colors[offset + 3] = (byte) 0xFF;
+                }
+            }
+
+            ClientboundMapItemDataPacket pk = new ClientboundMapItemDataPacket();
+            pk.mapId = this.map.getId();
+            pk.update = ClientboundMapItemDataPacket.TEXTURE_UPDATE;
+            pk.scale = 0;
+            pk.width = MapData.SIZE;
+            pk.height = MapData.SIZE;
+            pk.colors = new int[MapData.SIZE * MapData.SIZE];
+            for (int i = 0, offset = 0; i < pk.colors.length; i++, offset += MapData.BYTES_PER_PIXEL) {
+                pk.colors[i] = (colors[offset + 3] & 0xFF) << 24
+                        | (colors[offset + 2] & 0xFF) << 16
+                        | (colors[offset + 1] & 0xFF) << 8
+                        | colors[offset] & 0xFF;
+            }
+            pk.tryEncode();
+            this.packet = pk.compress();
+            this.colors = colors;
+        } catch (Exception e) {
+            log.error("There was an error while rendering the map {}", this.map.getId(), e);
+        }
+    }
+
+    @Override
+    public void onCompletion(Server server) {
+        this.manager.onRendered(this.map, this.colors, this.packet, this.columns);
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public AsyncTaskCategory getCategory() {
+        return AsyncTaskCategory.CPU;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public AsyncTaskPriority getPriority() {
+        return AsyncTaskPriority.CHUNK_SEND;
+    }
+}
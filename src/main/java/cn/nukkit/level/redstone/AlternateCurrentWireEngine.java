@@ -0,0 +1,293 @@
+package cn.nukkit.level.redstone;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.block.Block;
+import cn.nukkit.block.BlockID;
+import cn.nukkit.block.BlockRedstoneWire;
+import cn.nukkit.event.block.BlockRedstoneEvent;
+import cn.nukkit.level.Level;
+import cn.nukkit.math.BlockFace;
+import cn.nukkit.math.BlockFace.Plane;
+import cn.nukkit.utils.Hash;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+
+/**
+ * A redstone wire engine inspired by the Alternate Current mod.
+ * <p>Instead of letting every wire recursively recalculate its neighbours, the whole wire network connected to the
+ * updated wire is discovered once, the power levels are propagated breadth-first from the strongest to the weakest
+ * wire and each changed wire is written to the level only once. The neighbour updates are emitted afterwards, without
+ * duplicates and in a deterministic order: the wires in discovery order and the faces in {@link BlockFace#values()} order.</p>
+ * <p>When the updated wire was removed, the networks of the wires that were connected to it are updated instead.
+ * A wire updated while the changes are written, by a {@link BlockRedstoneEvent} listener or a block next to the network,
+ * is queued and updated once the current network is done.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class AlternateCurrentWireEngine implements RedstoneWireEngine {
+    private static final int MAX_POWER = 15;
+    private static final int MAX_NEIGHBOURS = 12;
+    private static final int NO_NEIGHBOUR = -1;
+
+    private static final byte NOT_NORMAL = 1;
+    private static final byte NORMAL = 2;
+
+    private final Level level;
+
+    private final Long2IntOpenHashMap nodeIndex = new Long2IntOpenHashMap();
+    private final IntArrayList nodeX = new IntArrayList();
+    private final IntArrayList nodeY = new IntArrayList();
+    private final IntArrayList nodeZ = new IntArrayList();
+    private final IntArrayList oldPower = new IntArrayList();
+    private final IntArrayList newPower = new IntArrayList();
+    private final IntArrayList neighbours = new IntArrayList();
+    private final IntArrayFIFOQueue discoveryQueue = new IntArrayFIFOQueue();
+    private final IntArrayFIFOQueue[] powerQueues = new IntArrayFIFOQueue[MAX_POWER + 1];
+    private final Long2ByteOpenHashMap normalBlockCache = new Long2ByteOpenHashMap();
+    private final LongLinkedOpenHashSet redstoneUpdates = new LongLinkedOpenHashSet();
+    private final LongLinkedOpenHashSet queuedWires = new LongLinkedOpenHashSet();
+    private boolean updating;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public AlternateCurrentWireEngine(Level level) {
+        this.level = level;
+        this.nodeIndex.defaultReturnValue(NO_NEIGHBOUR);
+        for (int i = 0; i < powerQueues.length; i++) {
+            powerQueues[i] = new IntArrayFIFOQueue();
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public boolean updateWire(BlockRedstoneWire wire) {
+        if (updating) {
+            // The buffers are in use, the wire is updated with its network once they are released
+            queuedWires.add(Hash.hashBlockPosition(wire.getFloorX(), wire.getFloorY(), wire.getFloorZ()));
+            return true;
+        }
+
+        boolean changed = updateNetwork(wire.getFloorX(), wire.getFloorY(), wire.getFloorZ());
+        while (!queuedWires.isEmpty()) {
+            long hash = queuedWires.removeFirstLong();
+            updateNetwork(Hash.hashBlockPositionX(hash), Hash.hashBlockPositionY(hash), Hash.hashBlockPositionZ(hash));
+        }
+        return changed;
+    }
+
+    private boolean updateNetwork(int x, int y, int z) {
+        long[] updates;
+        updating = true;
+        try {
+            if (!discoverNetwork(x, y, z)) {
+                return false;
+            }
+            propagatePower();
+            if (!applyChanges()) {
+                return false;
+            }
+            updates = redstoneUpdates.toLongArray();
+        } finally {
+            clear();
+            updating = false;
+        }
+
+        // The buffers are already cleared, so wires updated by the neighbours can reuse this engine
+        for (long hash : updates) {
+            level.getBlock(Hash.hashBlockPositionX(hash), Hash.hashBlockPositionY(hash), Hash.hashBlockPositionZ(hash)).onUpdate(Level.BLOCK_UPDATE_REDSTONE);
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code false} if no wire was found
+     */
+    private boolean discoverNetwork(int x, int y, int z) {
+        if (findWire(x, y, z) == NO_NEIGHBOUR) {
+            // The wire was removed, every wire which could have been connected to it may lose its power
+            for (BlockFace face : Plane.HORIZONTAL) {
+                int sx = x + face.getXOffset();
+                int sz = z + face.getZOffset();
+                findWire(sx, y, sz);
+                findWire(sx, y + 1, sz);
+                findWire(sx, y - 1, sz);
+            }
+        }
+        if (discoveryQueue.isEmpty()) {
+            return false;
+        }
+
+        while (!discoveryQueue.isEmpty()) {
+            int node = discoveryQueue.dequeueInt();
+            int nx = nodeX.getInt(node);
+            int ny = nodeY.getInt(node);
+            int nz = nodeZ.getInt(node);
+            boolean normalAbove = isNormalBlock(nx, ny + 1, nz);
+            int slot = node * MAX_NEIGHBOURS;
+            for (BlockFace face : Plane.HORIZONTAL) {
+                int sx = nx + face.getXOffset();
+                int sz = nz + face.getZOffset();
+                // Same connection rules as BlockRedstoneWire.calculateCurrentChanges
+                neighbours.set(slot++, findWire(sx, ny, sz));
+                neighbours.set(slot++, normalAbove ? NO_NEIGHBOUR : findWire(sx, ny + 1, sz));
+                neighbours.set(slot++, isNormalBlock(sx, ny, sz) ? NO_NEIGHBOUR : findWire(sx, ny - 1, sz));
+            }
+        }
+        return true;
+    }
+
+    private int findWire(int x, int y, int z) {
+        if (!level.isYInRange(y)) {
+            return NO_NEIGHBOUR;
+        }
+        int node = nodeIndex.get(Hash.hashBlockPosition(x, y, z));
+        if (node != NO_NEIGHBOUR) {
+            return node;
+        }
+        if (level.getBlockIdAt(x, y, z) != BlockID.REDSTONE_WIRE) {
+            return NO_NEIGHBOUR;
+        }
+        return addNode(x, y, z);
+    }
+
+    private int addNode(int x, int y, int z) {
+        int node = nodeX.size();
+        nodeIndex.put(Hash.hashBlockPosition(x, y, z), node);
+        nodeX.add(x);
+        nodeY.add(y);
+        nodeZ.add(z);
+        int power = level.getBlockDataAt(x, y, z);
+        oldPower.add(power);
+        newPower.add(0);
+        for (int i = 0; i < MAX_NEIGHBOURS; i++) {
+            neighbours.add(NO_NEIGHBOUR);
+        }
+        discoveryQueue.enqueue(node);
+        return node;
+    }
+
+    private boolean isNormalBlock(int x, int y, int z) {
+        if (!level.isYInRange(y)) {
+            return false;
+        }
+        long hash = Hash.hashBlockPosition(x, y, z);
+        byte cached = normalBlockCache.get(hash);
+        if (cached == 0) {
+            cached = level.getBlock(x, y, z).isNormalBlock() ? NORMAL : NOT_NORMAL;
+            normalBlockCache.put(hash, cached);
+        }
+        return cached == NORMAL;
+    }
+
+    private void propagatePower() {
+        int size = nodeX.size();
+        for (int node = 0; node < size; node++) {
+            Block block = level.getBlock(nodeX.getInt(node), nodeY.getInt(node), nodeZ.getInt(node));
+            int power = block instanceof BlockRedstoneWire ? ((BlockRedstoneWire) block).getExternalPower() : 0;
+            newPower.set(node, power);
+            if (power > 0) {
+                powerQueues[power].enqueue(node);
+            }
+        }
+
+        for (int power = MAX_POWER; power > 1; power--) {
+            IntArrayFIFOQueue queue = powerQueues[power];
+            while (!queue.isEmpty()) {
+                int node = queue.dequeueInt();
+                if (newPower.getInt(node) != power) {
+                    // Was already reached with a stronger signal
+                    continue;
+                }
+                int slot = node * MAX_NEIGHBOURS;
+                for (int i = 0; i < MAX_NEIGHBOURS; i++) {
+                    int neighbour = neighbours.getInt(slot + i);
+                    if (neighbour != NO_NEIGHBOUR && newPower.getInt(neighbour) < power - 1) {
+                        newPower.set(neighbour, power - 1);
+                        powerQueues[power - 1].enqueue(neighbour);
+                    }
+                }
+            }
+        }
+        powerQueues[1].clear();
+    }
+
+    private boolean applyChanges() {
+        boolean changed = false;
+        int size = nodeX.size();
+        for (int node = 0; node < size; node++) {
+            int power = newPower.getInt(node);
+            int previous = oldPower.getInt(node);
+            if (power == previous) {
+                continue;
+            }
+            int x = nodeX.getInt(node);
+            int y = nodeY.getInt(node);
+            int z = nodeZ.getInt(node);
+            Block block = level.getBlock(x, y, z);
+            if (!(block instanceof BlockRedstoneWire)) {
+                // Removed by a listener of a previous event
+                continue;
+            }
+            changed = true;
+            level.getServer().getPluginManager().callEvent(new BlockRedstoneEvent(block, previous, power));
+            block.setDamage(power);
+            level.setBlock(x, y, z, block, false, false);
+            queueNeighbourUpdates(x, y, z);
+        }
+        return changed;
+    }
+
+    private void queueNeighbourUpdates(int x, int y, int z) {
+        for (BlockFace face : BlockFace.values()) {
+            int sx = x + face.getXOffset();
+            int sy = y + face.getYOffset();
+            int sz = z + face.getZOffset();
+            if (!level.isYInRange(sy)) {
+                continue;
+            }
+            if (!isNetworkWire(sx, sy, sz)) {
+                level.updateSide(x, y, z, face);
+            }
+
+            // Same as RedstoneComponent.updateAllAroundRedstone
+            queueRedstoneUpdate(sx, sy, sz);
+            for (BlockFace sideFace : BlockFace.values()) {
+                if (sideFace != face.getOpposite()) {
+                    queueRedstoneUpdate(sx + sideFace.getXOffset(), sy + sideFace.getYOffset(), sz + sideFace.getZOffset());
+                }
+            }
+        }
+    }
+
+    private void queueRedstoneUpdate(int x, int y, int z) {
+        if (level.isYInRange(y) && !isNetworkWire(x, y, z)) {
+            redstoneUpdates.add(Hash.hashBlockPosition(x, y, z));
+        }
+    }
+
+    private boolean isNetworkWire(int x, int y, int z) {
+        // The wires in the network already have their final power
+        return nodeIndex.containsKey(Hash.hashBlockPosition(x, y, z));
+    }
+
+    private void clear() {
+        nodeIndex.clear();
+        nodeX.clear();
+        nodeY.clear();
+        nodeZ.clear();
+        oldPower.clear();
+        newPower.clear();
+        neighbours.clear();
+        discoveryQueue.clear();
+        for (IntArrayFIFOQueue queue : powerQueues) {
+            queue.clear();
+        }
+        normalBlockCache.clear();
+        redstoneUpdates.clear();
+    }
+}
@@ -0,0 +1,24 @@
+package cn.nukkit.level.redstone;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.block.BlockRedstoneWire;
+
+/**
+ * Calculates the power of the redstone wires of a level.
+ * <p>The engine used by a level can be replaced with {@link cn.nukkit.level.Level#setRedstoneWireEngine(RedstoneWireEngine)}.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public interface RedstoneWireEngine {
+    /**
+     * Recalculates the power of the given wire and of all other wires that depends on it,
+     * applying the changes to the level and notifying the blocks around the changed wires.
+     *
+     * @param wire The wire which received the update
+     * @return {@code true} if the power of any wire was changed
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    boolean updateWire(BlockRedstoneWire wire);
+}
@@ -0,0 +1,66 @@
+package cn.nukkit.level.redstone;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.level.Level;
+
+import javax.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * The redstone wire implementations that can be selected with {@code level-settings.redstone-wire-engine}.
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public enum RedstoneWireMode {
+    /**
+     * The recursive calculation done by each wire, every change is applied and notified immediately.
+     */
+    LEGACY("legacy"),
+
+    /**
+     * Calculates the whole wire network in a single pass, see {@link AlternateCurrentWireEngine}.
+     */
+    ALTERNATE_CURRENT("alternate-current");
+
+    private final String configName;
+
+    RedstoneWireMode(String configName) {
+        this.configName = configName;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Creates the engine for the given level.
+     *
+     * @return {@code null} when the wires should use the legacy calculation
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Nullable
+    public RedstoneWireEngine createEngine(Level level) {
+        if (this == ALTERNATE_CURRENT) {
+            return new AlternateCurrentWireEngine(level);
+        }
+        return null;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static RedstoneWireMode fromConfig(@Nullable String configName) {
+        if (configName != null) {
+            String name = configName.trim().toLowerCase(Locale.ENGLISH).replace('_', '-');
+            for (RedstoneWireMode mode : values()) {
+                if (mode.configName.equals(name)) {
+                    return mode;
+                }
+            }
+        }
+        return ALTERNATE_CURRENT;
+    }
+}
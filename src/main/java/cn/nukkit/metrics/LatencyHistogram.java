@@ -0,0 +1,141 @@
+package cn.nukkit.metrics;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations with a bounded relative error, in the style of HdrHistogram.
+ * <p>The durations are recorded in microseconds. Below {@value #SUB_BUCKETS} microseconds every value has its own bucket,
+ * above it every power of two is split in {@value #SUB_BUCKETS} buckets of the same width, so a percentile is never
+ * more than about 6% above the real value, from a microsecond to hours, in a fixed array of counters.
+ * Recording is lock-free and can be done by any thread while another one reads the histogram.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void recordNanos(long nanos) {
+        long micros = Math.min(MAX_VALUE, Math.max(0, nanos / 1000));
+        this.counts.incrementAndGet(bucketOf(micros));
+        this.count.incrementAndGet();
+        this.sumMicros.addAndGet(micros);
+        long max;
+        while (micros > (max = this.maxMicros.get()) && !this.maxMicros.compareAndSet(max, micros)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getCount() {
+        return this.count.get();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public double getSumMillis() {
+        return this.sumMicros.get() / 1000.0;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public double getMeanMillis() {
+        long count = this.count.get();
+        return count == 0 ? 0 : this.sumMicros.get() / 1000.0 / count;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public double getMaxMillis() {
+        return this.maxMicros.get() / 1000.0;
+    }
+
+    /**
+     * The highest duration of the bucket holding the given percentile of the recorded durations.
+     *
+     * @param percentile Between 0 and 100
+     * @return The duration in milliseconds, or 0 when nothing was recorded
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public double getPercentileMillis(double percentile) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts[i] = this.counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), this.maxMicros.get()) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * How many recorded durations are at most the given one, rounded to the bucket holding it.
+     * <p>This is what the cumulative buckets of a Prometheus histogram need.</p>
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getCountAtMost(long duration, TimeUnit unit) {
+        int last = bucketOf(Math.min(MAX_VALUE, unit.toMicros(duration)));
+        long seen = 0;
+        for (int i = 0; i <= last; i++) {
+            seen += this.counts.get(i);
+        }
+        return seen;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.count.set(0);
+        this.sumMicros.set(0);
+        this.maxMicros.set(0);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
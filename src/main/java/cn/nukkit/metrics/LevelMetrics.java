@@ -0,0 +1,128 @@
+package cn.nukkit.metrics;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The tick time histograms of one level, as a whole and per {@link TickPhase}, and the counters of its
+ * {@link cn.nukkit.level.EntityMerger}.
+ * <p>A phase is measured with {@link #start()} before it and {@link #record(TickPhase, long)} after it, which cost
+ * a single check while the metrics are disabled.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class LevelMetrics {
+    private final String level;
+    private final LatencyHistogram tick = new LatencyHistogram();
+    private final Map<TickPhase, LatencyHistogram> phases = new EnumMap<>(TickPhase.class);
+    private final LongAdder entitiesMerged = new LongAdder();
+    private final LongAdder mergeCandidatesChecked = new LongAdder();
+    private final LongAdder mergeCandidatesDeferred = new LongAdder();
+    private final LongAdder mergeEntitiesAvoided = new LongAdder();
+
+    LevelMetrics(String level) {
+        this.level = level;
+        for (TickPhase phase : TickPhase.values()) {
+            this.phases.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * @return The start of a phase to give to {@link #record(TickPhase, long)}, or 0 if the metrics are disabled
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long start() {
+        return PerformanceMetrics.isEnabled() ? System.nanoTime() : 0;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void record(TickPhase phase, long start) {
+        if (start != 0) {
+            this.phases.get(phase).recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void recordTick(long nanos) {
+        if (PerformanceMetrics.isEnabled()) {
+            this.tick.recordNanos(nanos);
+        }
+    }
+
+    /**
+     * Counts the work of one entity merge pass.
+     *
+     * @param merged   The entities removed by merging them into another one
+     * @param checked  The candidates checked
+     * @param deferred The candidates left to the next tick
+     * @param avoided  The entities around the candidates which were never compared with them
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void recordEntityMerge(long merged, long checked, long deferred, long avoided) {
+        if (PerformanceMetrics.isEnabled()) {
+            this.entitiesMerged.add(merged);
+            this.mergeCandidatesChecked.add(checked);
+            this.mergeCandidatesDeferred.add(deferred);
+            this.mergeEntitiesAvoided.add(avoided);
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public String getLevel() {
+        return level;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public LatencyHistogram getTick() {
+        return tick;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public LatencyHistogram getPhase(TickPhase phase) {
+        return phases.get(phase);
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getEntitiesMerged() {
+        return entitiesMerged.sum();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getMergeCandidatesChecked() {
+        return mergeCandidatesChecked.sum();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getMergeCandidatesDeferred() {
+        return mergeCandidatesDeferred.sum();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getMergeEntitiesAvoided() {
+        return mergeEntitiesAvoided.sum();
+    }
+
+    void reset() {
+        this.tick.reset();
+        this.phases.values().forEach(LatencyHistogram::reset);
+        this.entitiesMerged.reset();
+        this.mergeCandidatesChecked.reset();
+        this.mergeCandidatesDeferred.reset();
+        this.mergeEntitiesAvoided.reset();
+    }
+}
@@ -0,0 +1,57 @@
+package cn.nukkit.metrics;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves {@link PerformanceMetrics#toPrometheus()} on {@code /metrics} with the HTTP server of the JDK,
+ * from a single daemon thread so a scrape never competes with the main thread for more than one core.
+ */
+@Log4j2
+final class MetricsEndpoint {
+    private final HttpServer http;
+    private final ExecutorService executor;
+
+    MetricsEndpoint(String host, int port) throws IOException {
+        this.http = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("Metrics HTTP")
+                .setDaemon(true)
+                .build());
+        this.http.setExecutor(this.executor);
+        this.http.createContext("/metrics", this::handle);
+        this.http.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = PerformanceMetrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not export the performance metrics", e);
+        }
+    }
+
+    void close() {
+        this.http.stop(0);
+        this.executor.shutdownNow();
+    }
+}
@@ -0,0 +1,402 @@
+package cn.nukkit.metrics;
+
+import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.level.Level;
+import cn.nukkit.network.protocol.DataPacket;
+import cn.nukkit.scheduler.AsyncTaskCategory;
+import cn.nukkit.scheduler.AsyncTaskPriority;
+import cn.nukkit.scheduler.AsyncWorkerPool;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograms of the tick times and counters of the work done by the server, which can be scraped by Prometheus
+ * from a local HTTP endpoint and are shown by {@code /perf}.
+ * <p>Unlike the timings, which are meant to find what is slow, they are cheap enough to stay enabled in production
+ * to follow the tail latency of the ticks. While they are disabled, every measuring point costs a single check.</p>
+ * <p>Configured by the {@code performance-metrics} section of {@code nukkit.yml}.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Log4j2
+public final class PerformanceMetrics {
+    private static final long[] BUCKETS_MICROS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 20_000, 30_000, 40_000, 50_000, 75_000, 100_000, 250_000,
+            500_000, 1_000_000
+    };
+
+    private static volatile boolean enabled;
+    private static MetricsEndpoint endpoint;
+
+    private static final LatencyHistogram FULL_TICK = new LatencyHistogram();
+    private static final Map<String, LevelMetrics> LEVELS = new ConcurrentHashMap<>();
+
+    private static final LongAdder CHUNKS_LOADED = new LongAdder();
+    private static final LongAdder CHUNKS_GENERATED = new LongAdder();
+    private static final LongAdder CHUNKS_POPULATED = new LongAdder();
+    private static final LongAdder CHUNKS_SENT = new LongAdder();
+
+    private static final AtomicLongArray PACKETS_RECEIVED = new AtomicLongArray(256);
+    private static final AtomicLongArray BYTES_RECEIVED = new AtomicLongArray(256);
+    private static final AtomicLongArray PACKETS_SENT = new AtomicLongArray(256);
+    private static final AtomicLongArray BYTES_SENT = new AtomicLongArray(256);
+    private static final String[] PACKET_NAMES = new String[256];
+
+    private PerformanceMetrics() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Reads the configuration and starts the HTTP endpoint if a port is configured.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void init(Server server) {
+        setEnabled(server.getConfig("performance-metrics.enabled", false));
+        int port = server.getConfig("performance-metrics.http-port", 0);
+        if (port <= 0) {
+            return;
+        }
+
+        String host = server.getConfig("performance-metrics.http-host", "127.0.0.1");
+        try {
+            endpoint = new MetricsEndpoint(host, port);
+            log.info("Serving the performance metrics on http://{}:{}/metrics", host, port);
+        } catch (IOException e) {
+            log.error("Could not serve the performance metrics on {}:{}", host, port, e);
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void stop() {
+        if (endpoint != null) {
+            endpoint.close();
+            endpoint = null;
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void setEnabled(boolean enabled) {
+        PerformanceMetrics.enabled = enabled;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static boolean isServingHttp() {
+        return endpoint != null;
+    }
+
+    /**
+     * Clears every histogram and counter.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void reset() {
+        FULL_TICK.reset();
+        LEVELS.values().forEach(LevelMetrics::reset);
+        CHUNKS_LOADED.reset();
+        CHUNKS_GENERATED.reset();
+        CHUNKS_POPULATED.reset();
+        CHUNKS_SENT.reset();
+        for (int i = 0; i < 256; i++) {
+            PACKETS_RECEIVED.set(i, 0);
+            BYTES_RECEIVED.set(i, 0);
+            PACKETS_SENT.set(i, 0);
+            BYTES_SENT.set(i, 0);
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static LevelMetrics getLevelMetrics(Level level) {
+        return LEVELS.computeIfAbsent(level.getFolderName(), LevelMetrics::new);
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void removeLevel(Level level) {
+        LEVELS.remove(level.getFolderName());
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static Collection<LevelMetrics> getLevels() {
+        return Collections.unmodifiableCollection(LEVELS.values());
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static LatencyHistogram getFullTick() {
+        return FULL_TICK;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void recordTick(long nanos) {
+        if (enabled) {
+            FULL_TICK.recordNanos(nanos);
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void chunkLoaded() {
+        if (enabled) {
+            CHUNKS_LOADED.increment();
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void chunkGenerated() {
+        if (enabled) {
+            CHUNKS_GENERATED.increment();
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void chunkPopulated() {
+        if (enabled) {
+            CHUNKS_POPULATED.increment();
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void chunkSent() {
+        if (enabled) {
+            CHUNKS_SENT.increment();
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static long getChunksLoaded() {
+        return CHUNKS_LOADED.sum();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static long getChunksGenerated() {
+        return CHUNKS_GENERATED.sum();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static long getChunksPopulated() {
+        return CHUNKS_POPULATED.sum();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static long getChunksSent() {
+        return CHUNKS_SENT.sum();
+    }
+
+    /**
+     * Counts a decoded packet received from a client.
+     *
+     * @param bytes The size of the packet before the batch compression
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void packetReceived(DataPacket packet, int bytes) {
+        if (enabled) {
+            int id = name(packet);
+            PACKETS_RECEIVED.incrementAndGet(id);
+            BYTES_RECEIVED.addAndGet(id, bytes);
+        }
+    }
+
+    /**
+     * Counts an encoded packet queued for a client.
+     *
+     * @param bytes The size of the packet before the batch compression, or the compressed size of a batch packet
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void packetSent(DataPacket packet, int bytes) {
+        if (enabled) {
+            int id = name(packet);
+            PACKETS_SENT.incrementAndGet(id);
+            BYTES_SENT.addAndGet(id, bytes);
+        }
+    }
+
+    private static int name(DataPacket packet) {
+        int id = packet.pid() & 0xff;
+        if (PACKET_NAMES[id] == null) {
+            PACKET_NAMES[id] = packet.getClass().getSimpleName();
+        }
+        return id;
+    }
+
+    /**
+     * The packet types which were received or sent, by decreasing number of bytes sent.
+     *
+     * @return Rows of the packet name and its received packets, received bytes, sent packets and sent bytes
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static Map<String, long[]> getPacketStatistics() {
+        Map<String, long[]> statistics = new LinkedHashMap<>();
+        Integer[] ids = new Integer[256];
+        for (int i = 0; i < 256; i++) {
+            ids[i] = i;
+        }
+        Arrays.sort(ids, (a, b) -> Long.compare(BYTES_SENT.get(b), BYTES_SENT.get(a)));
+        for (int id : ids) {
+            if (PACKET_NAMES[id] != null && (PACKETS_RECEIVED.get(id) > 0 || PACKETS_SENT.get(id) > 0)) {
+                statistics.put(PACKET_NAMES[id], new long[]{
+                        PACKETS_RECEIVED.get(id), BYTES_RECEIVED.get(id), PACKETS_SENT.get(id), BYTES_SENT.get(id)
+                });
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static String toPrometheus() {
+        StringBuilder out = new StringBuilder(16384);
+        Server server = Server.getInstance();
+
+        family(out, "pnx_tick_duration_seconds", "histogram", "Duration of the full server ticks.");
+        histogram(out, "pnx_tick_duration_seconds", "", FULL_TICK);
+
+        family(out, "pnx_level_tick_duration_seconds", "histogram", "Duration of the ticks of each level.");
+        for (LevelMetrics level : LEVELS.values()) {
+            histogram(out, "pnx_level_tick_duration_seconds", "level=\"" + escape(level.getLevel()) + "\",", level.getTick());
+        }
+
+        family(out, "pnx_level_phase_duration_seconds", "histogram", "Duration of each phase of the ticks of each level.");
+        for (LevelMetrics level : LEVELS.values()) {
+            for (TickPhase phase : TickPhase.values()) {
+                histogram(out, "pnx_level_phase_duration_seconds",
+                        "level=\"" + escape(level.getLevel()) + "\",phase=\"" + phase.getLabel() + "\",", level.getPhase(phase));
+            }
+        }
+
+        family(out, "pnx_level_entities_merged_total", "counter", "Dropped items and experience orbs merged into another one, by level.");
+        for (LevelMetrics level : LEVELS.values()) {
+            levelCounter(out, "pnx_level_entities_merged_total", level, level.getEntitiesMerged());
+        }
+        family(out, "pnx_level_merge_candidates_checked_total", "counter", "Entities checked for merging, by level.");
+        for (LevelMetrics level : LEVELS.values()) {
+            levelCounter(out, "pnx_level_merge_candidates_checked_total", level, level.getMergeCandidatesChecked());
+        }
+        family(out, "pnx_level_merge_candidates_deferred_total", "counter", "Entities left to the next merge pass by the budget of the tick, by level.");
+        for (LevelMetrics level : LEVELS.values()) {
+            levelCounter(out, "pnx_level_merge_candidates_deferred_total", level, level.getMergeCandidatesDeferred());
+        }
+        family(out, "pnx_level_merge_entities_avoided_total", "counter", "Entities near the merge candidates which were never compared with them, by level.");
+        for (LevelMetrics level : LEVELS.values()) {
+            levelCounter(out, "pnx_level_merge_entities_avoided_total", level, level.getMergeEntitiesAvoided());
+        }
+
+        if (server != null) {
+            family(out, "pnx_tps", "gauge", "Ticks per second, averaged over the last 20 ticks.");
+            out.append("pnx_tps ").append(server.getTicksPerSecondAverage()).append('\n');
+            family(out, "pnx_players_online", "gauge", "Players connected to the server.");
+            out.append("pnx_players_online ").append(server.getOnlinePlayers().size()).append('\n');
+        }
+
+        counter(out, "pnx_chunks_loaded_total", "Chunks loaded from the level providers.", CHUNKS_LOADED.sum());
+        counter(out, "pnx_chunks_generated_total", "Chunks generated.", CHUNKS_GENERATED.sum());
+        counter(out, "pnx_chunks_populated_total", "Chunks populated.", CHUNKS_POPULATED.sum());
+        counter(out, "pnx_chunks_sent_total", "Chunks sent to players.", CHUNKS_SENT.sum());
+
+        packets(out, "pnx_packets_received_total", "Packets received, by type.", PACKETS_RECEIVED);
+        packets(out, "pnx_packet_bytes_received_total", "Uncompressed bytes of the packets received, by type.", BYTES_RECEIVED);
+        packets(out, "pnx_packets_sent_total", "Packets sent, by type.", PACKETS_SENT);
+        packets(out, "pnx_packet_bytes_sent_total", "Uncompressed bytes of the packets sent, by type.", BYTES_SENT);
+
+        if (server != null && server.getScheduler() != null) {
+            family(out, "pnx_async_queue_depth", "gauge", "Async tasks waiting for a worker, by pool and lane.");
+            for (AsyncTaskCategory category : AsyncTaskCategory.values()) {
+                AsyncWorkerPool pool = server.getScheduler().getAsyncPool(category);
+                for (AsyncTaskPriority priority : AsyncTaskPriority.values()) {
+                    out.append("pnx_async_queue_depth{pool=\"").append(pool.getName()).append("\",lane=\"")
+                            .append(priority.name().toLowerCase(Locale.ROOT)).append("\"} ")
+                            .append(pool.getQueueDepth(priority)).append('\n');
+                }
+            }
+            family(out, "pnx_async_running", "gauge", "Async tasks being run, by pool.");
+            for (AsyncTaskCategory category : AsyncTaskCategory.values()) {
+                AsyncWorkerPool pool = server.getScheduler().getAsyncPool(category);
+                out.append("pnx_async_running{pool=\"").append(pool.getName()).append("\"} ").append(pool.getRunningCount()).append('\n');
+            }
+            family(out, "pnx_async_rejected_total", "counter", "Async tasks rejected by a full queue, by pool.");
+            for (AsyncTaskCategory category : AsyncTaskCategory.values()) {
+                AsyncWorkerPool pool = server.getScheduler().getAsyncPool(category);
+                out.append("pnx_async_rejected_total{pool=\"").append(pool.getName()).append("\"} ").append(pool.getRejectedCount()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private static void family(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        family(out, name, "counter", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void levelCounter(StringBuilder out, String name, LevelMetrics level, long value) {
+        out.append(name).append("{level=\"").append(escape(level.getLevel())).append("\"} ").append(value).append('\n');
+    }
+
+    private static void histogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        for (long bucket : BUCKETS_MICROS) {
+            out.append(name).append("_bucket{").append(labels).append("le=\"").append(bucket / 1e6).append("\"} ")
+                    .append(histogram.getCountAtMost(bucket, TimeUnit.MICROSECONDS)).append('\n');
+        }
+        long count = histogram.getCount();
+        out.append(name).append("_bucket{").append(labels).append("le=\"+Inf\"} ").append(count).append('\n');
+        String plainLabels = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+        out.append(name).append("_sum").append(plainLabels).append(' ').append(histogram.getSumMillis() / 1000).append('\n');
+        out.append(name).append("_count").append(plainLabels).append(' ').append(count).append('\n');
+    }
+
+    private static void packets(StringBuilder out, String name, String help, AtomicLongArray values) {
+        family(out, name, "counter", help);
+        for (int id = 0; id < 256; id++) {
+            long value = values.get(id);
+            if (value > 0 && PACKET_NAMES[id] != null) {
+                out.append(name).append("{packet=\"").append(PACKET_NAMES[id]).append("\"} ").append(value).append('\n');
+            }
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
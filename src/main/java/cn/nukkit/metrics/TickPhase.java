@@ -0,0 +1,37 @@
+package cn.nukkit.metrics;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+
+/**
+ * The phases of a level tick measured by {@link LevelMetrics}, the same ones as the
+ * {@link cn.nukkit.timings.LevelTimings}.
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public enum TickPhase {
+    CHUNK_UNLOAD("chunk_unload"),
+    BLOCK_UPDATES("block_updates"),
+    ENTITIES("entities"),
+    ENTITY_MERGE("entity_merge"),
+    BLOCK_ENTITIES("block_entities"),
+    CHUNKS("chunks"),
+    ENTITY_TRACKER("entity_tracker"),
+    ENTITY_DATA_FLUSH("entity_data_flush"),
+    CHUNK_SEND("chunk_send");
+
+    private final String label;
+
+    TickPhase(String label) {
+        this.label = label;
+    }
+
+    /**
+     * The name used as label value by the Prometheus endpoint and shown by {@code /perf}.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public String getLabel() {
+        return label;
+    }
+}
@@ -1,6 +1,8 @@
 package cn.nukkit.nbt;
 
 import cn.nukkit.api.PowerNukkitDifference;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.item.Item;
 import cn.nukkit.item.ItemID;
 import cn.nukkit.item.PNAlphaItemID;
@@ -8,6 +10,7 @@ import cn.nukkit.nbt.stream.FastByteArrayOutputStream;
 import cn.nukkit.nbt.stream.NBTInputStream;
 import cn.nukkit.nbt.stream.NBTOutputStream;
 import cn.nukkit.nbt.stream.PGZIPOutputStream;
+import cn.nukkit.nbt.tag.CompactCompoundTag;
 import cn.nukkit.nbt.tag.CompoundTag;
 import cn.nukkit.nbt.tag.Tag;
 import cn.nukkit.utils.ThreadCache;
@@ -136,6 +139,23 @@ public class NBTIO {
         throw new IOException("Root tag must be a named compound tag");
     }
 
+    /**
+     * Reads a compound whose nested compounds are {@link CompactCompoundTag}s too, for the compounds which are
+     * mostly read and written back instead of being changed through their tags.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static CompoundTag readCompact(byte[] data, ByteOrder endianness) throws IOException {
+        try (NBTInputStream stream = new NBTInputStream(new ByteArrayInputStream(data), endianness)) {
+            if (stream.readByte() != Tag.TAG_Compound) {
+                throw new IOException("Root tag must be a named compound tag");
+            }
+            CompactCompoundTag tag = new CompactCompoundTag(stream.readUTF());
+            tag.load(stream);
+            return tag;
+        }
+    }
+
     public static Tag readTag(InputStream inputStream, ByteOrder endianness, boolean network) throws IOException {
         return Tag.readNamedTag(new NBTInputStream(inputStream, endianness, network));
     }
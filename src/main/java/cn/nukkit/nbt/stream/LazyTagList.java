@@ -0,0 +1,71 @@
+package cn.nukkit.nbt.stream;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.nbt.tag.Tag;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of tags which is kept encoded until one of its elements is used.
+ * <p>Created by {@link NBTInputStream#readLazyList()}. The size is known without decoding the elements.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class LazyTagList<T extends Tag> extends AbstractList<T> {
+    private final int size;
+    private final ByteOrder endianness;
+    private final boolean network;
+    private byte[] payload;
+    private List<T> tags;
+
+    LazyTagList(byte[] payload, int size, ByteOrder endianness, boolean network) {
+        this.payload = payload;
+        this.size = size;
+        this.endianness = endianness;
+        this.network = network;
+    }
+
+    /**
+     * @return {@code true} if the elements were already decoded
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized boolean isDecoded() {
+        return tags != null;
+    }
+
+    @Override
+    public T get(int index) {
+        return decode().get(index);
+    }
+
+    @Override
+    public int size() {
+        return tags != null ? tags.size() : size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized List<T> decode() {
+        if (tags == null) {
+            List<T> list = new ArrayList<>(size);
+            try (NBTInputStream stream = new NBTInputStream(new ByteArrayInputStream(payload), endianness, network)) {
+                stream.visitList((input, type, index) -> {
+                    list.add((T) input.readTag(type, ""));
+                    return true;
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            tags = list;
+            payload = null;
+        }
+        return tags;
+    }
+}
@@ -1,13 +1,20 @@
 package cn.nukkit.nbt.stream;
 
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.nbt.tag.Tag;
 import cn.nukkit.utils.VarInt;
 
+import javax.annotation.Nullable;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author MagicDroidX (Nukkit Project)
@@ -16,6 +23,7 @@ public class NBTInputStream implements DataInput, AutoCloseable {
     private final DataInputStream stream;
     private final ByteOrder endianness;
     private final boolean network;
+    private byte[] transferBuffer;
 
     public NBTInputStream(InputStream stream) {
         this(stream, ByteOrder.BIG_ENDIAN);
@@ -156,6 +164,208 @@ public class NBTInputStream implements DataInput, AutoCloseable {
         return this.stream.available();
     }
 
+    /**
+     * Reads the entries of the compound whose payload is next in the stream, without creating a tag for them.
+     * <p>The entries which the visitor doesn't read are skipped.</p>
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void visitCompound(CompoundVisitor visitor) throws IOException {
+        byte type;
+        while ((type = this.readByte()) != Tag.TAG_End) {
+            String name = this.readUTF();
+            if (!visitor.visit(this, type, name)) {
+                this.skipTag(type);
+            }
+        }
+    }
+
+    /**
+     * Reads the elements of the list whose payload is next in the stream, without creating a tag for them.
+     * <p>The elements which the visitor doesn't read are skipped.</p>
+     *
+     * @return the amount of elements in the list
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int visitList(ListVisitor visitor) throws IOException {
+        byte type = this.readByte();
+        int size = this.readInt();
+        for (int i = 0; i < size; i++) {
+            if (!visitor.visit(this, type, i)) {
+                this.skipTag(type);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Creates the tag whose payload is next in the stream.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public Tag readTag(byte type, String name) throws IOException {
+        return Tag.readTag(this, type, name);
+    }
+
+    /**
+     * Skips the payload of a tag of the given type.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void skipTag(byte type) throws IOException {
+        this.transferTag(type, null);
+    }
+
+    /**
+     * Reads the list whose payload is next in the stream, keeping it encoded until one of its elements is used.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public <T extends Tag> List<T> readLazyList() throws IOException {
+        byte type = this.readByte();
+        int size = this.readInt();
+        if (size <= 0) {
+            return new ArrayList<>(0);
+        }
+        FastByteArrayOutputStream buffer = new FastByteArrayOutputStream();
+        NBTOutputStream out = new NBTOutputStream(buffer, endianness, network);
+        out.writeByte(type);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            this.transferTag(type, out);
+        }
+        return new LazyTagList<>(Arrays.copyOf(buffer.array, buffer.length), size, endianness, network);
+    }
+
+    private void transferTag(byte type, @Nullable NBTOutputStream out) throws IOException {
+        switch (type) {
+            case Tag.TAG_End:
+                break;
+            case Tag.TAG_Byte:
+                byte b = this.readByte();
+                if (out != null) out.writeByte(b);
+                break;
+            case Tag.TAG_Short:
+                short s = this.readShort();
+                if (out != null) out.writeShort(s);
+                break;
+            case Tag.TAG_Int:
+                int i = this.readInt();
+                if (out != null) out.writeInt(i);
+                break;
+            case Tag.TAG_Long:
+                long l = this.readLong();
+                if (out != null) out.writeLong(l);
+                break;
+            case Tag.TAG_Float:
+                float f = this.readFloat();
+                if (out != null) out.writeFloat(f);
+                break;
+            case Tag.TAG_Double:
+                double d = this.readDouble();
+                if (out != null) out.writeDouble(d);
+                break;
+            case Tag.TAG_Byte_Array:
+                int length = this.readInt();
+                if (out != null) out.writeInt(length);
+                this.transferBytes(length, out);
+                break;
+            case Tag.TAG_String:
+                if (out != null) {
+                    out.writeUTF(this.readUTF());
+                } else {
+                    this.transferBytes(network ? (int) VarInt.readUnsignedVarInt(stream) : this.readUnsignedShort(), null);
+                }
+                break;
+            case Tag.TAG_List:
+                byte elementType = this.readByte();
+                int size = this.readInt();
+                if (out != null) {
+                    out.writeByte(elementType);
+                    out.writeInt(size);
+                }
+                for (int index = 0; index < size; index++) {
+                    this.transferTag(elementType, out);
+                }
+                break;
+            case Tag.TAG_Compound:
+                byte entryType;
+                while ((entryType = this.readByte()) != Tag.TAG_End) {
+                    if (out != null) out.writeByte(entryType);
+                    this.transferTag(Tag.TAG_String, out);
+                    this.transferTag(entryType, out);
+                }
+                if (out != null) out.writeByte(Tag.TAG_End);
+                break;
+            case Tag.TAG_Int_Array:
+                int count = this.readInt();
+                if (out != null) out.writeInt(count);
+                for (int index = 0; index < count; index++) {
+                    int value = this.readInt();
+                    if (out != null) out.writeInt(value);
+                }
+                break;
+            default:
+                throw new IOException("Unknown tag type " + type);
+        }
+    }
+
+    private void transferBytes(int length, @Nullable NBTOutputStream out) throws IOException {
+        if (length < 0) {
+            throw new IOException("Negative length " + length);
+        }
+        if (out == null) {
+            while (length > 0) {
+                int skipped = this.stream.skipBytes(length);
+                if (skipped <= 0) {
+                    // skipBytes doesn't tell the end of the stream apart, readByte throws at the end
+                    this.stream.readByte();
+                    skipped = 1;
+                }
+                length -= skipped;
+            }
+            return;
+        }
+        if (transferBuffer == null) {
+            transferBuffer = new byte[4096];
+        }
+        while (length > 0) {
+            int read = Math.min(length, transferBuffer.length);
+            this.stream.readFully(transferBuffer, 0, read);
+            out.write(transferBuffer, 0, read);
+            length -= read;
+        }
+    }
+
+    /**
+     * Receives the entries of a compound while it is read by {@link #visitCompound(CompoundVisitor)}.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @FunctionalInterface
+    public interface CompoundVisitor {
+        /**
+         * @param stream the stream, positioned at the payload of the entry
+         * @return {@code true} if the payload was read, {@code false} to skip it
+         */
+        boolean visit(NBTInputStream stream, byte type, String name) throws IOException;
+    }
+
+    /**
+     * Receives the elements of a list while it is read by {@link #visitList(ListVisitor)}.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @FunctionalInterface
+    public interface ListVisitor {
+        /**
+         * @param stream the stream, positioned at the payload of the element
+         * @return {@code true} if the payload was read, {@code false} to skip it
+         */
+        boolean visit(NBTInputStream stream, byte type, int index) throws IOException;
+    }
+
     @Override
     public void close() throws IOException {
         this.stream.close();
@@ -0,0 +1,541 @@
+package cn.nukkit.nbt.tag;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.nbt.stream.NBTInputStream;
+import cn.nukkit.nbt.stream.NBTOutputStream;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A {@link CompoundTag} which keeps its entries in flat arrays instead of a {@link HashMap}.
+ * <p>The keys are shared through a small pool and the numbers are kept unboxed, so building, reading and writing a
+ * compound doesn't create a tag object for each number. The binary format is the same as the {@link CompoundTag} one.</p>
+ * <p>A number tag is created the first time it is requested with {@link #get(String)}, {@link #getTags()} or
+ * {@link #getAllTags()} and is kept by the compound from then on, so changing its {@code data} changes the compound
+ * like it does with a {@link CompoundTag}. A tag given to {@link #put(String, Tag)} is kept as it is for the same
+ * reason.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class CompactCompoundTag extends CompoundTag {
+    private final Entries entries;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public CompactCompoundTag() {
+        this("");
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public CompactCompoundTag(String name) {
+        this(name, new Entries());
+    }
+
+    private CompactCompoundTag(String name, Entries entries) {
+        super(name, entries);
+        this.entries = entries;
+    }
+
+    @Override
+    public void write(NBTOutputStream dos) throws IOException {
+        Entries e = this.entries;
+        for (int i = 0; i < e.size; i++) {
+            Tag tag = e.tags[i];
+            if (tag != null) {
+                Tag.writeNamedTag(tag, e.keys[i], dos);
+                continue;
+            }
+            byte type = e.types[i];
+            long value = e.values[i];
+            dos.writeByte(type);
+            dos.writeUTF(e.keys[i]);
+            switch (type) {
+                case TAG_Byte:
+                    dos.writeByte((int) value);
+                    break;
+                case TAG_Short:
+                    dos.writeShort((int) value);
+                    break;
+                case TAG_Int:
+                    dos.writeInt((int) value);
+                    break;
+                case TAG_Long:
+                    dos.writeLong(value);
+                    break;
+                case TAG_Float:
+                    dos.writeFloat(Float.intBitsToFloat((int) value));
+                    break;
+                case TAG_Double:
+                    dos.writeDouble(Double.longBitsToDouble(value));
+                    break;
+            }
+        }
+        dos.writeByte(TAG_End);
+    }
+
+    /**
+     * Loads the entries, the nested compounds are loaded as compact compounds too.
+     */
+    @Override
+    public void load(NBTInputStream dis) throws IOException {
+        entries.clear();
+        byte type;
+        while ((type = dis.readByte()) != TAG_End) {
+            String name = dis.readUTF();
+            switch (type) {
+                case TAG_Byte:
+                    entries.putNumber(name, type, dis.readByte());
+                    break;
+                case TAG_Short:
+                    entries.putNumber(name, type, dis.readShort());
+                    break;
+                case TAG_Int:
+                    entries.putNumber(name, type, dis.readInt());
+                    break;
+                case TAG_Long:
+                    entries.putNumber(name, type, dis.readLong());
+                    break;
+                case TAG_Float:
+                    entries.putNumber(name, type, Float.floatToRawIntBits(dis.readFloat()));
+                    break;
+                case TAG_Double:
+                    entries.putNumber(name, type, Double.doubleToRawLongBits(dis.readDouble()));
+                    break;
+                case TAG_Compound:
+                    CompactCompoundTag compound = new CompactCompoundTag(name);
+                    compound.load(dis);
+                    entries.put(name, compound);
+                    break;
+                default:
+                    entries.put(name, Tag.readTag(dis, type, name));
+            }
+        }
+    }
+
+    @Override
+    public CompoundTag putByte(String name, int value) {
+        entries.putNumber(name, TAG_Byte, value);
+        return this;
+    }
+
+    @Override
+    public CompoundTag putShort(String name, int value) {
+        entries.putNumber(name, TAG_Short, value);
+        return this;
+    }
+
+    @Override
+    public CompoundTag putInt(String name, int value) {
+        entries.putNumber(name, TAG_Int, value);
+        return this;
+    }
+
+    @Override
+    public CompoundTag putLong(String name, long value) {
+        entries.putNumber(name, TAG_Long, value);
+        return this;
+    }
+
+    @Override
+    public CompoundTag putFloat(String name, float value) {
+        entries.putNumber(name, TAG_Float, Float.floatToRawIntBits(value));
+        return this;
+    }
+
+    @Override
+    public CompoundTag putDouble(String name, double value) {
+        entries.putNumber(name, TAG_Double, Double.doubleToRawLongBits(value));
+        return this;
+    }
+
+    @Override
+    public int getByte(String name) {
+        return getInt(name);
+    }
+
+    @Override
+    public int getShort(String name) {
+        return getInt(name);
+    }
+
+    @Override
+    public int getInt(String name) {
+        int i = entries.indexOf(name);
+        if (i < 0) return 0;
+        Tag tag = entries.tags[i];
+        if (tag != null) return ((NumberTag) tag).getData().intValue();
+        long value = entries.values[i];
+        switch (entries.types[i]) {
+            case TAG_Float:
+                return (int) Float.intBitsToFloat((int) value);
+            case TAG_Double:
+                return (int) Double.longBitsToDouble(value);
+            default:
+                return (int) value;
+        }
+    }
+
+    @Override
+    public long getLong(String name) {
+        int i = entries.indexOf(name);
+        if (i < 0) return 0;
+        Tag tag = entries.tags[i];
+        if (tag != null) return ((NumberTag) tag).getData().longValue();
+        long value = entries.values[i];
+        switch (entries.types[i]) {
+            case TAG_Float:
+                return (long) Float.intBitsToFloat((int) value);
+            case TAG_Double:
+                return (long) Double.longBitsToDouble(value);
+            default:
+                return value;
+        }
+    }
+
+    @Override
+    public float getFloat(String name) {
+        int i = entries.indexOf(name);
+        if (i < 0) return 0;
+        Tag tag = entries.tags[i];
+        if (tag != null) return ((NumberTag) tag).getData().floatValue();
+        long value = entries.values[i];
+        switch (entries.types[i]) {
+            case TAG_Float:
+                return Float.intBitsToFloat((int) value);
+            case TAG_Double:
+                return (float) Double.longBitsToDouble(value);
+            default:
+                return value;
+        }
+    }
+
+    @Override
+    public double getDouble(String name) {
+        int i = entries.indexOf(name);
+        if (i < 0) return 0;
+        Tag tag = entries.tags[i];
+        if (tag != null) return ((NumberTag) tag).getData().doubleValue();
+        long value = entries.values[i];
+        switch (entries.types[i]) {
+            case TAG_Float:
+                return Float.intBitsToFloat((int) value);
+            case TAG_Double:
+                return Double.longBitsToDouble(value);
+            default:
+                return value;
+        }
+    }
+
+    @Override
+    public boolean containsNumber(String name) {
+        int i = entries.indexOf(name);
+        return i >= 0 && (entries.tags[i] == null || entries.tags[i] instanceof NumberTag);
+    }
+
+    @Override
+    public boolean containsByte(String name) {
+        return entries.isNumber(name, TAG_Byte);
+    }
+
+    @Override
+    public boolean containsShort(String name) {
+        return entries.isNumber(name, TAG_Short);
+    }
+
+    @Override
+    public boolean containsInt(String name) {
+        return entries.isNumber(name, TAG_Int);
+    }
+
+    @Override
+    public boolean containsFloat(String name) {
+        return entries.isNumber(name, TAG_Float);
+    }
+
+    @Override
+    public boolean containsDouble(String name) {
+        return entries.isNumber(name, TAG_Double);
+    }
+
+    @Override
+    public CompactCompoundTag copy() {
+        CompactCompoundTag copy = new CompactCompoundTag(getName());
+        Entries from = this.entries;
+        copy.entries.ensureCapacity(from.size);
+        for (int i = 0; i < from.size; i++) {
+            Tag tag = from.tags[i];
+            if (tag != null) {
+                copy.entries.put(from.keys[i], tag.copy());
+            } else {
+                copy.entries.putNumber(from.keys[i], from.types[i], from.values[i]);
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public CompactCompoundTag clone() {
+        CompactCompoundTag clone = copy();
+        clone.setName("");
+        return clone;
+    }
+
+    /**
+     * A fixed size pool of the keys, so the compounds read from the same data share their key strings without
+     * interning them. A key only replaces the pooled key with the same slot, so the pool never grows and a race only
+     * costs a key which is not shared.
+     */
+    private static final class KeyPool {
+        private static final int SIZE = 1024;
+        private static final String[] KEYS = new String[SIZE];
+
+        private static String get(String key) {
+            if (key == null) {
+                return "";
+            }
+            int slot = key.hashCode() & (SIZE - 1);
+            String pooled = KEYS[slot];
+            if (key.equals(pooled)) {
+                return pooled;
+            }
+            KEYS[slot] = key;
+            return key;
+        }
+    }
+
+    /**
+     * The entries of a compact compound, viewed as a map for the {@link CompoundTag} methods which are not overridden.
+     */
+    private static final class Entries extends AbstractMap<String, Tag> {
+        private static final String[] NO_KEYS = new String[0];
+
+        /**
+         * The compounds with more entries than this also keep a hash index of their keys.
+         */
+        private static final int INDEX_THRESHOLD = 8;
+
+        private String[] keys = NO_KEYS;
+        private byte[] types;
+        private long[] values;
+        private Tag[] tags;
+        private int size;
+        private Object2IntOpenHashMap<String> index;
+
+        private int indexOf(Object key) {
+            if (index != null) {
+                return index.getInt(key);
+            }
+            String[] k = this.keys;
+            for (int i = 0; i < size; i++) {
+                if (k[i] == key) {
+                    return i;
+                }
+            }
+            if (key != null) {
+                for (int i = 0; i < size; i++) {
+                    if (key.equals(k[i])) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private boolean isNumber(String key, byte type) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return false;
+            }
+            return tags[i] == null ? types[i] == type : tags[i].getId() == type;
+        }
+
+        private int slot(String key) {
+            int i = indexOf(key);
+            if (i >= 0) {
+                return i;
+            }
+            ensureCapacity(size + 1);
+            i = size++;
+            keys[i] = KeyPool.get(key);
+            if (index != null) {
+                index.put(keys[i], i);
+            } else if (size > INDEX_THRESHOLD) {
+                rebuildIndex();
+            }
+            return i;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (keys.length >= capacity) {
+                return;
+            }
+            int length = Math.max(capacity, keys.length == 0 ? 4 : keys.length * 2);
+            keys = Arrays.copyOf(keys, length);
+            types = types == null ? new byte[length] : Arrays.copyOf(types, length);
+            values = values == null ? new long[length] : Arrays.copyOf(values, length);
+            tags = tags == null ? new Tag[length] : Arrays.copyOf(tags, length);
+        }
+
+        private void rebuildIndex() {
+            if (size <= INDEX_THRESHOLD) {
+                index = null;
+                return;
+            }
+            index = new Object2IntOpenHashMap<>(size);
+            index.defaultReturnValue(-1);
+            for (int i = 0; i < size; i++) {
+                index.put(keys[i], i);
+            }
+        }
+
+        private void putNumber(String key, byte type, long value) {
+            int i = slot(key);
+            types[i] = type;
+            values[i] = value;
+            tags[i] = null;
+        }
+
+        /**
+         * Creates the tag of an unboxed number and keeps it, so the changes made to the returned tag are not lost.
+         */
+        private Tag materialize(int i) {
+            Tag tag = tags[i];
+            if (tag != null) {
+                return tag;
+            }
+            String key = keys[i];
+            long value = values[i];
+            switch (types[i]) {
+                case TAG_Byte:
+                    tag = new ByteTag(key, (int) value);
+                    break;
+                case TAG_Short:
+                    tag = new ShortTag(key, (int) value);
+                    break;
+                case TAG_Int:
+                    tag = new IntTag(key, (int) value);
+                    break;
+                case TAG_Long:
+                    tag = new LongTag(key, value);
+                    break;
+                case TAG_Float:
+                    tag = new FloatTag(key, Float.intBitsToFloat((int) value));
+                    break;
+                default:
+                    tag = new DoubleTag(key, Double.longBitsToDouble(value));
+            }
+            tags[i] = tag;
+            return tag;
+        }
+
+        @Override
+        public Tag put(String key, Tag tag) {
+            int previous = indexOf(key);
+            Tag old = previous >= 0 ? materialize(previous) : null;
+            int i = previous >= 0 ? previous : slot(key);
+            types[i] = tag.getId();
+            values[i] = 0;
+            tags[i] = tag;
+            return old;
+        }
+
+        @Override
+        public Tag get(Object key) {
+            int i = indexOf(key);
+            return i < 0 ? null : materialize(i);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public Tag remove(Object key) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return null;
+            }
+            Tag old = materialize(i);
+            removeAt(i);
+            return old;
+        }
+
+        private void removeAt(int i) {
+            int moved = size - i - 1;
+            if (moved > 0) {
+                System.arraycopy(keys, i + 1, keys, i, moved);
+                System.arraycopy(types, i + 1, types, i, moved);
+                System.arraycopy(values, i + 1, values, i, moved);
+                System.arraycopy(tags, i + 1, tags, i, moved);
+            }
+            size--;
+            keys[size] = null;
+            tags[size] = null;
+            if (index != null) {
+                rebuildIndex();
+            }
+        }
+
+        @Override
+        public void clear() {
+            if (size > 0) {
+                Arrays.fill(keys, 0, size, null);
+                Arrays.fill(tags, 0, size, null);
+            }
+            size = 0;
+            index = null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, Tag>> entrySet() {
+            return new AbstractSet<Entry<String, Tag>>() {
+                @Override
+                public Iterator<Entry<String, Tag>> iterator() {
+                    return new Iterator<Entry<String, Tag>>() {
+                        private int next;
+                        private int last = -1;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < size;
+                        }
+
+                        @Override
+                        public Entry<String, Tag> next() {
+                            if (next >= size) {
+                                throw new NoSuchElementException();
+                            }
+                            last = next++;
+                            return new SimpleImmutableEntry<>(keys[last], materialize(last));
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last < 0) {
+                                throw new IllegalStateException();
+                            }
+                            removeAt(last);
+                            next = last;
+                            last = -1;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package cn.nukkit.nbt.tag;
 
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.nbt.stream.NBTInputStream;
 import cn.nukkit.nbt.stream.NBTOutputStream;
 
@@ -94,8 +96,16 @@ public abstract class Tag {
 
         String name = dis.readUTF();
 
-        Tag tag = newTag(type, name);
+        return readTag(dis, type, name);
+    }
 
+    /**
+     * Creates a tag of the given type and loads it from the payload which is next in the stream.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static Tag readTag(NBTInputStream dis, byte type, String name) throws IOException {
+        Tag tag = newTag(type, name);
         tag.load(dis);
         return tag;
     }
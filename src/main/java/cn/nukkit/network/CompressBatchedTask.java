@@ -1,7 +1,11 @@
 package cn.nukkit.network;
 
 import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.scheduler.AsyncTask;
+import cn.nukkit.scheduler.AsyncTaskCategory;
+import cn.nukkit.scheduler.AsyncTaskPriority;
 
 import java.net.InetSocketAddress;
 import java.util.List;
@@ -46,4 +50,18 @@ public class CompressBatchedTask extends AsyncTask {
     public void onCompletion(Server server) {
         server.broadcastPacketsCallback(this.finalData, this.targets);
     }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public AsyncTaskCategory getCategory() {
+        return AsyncTaskCategory.CPU;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Override
+    public AsyncTaskPriority getPriority() {
+        return AsyncTaskPriority.CHUNK_SEND;
+    }
 }
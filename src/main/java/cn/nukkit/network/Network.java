@@ -6,6 +6,7 @@ import cn.nukkit.api.DeprecationDetails;
 import cn.nukkit.api.PowerNukkitDifference;
 import cn.nukkit.api.PowerNukkitOnly;
 import cn.nukkit.api.Since;
+import cn.nukkit.metrics.PerformanceMetrics;
 import cn.nukkit.nbt.stream.FastByteArrayOutputStream;
 import cn.nukkit.network.protocol.*;
 import cn.nukkit.utils.BinaryStream;
@@ -281,6 +282,7 @@ public class Network {
                         throw new IllegalStateException("Unable to decode " + pk.getClass().getSimpleName());
                     }
 
+                    PerformanceMetrics.packetReceived(pk, buf.length);
                     packets.add(pk);
                 } else {
                     log.debug("Received unknown packet with ID: {}", Integer.toHexString(packetId));
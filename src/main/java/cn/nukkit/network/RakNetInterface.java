@@ -6,6 +6,7 @@ import cn.nukkit.api.PowerNukkitOnly;
 import cn.nukkit.api.Since;
 import cn.nukkit.event.player.PlayerCreationEvent;
 import cn.nukkit.event.server.QueryRegenerateEvent;
+import cn.nukkit.metrics.PerformanceMetrics;
 import cn.nukkit.network.protocol.BatchPacket;
 import cn.nukkit.network.protocol.DataPacket;
 import cn.nukkit.network.protocol.ProtocolInfo;
@@ -224,6 +225,7 @@ public class RakNetInterface implements RakNetServerListener, AdvancedSourceInte
 
         if (session != null) {
             packet.tryEncode();
+            PerformanceMetrics.packetSent(packet, packet.getCount());
             if (!immediate) {
                 session.outbound.offer(packet.clone());
             } else {
@@ -270,6 +272,7 @@ public class RakNetInterface implements RakNetServerListener, AdvancedSourceInte
 
         if (session != null) {
             packet.tryEncode();
+            PerformanceMetrics.packetSent(packet, packet.getCount());
             session.sendResourcePacket(packet.clone());
         }
 
@@ -388,14 +391,19 @@ public class RakNetInterface implements RakNetServerListener, AdvancedSourceInte
         }
         
         private void sendResourcePacket(DataPacket packet) {
-            BinaryStream batched = new BinaryStream();
-            Preconditions.checkArgument(!(packet instanceof BatchPacket), "Cannot batch BatchPacket");
             Preconditions.checkState(packet.isEncoded, "Packet should have already been encoded");
-            byte[] buf = packet.getBuffer();
-            batched.putUnsignedVarInt(buf.length);
-            batched.put(buf);
             try {
-                byte[] payload = Network.deflateRaw(batched.getBuffer(), network.getServer().networkCompressionLevel);
+                byte[] payload;
+                if (packet instanceof BatchPacket) {
+                    // Already compressed, the resource pack chunks are compressed once and cached
+                    payload = ((BatchPacket) packet).payload;
+                } else {
+                    BinaryStream batched = new BinaryStream();
+                    byte[] buf = packet.getBuffer();
+                    batched.putUnsignedVarInt(buf.length);
+                    batched.put(buf);
+                    payload = Network.deflateRaw(batched.getBuffer(), network.getServer().networkCompressionLevel);
+                }
                 ByteBuf byteBuf = ByteBufAllocator.DEFAULT.ioBuffer(1 + payload.length);
                 byteBuf.writeByte(0xfe);
                 byteBuf.writeBytes(payload);
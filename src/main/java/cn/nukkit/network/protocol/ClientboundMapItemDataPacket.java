@@ -127,7 +127,7 @@ public class ClientboundMapItemDataPacket extends DataPacket {
             } else if (colors.length > 0) {
                 this.putUnsignedVarInt(colors.length);
                 for (int color : colors) {
-                    this.putUnsignedVarInt(color);
+                    this.putUnsignedVarInt(color & 0xFFFFFFFFL);
                 }
             }
         }
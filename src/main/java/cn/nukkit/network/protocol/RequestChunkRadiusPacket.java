@@ -19,7 +19,8 @@ public class RequestChunkRadiusPacket extends DataPacket {
 
     @Override
     public void encode() {
-
+        this.reset();
+        this.putVarInt(this.radius);
     }
 
     @Override
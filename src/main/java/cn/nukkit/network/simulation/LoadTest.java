@@ -0,0 +1,196 @@
+package cn.nukkit.network.simulation;
+
+import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Connects simulated Bedrock clients to this server, in the same process, and measures how the server copes.
+ * <p>The clients log in with offline login chains, so {@code xbox-auth} must be disabled. They join at
+ * {@link #CONNECTS_PER_SECOND}, request their chunks, walk around a square, place and break blocks, open their
+ * inventory and chat. They are ticked by their own threads, like the RakNet threads of a real server, while their
+ * players are ticked by the main thread.</p>
+ * <p>A flat world with {@code allow-flight} enabled gives the most stable results, because the clients don't
+ * follow the terrain height.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Log4j2
+public class LoadTest {
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static final int CONNECTS_PER_SECOND = 20;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static final int DEFAULT_CHUNK_RADIUS = 8;
+
+    private final Server server;
+    private final int clientCount;
+    private final int chunkRadius;
+    private final long durationNanos;
+    private final Consumer<LoadTestReport> onFinish;
+    private final SimulatedClientInterface sourceInterface;
+    private final List<SimulatedClient> clients = new CopyOnWriteArrayList<>();
+    private final LongArrayList tickNanos = new LongArrayList();
+    private final LongArrayList chunkLatencies = new LongArrayList();
+    private final LongArrayList joinTimes = new LongArrayList();
+    private ScheduledExecutorService executor;
+    private volatile boolean running;
+    private boolean finishing;
+    private long startNanos;
+    private long endNanos;
+    private LoadTestReport report;
+
+    /**
+     * @param clientCount     how many clients are connected
+     * @param chunkRadius     the chunk radius requested by the clients
+     * @param durationSeconds how long the test runs after the start, {@code 0} to run until {@link #stop()}
+     * @param onFinish        receives the report when the test is stopped, on the main thread
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public LoadTest(Server server, int clientCount, int chunkRadius, int durationSeconds, Consumer<LoadTestReport> onFinish) {
+        Preconditions.checkArgument(clientCount > 0, "clientCount must be positive");
+        Preconditions.checkArgument(chunkRadius > 0, "chunkRadius must be positive");
+        Preconditions.checkArgument(durationSeconds >= 0, "durationSeconds can't be negative");
+        this.server = server;
+        this.clientCount = clientCount;
+        this.chunkRadius = chunkRadius;
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+        this.onFinish = onFinish;
+        this.sourceInterface = new SimulatedClientInterface(server, this);
+    }
+
+    /**
+     * Registers the network interface and starts connecting the clients. Must be called on the main thread.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized void start() {
+        Preconditions.checkState(!running && report == null, "The load test was already started");
+        running = true;
+        startNanos = System.nanoTime();
+        executor = Executors.newScheduledThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+                new ThreadFactoryBuilder().setNameFormat("Load Test Client #%d").setDaemon(true).build());
+        server.getNetwork().registerInterface(sourceInterface);
+
+        long connectInterval = TimeUnit.SECONDS.toNanos(1) / CONNECTS_PER_SECOND;
+        for (int i = 0; i < clientCount; i++) {
+            SimulatedClient client = new SimulatedClient(this, server.getNetwork(), i, chunkRadius);
+            executor.schedule(() -> {
+                clients.add(client);
+                sourceInterface.connect(client);
+                executor.scheduleAtFixedRate(client::tick, 0, 50, TimeUnit.MILLISECONDS);
+            }, connectInterval * i, TimeUnit.NANOSECONDS);
+        }
+        log.info("Load test started with {} clients", clientCount);
+    }
+
+    /**
+     * Disconnects the clients, unregisters the network interface and creates the report.
+     * Must be called on the main thread, does nothing if the test is not running.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        endNanos = System.nanoTime();
+
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("The load test clients did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        sourceInterface.closeAll("Load test finished");
+        // The interfaces may be iterated right now, so the interface is removed on the next tick
+        server.getScheduler().scheduleTask(null, () -> server.getNetwork().unregisterInterface(sourceInterface));
+
+        report = createReport(endNanos);
+        log.info("Load test finished");
+        if (onFinish != null) {
+            onFinish.accept(report);
+        }
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the report of the finished test, or the current numbers if it is still running
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized LoadTestReport getReport() {
+        return report != null ? report : createReport(System.nanoTime());
+    }
+
+    /**
+     * Called on the main thread at the start of every tick with the duration of the previous tick.
+     */
+    void recordTick(long nanos) {
+        if (!running) {
+            return;
+        }
+        synchronized (tickNanos) {
+            // The first tick was not complete when the test started
+            if (nanos > 0 && System.nanoTime() - nanos > startNanos) {
+                tickNanos.add(nanos);
+            }
+        }
+
+        if (durationNanos > 0 && !finishing && System.nanoTime() - startNanos >= durationNanos) {
+            finishing = true;
+            server.getScheduler().scheduleTask(null, this::stop);
+        }
+    }
+
+    void recordChunkLatency(long nanos) {
+        synchronized (chunkLatencies) {
+            chunkLatencies.add(nanos);
+        }
+    }
+
+    void onSpawn(SimulatedClient client) {
+        synchronized (joinTimes) {
+            joinTimes.add(System.nanoTime() - client.getConnectedNanos());
+        }
+    }
+
+    private LoadTestReport createReport(long now) {
+        long[] ticks;
+        synchronized (tickNanos) {
+            ticks = tickNanos.toLongArray();
+        }
+        long[] latencies;
+        synchronized (chunkLatencies) {
+            latencies = chunkLatencies.toLongArray();
+        }
+        long[] joins;
+        synchronized (joinTimes) {
+            joins = joinTimes.toLongArray();
+        }
+        return new LoadTestReport(clientCount, clients, now - startNanos, now, ticks, latencies, joins);
+    }
+}
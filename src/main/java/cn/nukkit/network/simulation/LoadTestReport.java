@@ -0,0 +1,153 @@
+package cn.nukkit.network.simulation;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import com.google.gson.GsonBuilder;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The numbers measured by a {@link LoadTest}. The times are in milliseconds and the rates per second.
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Getter
+public class LoadTestReport {
+    private final int clients;
+    private final int spawnedClients;
+    private final int disconnectedClients;
+    private final double durationSeconds;
+    private final int ticks;
+    private final double ticksPerSecond;
+    private final double msptMean;
+    private final double msptP50;
+    private final double msptP95;
+    private final double msptP99;
+    private final double msptMax;
+    private final double outboundBytesPerPlayer;
+    private final double compressedBytesPerPlayer;
+    private final double outboundBytesPerPlayerPerSecond;
+    private final double compressedBytesPerPlayerPerSecond;
+    private final long chunksSent;
+    private final double chunkLatencyP50;
+    private final double chunkLatencyP95;
+    private final double chunkLatencyP99;
+    private final double chunkLatencyMax;
+    private final double joinTimeP50;
+    private final double joinTimeP95;
+    private final int positionCorrections;
+
+    LoadTestReport(int clientCount, Collection<SimulatedClient> clients, long durationNanos, long now,
+                   long[] tickNanos, long[] chunkLatencies, long[] joinTimes) {
+        this.clients = clientCount;
+        this.durationSeconds = durationNanos / 1e9;
+
+        int spawned = 0;
+        int disconnected = 0;
+        int corrections = 0;
+        long chunks = 0;
+        long rawBytes = 0;
+        long compressedBytes = 0;
+        double connectedSeconds = 0;
+        int connected = 0;
+        for (SimulatedClient client : clients) {
+            if (client.isSpawned()) {
+                spawned++;
+            }
+            if (client.isDisconnected() && !"Load test finished".equals(client.getCloseReason())) {
+                disconnected++;
+            }
+            if (client.getConnectedNanos() != 0) {
+                connected++;
+                connectedSeconds += (now - client.getConnectedNanos()) / 1e9;
+            }
+            corrections += client.getCorrections();
+            chunks += client.getChunks();
+            rawBytes += client.getRawBytes();
+            compressedBytes += client.getCompressedBytes();
+        }
+        this.spawnedClients = spawned;
+        this.disconnectedClients = disconnected;
+        this.positionCorrections = corrections;
+        this.chunksSent = chunks;
+        this.outboundBytesPerPlayer = connected == 0 ? 0 : rawBytes / (double) connected;
+        this.compressedBytesPerPlayer = connected == 0 ? 0 : compressedBytes / (double) connected;
+        this.outboundBytesPerPlayerPerSecond = connectedSeconds == 0 ? 0 : rawBytes / connectedSeconds;
+        this.compressedBytesPerPlayerPerSecond = connectedSeconds == 0 ? 0 : compressedBytes / connectedSeconds;
+
+        Arrays.sort(tickNanos);
+        this.ticks = tickNanos.length;
+        this.ticksPerSecond = durationNanos == 0 ? 0 : Math.min(20, ticks / durationSeconds);
+        this.msptMean = millis(Arrays.stream(tickNanos).average().orElse(0));
+        this.msptP50 = percentile(tickNanos, 50);
+        this.msptP95 = percentile(tickNanos, 95);
+        this.msptP99 = percentile(tickNanos, 99);
+        this.msptMax = percentile(tickNanos, 100);
+
+        Arrays.sort(chunkLatencies);
+        this.chunkLatencyP50 = percentile(chunkLatencies, 50);
+        this.chunkLatencyP95 = percentile(chunkLatencies, 95);
+        this.chunkLatencyP99 = percentile(chunkLatencies, 99);
+        this.chunkLatencyMax = percentile(chunkLatencies, 100);
+
+        Arrays.sort(joinTimes);
+        this.joinTimeP50 = percentile(joinTimes, 50);
+        this.joinTimeP95 = percentile(joinTimes, 95);
+    }
+
+    /**
+     * The nearest-rank percentile of sorted nanoseconds, in milliseconds.
+     */
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return millis(sorted[Math.max(0, Math.min(sorted.length, rank) - 1)]);
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * @return the report as lines of text, for a command sender or a log
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public List<String> toLines() {
+        List<String> lines = new ArrayList<>();
+        lines.add(format("Clients: %d spawned of %d, %d disconnected by the server", spawnedClients, clients, disconnectedClients));
+        lines.add(format("Duration: %.1f s, %d ticks, %.2f TPS", durationSeconds, ticks, ticksPerSecond));
+        lines.add(format("MSPT: mean %.2f, p50 %.2f, p95 %.2f, p99 %.2f, max %.2f", msptMean, msptP50, msptP95, msptP99, msptMax));
+        lines.add(format("Outbound per player: %.1f KiB/s (%.1f KiB/s compressed), %.2f MiB in total",
+                outboundBytesPerPlayerPerSecond / 1024, compressedBytesPerPlayerPerSecond / 1024, outboundBytesPerPlayer / 1024 / 1024));
+        lines.add(format("Chunks sent: %d, latency p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, max %.1f ms",
+                chunksSent, chunkLatencyP50, chunkLatencyP95, chunkLatencyP99, chunkLatencyMax));
+        lines.add(format("Join time: p50 %.1f ms, p95 %.1f ms", joinTimeP50, joinTimeP95));
+        lines.add(format("Position corrections: %d", positionCorrections));
+        return lines;
+    }
+
+    /**
+     * Writes the report as JSON, to compare runs.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void save(File file) throws IOException {
+        Files.write(file.toPath(), new GsonBuilder().setPrettyPrinting().create().toJson(this).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String format(String format, Object... args) {
+        return String.format(Locale.ROOT, format, args);
+    }
+}
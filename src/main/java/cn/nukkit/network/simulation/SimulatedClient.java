@@ -0,0 +1,547 @@
+package cn.nukkit.network.simulation;
+
+import cn.nukkit.block.BlockID;
+import cn.nukkit.inventory.transaction.data.UseItemData;
+import cn.nukkit.item.Item;
+import cn.nukkit.level.Level;
+import cn.nukkit.math.BlockFace;
+import cn.nukkit.math.BlockVector3;
+import cn.nukkit.math.Vector3;
+import cn.nukkit.math.Vector3f;
+import cn.nukkit.network.Network;
+import cn.nukkit.network.protocol.*;
+import cn.nukkit.network.protocol.types.ContainerIds;
+import cn.nukkit.network.protocol.types.NetworkInventoryAction;
+import cn.nukkit.utils.Binary;
+import cn.nukkit.utils.BinaryStream;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import lombok.extern.log4j.Log4j2;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A fake Bedrock client driven by the {@link LoadTest}.
+ * <p>It is ticked every 50 milliseconds by the load test executor, never by the main thread. Everything it sends is
+ * encoded, compressed and decoded again through {@link Network#processBatch(byte[], Collection)} like the packets
+ * of a real client, and everything it receives is measured as if it was sent over RakNet.</p>
+ */
+@Log4j2
+class SimulatedClient {
+    private static final float EYE_HEIGHT = 1.62f;
+    /**
+     * Blocks walked per tick, the walking speed of a vanilla player.
+     */
+    private static final double WALK_SPEED = 0.215;
+    private static final int PATH_SIDE = 48;
+    private static final int BLOCK_INTERVAL = 200;
+    private static final int BREAK_DELAY = 40;
+    private static final int INVENTORY_INTERVAL = 400;
+    private static final int INVENTORY_OPEN_TICKS = 40;
+    private static final int CHAT_INTERVAL = 600;
+    private static final String SKIN_DATA = Base64.getEncoder().encodeToString(new byte[64 * 32 * 4]);
+    private static final String SKIN_RESOURCE_PATCH = Base64.getEncoder().encodeToString(
+            "{\"geometry\":{\"default\":\"geometry.humanoid.custom\"}}".getBytes(StandardCharsets.UTF_8));
+
+    private final LoadTest loadTest;
+    private final Network network;
+    private final int index;
+    private final String name;
+    private final UUID uuid;
+    private final InetSocketAddress address;
+    private final Random random;
+
+    final Queue<DataPacket> inbound = new ConcurrentLinkedQueue<>();
+    private final Queue<DataPacket> outbound = new ConcurrentLinkedQueue<>();
+    private final List<byte[]> pending = new ArrayList<>();
+
+    private final Long2LongOpenHashMap wantedChunks = new Long2LongOpenHashMap();
+    private final LongOpenHashSet receivedChunks = new LongOpenHashSet();
+
+    private volatile boolean disconnected;
+    private volatile String closeReason;
+    private volatile boolean spawned;
+    private volatile long connectedNanos;
+    private volatile long rawBytes;
+    private volatile long compressedBytes;
+    private volatile int chunks;
+    private volatile int corrections;
+
+    private int ticks;
+    private int spawnTick;
+    private long runtimeId;
+    private double x;
+    private double y;
+    private double z;
+    private int chunkRadius;
+    private final int requestedRadius;
+    private int chunkX = Integer.MAX_VALUE;
+    private int chunkZ = Integer.MAX_VALUE;
+    private int chatCount;
+    private BlockVector3 placed;
+
+    SimulatedClient(LoadTest loadTest, Network network, int index, int requestedRadius) {
+        this.loadTest = loadTest;
+        this.network = network;
+        this.index = index;
+        this.name = "LoadTest" + index;
+        this.uuid = UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+        this.address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 1 + index);
+        this.random = new Random(index);
+        this.requestedRadius = requestedRadius;
+        this.wantedChunks.defaultReturnValue(Long.MIN_VALUE);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    InetSocketAddress getAddress() {
+        return address;
+    }
+
+    long getClientId() {
+        return index;
+    }
+
+    boolean isDisconnected() {
+        return disconnected;
+    }
+
+    boolean isSpawned() {
+        return spawned;
+    }
+
+    String getCloseReason() {
+        return closeReason;
+    }
+
+    long getConnectedNanos() {
+        return connectedNanos;
+    }
+
+    long getRawBytes() {
+        return rawBytes;
+    }
+
+    long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    int getChunks() {
+        return chunks;
+    }
+
+    int getCorrections() {
+        return corrections;
+    }
+
+    /**
+     * Called by the main thread for every packet the server sends to this client.
+     */
+    void receive(DataPacket packet) {
+        outbound.offer(packet);
+    }
+
+    /**
+     * Called when the server closed the connection.
+     */
+    void onClosed(String reason) {
+        closeReason = reason;
+        disconnected = true;
+    }
+
+    /**
+     * Asks the server to close the connection, as a client leaving the game.
+     */
+    void disconnect() {
+        if (closeReason == null) {
+            closeReason = "Load test finished";
+        }
+        disconnected = true;
+    }
+
+    void tick() {
+        if (disconnected) {
+            return;
+        }
+
+        try {
+            if (ticks++ == 0) {
+                connectedNanos = System.nanoTime();
+                pending.add(createLogin());
+            }
+
+            readOutbound();
+
+            if (spawned) {
+                runScript(ticks - spawnTick);
+            }
+
+            flush();
+        } catch (Exception e) {
+            log.error("The simulated client {} failed", name, e);
+            disconnect();
+        }
+    }
+
+    private void readOutbound() throws Exception {
+        List<byte[]> batch = new ArrayList<>();
+        DataPacket packet;
+        while ((packet = outbound.poll()) != null) {
+            if (packet instanceof BatchPacket) {
+                byte[] payload = ((BatchPacket) packet).payload;
+                compressedBytes += payload.length;
+                byte[] data = Network.inflateRaw(payload);
+                rawBytes += data.length;
+                readBatch(data);
+                continue;
+            }
+
+            byte[] buffer = packet.getBuffer();
+            batch.add(Binary.writeUnsignedVarInt(buffer.length));
+            batch.add(buffer);
+            rawBytes += buffer.length;
+            handle(packet);
+        }
+
+        if (!batch.isEmpty()) {
+            compressedBytes += Network.deflateRaw(batch.toArray(new byte[0][]), network.getServer().networkCompressionLevel).length;
+        }
+    }
+
+    private void readBatch(byte[] data) {
+        BinaryStream stream = new BinaryStream(data);
+        while (!stream.feof()) {
+            byte[] buffer = stream.getByteArray();
+            BinaryStream packet = new BinaryStream(buffer);
+            int pid = (int) packet.getUnsignedVarInt() & 0x3ff;
+            if (pid == (ProtocolInfo.FULL_CHUNK_DATA_PACKET & 0xff)) {
+                onChunk(packet.getVarInt(), packet.getVarInt());
+            }
+        }
+    }
+
+    private void handle(DataPacket packet) {
+        switch (packet.pid()) {
+            case ProtocolInfo.RESOURCE_PACKS_INFO_PACKET:
+                sendResourcePackResponse(ResourcePackClientResponsePacket.STATUS_HAVE_ALL_PACKS);
+                break;
+            case ProtocolInfo.RESOURCE_PACK_STACK_PACKET:
+                sendResourcePackResponse(ResourcePackClientResponsePacket.STATUS_COMPLETED);
+                break;
+            case ProtocolInfo.START_GAME_PACKET:
+                StartGamePacket startGame = (StartGamePacket) packet;
+                runtimeId = startGame.entityRuntimeId;
+                x = startGame.x;
+                y = startGame.y;
+                z = startGame.z;
+                RequestChunkRadiusPacket request = new RequestChunkRadiusPacket();
+                request.radius = requestedRadius;
+                send(request);
+                break;
+            case ProtocolInfo.CHUNK_RADIUS_UPDATED_PACKET:
+                chunkRadius = ((ChunkRadiusUpdatedPacket) packet).radius;
+                chunkX = Integer.MAX_VALUE;
+                updateWantedChunks();
+                break;
+            case ProtocolInfo.FULL_CHUNK_DATA_PACKET:
+                LevelChunkPacket chunk = (LevelChunkPacket) packet;
+                onChunk(chunk.chunkX, chunk.chunkZ);
+                break;
+            case ProtocolInfo.PLAY_STATUS_PACKET:
+                if (((PlayStatusPacket) packet).status == PlayStatusPacket.PLAYER_SPAWN && !spawned) {
+                    SetLocalPlayerAsInitializedPacket initialized = new SetLocalPlayerAsInitializedPacket();
+                    initialized.eid = runtimeId;
+                    send(initialized);
+                    spawnTick = ticks;
+                    spawned = true;
+                    loadTest.onSpawn(this);
+                }
+                break;
+            case ProtocolInfo.MOVE_PLAYER_PACKET:
+                MovePlayerPacket move = (MovePlayerPacket) packet;
+                if (move.eid == runtimeId) {
+                    x = move.x;
+                    y = move.y - EYE_HEIGHT;
+                    z = move.z;
+                    if (spawned) {
+                        corrections++;
+                    }
+                }
+                break;
+            case ProtocolInfo.DISCONNECT_PACKET:
+                onClosed(((DisconnectPacket) packet).message);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onChunk(int x, int z) {
+        long hash = Level.chunkHash(x, z);
+        long wantedSince = wantedChunks.remove(hash);
+        if (wantedSince != wantedChunks.defaultReturnValue()) {
+            loadTest.recordChunkLatency(System.nanoTime() - wantedSince);
+        }
+        receivedChunks.add(hash);
+        chunks++;
+    }
+
+    /**
+     * Marks the chunks around the player which were not received yet as wanted, and forgets the chunks which are
+     * too far to be kept by the server, so walking back to them measures them again.
+     */
+    private void updateWantedChunks() {
+        int newChunkX = (int) Math.floor(x) >> 4;
+        int newChunkZ = (int) Math.floor(z) >> 4;
+        if (chunkRadius == 0 || newChunkX == chunkX && newChunkZ == chunkZ) {
+            return;
+        }
+        chunkX = newChunkX;
+        chunkZ = newChunkZ;
+
+        long now = System.nanoTime();
+        for (int dx = -chunkRadius; dx <= chunkRadius; dx++) {
+            for (int dz = -chunkRadius; dz <= chunkRadius; dz++) {
+                if (dx * dx + dz * dz > chunkRadius * chunkRadius) {
+                    continue;
+                }
+                long hash = Level.chunkHash(chunkX + dx, chunkZ + dz);
+                if (!receivedChunks.contains(hash) && !wantedChunks.containsKey(hash)) {
+                    wantedChunks.put(hash, now);
+                }
+            }
+        }
+
+        int keep = chunkRadius + 1;
+        for (LongIterator iterator = receivedChunks.iterator(); iterator.hasNext(); ) {
+            long hash = iterator.nextLong();
+            if (Math.abs(Level.getHashX(hash) - chunkX) > keep || Math.abs(Level.getHashZ(hash) - chunkZ) > keep) {
+                iterator.remove();
+            }
+        }
+        for (ObjectIterator<Long2LongMap.Entry> iterator = wantedChunks.long2LongEntrySet().fastIterator(); iterator.hasNext(); ) {
+            long hash = iterator.next().getLongKey();
+            if (Math.abs(Level.getHashX(hash) - chunkX) > keep || Math.abs(Level.getHashZ(hash) - chunkZ) > keep) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * The scripted behaviour: walk around a square, place and break a block, open the inventory and chat.
+     * The actions of the clients are spread over time using their index.
+     */
+    private void runScript(int tick) {
+        walk(tick);
+
+        int blockTick = (tick + index * 7) % BLOCK_INTERVAL;
+        if (blockTick == 0) {
+            placeBlock();
+        } else if (blockTick == BREAK_DELAY && placed != null) {
+            breakBlock();
+        }
+
+        int inventoryTick = (tick + index * 13) % INVENTORY_INTERVAL;
+        if (inventoryTick == 0) {
+            InteractPacket interact = new InteractPacket();
+            interact.action = InteractPacket.ACTION_OPEN_INVENTORY;
+            interact.target = runtimeId;
+            send(interact);
+        } else if (inventoryTick == INVENTORY_OPEN_TICKS) {
+            ContainerClosePacket close = new ContainerClosePacket();
+            close.windowId = ContainerIds.INVENTORY;
+            close.wasServerInitiated = false;
+            send(close);
+        }
+
+        if ((tick + index * 31) % CHAT_INTERVAL == 0) {
+            TextPacket text = new TextPacket();
+            text.type = TextPacket.TYPE_CHAT;
+            text.source = name;
+            text.message = "Load test message " + ++chatCount + " from " + name;
+            send(text);
+        }
+    }
+
+    /**
+     * Walks around a square which starts at the spawn point, each client turns in its own direction.
+     */
+    private void walk(int tick) {
+        int sideTicks = (int) (PATH_SIDE / WALK_SPEED);
+        int side = (tick / sideTicks + index) & 3;
+        double yaw = side * 90;
+        switch (side) {
+            case 0:
+                z += WALK_SPEED;
+                break;
+            case 1:
+                x -= WALK_SPEED;
+                break;
+            case 2:
+                z -= WALK_SPEED;
+                break;
+            default:
+                x += WALK_SPEED;
+                break;
+        }
+
+        MovePlayerPacket move = new MovePlayerPacket();
+        move.eid = runtimeId;
+        move.x = (float) x;
+        move.y = (float) y + EYE_HEIGHT;
+        move.z = (float) z;
+        move.yaw = (float) yaw;
+        move.headYaw = (float) yaw;
+        move.pitch = 10;
+        move.onGround = true;
+        move.frame = tick;
+        send(move);
+
+        updateWantedChunks();
+    }
+
+    private void placeBlock() {
+        // Beside the path, so the client does not walk into it
+        int blockX = (int) Math.floor(x) + 2 * (random.nextBoolean() ? 1 : -1);
+        int blockY = (int) Math.floor(y) - 1;
+        int blockZ = (int) Math.floor(z) + 2 * (random.nextBoolean() ? 1 : -1);
+
+        UseItemData data = new UseItemData();
+        data.actionType = InventoryTransactionPacket.USE_ITEM_ACTION_CLICK_BLOCK;
+        data.blockPos = new BlockVector3(blockX, blockY, blockZ);
+        data.face = BlockFace.UP;
+        data.hotbarSlot = 0;
+        data.itemInHand = Item.get(BlockID.DIRT, 0, 64);
+        data.playerPos = new Vector3(x, y + EYE_HEIGHT, z);
+        data.clickPos = new Vector3f(0.5f, 1, 0.5f);
+        send(createUseItem(data));
+        placed = new BlockVector3(blockX, blockY + 1, blockZ);
+    }
+
+    private void breakBlock() {
+        PlayerActionPacket action = new PlayerActionPacket();
+        action.entityId = runtimeId;
+        action.action = PlayerActionPacket.ACTION_START_BREAK;
+        action.x = placed.x;
+        action.y = placed.y;
+        action.z = placed.z;
+        action.face = BlockFace.UP.getIndex();
+        send(action);
+
+        UseItemData data = new UseItemData();
+        data.actionType = InventoryTransactionPacket.USE_ITEM_ACTION_BREAK_BLOCK;
+        data.blockPos = placed;
+        data.face = BlockFace.UP;
+        data.hotbarSlot = 0;
+        data.itemInHand = Item.get(BlockID.DIRT, 0, 64);
+        data.playerPos = new Vector3(x, y + EYE_HEIGHT, z);
+        data.clickPos = new Vector3f(0.5f, 1, 0.5f);
+        send(createUseItem(data));
+        placed = null;
+    }
+
+    private static InventoryTransactionPacket createUseItem(UseItemData data) {
+        InventoryTransactionPacket packet = new InventoryTransactionPacket();
+        packet.transactionType = InventoryTransactionPacket.TYPE_USE_ITEM;
+        packet.actions = NetworkInventoryAction.EMPTY_ARRAY;
+        packet.transactionData = data;
+        return packet;
+    }
+
+    private void sendResourcePackResponse(byte status) {
+        ResourcePackClientResponsePacket response = new ResourcePackClientResponsePacket();
+        response.responseStatus = status;
+        response.packEntries = new ResourcePackClientResponsePacket.Entry[0];
+        send(response);
+    }
+
+    private void send(DataPacket packet) {
+        packet.encode();
+        pending.add(packet.getBuffer());
+    }
+
+    /**
+     * Sends the packets of this tick in one compressed batch, which is decoded into the inbound queue.
+     */
+    private void flush() throws Exception {
+        if (pending.isEmpty()) {
+            return;
+        }
+        byte[][] batch = new byte[pending.size() * 2][];
+        for (int i = 0; i < pending.size(); i++) {
+            byte[] buffer = pending.get(i);
+            batch[i * 2] = Binary.writeUnsignedVarInt(buffer.length);
+            batch[i * 2 + 1] = buffer;
+        }
+        pending.clear();
+        try {
+            network.processBatch(Network.deflateRaw(batch, network.getServer().networkCompressionLevel), inbound);
+        } catch (ProtocolException e) {
+            log.error("The server could not read the packets of the simulated client {}", name, e);
+            disconnect();
+        }
+    }
+
+    /**
+     * Creates an offline login: the chain is not signed by Xbox Live, so the server must run with xbox-auth disabled.
+     */
+    private byte[] createLogin() {
+        JsonObject extraData = new JsonObject();
+        extraData.addProperty("displayName", name);
+        extraData.addProperty("identity", uuid.toString());
+        extraData.addProperty("XUID", "");
+        JsonObject identity = new JsonObject();
+        identity.add("extraData", extraData);
+        identity.addProperty("identityPublicKey", "");
+        JsonArray chain = new JsonArray();
+        chain.add(createToken(identity));
+        JsonObject chainData = new JsonObject();
+        chainData.add("chain", chain);
+
+        JsonObject skin = new JsonObject();
+        skin.addProperty("ClientRandomId", getClientId());
+        skin.addProperty("ServerAddress", "127.0.0.1:19132");
+        skin.addProperty("DeviceModel", "Load Test");
+        skin.addProperty("DeviceOS", 7);
+        skin.addProperty("DeviceId", uuid.toString());
+        skin.addProperty("GameVersion", ProtocolInfo.MINECRAFT_VERSION_NETWORK);
+        skin.addProperty("LanguageCode", "en_US");
+        skin.addProperty("SkinId", "Standard_Custom");
+        skin.addProperty("SkinData", SKIN_DATA);
+        skin.addProperty("SkinImageWidth", 64);
+        skin.addProperty("SkinImageHeight", 32);
+        skin.addProperty("SkinResourcePatch", SKIN_RESOURCE_PATCH);
+
+        byte[] chainBytes = chainData.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] skinBytes = createToken(skin).getBytes(StandardCharsets.UTF_8);
+        BinaryStream tokens = new BinaryStream();
+        tokens.putLInt(chainBytes.length);
+        tokens.put(chainBytes);
+        tokens.putLInt(skinBytes.length);
+        tokens.put(skinBytes);
+
+        BinaryStream login = new BinaryStream();
+        login.putUnsignedVarInt(ProtocolInfo.LOGIN_PACKET & 0xff);
+        login.putInt(ProtocolInfo.CURRENT_PROTOCOL);
+        login.putByteArray(tokens.getBuffer());
+        return login.getBuffer();
+    }
+
+    private static String createToken(JsonObject payload) {
+        Base64.Encoder encoder = Base64.getEncoder();
+        return encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + '.'
+                + encoder.encodeToString(payload.toString().getBytes(StandardCharsets.UTF_8)) + '.';
+    }
+}
@@ -0,0 +1,183 @@
+package cn.nukkit.network.simulation;
+
+import cn.nukkit.Player;
+import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.block.BlockID;
+import cn.nukkit.event.player.PlayerCreationEvent;
+import cn.nukkit.inventory.PlayerInventory;
+import cn.nukkit.item.Item;
+import cn.nukkit.network.SourceInterface;
+import cn.nukkit.network.protocol.DataPacket;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.message.FormattedMessage;
+
+import java.lang.reflect.Constructor;
+import java.net.InetSocketAddress;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The network interface of the {@link LoadTest}: the players of the simulated clients are created and fed here,
+ * on the main thread, exactly like the players of the {@link cn.nukkit.network.RakNetInterface}.
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Log4j2
+public class SimulatedClientInterface implements SourceInterface {
+    private final Server server;
+    private final LoadTest loadTest;
+    private final Queue<SimulatedClient> connecting = new ConcurrentLinkedQueue<>();
+    private final Map<InetSocketAddress, Session> sessions = new ConcurrentHashMap<>();
+
+    SimulatedClientInterface(Server server, LoadTest loadTest) {
+        this.server = server;
+        this.loadTest = loadTest;
+    }
+
+    void connect(SimulatedClient client) {
+        connecting.offer(client);
+    }
+
+    @Override
+    public boolean process() {
+        loadTest.recordTick(server.getLastTickNanos());
+
+        SimulatedClient client;
+        while ((client = connecting.poll()) != null) {
+            InetSocketAddress address = client.getAddress();
+            PlayerCreationEvent ev = new PlayerCreationEvent(this, Player.class, Player.class, client.getClientId(), address);
+            this.server.getPluginManager().callEvent(ev);
+            Class<? extends Player> clazz = ev.getPlayerClass();
+            try {
+                Constructor<? extends Player> constructor = clazz.getConstructor(SourceInterface.class, Long.class, InetSocketAddress.class);
+                Player player = constructor.newInstance(this, ev.getClientId(), ev.getSocketAddress());
+                this.server.addPlayer(address, player);
+                this.sessions.put(address, new Session(client, player));
+            } catch (ReflectiveOperationException e) {
+                log.error("Error while creating the player class {}", clazz, e);
+                client.onClosed("Player creation failed");
+            }
+        }
+
+        Iterator<Session> iterator = this.sessions.values().iterator();
+        while (iterator.hasNext()) {
+            Session session = iterator.next();
+            Player player = session.player;
+            if (session.client.isDisconnected()) {
+                iterator.remove();
+                player.close(player.getLeaveMessage(), session.client.getCloseReason(), false);
+                continue;
+            }
+
+            DataPacket packet;
+            while ((packet = session.client.inbound.poll()) != null) {
+                try {
+                    player.handleDataPacket(packet);
+                } catch (Exception e) {
+                    log.error(new FormattedMessage("An error occurred whilst handling {} for {}",
+                            new Object[]{packet.getClass().getSimpleName(), player.getName()}, e));
+                }
+            }
+
+            if (player.spawned) {
+                refillBlocks(player);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keeps blocks in the first hotbar slot, so the clients can place blocks in survival too.
+     */
+    private static void refillBlocks(Player player) {
+        PlayerInventory inventory = player.getInventory();
+        Item item = inventory.getItem(0);
+        if (item.getId() != BlockID.DIRT || item.getCount() < 16) {
+            inventory.setItem(0, Item.get(BlockID.DIRT, 0, 64));
+        }
+    }
+
+    /**
+     * Disconnects all the clients which are still connected, on the main thread.
+     */
+    void closeAll(String reason) {
+        for (Session session : this.sessions.values()) {
+            session.client.onClosed(reason);
+            session.player.close(session.player.getLeaveMessage(), reason, false);
+        }
+        this.sessions.clear();
+    }
+
+    @Override
+    public Integer putPacket(Player player, DataPacket packet) {
+        return this.putPacket(player, packet, false);
+    }
+
+    @Override
+    public Integer putPacket(Player player, DataPacket packet, boolean needACK) {
+        return this.putPacket(player, packet, needACK, false);
+    }
+
+    @Override
+    public Integer putPacket(Player player, DataPacket packet, boolean needACK, boolean immediate) {
+        Session session = this.sessions.get(player.getSocketAddress());
+        if (session != null) {
+            packet.tryEncode();
+            session.client.receive(packet.clone());
+        }
+        return null;
+    }
+
+    @Override
+    public Integer putResourcePacket(Player player, DataPacket packet) {
+        return this.putPacket(player, packet);
+    }
+
+    @Override
+    public int getNetworkLatency(Player player) {
+        return 0;
+    }
+
+    @Override
+    public void close(Player player) {
+        this.close(player, "unknown reason");
+    }
+
+    @Override
+    public void close(Player player, String reason) {
+        Session session = this.sessions.remove(player.getSocketAddress());
+        if (session != null) {
+            session.client.onClosed(reason);
+        }
+    }
+
+    @Override
+    public void setName(String name) {
+        // Not advertised
+    }
+
+    @Override
+    public void shutdown() {
+        this.loadTest.stop();
+    }
+
+    @Override
+    public void emergencyShutdown() {
+        this.loadTest.stop();
+    }
+
+    private static class Session {
+        private final SimulatedClient client;
+        private final Player player;
+
+        private Session(SimulatedClient client, Player player) {
+            this.client = client;
+            this.player = player;
+        }
+    }
+}
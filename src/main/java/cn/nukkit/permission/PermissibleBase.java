@@ -1,15 +1,15 @@
 package cn.nukkit.permission;
 
 import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitDifference;
 import cn.nukkit.plugin.Plugin;
+import cn.nukkit.plugin.PluginManager;
 import cn.nukkit.utils.PluginException;
 import cn.nukkit.utils.ServerException;
 import co.aikar.timings.Timings;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import javax.annotation.Nullable;
+import java.util.*;
 
 /**
  * @author MagicDroidX (Nukkit Project)
@@ -20,9 +20,14 @@ public class PermissibleBase implements Permissible {
 
     private Permissible parent = null;
 
-    private final Set<PermissionAttachment> attachments = new HashSet<>();
+    // In the order they were added, a later attachment overrides the previous ones
+    private final Map<PermissionAttachment, PermissionTree.Layer> attachments = new LinkedHashMap<>();
 
-    private final Map<String, PermissionAttachmentInfo> permissions = new HashMap<>();
+    @Nullable
+    private PermissionSnapshot snapshot;
+
+    @Nullable
+    private Map<String, PermissionAttachmentInfo> effectivePermissions;
 
     public PermissibleBase(ServerOperator opable) {
         this.opable = opable;
@@ -47,7 +52,9 @@ public class PermissibleBase implements Permissible {
 
     @Override
     public boolean isPermissionSet(String name) {
-        return this.permissions.containsKey(name);
+        PermissionTree tree = Server.getInstance().getPluginManager().getPermissionTree();
+        PermissionSnapshot snapshot = this.getSnapshot(tree);
+        return snapshot != null && snapshot.isSet(tree.indexOf(name));
     }
 
     @Override
@@ -57,8 +64,11 @@ public class PermissibleBase implements Permissible {
 
     @Override
     public boolean hasPermission(String name) {
-        if (this.isPermissionSet(name)) {
-            return this.permissions.get(name).getValue();
+        PermissionTree tree = Server.getInstance().getPluginManager().getPermissionTree();
+        PermissionSnapshot snapshot = this.getSnapshot(tree);
+        int index = tree != null ? tree.indexOf(name) : -1;
+        if (snapshot != null && snapshot.isSet(index)) {
+            return snapshot.getValue(index);
         }
 
         Permission perm = Server.getInstance().getPluginManager().getPermission(name);
@@ -94,7 +104,7 @@ public class PermissibleBase implements Permissible {
         }
 
         PermissionAttachment result = new PermissionAttachment(plugin, this.parent != null ? this.parent : this);
-        this.attachments.add(result);
+        this.attachments.put(result, null);
         if (name != null && value != null) {
             result.setPermission(name, value);
         }
@@ -105,7 +115,7 @@ public class PermissibleBase implements Permissible {
 
     @Override
     public void removeAttachment(PermissionAttachment attachment) {
-        if (this.attachments.contains(attachment)) {
+        if (this.attachments.containsKey(attachment)) {
             this.attachments.remove(attachment);
             PermissionRemovedExecutor ex = attachment.getRemovalCallback();
             if (ex != null) {
@@ -115,56 +125,126 @@ public class PermissibleBase implements Permissible {
         }
     }
 
+    /**
+     * Resolves the permissions again from the default permissions and the attachments.
+     * <p>Only the attachments whose permissions changed are expanded again, and the result is the snapshot shared
+     * with every other permissible with the same grants.</p>
+     */
+    @PowerNukkitDifference(info = "Resolves a snapshot shared with the other permissibles with the same grants", since = "1.6.0.0-PNX")
     @Override
     public void recalculatePermissions() {
         Timings.permissibleCalculationTimer.startTiming();
 
-        this.clearPermissions();
-        Map<String, Permission> defaults = Server.getInstance().getPluginManager().getDefaultPermissions(this.isOp());
-        Server.getInstance().getPluginManager().subscribeToDefaultPerms(this.isOp(), this.parent != null ? this.parent : this);
-
-        for (Permission perm : defaults.values()) {
-            String name = perm.getName();
-            this.permissions.put(name, new PermissionAttachmentInfo(this.parent != null ? this.parent : this, name, null, true));
-            Server.getInstance().getPluginManager().subscribeToPermission(name, this.parent != null ? this.parent : this);
-            this.calculateChildPermissions(perm.getChildren(), false, null);
+        PluginManager pluginManager = Server.getInstance().getPluginManager();
+        PermissionTree tree = pluginManager.getPermissionTree();
+        if (tree == null) {
+            // A plugin manager created without its constructor, like a mock, has no tree, only the defaults apply
+            Timings.permissibleCalculationTimer.stopTiming();
+            return;
+        }
+        Permissible permissible = this.parent != null ? this.parent : this;
+        boolean op = this.isOp();
+        pluginManager.unsubscribeFromDefaultPerms(!op, permissible);
+        pluginManager.subscribeToDefaultPerms(op, permissible);
+
+        List<PermissionTree.Layer> layers = new ArrayList<>(this.attachments.size() + 1);
+        layers.add(tree.getDefaults(op));
+        for (Map.Entry<PermissionAttachment, PermissionTree.Layer> entry : this.attachments.entrySet()) {
+            PermissionTree.Layer layer = entry.getValue();
+            Map<String, Boolean> grants = entry.getKey().getPermissions();
+            if (layer == null || layer.version != tree.getVersion() || !layer.grants.equals(grants)) {
+                layer = tree.compile(grants);
+                entry.setValue(layer);
+            }
+            layers.add(layer);
         }
 
-        for (PermissionAttachment attachment : this.attachments) {
-            this.calculateChildPermissions(attachment.getPermissions(), false, attachment);
+        PermissionSnapshot snapshot = tree.resolve(layers);
+        if (snapshot != this.snapshot) {
+            this.updateSubscriptions(pluginManager, tree, this.snapshot, snapshot, permissible);
+            this.snapshot = snapshot;
+            this.effectivePermissions = null;
         }
         Timings.permissibleCalculationTimer.stopTiming();
     }
 
     public void clearPermissions() {
-        for (String name : this.permissions.keySet()) {
-            Server.getInstance().getPluginManager().unsubscribeFromPermission(name, this.parent != null ? this.parent : this);
+        PluginManager pluginManager = Server.getInstance().getPluginManager();
+        Permissible permissible = this.parent != null ? this.parent : this;
+        PermissionTree tree = pluginManager.getPermissionTree();
+        if (tree != null) {
+            this.updateSubscriptions(pluginManager, tree, this.snapshot, null, permissible);
         }
 
+        pluginManager.unsubscribeFromDefaultPerms(false, permissible);
+        pluginManager.unsubscribeFromDefaultPerms(true, permissible);
 
-        Server.getInstance().getPluginManager().unsubscribeFromDefaultPerms(false, this.parent != null ? this.parent : this);
-        Server.getInstance().getPluginManager().unsubscribeFromDefaultPerms(true, this.parent != null ? this.parent : this);
+        this.snapshot = null;
+        this.effectivePermissions = null;
+    }
 
-        this.permissions.clear();
+    @Nullable
+    private PermissionSnapshot getSnapshot(@Nullable PermissionTree tree) {
+        PermissionSnapshot snapshot = this.snapshot;
+        if (tree == null) {
+            return null;
+        }
+        if (snapshot != null && snapshot.getVersion() != tree.getVersion()) {
+            this.recalculatePermissions();
+            snapshot = this.snapshot;
+        }
+        return snapshot;
     }
 
-    private void calculateChildPermissions(Map<String, Boolean> children, boolean invert, PermissionAttachment attachment) {
-        for (Map.Entry<String, Boolean> entry : children.entrySet()) {
-            String name = entry.getKey();
-            Permission perm = Server.getInstance().getPluginManager().getPermission(name);
-            boolean v = entry.getValue();
-            boolean value = (v ^ invert);
-            this.permissions.put(name, new PermissionAttachmentInfo(this.parent != null ? this.parent : this, name, attachment, value));
-            Server.getInstance().getPluginManager().subscribeToPermission(name, this.parent != null ? this.parent : this);
+    // Only the permissions which appeared or disappeared since the previous snapshot are subscribed or unsubscribed
+    private void updateSubscriptions(PluginManager pluginManager, PermissionTree tree, @Nullable PermissionSnapshot previous,
+                                     @Nullable PermissionSnapshot next, Permissible permissible) {
+        BitSet before = previous != null ? previous.getSet() : new BitSet();
+        BitSet after = next != null ? next.getSet() : new BitSet();
 
-            if (perm != null) {
-                this.calculateChildPermissions(perm.getChildren(), !value, attachment);
-            }
+        BitSet removed = (BitSet) before.clone();
+        removed.andNot(after);
+        for (int index = removed.nextSetBit(0); index >= 0; index = removed.nextSetBit(index + 1)) {
+            pluginManager.unsubscribeFromPermission(tree.getName(index), permissible);
+        }
+
+        BitSet added = (BitSet) after.clone();
+        added.andNot(before);
+        for (int index = added.nextSetBit(0); index >= 0; index = added.nextSetBit(index + 1)) {
+            pluginManager.subscribeToPermission(tree.getName(index), permissible);
         }
     }
 
     @Override
     public Map<String, PermissionAttachmentInfo> getEffectivePermissions() {
-        return this.permissions;
+        PermissionTree tree = Server.getInstance().getPluginManager().getPermissionTree();
+        PermissionSnapshot snapshot = this.getSnapshot(tree);
+        if (snapshot == null) {
+            return new HashMap<>();
+        }
+        Map<String, PermissionAttachmentInfo> effective = this.effectivePermissions;
+        if (effective != null) {
+            return effective;
+        }
+
+        effective = new HashMap<>();
+        Permissible permissible = this.parent != null ? this.parent : this;
+        List<Map.Entry<PermissionAttachment, PermissionTree.Layer>> attachments = new ArrayList<>(this.attachments.entrySet());
+        BitSet set = snapshot.getSet();
+        for (int index = set.nextSetBit(0); index >= 0; index = set.nextSetBit(index + 1)) {
+            // The last attachment setting the permission is the one which decided its value
+            PermissionAttachment attachment = null;
+            for (int i = attachments.size() - 1; i >= 0; i--) {
+                PermissionTree.Layer layer = attachments.get(i).getValue();
+                if (layer != null && layer.set.get(index)) {
+                    attachment = attachments.get(i).getKey();
+                    break;
+                }
+            }
+            String name = tree.getName(index);
+            effective.put(name, new PermissionAttachmentInfo(permissible, name, attachment, snapshot.getValue(index)));
+        }
+        this.effectivePermissions = effective;
+        return effective;
     }
 }
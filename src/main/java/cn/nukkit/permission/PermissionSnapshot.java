@@ -0,0 +1,63 @@
+package cn.nukkit.permission;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+
+import java.util.BitSet;
+
+/**
+ * The permissions resolved for a set of grants: the default permissions of an operator or of a regular permissible
+ * followed by the permissions of its attachments, with their children.
+ * <p>It is immutable and shared by every permissible with the same grants. The permissions are identified by their
+ * {@link PermissionTree#indexOf(String) index} in the tree which resolved it.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public final class PermissionSnapshot {
+    private final BitSet set;
+    private final BitSet values;
+    private final int version;
+
+    PermissionSnapshot(BitSet set, BitSet values, int version) {
+        this.set = set;
+        this.values = values;
+        this.version = version;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean isSet(int index) {
+        return index >= 0 && this.set.get(index);
+    }
+
+    /**
+     * @return The value of the permission, {@code false} when it is not {@link #isSet(int) set}
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean getValue(int index) {
+        return index >= 0 && this.values.get(index);
+    }
+
+    /**
+     * @return How many permissions are set
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int size() {
+        return this.set.cardinality();
+    }
+
+    /**
+     * The version of the {@link PermissionTree} which resolved it, it is stale when the tree has another one.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getVersion() {
+        return version;
+    }
+
+    BitSet getSet() {
+        return set;
+    }
+}
@@ -0,0 +1,220 @@
+package cn.nukkit.permission;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.plugin.PluginManager;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registered permissions compiled into an indexed tree, and the {@link PermissionSnapshot snapshots} resolved from it.
+ * <p>Every permission name seen in a registered permission or in a grant gets a stable index. The default permissions
+ * and the permissions of every distinct attachment are expanded with their children once into a layer, and every
+ * distinct list of layers is merged once into a snapshot shared by all the permissibles with the same grants.</p>
+ * <p>The plugin manager {@link #invalidate() invalidates} the tree when a permission is added, removed or changed,
+ * the permissibles then resolve their snapshot again on their next recalculation.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public class PermissionTree {
+    private static final Node EMPTY = new Node(new int[0], new boolean[0]);
+
+    private final PluginManager pluginManager;
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private Node[] nodes = new Node[64];
+    private final Cache<Map<String, Boolean>, Layer> layers = CacheBuilder.newBuilder().weakValues().build();
+    private final Cache<List<Layer>, PermissionSnapshot> snapshots = CacheBuilder.newBuilder().weakValues().build();
+    private Layer defaults;
+    private Layer defaultsOp;
+    private volatile int version;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public PermissionTree(PluginManager pluginManager) {
+        this.pluginManager = pluginManager;
+    }
+
+    /**
+     * @return The index of the permission, or {@code -1} if no snapshot ever had it
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int indexOf(String name) {
+        Integer index = this.indexes.get(name);
+        return index != null ? index : -1;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized String getName(int index) {
+        return this.names.get(index);
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Forgets the compiled permissions and the resolved snapshots, must be called when a registered permission,
+     * its default value or its children change.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public synchronized void invalidate() {
+        this.version++;
+        Arrays.fill(this.nodes, null);
+        this.layers.invalidateAll();
+        this.snapshots.invalidateAll();
+        this.defaults = null;
+        this.defaultsOp = null;
+    }
+
+    synchronized Layer getDefaults(boolean op) {
+        Layer layer = op ? this.defaultsOp : this.defaults;
+        if (layer != null) {
+            return layer;
+        }
+
+        BitSet set = new BitSet();
+        BitSet values = new BitSet();
+        BitSet path = new BitSet();
+        for (Permission permission : this.pluginManager.getDefaultPermissions(op).values()) {
+            int index = this.intern(permission.getName());
+            set.set(index);
+            values.set(index);
+            path.set(index);
+            this.expand(this.getNode(index), false, set, values, path);
+            path.clear(index);
+        }
+
+        layer = new Layer(Collections.emptyMap(), set, values, this.version);
+        if (op) {
+            this.defaultsOp = layer;
+        } else {
+            this.defaults = layer;
+        }
+        return layer;
+    }
+
+    synchronized Layer compile(Map<String, Boolean> grants) {
+        Layer layer = this.layers.getIfPresent(grants);
+        if (layer != null) {
+            return layer;
+        }
+
+        Map<String, Boolean> copy = new LinkedHashMap<>(grants);
+        BitSet set = new BitSet();
+        BitSet values = new BitSet();
+        this.expand(this.compileNode(copy), false, set, values, new BitSet());
+        layer = new Layer(copy, set, values, this.version);
+        this.layers.put(copy, layer);
+        return layer;
+    }
+
+    /**
+     * @param layers The default permissions followed by the attachments, a later layer overrides the previous ones
+     */
+    synchronized PermissionSnapshot resolve(List<Layer> layers) {
+        PermissionSnapshot snapshot = this.snapshots.getIfPresent(layers);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        BitSet set = new BitSet();
+        BitSet values = new BitSet();
+        for (Layer layer : layers) {
+            values.andNot(layer.set);
+            values.or(layer.values);
+            set.or(layer.set);
+        }
+        snapshot = new PermissionSnapshot(set, values, this.version);
+        this.snapshots.put(List.copyOf(layers), snapshot);
+        return snapshot;
+    }
+
+    // The children of a permission set to true have their own children inverted, like the permissibles always did
+    private void expand(Node node, boolean invert, BitSet set, BitSet values, BitSet path) {
+        for (int i = 0; i < node.children.length; i++) {
+            int child = node.children[i];
+            boolean value = node.values[i] ^ invert;
+            set.set(child);
+            values.set(child, value);
+            // A permission which is its own descendant is only expanded once
+            if (!path.get(child)) {
+                path.set(child);
+                this.expand(this.getNode(child), !value, set, values, path);
+                path.clear(child);
+            }
+        }
+    }
+
+    private Node getNode(int index) {
+        if (index >= this.nodes.length) {
+            this.nodes = Arrays.copyOf(this.nodes, Math.max(index + 1, this.nodes.length * 2));
+        }
+        Node node = this.nodes[index];
+        if (node == null) {
+            Permission permission = this.pluginManager.getPermission(this.names.get(index));
+            node = permission != null ? this.compileNode(permission.getChildren()) : EMPTY;
+            this.nodes[index] = node;
+        }
+        return node;
+    }
+
+    private Node compileNode(Map<String, Boolean> children) {
+        if (children.isEmpty()) {
+            return EMPTY;
+        }
+        int[] indexes = new int[children.size()];
+        boolean[] values = new boolean[indexes.length];
+        int i = 0;
+        for (Map.Entry<String, Boolean> entry : children.entrySet()) {
+            indexes[i] = this.intern(entry.getKey());
+            values[i++] = entry.getValue();
+        }
+        return new Node(indexes, values);
+    }
+
+    private int intern(String name) {
+        Integer index = this.indexes.get(name);
+        if (index == null) {
+            index = this.names.size();
+            this.names.add(name);
+            this.indexes.put(name, index);
+        }
+        return index;
+    }
+
+    private static final class Node {
+        private final int[] children;
+        private final boolean[] values;
+
+        private Node(int[] children, boolean[] values) {
+            this.children = children;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Permissions expanded with their children, compared by identity as the tree keeps a single one for equal grants.
+     */
+    static final class Layer {
+        final Map<String, Boolean> grants;
+        final BitSet set;
+        final BitSet values;
+        final int version;
+
+        private Layer(Map<String, Boolean> grants, BitSet set, BitSet values, int version) {
+            this.grants = grants;
+            this.set = set;
+            this.values = values;
+            this.version = version;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import cn.nukkit.event.*;
 import cn.nukkit.lang.BaseLang;
 import cn.nukkit.permission.Permissible;
 import cn.nukkit.permission.Permission;
+import cn.nukkit.permission.PermissionTree;
 import cn.nukkit.utils.PluginException;
 import cn.nukkit.utils.Utils;
 import co.aikar.timings.Timing;
@@ -47,6 +48,8 @@ public class PluginManager {
 
     protected final Set<Permissible> defSubsOp = Collections.newSetFromMap(new WeakHashMap<>());
 
+    private final PermissionTree permissionTree = new PermissionTree(this);
+
     protected final Map<String, PluginLoader> fileAssociations = new HashMap<>();
 
     public PluginManager(Server server, SimpleCommandMap commandMap) {
@@ -341,6 +344,7 @@ public class PluginManager {
     public boolean addPermission(Permission permission) {
         if (!this.permissions.containsKey(permission.getName())) {
             this.permissions.put(permission.getName(), permission);
+            this.permissionTree.invalidate();
             this.calculatePermissionDefault(permission);
 
             return true;
@@ -350,7 +354,9 @@ public class PluginManager {
     }
 
     public void removePermission(String name) {
-        this.permissions.remove(name);
+        if (this.permissions.remove(name) != null) {
+            this.permissionTree.invalidate();
+        }
     }
 
     public void removePermission(Permission permission) {
@@ -367,6 +373,7 @@ public class PluginManager {
 
     public void recalculatePermissionDefaults(Permission permission) {
         if (this.permissions.containsKey(permission.getName())) {
+            this.permissionTree.invalidate();
             this.defaultPermsOp.remove(permission.getName());
             this.defaultPerms.remove(permission.getName());
             this.calculatePermissionDefault(permission);
@@ -384,7 +391,7 @@ public class PluginManager {
             this.defaultPerms.put(permission.getName(), permission);
             this.dirtyPermissibles(false);
         }
-        Timings.permissionDefaultTimer.startTiming();
+        Timings.permissionDefaultTimer.stopTiming();
     }
 
     private void dirtyPermissibles(boolean op) {
@@ -444,6 +451,18 @@ public class PluginManager {
         return permissions;
     }
 
+    /**
+     * The registered permissions compiled for the permissibles, it must be {@link PermissionTree#invalidate() invalidated}
+     * after changing the children of a registered permission without {@link Permission#recalculatePermissibles()}.
+     * <p>It is {@code null} for a plugin manager created without its constructor, such as a mock, the permissibles
+     * then answer from the permission defaults only.</p>
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public PermissionTree getPermissionTree() {
+        return permissionTree;
+    }
+
     public boolean isPluginEnabled(Plugin plugin) {
         if (plugin != null && this.plugins.containsKey(plugin.getDescription().getName())) {
             return plugin.isEnabled();
@@ -559,10 +578,11 @@ public class PluginManager {
         this.permissions.clear();
         this.defaultPerms.clear();
         this.defaultPermsOp.clear();
+        this.permissionTree.invalidate();
     }
 
     public void callEvent(Event event) {
-        try {
+        try (Timing ignored = Timings.getEventTiming(event.getClass()).startTiming()) {
             for (RegisteredListener registration : getEventListeners(event.getClass()).getRegisteredListeners()) {
                 if (!registration.getPlugin().isEnabled()) {
                     continue;
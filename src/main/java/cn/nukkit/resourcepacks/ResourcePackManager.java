@@ -3,8 +3,14 @@ package cn.nukkit.resourcepacks;
 import cn.nukkit.Server;
 import cn.nukkit.api.PowerNukkitOnly;
 import cn.nukkit.api.Since;
-
+import cn.nukkit.network.protocol.BatchPacket;
+import cn.nukkit.network.protocol.ResourcePackChunkDataPacket;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.io.Files;
+import org.powernukkit.version.Version;
+
+import javax.annotation.Nullable;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -15,6 +21,8 @@ import java.util.*;
 public class ResourcePackManager {
 
     private int maxChunkSize = 102400;
+    private int chunksPerTick = 4;
+    private Cache<ChunkKey, BatchPacket> chunkPackets = buildChunkCache(64L << 20);
     
     private final Map<UUID, ResourcePack> resourcePacksById = new HashMap<>();
     private ResourcePack[] resourcePacks;
@@ -78,4 +86,72 @@ public class ResourcePackManager {
     public void setMaxChunkSize(int size) {
         this.maxChunkSize = size;
     }
+
+    /**
+     * @return How many chunk requests of a player are answered in a tick, the others wait for the next ticks
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getChunksPerTick() {
+        return this.chunksPerTick;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void setChunksPerTick(int chunksPerTick) {
+        this.chunksPerTick = Math.max(1, chunksPerTick);
+    }
+
+    /**
+     * Replaces the cache of the compressed chunk packets, forgetting the cached chunks.
+     *
+     * @param bytes The maximum size of the cached packets, {@code 0} to compress every chunk sent
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void setChunkCacheSize(long bytes) {
+        this.chunkPackets = buildChunkCache(bytes);
+    }
+
+    /**
+     * The chunk of a pack, encoded and compressed once and then shared by all the players downloading it.
+     *
+     * @return The compressed {@link ResourcePackChunkDataPacket}, or {@code null} if the pack has no such chunk
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    @Nullable
+    public BatchPacket getChunkPacket(ResourcePack resourcePack, int chunkIndex) {
+        int maxChunkSize = this.maxChunkSize;
+        long offset = maxChunkSize * (long) chunkIndex;
+        if (chunkIndex < 0 || offset >= resourcePack.getPackSize()) {
+            return null;
+        }
+
+        ChunkKey key = new ChunkKey(resourcePack.getPackId(), maxChunkSize, chunkIndex);
+        Cache<ChunkKey, BatchPacket> chunkPackets = this.chunkPackets;
+        BatchPacket packet = chunkPackets.getIfPresent(key);
+        if (packet == null) {
+            ResourcePackChunkDataPacket dataPacket = new ResourcePackChunkDataPacket();
+            dataPacket.setPackId(resourcePack.getPackId());
+            dataPacket.setPackVersion(new Version(resourcePack.getPackVersion()));
+            dataPacket.chunkIndex = chunkIndex;
+            dataPacket.data = resourcePack.getPackChunk((int) offset, maxChunkSize);
+            dataPacket.progress = offset;
+            dataPacket.tryEncode();
+            packet = dataPacket.compress();
+            chunkPackets.put(key, packet);
+        }
+        return packet;
+    }
+
+    private static Cache<ChunkKey, BatchPacket> buildChunkCache(long bytes) {
+        return CacheBuilder.newBuilder()
+                .maximumWeight(Math.max(0, bytes))
+                .<ChunkKey, BatchPacket>weigher((key, packet) -> packet.payload.length)
+                .build();
+    }
+
+    private record ChunkKey(UUID packId, int chunkSize, int chunkIndex) {
+    }
 }
@@ -6,11 +6,13 @@ import com.google.gson.JsonParser;
 import lombok.extern.log4j.Log4j2;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -19,8 +21,10 @@ import java.util.zip.ZipFile;
 public class ZippedResourcePack extends AbstractResourcePack {
     private File file;
     private byte[] sha256 = null;
+    private MappedByteBuffer mapped;
 
     @PowerNukkitDifference(info = "Accepts resource packs with subfolder structure", since = "1.4.0.0-PN")
+    @PowerNukkitDifference(info = "Maps the pack in memory and hashes it when loaded", since = "1.6.0.0-PNX")
     public ZippedResourcePack(File file) {
         if (!file.exists()) {
             throw new IllegalArgumentException(Server.getInstance().getLanguage()
@@ -57,18 +61,39 @@ public class ZippedResourcePack extends AbstractResourcePack {
             throw new IllegalArgumentException(Server.getInstance().getLanguage()
                     .translateString("nukkit.resources.zip.invalid-manifest"));
         }
+
+        // The chunks are served from the page cache instead of opening the file for each request
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            log.warn("Could not map the resource pack {} in memory, its chunks will be read from the file", file, e);
+        }
+        this.getSha256();
     }
 
     @Override
     public int getPackSize() {
-        return (int) this.file.length();
+        return this.mapped != null ? this.mapped.capacity() : (int) this.file.length();
     }
 
     @Override
     public byte[] getSha256() {
         if (this.sha256 == null) {
             try {
-                this.sha256 = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(this.file.toPath()));
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                if (this.mapped != null) {
+                    digest.update(this.mapped.duplicate());
+                } else {
+                    try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+                        ByteBuffer buffer = ByteBuffer.allocate(8192);
+                        while (channel.read(buffer) >= 0) {
+                            buffer.flip();
+                            digest.update(buffer);
+                            buffer.clear();
+                        }
+                    }
+                }
+                this.sha256 = digest.digest();
             } catch (Exception e) {
                 log.error("Failed to parse the SHA-256 of the resource pack {}", file, e);
             }
@@ -86,9 +111,18 @@ public class ZippedResourcePack extends AbstractResourcePack {
             chunk = new byte[this.getPackSize() - off];
         }
 
-        try (FileInputStream fis = new FileInputStream(this.file)) {
-            fis.skip(off);
-            fis.read(chunk);
+        if (this.mapped != null) {
+            this.mapped.get(off, chunk);
+            return chunk;
+        }
+
+        try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, off + buffer.position()) < 0) {
+                    break;
+                }
+            }
         } catch (Exception e) {
             log.error("An error occurred while processing the resource pack {} at offset:{} and length:{}", file, off, len, e);
         }
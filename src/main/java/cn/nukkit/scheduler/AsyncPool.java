@@ -1,6 +1,7 @@
 package cn.nukkit.scheduler;
 
 import cn.nukkit.Server;
+import cn.nukkit.api.DeprecationDetails;
 import lombok.extern.log4j.Log4j2;
 
 import java.util.concurrent.SynchronousQueue;
@@ -9,7 +10,12 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * @author Nukkit Project Team
+ * @deprecated The {@link ServerScheduler} runs the asynchronous tasks in bounded {@link AsyncWorkerPool}s,
+ * see {@link ServerScheduler#getAsyncPool(AsyncTaskCategory)}.
  */
+@Deprecated
+@DeprecationDetails(since = "1.6.0.0-PNX", reason = "Creates a thread for every task when it is busy",
+        replaceWith = "AsyncWorkerPool")
 @Log4j2
 public class AsyncPool extends ThreadPoolExecutor {
     private final Server server;
@@ -0,0 +1,32 @@
+package cn.nukkit.scheduler;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+
+/**
+ * What an {@link AsyncWorkerPool} does with a task submitted while its queue is full.
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public enum AsyncRejectionPolicy {
+    /**
+     * The task runs on the thread which submitted it, which slows the submitter down until the pool catches up.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    CALLER_RUNS,
+
+    /**
+     * The task is dropped and a warning is logged.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    DISCARD,
+
+    /**
+     * A {@link java.util.concurrent.RejectedExecutionException} is thrown to the submitter.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    ABORT
+}
@@ -1,6 +1,8 @@
 package cn.nukkit.scheduler;
 
 import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.utils.ThreadStore;
 import co.aikar.timings.Timings;
 import lombok.extern.log4j.Log4j2;
@@ -68,6 +70,25 @@ public abstract class AsyncTask implements Runnable {
 
     public abstract void onRun();
 
+    /**
+     * The pool which runs this task. Tasks which may block, like most plugin tasks, must stay in the
+     * {@link AsyncTaskCategory#IO} pool, so override this only for tasks which keep a core busy.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public AsyncTaskCategory getCategory() {
+        return AsyncTaskCategory.IO;
+    }
+
+    /**
+     * The lane of this task in its pool.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public AsyncTaskPriority getPriority() {
+        return AsyncTaskPriority.PLUGIN;
+    }
+
     public void onCompletion(Server server) {
 
     }
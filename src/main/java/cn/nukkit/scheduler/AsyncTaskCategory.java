@@ -0,0 +1,26 @@
+package cn.nukkit.scheduler;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+
+/**
+ * Which pool of the {@link ServerScheduler} runs an asynchronous task.
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public enum AsyncTaskCategory {
+    /**
+     * Work which keeps a core busy, like chunk generation and compression. The pool has about one thread per core.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    CPU,
+
+    /**
+     * Work which mostly waits, like file, database and web access. Unknown plugin tasks run here, so they can't
+     * starve the chunk generation.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    IO
+}
@@ -0,0 +1,32 @@
+package cn.nukkit.scheduler;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+
+/**
+ * The lane of an asynchronous task in its pool. A free worker always takes the oldest task of the first non-empty lane.
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+public enum AsyncTaskPriority {
+    /**
+     * Chunks and packets which players are waiting for.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    CHUNK_SEND,
+
+    /**
+     * Chunk generation, population and lighting.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    GENERATION,
+
+    /**
+     * Everything else, including the plugin tasks.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    PLUGIN
+}
@@ -0,0 +1,293 @@
+package cn.nukkit.scheduler;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed number of worker threads with a bounded queue split in {@link AsyncTaskPriority priority lanes}.
+ * <p>Every submitted task queues a ticket in the workers, and a worker running a ticket takes the oldest task of the
+ * most urgent lane, which is not necessarily the task which queued the ticket. The CPU pool runs the tickets in a
+ * {@link ForkJoinPool}, so idle workers steal the tickets queued by the busy ones.</p>
+ * <p>The queue depth, the time spent in the queue and the rejections are counted for monitoring.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Log4j2
+public class AsyncWorkerPool {
+    private static final AsyncTaskPriority[] PRIORITIES = AsyncTaskPriority.values();
+
+    private final String name;
+    private final int parallelism;
+    private final int capacity;
+    private final AsyncRejectionPolicy rejectionPolicy;
+    private final ExecutorService workers;
+
+    @SuppressWarnings("unchecked")
+    private final Queue<QueuedTask>[] lanes = new Queue[PRIORITIES.length];
+    private final AtomicInteger[] laneDepths = new AtomicInteger[PRIORITIES.length];
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dequeued = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAccumulator maxQueueNanos = new LongAccumulator(Math::max, 0);
+
+    private AsyncWorkerPool(String name, int parallelism, int capacity, AsyncRejectionPolicy rejectionPolicy, ExecutorService workers) {
+        this.name = name;
+        this.parallelism = parallelism;
+        this.capacity = capacity;
+        this.rejectionPolicy = rejectionPolicy;
+        this.workers = workers;
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            lanes[i] = new ConcurrentLinkedQueue<>();
+            laneDepths[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Creates a pool for CPU bound tasks, whose workers steal work from each other.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static AsyncWorkerPool workStealing(String name, int parallelism, int capacity, AsyncRejectionPolicy rejectionPolicy) {
+        checkArguments(parallelism, capacity);
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        AtomicInteger threadId = new AtomicInteger();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {};
+            thread.setName(String.format("Nukkit %s Task Handler #%d", name, threadId.getAndIncrement()));
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        };
+        ForkJoinPool workers = new ForkJoinPool(parallelism, factory, null, true);
+        return new AsyncWorkerPool(name, parallelism, capacity, rejectionPolicy, workers);
+    }
+
+    /**
+     * Creates a pool for tasks which block, with a thread per running task.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static AsyncWorkerPool fixed(String name, int parallelism, int capacity, AsyncRejectionPolicy rejectionPolicy) {
+        checkArguments(parallelism, capacity);
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder()
+                .setNameFormat("Nukkit " + name + " Task Handler #%d").setDaemon(true).build());
+        return new AsyncWorkerPool(name, parallelism, capacity, rejectionPolicy, workers);
+    }
+
+    private static void checkArguments(int parallelism, int capacity) {
+        Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+    }
+
+    /**
+     * Queues the task in the lane of its priority, or applies the {@link #getRejectionPolicy() rejection policy}
+     * if {@link #getCapacity()} tasks are already waiting.
+     *
+     * @throws RejectedExecutionException if the queue is full and the policy is {@link AsyncRejectionPolicy#ABORT}
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void execute(Runnable task, AsyncTaskPriority priority) {
+        submitted.increment();
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            reject(task);
+            return;
+        }
+
+        int lane = priority.ordinal();
+        laneDepths[lane].incrementAndGet();
+        lanes[lane].offer(new QueuedTask(task, System.nanoTime()));
+        try {
+            workers.execute(this::runNext);
+        } catch (RejectedExecutionException e) {
+            // Shutting down, the queued task still has to run
+            runNext();
+        }
+    }
+
+    private void reject(Runnable task) {
+        rejected.increment();
+        switch (rejectionPolicy) {
+            case CALLER_RUNS:
+                run(task);
+                break;
+            case DISCARD:
+                log.warn("The {} task queue is full, a task was discarded", name);
+                break;
+            default:
+                throw new RejectedExecutionException("The " + name + " task queue is full");
+        }
+    }
+
+    private void runNext() {
+        for (int i = 0; i < lanes.length; i++) {
+            QueuedTask next = lanes[i].poll();
+            if (next != null) {
+                laneDepths[i].decrementAndGet();
+                queued.decrementAndGet();
+                long waited = System.nanoTime() - next.queuedNanos;
+                dequeued.increment();
+                queueNanos.add(waited);
+                maxQueueNanos.accumulate(waited);
+                run(next.task);
+                return;
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        running.incrementAndGet();
+        try {
+            task.run();
+        } catch (Throwable e) {
+            failed.increment();
+            log.fatal("Exception in asynchronous task", e);
+        } finally {
+            running.decrementAndGet();
+            completed.increment();
+        }
+    }
+
+    /**
+     * Stops taking new tickets and waits for the queued tasks to finish.
+     *
+     * @return {@code true} if all the tasks finished in time
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        workers.shutdown();
+        return workers.awaitTermination(timeout, unit);
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public String getName() {
+        return name;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return how many tasks can wait in the queue before they are rejected
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public AsyncRejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    /**
+     * @return how many tasks are waiting for a worker
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getQueueDepth(AsyncTaskPriority priority) {
+        return laneDepths[priority.ordinal()].get();
+    }
+
+    /**
+     * @return how many tasks are running right now, including the ones run by their submitter
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    /**
+     * @return how many tasks threw an exception
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * @return how many tasks found the queue full, whatever the rejection policy did with them
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the average time the tasks waited for a worker, in nanoseconds
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getAverageQueueNanos() {
+        long count = dequeued.sum();
+        return count == 0 ? 0 : queueNanos.sum() / count;
+    }
+
+    /**
+     * @return the longest time a task waited for a worker, in nanoseconds
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getMaxQueueNanos() {
+        return maxQueueNanos.get();
+    }
+
+    private static class QueuedTask {
+        private final Runnable task;
+        private final long queuedNanos;
+
+        private QueuedTask(Runnable task, long queuedNanos) {
+            this.task = task;
+            this.queuedNanos = queuedNanos;
+        }
+    }
+}
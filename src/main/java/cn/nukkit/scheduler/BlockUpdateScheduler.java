@@ -6,7 +6,10 @@ import cn.nukkit.math.AxisAlignedBB;
 import cn.nukkit.math.NukkitMath;
 import cn.nukkit.math.Vector3;
 import cn.nukkit.utils.BlockUpdateEntry;
+import cn.nukkit.utils.Hash;
 import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
 import java.util.*;
 
@@ -15,6 +18,12 @@ public class BlockUpdateScheduler {
     private long lastTick;
     private Map<Long, LinkedHashSet<BlockUpdateEntry>> queuedUpdates;
 
+    /**
+     * The queued entries by the {@link Hash#hashBlockPosition(int, int, int) hash} of their position, with the tick where each one
+     * will run, so finding the entries of a position doesn't need to look at every tick.
+     */
+    private final Long2ObjectOpenHashMap<ObjectArrayList<QueuedEntry>> queuedPositions = new Long2ObjectOpenHashMap<>();
+
     private Set<BlockUpdateEntry> pendingUpdates;
 
     public BlockUpdateScheduler(Level level, long currentTick) {
@@ -48,6 +57,10 @@ public class BlockUpdateScheduler {
             lastTick = tick;
             Set<BlockUpdateEntry> updates = pendingUpdates = queuedUpdates.remove(tick);
             if (updates != null) {
+                for (BlockUpdateEntry entry : updates) {
+                    forget(entry, tick);
+                }
+
                 Iterator<BlockUpdateEntry> updateIterator = updates.iterator();
 
                 while (updateIterator.hasNext()) {
@@ -111,33 +124,103 @@ public class BlockUpdateScheduler {
             LinkedHashSet<BlockUpdateEntry> tmp = queuedUpdates.putIfAbsent(time, updateSet = new LinkedHashSet<>());
             if (tmp != null) updateSet = tmp;
         }
-        updateSet.add(entry);
+        if (updateSet.add(entry)) {
+            queuedPositions.computeIfAbsent(hash(entry.pos), hash -> new ObjectArrayList<>(1))
+                    .add(new QueuedEntry(entry, time));
+        }
     }
 
     public boolean contains(BlockUpdateEntry entry) {
-        for (Map.Entry<Long, LinkedHashSet<BlockUpdateEntry>> tickUpdateSet : queuedUpdates.entrySet()) {
-            if (tickUpdateSet.getValue().contains(entry)) {
-                return true;
+        ObjectArrayList<QueuedEntry> queued = queuedPositions.get(hash(entry.pos));
+        if (queued != null) {
+            for (QueuedEntry queuedEntry : queued) {
+                if (queuedEntry.entry.equals(entry)) {
+                    return true;
+                }
             }
         }
         return false;
     }
 
+    /**
+     * Removes the entry from every tick where it is queued.
+     */
     public boolean remove(BlockUpdateEntry entry) {
-        for (Map.Entry<Long, LinkedHashSet<BlockUpdateEntry>> tickUpdateSet : queuedUpdates.entrySet()) {
-            if (tickUpdateSet.getValue().remove(entry)) {
-                return true;
+        long hash = hash(entry.pos);
+        ObjectArrayList<QueuedEntry> queued = queuedPositions.get(hash);
+        if (queued == null) {
+            return false;
+        }
+        boolean removed = false;
+        for (int i = queued.size() - 1; i >= 0; i--) {
+            QueuedEntry queuedEntry = queued.get(i);
+            if (queuedEntry.entry.equals(entry)) {
+                queued.remove(i);
+                removed |= removeFromTick(queuedEntry);
             }
         }
-        return false;
+        if (queued.isEmpty()) {
+            queuedPositions.remove(hash);
+        }
+        return removed;
     }
 
+    /**
+     * Removes the update of the layer 0 queued at the position.
+     */
     public boolean remove(Vector3 pos) {
-        for (Map.Entry<Long, LinkedHashSet<BlockUpdateEntry>> tickUpdateSet : queuedUpdates.entrySet()) {
-            if (tickUpdateSet.getValue().remove(pos)) {
-                return true;
+        ObjectArrayList<QueuedEntry> queued = queuedPositions.get(hash(pos));
+        if (queued != null) {
+            for (QueuedEntry queuedEntry : queued) {
+                // The entry decides whether it is at the position, a vector never equals an entry
+                if (queuedEntry.entry.equals(pos)) {
+                    return remove(queuedEntry.entry);
+                }
             }
         }
         return false;
     }
+
+    private boolean removeFromTick(QueuedEntry queuedEntry) {
+        LinkedHashSet<BlockUpdateEntry> tickSet = queuedUpdates.get(queuedEntry.tick);
+        if (tickSet == null || !tickSet.remove(queuedEntry.entry)) {
+            return false;
+        }
+        if (tickSet.isEmpty()) {
+            queuedUpdates.remove(queuedEntry.tick);
+        }
+        return true;
+    }
+
+    private void forget(BlockUpdateEntry entry, long tick) {
+        long hash = hash(entry.pos);
+        ObjectArrayList<QueuedEntry> queued = queuedPositions.get(hash);
+        if (queued == null) {
+            return;
+        }
+        for (int i = 0; i < queued.size(); i++) {
+            QueuedEntry queuedEntry = queued.get(i);
+            if (queuedEntry.tick == tick && queuedEntry.entry.equals(entry)) {
+                queued.remove(i);
+                break;
+            }
+        }
+        if (queued.isEmpty()) {
+            queuedPositions.remove(hash);
+        }
+    }
+
+    private static long hash(Vector3 pos) {
+        return Hash.hashBlockPosition(pos.getFloorX(), pos.getFloorY(), pos.getFloorZ());
+    }
+
+    private static final class QueuedEntry {
+        private final BlockUpdateEntry entry;
+        private final long tick;
+
+        private QueuedEntry(BlockUpdateEntry entry, long tick) {
+            this.entry = entry;
+            this.tick = tick;
+        }
+    }
 }
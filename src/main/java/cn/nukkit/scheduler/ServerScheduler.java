@@ -1,9 +1,9 @@
 package cn.nukkit.scheduler;
 
-import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.plugin.Plugin;
 import cn.nukkit.utils.PluginException;
-import cn.nukkit.utils.Utils;
 import lombok.extern.log4j.Log4j2;
 
 import java.util.ArrayDeque;
@@ -11,6 +11,8 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -19,23 +21,59 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Log4j2
 public class ServerScheduler {
 
+    /**
+     * The threads of the {@link AsyncTaskCategory#CPU} pool.
+     */
     public static int WORKERS = 4;
 
-    private final AsyncPool asyncPool;
+    /**
+     * The threads of the {@link AsyncTaskCategory#IO} pool.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static int IO_WORKERS = 4;
+
+    /**
+     * How many tasks can wait in each pool.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static int QUEUE_SIZE = 4096;
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static AsyncRejectionPolicy REJECTION_POLICY = AsyncRejectionPolicy.CALLER_RUNS;
+
+    /**
+     * How many milliseconds the sync tasks may run in one tick, {@code 0} for no limit. When the budget is spent,
+     * the remaining due tasks run first at the next tick. At least one task runs every tick.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static int SYNC_TASK_BUDGET_MS = 0;
+
+    private final AsyncWorkerPool cpuPool;
+    private final AsyncWorkerPool ioPool;
 
     private final Queue<TaskHandler> pending;
-    private final Map<Integer, ArrayDeque<TaskHandler>> queueMap;
+    private final TaskWheel wheel;
+    private final ArrayDeque<TaskHandler> due;
     private final Map<Integer, TaskHandler> taskMap;
     private final AtomicInteger currentTaskId;
+    private final long syncTaskBudgetNanos;
+    private long deferredCount;
 
     private volatile int currentTick = -1;
 
     public ServerScheduler() {
         this.pending = new ConcurrentLinkedQueue<>();
         this.currentTaskId = new AtomicInteger();
-        this.queueMap = new ConcurrentHashMap<>();
+        this.wheel = new TaskWheel(this.currentTick);
+        this.due = new ArrayDeque<>();
         this.taskMap = new ConcurrentHashMap<>();
-        this.asyncPool = new AsyncPool(Server.getInstance(), WORKERS);
+        this.syncTaskBudgetNanos = TimeUnit.MILLISECONDS.toNanos(SYNC_TASK_BUDGET_MS);
+        this.cpuPool = AsyncWorkerPool.workStealing("CPU", WORKERS, QUEUE_SIZE, REJECTION_POLICY);
+        this.ioPool = AsyncWorkerPool.fixed("IO", IO_WORKERS, QUEUE_SIZE, REJECTION_POLICY);
     }
 
     public TaskHandler scheduleTask(Task task) {
@@ -84,7 +122,16 @@ public class ServerScheduler {
     }
 
     public int getAsyncTaskPoolSize() {
-        return asyncPool.getCorePoolSize();
+        return cpuPool.getParallelism();
+    }
+
+    /**
+     * @return the pool which runs the asynchronous tasks of the category
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public AsyncWorkerPool getAsyncPool(AsyncTaskCategory category) {
+        return category == AsyncTaskCategory.CPU ? cpuPool : ioPool;
     }
 
     public void increaseAsyncTaskPoolSize(int newSize) {
@@ -224,7 +271,8 @@ public class ServerScheduler {
             }
         }
         this.taskMap.clear();
-        this.queueMap .clear();
+        this.wheel.clear();
+        this.due.clear();
         this.currentTaskId.set(0);
     }
 
@@ -260,68 +308,100 @@ public class ServerScheduler {
     }
 
     public void mainThreadHeartbeat(int currentTick) {
+        long start = System.nanoTime();
         // Accepts pending.
         TaskHandler task;
         while ((task = pending.poll()) != null) {
-            int tick = Math.max(currentTick, task.getNextRunTick()); // Do not schedule in the past
-            ArrayDeque<TaskHandler> queue = Utils.getOrCreate(queueMap, ArrayDeque.class, tick);
-            queue.add(task);
-        }
-        if (currentTick - this.currentTick > queueMap.size()) { // A large number of ticks have passed since the last execution
-            for (Map.Entry<Integer, ArrayDeque<TaskHandler>> entry : queueMap.entrySet()) {
-                int tick = entry.getKey();
-                if (tick <= currentTick) {
-                    runTasks(tick);
-                }
-            }
-        } else { // Normal server tick
-            for (int i = this.currentTick + 1; i <= currentTick; i++) {
-                runTasks(currentTick);
-            }
+            wheel.add(task, task.getNextRunTick());
         }
+        // The tasks deferred by the budget of the previous ticks stay first
+        wheel.advance(currentTick, due);
+        runTasks(currentTick, start);
         this.currentTick = currentTick;
         AsyncTask.collectTask();
     }
 
-    private void runTasks(int currentTick) {
-        ArrayDeque<TaskHandler> queue = queueMap.remove(currentTick);
-        if (queue != null) {
-            for (TaskHandler taskHandler : queue) {
-                if (taskHandler.isCancelled()) {
-                    taskMap.remove(taskHandler.getTaskId());
-                    continue;
-                } else if (taskHandler.isAsynchronous()) {
-                    asyncPool.execute(taskHandler.getTask());
-                } else {
-                    taskHandler.timing.startTiming();
-                    try {
-                        taskHandler.run(currentTick);
-                    } catch (Throwable e) {
-                        log.fatal("Could not execute taskHandler {}", taskHandler.getTaskId(), e);
-                    }
-                    taskHandler.timing.stopTiming();
+    private void runTasks(int currentTick, long start) {
+        boolean ranSync = false;
+        TaskHandler taskHandler;
+        while ((taskHandler = due.peek()) != null) {
+            if (ranSync && syncTaskBudgetNanos > 0 && System.nanoTime() - start > syncTaskBudgetNanos) {
+                deferredCount += due.size();
+                return;
+            }
+            due.poll();
+
+            if (taskHandler.isCancelled()) {
+                taskMap.remove(taskHandler.getTaskId());
+                continue;
+            } else if (taskHandler.isAsynchronous()) {
+                executeAsync(taskHandler.getTask());
+            } else {
+                ranSync = true;
+                long taskStart = System.nanoTime();
+                taskHandler.timing.startTiming();
+                try {
+                    taskHandler.run(currentTick);
+                } catch (Throwable e) {
+                    log.fatal("Could not execute taskHandler {}", taskHandler.getTaskId(), e);
                 }
-                if (taskHandler.isRepeating()) {
-                    taskHandler.setNextRunTick(currentTick + taskHandler.getPeriod());
-                    pending.offer(taskHandler);
-                } else {
-                    try {
-                        TaskHandler removed = taskMap.remove(taskHandler.getTaskId());
-                        if (removed != null) removed.cancel();
-                    } catch (RuntimeException ex) {
-                        log.fatal("Exception while invoking onCancel", ex);
-                    }
+                taskHandler.timing.stopTiming();
+                checkBudget(taskHandler, System.nanoTime() - taskStart);
+            }
+            if (taskHandler.isRepeating()) {
+                taskHandler.setNextRunTick(currentTick + taskHandler.getPeriod());
+                wheel.add(taskHandler, (long) currentTick + taskHandler.getPeriod());
+            } else {
+                try {
+                    TaskHandler removed = taskMap.remove(taskHandler.getTaskId());
+                    if (removed != null) removed.cancel();
+                } catch (RuntimeException ex) {
+                    log.fatal("Exception while invoking onCancel", ex);
                 }
             }
         }
     }
 
-    public int getQueueSize() {
-        int size = pending.size();
-        for (ArrayDeque<TaskHandler> queue : queueMap.values()) {
-            size += queue.size();
+    /**
+     * A single task can't be deferred while it runs, so the tasks which spend the whole budget alone are reported once.
+     */
+    private void checkBudget(TaskHandler taskHandler, long nanos) {
+        if (syncTaskBudgetNanos > 0 && nanos > syncTaskBudgetNanos && !taskHandler.overBudgetReported) {
+            taskHandler.overBudgetReported = true;
+            Plugin plugin = taskHandler.getPlugin();
+            log.warn("The task {} of {} took {} ms, more than the {} ms budget of the sync tasks of a tick",
+                    taskHandler.getTaskId(), plugin != null ? plugin.getName() : "the server",
+                    TimeUnit.NANOSECONDS.toMillis(nanos), SYNC_TASK_BUDGET_MS);
         }
-        return size;
+    }
+
+    /**
+     * Plain runnables may block, so only {@link AsyncTask}s which say so run in the {@link AsyncTaskCategory#CPU} pool.
+     */
+    private void executeAsync(Runnable task) {
+        try {
+            if (task instanceof AsyncTask) {
+                AsyncTask asyncTask = (AsyncTask) task;
+                getAsyncPool(asyncTask.getCategory()).execute(task, asyncTask.getPriority());
+            } else {
+                ioPool.execute(task, AsyncTaskPriority.PLUGIN);
+            }
+        } catch (RejectedExecutionException e) {
+            log.warn("Could not queue the asynchronous task {}", task, e);
+        }
+    }
+
+    public int getQueueSize() {
+        return pending.size() + wheel.size() + due.size();
+    }
+
+    /**
+     * @return how many times a due sync task was deferred to the next tick because the budget was spent
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public long getDeferredCount() {
+        return deferredCount;
     }
 
     private int nextTaskId() {
@@ -24,6 +24,13 @@ public class TaskHandler {
 
     private boolean cancelled;
 
+    /**
+     * The tick of the {@link TaskWheel} slot holding this task.
+     */
+    long scheduledTick;
+
+    boolean overBudgetReported;
+
     public final Timing timing;
 
     public TaskHandler(Plugin plugin, Runnable task, int taskId, boolean asynchronous) {
@@ -0,0 +1,116 @@
+package cn.nukkit.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel of the {@link TaskHandler}s waiting for their tick, used by the main thread only.
+ * <p>Each of the {@value #LEVELS} levels has {@value #SLOTS} slots; a slot of the first level holds the tasks of one tick,
+ * a slot of the next level the tasks of {@value #SLOTS} ticks, and so on. A task is added to the lowest level which
+ * covers its delay, and when the wheel reaches the slot of a higher level, its tasks are moved down to the lower levels.
+ * Adding and expiring a task are both constant time, whatever the number of waiting tasks and their delays.</p>
+ */
+final class TaskWheel {
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS = 1 << LEVEL_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final ArrayDeque<TaskHandler>[][] slots;
+    private long tick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TaskWheel(long tick) {
+        this.tick = tick;
+        this.slots = new ArrayDeque[LEVELS][SLOTS];
+        for (ArrayDeque<TaskHandler>[] level : slots) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new ArrayDeque<>();
+            }
+        }
+    }
+
+    /**
+     * Adds a task which must run at the given tick, or at the next tick if the given one is already expired.
+     */
+    void add(TaskHandler task, long runTick) {
+        task.scheduledTick = Math.max(runTick, tick + 1);
+        place(task);
+        size++;
+    }
+
+    private void place(TaskHandler task) {
+        long runTick = task.scheduledTick;
+        long delay = runTick - tick;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (LEVEL_BITS * (level + 1))) {
+            level++;
+        }
+        // Delays beyond the last level are placed again every time the wheel comes back to their slot
+        slots[level][(int) (runTick >> (LEVEL_BITS * level)) & MASK].add(task);
+    }
+
+    /**
+     * Expires every tick up to the target, adding the expired tasks to {@code due} in the order of their ticks.
+     */
+    void advance(long target, Collection<TaskHandler> due) {
+        if (target - tick > SLOTS) {
+            // A jump, like the last heartbeat of the shutdown: collecting everything is cheaper than visiting every tick
+            List<TaskHandler> all = new ArrayList<>(size);
+            for (ArrayDeque<TaskHandler>[] level : slots) {
+                for (ArrayDeque<TaskHandler> slot : level) {
+                    all.addAll(slot);
+                    slot.clear();
+                }
+            }
+            tick = target;
+            size = 0;
+            all.sort(Comparator.comparingLong(task -> task.scheduledTick));
+            for (TaskHandler task : all) {
+                if (task.scheduledTick <= target) {
+                    due.add(task);
+                } else {
+                    place(task);
+                    size++;
+                }
+            }
+            return;
+        }
+
+        while (tick < target) {
+            tick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                int shift = LEVEL_BITS * level;
+                if ((tick & ((1L << shift) - 1)) == 0) {
+                    ArrayDeque<TaskHandler> slot = slots[level][(int) (tick >> shift) & MASK];
+                    // Tasks placed again in the same slot are added after the ones being moved
+                    for (int i = slot.size(); i > 0; i--) {
+                        place(slot.poll());
+                    }
+                }
+            }
+
+            ArrayDeque<TaskHandler> slot = slots[0][(int) tick & MASK];
+            size -= slot.size();
+            due.addAll(slot);
+            slot.clear();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        for (ArrayDeque<TaskHandler>[] level : slots) {
+            for (ArrayDeque<TaskHandler> slot : level) {
+                slot.clear();
+            }
+        }
+        size = 0;
+    }
+}
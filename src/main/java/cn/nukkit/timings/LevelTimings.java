@@ -1,9 +1,15 @@
 package cn.nukkit.timings;
 
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.entity.EntityActivationType;
 import cn.nukkit.level.Level;
 import co.aikar.timings.Timing;
 import co.aikar.timings.TimingsManager;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * @author Pub4Game
  * @author Tee7even
@@ -17,6 +23,17 @@ public class LevelTimings {
     public final Timing tickChunks;
     public final Timing entityTick;
     public final Timing blockEntityTick;
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public final Timing entityDataFlush;
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public final Timing entityTracker;
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public final Timing entityMerge;
+
+    private final Map<EntityActivationType, Timing> entityTickByType = new EnumMap<>(EntityActivationType.class);
 
     public final Timing syncChunkSendTimer;
     public final Timing syncChunkSendPrepareTimer;
@@ -36,6 +53,12 @@ public class LevelTimings {
         this.tickChunks = TimingsManager.getTiming(name + "tickChunks");
         this.entityTick = TimingsManager.getTiming(name + "entityTick");
         this.blockEntityTick = TimingsManager.getTiming(name + "blockEntityTick");
+        this.entityDataFlush = TimingsManager.getTiming(name + "entityDataFlush");
+        this.entityTracker = TimingsManager.getTiming(name + "entityTracker");
+        this.entityMerge = TimingsManager.getTiming(name + "entityMerge");
+        for (EntityActivationType type : EntityActivationType.values()) {
+            this.entityTickByType.put(type, TimingsManager.getTiming(name + "entityTick - " + type.getConfigName()));
+        }
 
         this.syncChunkSendTimer = TimingsManager.getTiming(name + "syncChunkSend");
         this.syncChunkSendPrepareTimer = TimingsManager.getTiming(name + "syncChunkSendPrepare");
@@ -44,4 +67,10 @@ public class LevelTimings {
         this.syncChunkLoadEntitiesTimer = TimingsManager.getTiming(name + "syncChunkLoad - Entities");
         this.syncChunkLoadBlockEntitiesTimer = TimingsManager.getTiming(name + "syncChunkLoad - BlockEntities");
     }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public Timing getEntityTick(EntityActivationType type) {
+        return this.entityTickByType.get(type);
+    }
 }
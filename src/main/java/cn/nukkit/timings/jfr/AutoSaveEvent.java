@@ -0,0 +1,25 @@
+package cn.nukkit.timings.jfr;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The periodic save of the players and the levels.
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Name("cn.nukkit.AutoSave")
+@Label("Auto Save")
+@Category({"PowerNukkitX", "Tick"})
+@StackTrace(false)
+public class AutoSaveEvent extends jdk.jfr.Event {
+    @Label("Players")
+    public int players;
+
+    @Label("Levels")
+    public int levels;
+}
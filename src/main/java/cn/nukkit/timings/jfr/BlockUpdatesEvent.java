@@ -0,0 +1,18 @@
+package cn.nukkit.timings.jfr;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The scheduled block updates and the queued neighbour updates of a tick.
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Name("cn.nukkit.BlockUpdates")
+@Label("Block Updates")
+public class BlockUpdatesEvent extends LevelPhaseEvent {
+    @Label("Neighbour Updates")
+    public int neighbourUpdates;
+}
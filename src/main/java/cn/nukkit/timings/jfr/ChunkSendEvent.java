@@ -0,0 +1,18 @@
+package cn.nukkit.timings.jfr;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The chunks requested by the players in a tick, sent from their cache or prepared for sending.
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Name("cn.nukkit.ChunkSend")
+@Label("Chunk Send")
+public class ChunkSendEvent extends LevelPhaseEvent {
+    @Label("Requested Chunks")
+    public int chunks;
+}
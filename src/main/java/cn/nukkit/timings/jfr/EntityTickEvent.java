@@ -0,0 +1,15 @@
+package cn.nukkit.timings.jfr;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Name("cn.nukkit.EntityTick")
+@Label("Entity Tick")
+public class EntityTickEvent extends LevelPhaseEvent {
+    @Label("Scheduled Entities")
+    public int entities;
+}
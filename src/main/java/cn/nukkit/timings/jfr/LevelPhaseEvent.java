@@ -0,0 +1,37 @@
+package cn.nukkit.timings.jfr;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.level.Level;
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * A phase of the tick of a level, recorded by Java Flight Recorder with {@code -XX:StartFlightRecording}.
+ * <p>The events cost nothing more than an allocation which the JIT removes while no recording is running.</p>
+ */
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@Category({"PowerNukkitX", "Tick"})
+@StackTrace(false)
+public abstract class LevelPhaseEvent extends jdk.jfr.Event {
+    @Label("Level")
+    String level;
+
+    @Label("Tick")
+    long tick;
+
+    /**
+     * Ends the event and commits it if it is recorded.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public void commit(Level level) {
+        if (shouldCommit()) {
+            this.level = level.getFolderName();
+            this.tick = level.getCurrentTick();
+            commit();
+        }
+    }
+}
@@ -27,4 +27,32 @@ public class Hash {
     public static long hashBlock(Vector3 blockPos) {
         return hashBlock(blockPos.getFloorX(), blockPos.getFloorY(), blockPos.getFloorZ());
     }
+
+    /**
+     * Packs a block position of the whole world height, 26 bits for x and z and 12 bits for y, so unlike
+     * {@link #hashBlock(int, int, int)} the positions below 0 and above 255 never collide.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static long hashBlockPosition(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | (y & 0xFFFL);
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static int hashBlockPositionX(long hash) {
+        return (int) (hash >> 38);
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static int hashBlockPositionY(long hash) {
+        return (int) (hash << 52 >> 52);
+    }
+
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static int hashBlockPositionZ(long hash) {
+        return (int) (hash << 26 >> 38);
+    }
 }
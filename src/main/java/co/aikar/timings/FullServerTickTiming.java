@@ -46,6 +46,10 @@ public class FullServerTickTiming extends Timing {
         } else if (TimingsManager.needsRecheckEnabled) {
             TimingsManager.recheckEnabled();
         }
+        if (this.enabled) {
+            // Nothing is running outside of the full server tick, anything left was never stopped
+            TimingStack.current().clear();
+        }
         super.startTiming();
         return this;
     }
@@ -79,8 +83,7 @@ public class FullServerTickTiming extends Timing {
         TimingsManager.tick();
         long diff = System.nanoTime() - start;
 
-        CURRENT = Timings.timingsTickTimer;
-        Timings.timingsTickTimer.addDiff(diff);
+        Timings.timingsTickTimer.addDiff(diff, null);
         //addDiff for timingsTickTimer incremented this, bring it back down to 1 per tick.
         this.record.curTickCount--;
         this.minuteData.curTickTotal = this.record.curTickTotal;
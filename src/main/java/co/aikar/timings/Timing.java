@@ -25,6 +25,8 @@ package co.aikar.timings;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Timing implements AutoCloseable {
     private static int idPool = 1;
@@ -34,16 +36,18 @@ public class Timing implements AutoCloseable {
     private final boolean verbose;
 
     final Map<Integer, TimingData> children = new HashMap<>();
-    private Timing parent;
 
     private final Timing groupTiming;
     final TimingData record;
 
-    private long start = 0;
-    private int timingDepth = 0;
+    // Time recorded by the other threads, merged into the record by the main thread
+    private final LongAdder asyncCount = new LongAdder();
+    private final LongAdder asyncTotal = new LongAdder();
+    private final AtomicBoolean asyncQueued = new AtomicBoolean();
+
     private boolean added;
     boolean timed;
-    boolean enabled;
+    volatile boolean enabled;
 
     Timing(TimingIdentifier id) {
         if (id.name.startsWith("##")) {
@@ -66,9 +70,7 @@ public class Timing implements AutoCloseable {
     }
 
     void tick(boolean violated) {
-        if (this.timingDepth != 0 || this.record.curTickCount == 0) {
-            this.timingDepth = 0;
-            this.start = 0;
+        if (this.record.curTickCount == 0) {
             return;
         }
 
@@ -79,47 +81,58 @@ public class Timing implements AutoCloseable {
     }
 
     public Timing startTiming() {
-        if (!this.enabled) {
-            return this;
-        }
-
-        if (++this.timingDepth == 1) {
-            this.start = System.nanoTime();
-            this.parent = TimingsManager.CURRENT;
-            TimingsManager.CURRENT = this;
+        if (this.enabled) {
+            TimingStack.current().push(this);
         }
-
         return this;
     }
 
     public void stopTiming() {
-        if (!this.enabled) {
-            return;
-        }
-
-        if (--this.timingDepth == 0 && this.start != 0) {
-            this.addDiff(System.nanoTime() - this.start);
-            this.start = 0;
+        if (this.enabled) {
+            TimingStack.current().pop(this);
         }
     }
 
     public void abort() {
-        if (this.enabled && this.timingDepth > 0) {
-            this.start = 0;
+        if (this.enabled) {
+            TimingStack.current().abort(this);
         }
     }
 
-    void addDiff(long diff) {
-        if (TimingsManager.CURRENT == this) {
-            TimingsManager.CURRENT = this.parent;
-            if (this.parent != null) {
-                if (!this.parent.children.containsKey(this.id))
-                    this.parent.children.put(this.id, new TimingData(this.id));
-                this.parent.children.get(this.id).add(diff);
+    void record(long diff, Timing parent, boolean primaryThread) {
+        if (primaryThread) {
+            this.addDiff(diff, parent);
+        } else {
+            this.asyncCount.increment();
+            this.asyncTotal.add(diff);
+            if (this.asyncQueued.compareAndSet(false, true)) {
+                TimingsManager.ASYNC_TIMINGS.offer(this);
             }
         }
+    }
 
-        this.record.add(diff);
+    /**
+     * Merges the time recorded by the other threads since the last call, on the main thread.
+     */
+    void mergeAsync() {
+        this.asyncQueued.set(false);
+        int count = (int) this.asyncCount.sumThenReset();
+        long total = this.asyncTotal.sumThenReset();
+        if (count > 0) {
+            this.addDiff(count, total, null);
+        }
+    }
+
+    void addDiff(long diff, Timing parent) {
+        this.addDiff(1, diff, parent);
+    }
+
+    private void addDiff(int count, long diff, Timing parent) {
+        if (parent != null) {
+            parent.children.computeIfAbsent(this.id, TimingData::new).add(count, diff);
+        }
+
+        this.record.add(count, diff);
         if (!this.added) {
             this.added = true;
             this.timed = true;
@@ -127,11 +140,8 @@ public class Timing implements AutoCloseable {
         }
 
         if (this.groupTiming != null) {
-            this.groupTiming.addDiff(diff);
-
-            if (!this.groupTiming.children.containsKey(this.id))
-                this.groupTiming.children.put(this.id, new TimingData(this.id));
-            this.groupTiming.children.get(this.id).add(diff);
+            this.groupTiming.addDiff(count, diff, null);
+            this.groupTiming.children.computeIfAbsent(this.id, TimingData::new).add(count, diff);
         }
     }
 
@@ -140,10 +150,10 @@ public class Timing implements AutoCloseable {
         if (full) {
             this.timed = false;
         }
-        this.start = 0;
-        this.timingDepth = 0;
         this.added = false;
         this.children.clear();
+        this.asyncCount.reset();
+        this.asyncTotal.reset();
         this.checkEnabled();
     }
 
@@ -28,14 +28,14 @@ import com.google.gson.JsonArray;
 import cn.nukkit.timings.JsonUtil;
 
 class TimingData {
-    private int id;
+    final int id;
     int count = 0;
     private int lagCount = 0;
     long totalTime = 0;
     private long lagTotalTime = 0;
 
     int curTickCount = 0;
-    int curTickTotal = 0;
+    long curTickTotal = 0;
 
     TimingData(int id) {
         this.id = id;
@@ -54,6 +54,11 @@ class TimingData {
         this.curTickTotal += diff;
     }
 
+    void add(int count, long diff) {
+        this.curTickCount += count;
+        this.curTickTotal += diff;
+    }
+
     void tick(boolean violated) {
         this.count += this.curTickCount;
         this.totalTime += this.curTickTotal;
@@ -0,0 +1,94 @@
+package co.aikar.timings;
+
+import cn.nukkit.Server;
+
+import java.util.Arrays;
+
+/**
+ * The timings started and not stopped yet by one thread, the last one being the parent of the next one.
+ * <p>Only the stack of the main thread records into the timing tree. The other threads only add their time to the
+ * timings themselves, and the main thread merges it at the next tick, so they can't corrupt the tree.</p>
+ */
+final class TimingStack {
+    private static final ThreadLocal<TimingStack> STACKS = ThreadLocal.withInitial(TimingStack::new);
+    private static volatile TimingStack primary;
+
+    private final Thread thread;
+    final boolean isPrimary;
+    private Timing[] timings = new Timing[16];
+    private long[] starts = new long[16];
+    private int[] depths = new int[16];
+    private int size;
+
+    private TimingStack() {
+        this.thread = Thread.currentThread();
+        Server server = Server.getInstance();
+        this.isPrimary = server != null && server.isPrimaryThread();
+    }
+
+    static TimingStack current() {
+        TimingStack stack = primary;
+        if (stack != null && stack.thread == Thread.currentThread()) {
+            return stack;
+        }
+
+        stack = STACKS.get();
+        if (stack.isPrimary) {
+            primary = stack;
+        }
+        return stack;
+    }
+
+    void push(Timing timing) {
+        if (size > 0 && timings[size - 1] == timing) {
+            depths[size - 1]++;
+            return;
+        }
+
+        if (size == timings.length) {
+            timings = Arrays.copyOf(timings, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            depths = Arrays.copyOf(depths, size * 2);
+        }
+        timings[size] = timing;
+        depths[size] = 1;
+        starts[size++] = System.nanoTime();
+    }
+
+    void pop(Timing timing) {
+        int index = indexOf(timing);
+        if (index < 0 || --depths[index] > 0) {
+            return;
+        }
+
+        long start = starts[index];
+        Timing parent = index > 0 ? timings[index - 1] : null;
+        // The timings above it were never stopped
+        Arrays.fill(timings, index, size, null);
+        size = index;
+        if (start != 0) {
+            timing.record(System.nanoTime() - start, parent, isPrimary);
+        }
+    }
+
+    void abort(Timing timing) {
+        int index = indexOf(timing);
+        if (index >= 0) {
+            starts[index] = 0;
+        }
+    }
+
+    void clear() {
+        Arrays.fill(timings, 0, size, null);
+        size = 0;
+    }
+
+    private int indexOf(Timing timing) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (timings[i] == timing) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -42,6 +42,7 @@ import lombok.extern.log4j.Log4j2;
 import java.util.HashSet;
 import java.util.Queue;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import static co.aikar.timings.TimingIdentifier.DEFAULT_GROUP;
 
@@ -83,18 +84,32 @@ public final class Timings {
     public static final Timing generationTimer;
     public static final Timing populationTimer;
     public static final Timing generationCallbackTimer;
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static final Timing chunkResidencyTimer;
 
     public static final Timing permissibleCalculationTimer;
     public static final Timing permissionDefaultTimer;
 
-    static {
-        setTimingsEnabled(Server.getInstance().getConfig("timings.enabled", false));
-        setVerboseEnabled(Server.getInstance().getConfig("timings.verbose", false));
-        setHistoryInterval(Server.getInstance().getConfig("timings.history-interval", 6000));
-        setHistoryLength(Server.getInstance().getConfig("timings.history-length", 72000));
+    // One handle per class, built once, so the hot paths don't build a name and look it up every time
+    private static final ClassValue<Timing> SEND_PACKET_TIMINGS = timingPerClass("## Send Packet: ", () -> Timings.playerNetworkSendTimer);
+    private static final ClassValue<Timing> RECEIVE_PACKET_TIMINGS = timingPerClass("## Receive Packet: ", () -> Timings.playerNetworkReceiveTimer);
+    private static final ClassValue<Timing> ENTITY_TIMINGS = timingPerClass("## Entity Tick: ", () -> Timings.tickEntityTimer);
+    private static final ClassValue<Timing> BLOCK_ENTITY_TIMINGS = timingPerClass("## BlockEntity Tick: ", () -> Timings.tickBlockEntityTimer);
+    private static final ClassValue<Timing> EVENT_TIMINGS = timingPerClass("## Event: ", () -> Timings.pluginEventTimer);
 
-        privacy = Server.getInstance().getConfig("timings.privacy", false);
-        ignoredConfigSections.addAll(Server.getInstance().getConfig().getStringList("timings.ignore"));
+    static {
+        Server server = Server.getInstance();
+        // Without a running server (benchmarks, tools) the timings stay disabled
+        if (server != null) {
+            setTimingsEnabled(server.getConfig("timings.enabled", false));
+            setVerboseEnabled(server.getConfig("timings.verbose", false));
+            setHistoryInterval(server.getConfig("timings.history-interval", 6000));
+            setHistoryLength(server.getConfig("timings.history-length", 72000));
+
+            privacy = server.getConfig("timings.privacy", false);
+            ignoredConfigSections.addAll(server.getConfig().getStringList("timings.ignore"));
+        }
 
         log.debug("Timings: \n" +
                 "Enabled - {}\n" +
@@ -130,6 +145,7 @@ public final class Timings {
         generationTimer = TimingsManager.getTiming("Level Generation");
         populationTimer = TimingsManager.getTiming("Level Population");
         generationCallbackTimer = TimingsManager.getTiming("Level Generation Callback");
+        chunkResidencyTimer = TimingsManager.getTiming("Chunk Residency");
 
         permissibleCalculationTimer = TimingsManager.getTiming("Permissible Calculation");
         permissionDefaultTimer = TimingsManager.getTiming("Default Permission Calculation");
@@ -231,7 +247,10 @@ public final class Timings {
 
         if (handler.getTask() instanceof PluginTask) {
             String owner = ((PluginTask) handler.getTask()).getOwner().getName();
-            return TimingsManager.getTiming(owner, "PluginTask: " + handler.getTaskId() + repeating, schedulerSyncTimer);
+            return TimingsManager.getTiming(owner, "PluginTask: " + handler.getTaskId() + repeating, getPluginTaskTiming(owner));
+        } else if (handler.getPlugin() != null && !handler.isAsynchronous()) {
+            String owner = handler.getPlugin().getName();
+            return TimingsManager.getTiming(owner, "Task: " + handler.getTaskId() + repeating, getPluginTaskTiming(owner));
         } else if (!handler.isAsynchronous()) {
             return TimingsManager.getTiming(DEFAULT_GROUP.name, "Task: " + handler.getTaskId() + repeating, schedulerSyncTimer);
         } else {
@@ -239,6 +258,15 @@ public final class Timings {
         }
     }
 
+    /**
+     * The time spent by all the sync tasks of a plugin, so a plugin whose tasks make the ticks late stands out.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static Timing getPluginTaskTiming(String plugin) {
+        return TimingsManager.getTiming(plugin, "Combined Task Total", schedulerSyncTimer);
+    }
+
     public static Timing getPluginEventTiming(Class<? extends Event> event, Listener listener, EventExecutor executor, Plugin plugin) {
         Timing group = TimingsManager.getTiming(plugin.getName(), "Combined Total", pluginEventTimer);
 
@@ -248,19 +276,37 @@ public final class Timings {
     }
 
     public static Timing getEntityTiming(Entity entity) {
-        return TimingsManager.getTiming(DEFAULT_GROUP.name, "## Entity Tick: " + entity.getClass().getSimpleName(), tickEntityTimer);
+        return ENTITY_TIMINGS.get(entity.getClass());
     }
 
     public static Timing getBlockEntityTiming(BlockEntity blockEntity) {
-        return TimingsManager.getTiming(DEFAULT_GROUP.name, "## BlockEntity Tick: " + blockEntity.getClass().getSimpleName(), tickBlockEntityTimer);
+        return BLOCK_ENTITY_TIMINGS.get(blockEntity.getClass());
     }
 
     public static Timing getReceiveDataPacketTiming(DataPacket pk) {
-        return TimingsManager.getTiming(DEFAULT_GROUP.name, "## Receive Packet: " + pk.getClass().getSimpleName(), playerNetworkReceiveTimer);
+        return RECEIVE_PACKET_TIMINGS.get(pk.getClass());
     }
 
     public static Timing getSendDataPacketTiming(DataPacket pk) {
-        return TimingsManager.getTiming(DEFAULT_GROUP.name, "## Send Packet: " + pk.getClass().getSimpleName(), playerNetworkSendTimer);
+        return SEND_PACKET_TIMINGS.get(pk.getClass());
+    }
+
+    /**
+     * The time spent by all the listeners of an event class.
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static Timing getEventTiming(Class<? extends Event> event) {
+        return EVENT_TIMINGS.get(event);
+    }
+
+    private static ClassValue<Timing> timingPerClass(String prefix, Supplier<Timing> parent) {
+        return new ClassValue<>() {
+            @Override
+            protected Timing computeValue(Class<?> type) {
+                return TimingsManager.getTiming(DEFAULT_GROUP.name, prefix + type.getSimpleName(), parent.get());
+            }
+        };
     }
 
     public static void stopServer() {
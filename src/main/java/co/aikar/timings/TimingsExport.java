@@ -24,6 +24,8 @@
 package co.aikar.timings;
 
 import cn.nukkit.Server;
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
 import cn.nukkit.command.CommandSender;
 import cn.nukkit.command.ConsoleCommandSender;
 import cn.nukkit.command.RemoteConsoleCommandSender;
@@ -44,7 +46,7 @@ import java.net.InetAddress;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.*;
 import java.util.zip.Deflater;
 
 import static co.aikar.timings.TimingsManager.HISTORY;
@@ -54,12 +56,14 @@ public class TimingsExport extends Thread {
     private final CommandSender sender;
     private final JsonObject out;
     private final TimingsHistory[] history;
+    private final boolean local;
 
-    private TimingsExport(CommandSender sender, JsonObject out, TimingsHistory[] history) {
-        super("Timings paste thread");
+    private TimingsExport(CommandSender sender, JsonObject out, TimingsHistory[] history, boolean local) {
+        super(local ? "Timings export thread" : "Timings paste thread");
         this.sender = sender;
         this.out = out;
         this.history = history;
+        this.local = local;
     }
 
     /**
@@ -68,6 +72,26 @@ public class TimingsExport extends Thread {
      * @param sender Sender that issued the command
      */
     public static void reportTimings(CommandSender sender) {
+        TimingsHistory[] history = HISTORY.toArray(new TimingsHistory[HISTORY.size() + 1]);
+        history[HISTORY.size()] = new TimingsHistory(); //Current snapshot
+        new TimingsExport(sender, buildReport(), history, false).start();
+    }
+
+    /**
+     * Builds the same report, but writes it in the timings folder along with a HTML summary which can be opened
+     * without the viewer, for the servers which can't or must not reach it.
+     *
+     * @param sender Sender that issued the command
+     */
+    @PowerNukkitOnly
+    @Since("1.6.0.0-PNX")
+    public static void exportTimings(CommandSender sender) {
+        TimingsHistory[] history = HISTORY.toArray(new TimingsHistory[HISTORY.size() + 1]);
+        history[HISTORY.size()] = new TimingsHistory(); //Current snapshot
+        new TimingsExport(sender, buildReport(), history, true).start();
+    }
+
+    private static JsonObject buildReport() {
         JsonObject out = new JsonObject();
         out.addProperty("version", Server.getInstance().getVersion());
         out.addProperty("maxplayers", Server.getInstance().getMaxPlayers());
@@ -99,9 +123,6 @@ public class TimingsExport extends Thread {
                 new JsonUtil.JSONPair(input.getName(), JsonUtil.toArray(input.getCollectionCount(), input.getCollectionTime()))));
         out.add("system", system);
 
-        TimingsHistory[] history = HISTORY.toArray(new TimingsHistory[HISTORY.size() + 1]);
-        history[HISTORY.size()] = new TimingsHistory(); //Current snapshot
-
         JsonObject timings = new JsonObject();
         for (TimingIdentifier.TimingGroup group : TimingIdentifier.GROUP_MAP.values()) {
             for (Timing id : group.timings) {
@@ -145,8 +166,7 @@ public class TimingsExport extends Thread {
             config.add("nukkit", null);
         }
         out.add("config", config);
-
-        new TimingsExport(sender, out, history).start();
+        return out;
     }
 
     private static long getCost() {
@@ -198,6 +218,11 @@ public class TimingsExport extends Thread {
 
     @Override
     public void run() {
+        if (this.local) {
+            this.writeLocal();
+            return;
+        }
+
         this.sender.sendMessage(new TranslationContainer("nukkit.command.timings.uploadStart"));
         this.out.add("data", JsonUtil.mapToArray(this.history, TimingsHistory::export));
 
@@ -254,6 +279,90 @@ public class TimingsExport extends Thread {
         }
     }
 
+    private void writeLocal() {
+        this.out.add("data", JsonUtil.mapToArray(this.history, TimingsHistory::export));
+
+        File timingFolder = new File(Server.getInstance().getDataPath(), "timings");
+        timingFolder.mkdirs();
+        String name = new SimpleDateFormat("'timings-'yyyy-MM-dd-HH-mm-ss").format(new Date());
+        File json = new File(timingFolder, name + ".json");
+        File html = new File(timingFolder, name + ".html");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(json), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(this.out, writer);
+        } catch (IOException exception) {
+            this.sender.sendMessage(TextFormat.RED + "Could not write " + json + ": " + exception.getMessage());
+            log.error("An error has occurred while exporting the timings report", exception);
+            return;
+        }
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(html), StandardCharsets.UTF_8)) {
+            writer.write(this.summary());
+        } catch (IOException exception) {
+            this.sender.sendMessage(TextFormat.RED + "Could not write " + html + ": " + exception.getMessage());
+            log.error("An error has occurred while exporting the timings summary", exception);
+            return;
+        }
+
+        this.sender.sendMessage(TextFormat.GREEN + "Timings exported to " + json + " and " + html);
+        if (!(this.sender instanceof ConsoleCommandSender)) {
+            log.info("Timings exported to {} and {}", json, html);
+        }
+    }
+
+    /**
+     * A HTML table of every timing, summed over the history, the heaviest first.
+     */
+    private String summary() {
+        Map<Integer, String[]> names = new HashMap<>();
+        for (TimingIdentifier.TimingGroup group : TimingIdentifier.GROUP_MAP.values()) {
+            for (Timing timing : group.timings) {
+                names.put(timing.id, new String[]{group.name, timing.name});
+            }
+        }
+
+        long ticks = 0;
+        long tickTime = 0;
+        Map<Integer, long[]> totals = new HashMap<>();
+        for (TimingsHistory entry : this.history) {
+            ticks += entry.totalTicks;
+            tickTime += entry.totalTime;
+            for (TimingsHistoryEntry timing : entry.entries) {
+                long[] total = totals.computeIfAbsent(timing.data.id, id -> new long[2]);
+                total[0] += timing.data.count;
+                total[1] += timing.data.totalTime;
+            }
+        }
+
+        List<Map.Entry<Integer, long[]>> rows = new ArrayList<>(totals.entrySet());
+        rows.removeIf(row -> row.getValue()[0] == 0 || !names.containsKey(row.getKey()));
+        rows.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+
+        StringBuilder html = new StringBuilder(4096 + rows.size() * 160);
+        html.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Timings</title><style>")
+                .append("body{font-family:sans-serif;margin:2em}table{border-collapse:collapse}")
+                .append("td,th{padding:2px 8px;border-bottom:1px solid #ddd}td.n{text-align:right}th{text-align:left}")
+                .append("</style></head><body>\n<h1>Timings of ").append(escape(Server.getInstance().getVersion())).append("</h1>\n<p>")
+                .append(ticks).append(" ticks over ").append((System.currentTimeMillis() - TimingsManager.timingStart) / 1000)
+                .append(" s, ").append(ticks > 0 ? String.format(Locale.ROOT, "%.2f", tickTime / 1e6 / ticks) : "0")
+                .append(" ms per tick on average.</p>\n<table>\n")
+                .append("<tr><th>Group</th><th>Timing</th><th>Count</th><th>Total (ms)</th><th>Average (ms)</th><th>Per tick (ms)</th><th>% of tick</th></tr>\n");
+        for (Map.Entry<Integer, long[]> row : rows) {
+            String[] name = names.get(row.getKey());
+            long count = row.getValue()[0];
+            long total = row.getValue()[1];
+            html.append("<tr><td>").append(escape(name[0])).append("</td><td>").append(escape(name[1]))
+                    .append("</td><td class=\"n\">").append(count)
+                    .append(String.format(Locale.ROOT, "</td><td class=\"n\">%.2f</td><td class=\"n\">%.4f</td><td class=\"n\">%.4f</td><td class=\"n\">%.2f",
+                            total / 1e6, total / 1e6 / count, ticks > 0 ? total / 1e6 / ticks : 0, tickTime > 0 ? total * 100.0 / tickTime : 0))
+                    .append("</td></tr>\n");
+        }
+        return html.append("</table>\n</body></html>\n").toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
     private String getResponse(HttpURLConnection con) throws IOException {
         try (InputStream is = con.getInputStream()) {
             ByteArrayOutputStream bos = new ByteArrayOutputStream();
@@ -60,12 +60,12 @@ public class TimingsHistory {
 
     private final long endTime;
     private final long startTime;
-    private final long totalTicks;
+    final long totalTicks;
     // Represents all time spent running the server this history
-    private final long totalTime;
+    final long totalTime;
     private final MinuteReport[] minuteReports;
 
-    private final TimingsHistoryEntry[] entries;
+    final TimingsHistoryEntry[] entries;
     private final JsonObject levels = new JsonObject();
 
     TimingsHistory() {
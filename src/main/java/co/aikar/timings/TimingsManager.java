@@ -26,6 +26,7 @@ package co.aikar.timings;
 import cn.nukkit.Server;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class TimingsManager {
     static final Map<TimingIdentifier, Timing> TIMING_MAP = Collections.synchronizedMap(new HashMap<>(256, 0.5f));
@@ -35,7 +36,10 @@ public class TimingsManager {
 
     static Queue<TimingsHistory> HISTORY = new BoundedQueue<>(12);
 
-    static Timing CURRENT;
+    /**
+     * The timings which recorded time on other threads since the last tick.
+     */
+    static final Queue<Timing> ASYNC_TIMINGS = new ConcurrentLinkedQueue<>();
 
     static long timingStart = 0;
     static long historyStart = 0;
@@ -51,6 +55,11 @@ public class TimingsManager {
      */
     static void tick() {
         if (Timings.isTimingsEnabled()) {
+            Timing asyncTiming;
+            while ((asyncTiming = ASYNC_TIMINGS.poll()) != null) {
+                asyncTiming.mergeAsync();
+            }
+
             boolean violated = Timings.fullServerTickTimer.isViolated();
 
             synchronized (TIMINGS) {
@@ -0,0 +1,27 @@
+package cn.nukkit.command;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+class EntitySelectorTest {
+    @Test
+    void compilesOncePerToken() {
+        EntitySelector.Compiled selector = EntitySelector.compile("@e[type=zombie,r=5]");
+        assertNotNull(selector);
+        assertSame(selector, EntitySelector.compile("@e[type=zombie,r=5]"));
+        assertNotSame(selector, EntitySelector.compile("@e[type=zombie,r=6]"));
+    }
+
+    @Test
+    void invalidSelectors() {
+        assertNull(EntitySelector.compile("Steve"));
+        assertNull(EntitySelector.compile("@e[unknown=1]"));
+        assertNull(EntitySelector.compile("@e[unknown=1]"));
+        assertNull(EntitySelector.compile("@e[type=not_an_entity]"));
+    }
+}
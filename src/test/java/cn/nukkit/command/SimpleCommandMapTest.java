@@ -0,0 +1,141 @@
+package cn.nukkit.command;
+
+import cn.nukkit.Player;
+import cn.nukkit.Server;
+import cn.nukkit.command.data.CommandDataVersions;
+import cn.nukkit.event.EventPriority;
+import cn.nukkit.event.server.DataPacketSendEvent;
+import cn.nukkit.network.protocol.AvailableCommandsPacket;
+import cn.nukkit.network.protocol.BatchPacket;
+import cn.nukkit.network.protocol.DataPacket;
+import cn.nukkit.plugin.RegisteredListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(PowerNukkitExtension.class)
+class SimpleCommandMapTest {
+    SimpleCommandMap commandMap;
+
+    @Test
+    void sharedBetweenPlayersSeeingTheSameCommands() {
+        commandMap.register("test", command("alpha"));
+        commandMap.register("test", command("beta"));
+        Player all = player("test.alpha", "test.beta");
+        Player allToo = player("test.alpha", "test.beta");
+        Player alphaOnly = player("test.alpha");
+
+        DataPacket packet = commandMap.getCommandDataPacket(all);
+        assertTrue(packet instanceof BatchPacket);
+        assertSame(packet, commandMap.getCommandDataPacket(allToo));
+        DataPacket alphaPacket = commandMap.getCommandDataPacket(alphaOnly);
+        assertTrue(alphaPacket instanceof BatchPacket);
+        assertNotSame(packet, alphaPacket);
+        assertNull(commandMap.getCommandDataPacket(player()));
+    }
+
+    @Test
+    void invalidation() {
+        Command alpha = command("alpha");
+        commandMap.register("test", alpha);
+        Player player = player("test.alpha", "test.beta", "test.gamma");
+        DataPacket packet = commandMap.getCommandDataPacket(player);
+
+        commandMap.register("test", command("beta"));
+        DataPacket registered = commandMap.getCommandDataPacket(player);
+        assertNotSame(packet, registered, "A new command must be sent");
+
+        alpha.setDescription("Changed");
+        DataPacket described = commandMap.getCommandDataPacket(player);
+        assertNotSame(registered, described, "The new description must be sent");
+        assertSame(described, commandMap.getCommandDataPacket(player));
+
+        // Changing the map directly is only noticed by its size
+        commandMap.getCommands().put("gamma", command("gamma"));
+        DataPacket put = commandMap.getCommandDataPacket(player);
+        assertNotSame(described, put);
+        assertSame(put, commandMap.getCommandDataPacket(player));
+
+        commandMap.invalidateCommandData();
+        assertNotSame(put, commandMap.getCommandDataPacket(player));
+    }
+
+    @Test
+    void customCommandDataGeneratedForEachPlayer() {
+        commandMap.register("test", command("alpha"));
+        commandMap.register("test", new Command("custom") {
+            {
+                setPermission("test.custom");
+            }
+
+            @Override
+            public CommandDataVersions generateCustomCommandData(Player player) {
+                return super.generateCustomCommandData(player);
+            }
+
+            @Override
+            public boolean execute(CommandSender sender, String commandLabel, String[] args) {
+                return true;
+            }
+        });
+        Player custom = player("test.alpha", "test.custom");
+
+        DataPacket packet = commandMap.getCommandDataPacket(custom);
+        assertTrue(packet instanceof AvailableCommandsPacket);
+        assertEquals(Set.of("alpha", "custom"), ((AvailableCommandsPacket) packet).commands.keySet());
+        assertNotSame(packet, commandMap.getCommandDataPacket(custom));
+
+        // The players who can't see the custom command still share their packet
+        Player alphaOnly = player("test.alpha");
+        assertTrue(commandMap.getCommandDataPacket(alphaOnly) instanceof BatchPacket);
+    }
+
+    @Test
+    void listenersReceiveTheCommandPacket() {
+        commandMap.register("test", command("alpha"));
+        Player player = player("test.alpha");
+        RegisteredListener listener = mock(RegisteredListener.class);
+        doReturn(EventPriority.NORMAL).when(listener).getPriority();
+        DataPacketSendEvent.getHandlers().register(listener);
+        try {
+            DataPacket packet = commandMap.getCommandDataPacket(player);
+            assertTrue(packet instanceof AvailableCommandsPacket);
+            assertNotSame(packet, commandMap.getCommandDataPacket(player), "Each player must get a packet to change");
+        } finally {
+            DataPacketSendEvent.getHandlers().unregister(listener);
+        }
+        assertTrue(commandMap.getCommandDataPacket(player) instanceof BatchPacket);
+    }
+
+    private static Command command(String name) {
+        Command command = new Command(name) {
+            @Override
+            public boolean execute(CommandSender sender, String commandLabel, String[] args) {
+                return true;
+            }
+        };
+        command.setPermission("test." + name);
+        return command;
+    }
+
+    private static Player player(String... permissions) {
+        Set<String> granted = Set.of(permissions);
+        Player player = mock(Player.class);
+        doReturn(Server.getInstance()).when(player).getServer();
+        doAnswer(invocation -> granted.contains(invocation.<String>getArgument(0))).when(player).hasPermission(anyString());
+        return player;
+    }
+
+    @BeforeEach
+    void setUp() {
+        commandMap = new SimpleCommandMap(Server.getInstance());
+        commandMap.getCommands().clear();
+    }
+}
@@ -18,8 +18,12 @@
 
 package cn.nukkit.entity;
 
+import cn.nukkit.Player;
 import cn.nukkit.block.BlockID;
 import cn.nukkit.blockstate.BlockState;
+import cn.nukkit.entity.data.EntityMetadata;
+import cn.nukkit.entity.data.ShortEntityData;
+import cn.nukkit.entity.data.StringEntityData;
 import cn.nukkit.entity.item.EntityItem;
 import cn.nukkit.entity.mob.EntityBlaze;
 import cn.nukkit.entity.mob.EntityZombie;
@@ -37,6 +41,8 @@ import cn.nukkit.level.format.FullChunk;
 import cn.nukkit.level.format.LevelProvider;
 import cn.nukkit.math.Vector3;
 import cn.nukkit.nbt.tag.CompoundTag;
+import cn.nukkit.network.protocol.DataPacket;
+import cn.nukkit.network.protocol.SetEntityDataPacket;
 import cn.nukkit.potion.Effect;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -44,6 +50,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.powernukkit.tests.api.MockLevel;
 import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
@@ -52,7 +59,8 @@ import java.util.*;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.lenient;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 /**
  * @author joserobjr
@@ -201,6 +209,48 @@ class EntityTest {
         }
     }
 
+    @Test
+    void dataPropertiesSentOncePerTick() {
+        entity = createEntity(EntityPig.NETWORK_ID);
+        Player viewer = mock(Player.class);
+        entity.hasSpawned.put(viewer.getLoaderId(), viewer);
+
+        entity.setDataProperty(new StringEntityData(Entity.DATA_NAMETAG, "Wilbur"));
+        entity.setDataProperty(new ShortEntityData(Entity.DATA_AIR, 10));
+        entity.setDataFlag(Entity.DATA_FLAGS, Entity.DATA_FLAG_ONFIRE, true);
+        verify(viewer, never()).dataPacket(any(DataPacket.class));
+
+        // Done by the level at the end of the tick
+        entity.flushDataProperties();
+        entity.flushDataProperties();
+
+        ArgumentCaptor<DataPacket> packet = ArgumentCaptor.forClass(DataPacket.class);
+        verify(viewer, times(1)).dataPacket(packet.capture());
+        EntityMetadata metadata = ((SetEntityDataPacket) packet.getValue()).metadata;
+        assertEquals("Wilbur", metadata.getString(Entity.DATA_NAMETAG));
+        assertEquals(10, metadata.getShort(Entity.DATA_AIR));
+        assertTrue(metadata.exists(Entity.DATA_FLAGS));
+    }
+
+    @Test
+    void dataPropertyImmediatelySendsPendingChanges() {
+        entity = createEntity(EntityPig.NETWORK_ID);
+        Player viewer = mock(Player.class);
+        entity.hasSpawned.put(viewer.getLoaderId(), viewer);
+
+        entity.setDataProperty(new ShortEntityData(Entity.DATA_AIR, 10));
+        entity.setDataPropertyImmediately(new StringEntityData(Entity.DATA_NAMETAG, "Wilbur"));
+
+        ArgumentCaptor<DataPacket> packet = ArgumentCaptor.forClass(DataPacket.class);
+        verify(viewer, times(1)).dataPacket(packet.capture());
+        EntityMetadata metadata = ((SetEntityDataPacket) packet.getValue()).metadata;
+        assertEquals("Wilbur", metadata.getString(Entity.DATA_NAMETAG));
+        assertEquals(10, metadata.getShort(Entity.DATA_AIR));
+
+        entity.flushDataProperties();
+        verify(viewer, times(1)).dataPacket(any(DataPacket.class));
+    }
+
     Entity createEntity(int id) {
         return createEntity(Integer.toString(id));
     }
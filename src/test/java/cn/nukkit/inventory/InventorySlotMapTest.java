@@ -0,0 +1,75 @@
+package cn.nukkit.inventory;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.item.Item;
+import cn.nukkit.item.ItemID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@ExtendWith(PowerNukkitExtension.class)
+class InventorySlotMapTest {
+    @Test
+    void putGetRemove() {
+        InventorySlotMap map = new InventorySlotMap(4);
+        Item stick = Item.get(ItemID.STICK, 0, 3);
+
+        assertNull(map.put(2, stick));
+        assertSame(stick, map.get(2));
+        assertSame(stick, map.getSlot(2));
+        assertTrue(map.containsKey(2));
+        assertFalse(map.containsKey(1));
+        assertNull(map.get("2"));
+        assertEquals(1, map.size());
+
+        assertSame(stick, map.remove(2));
+        assertNull(map.getSlot(2));
+        assertTrue(map.isEmpty());
+        assertNull(map.remove(2));
+    }
+
+    @Test
+    void growsAndIgnoresNegativeSlots() {
+        InventorySlotMap map = new InventorySlotMap();
+        map.put(39, Item.get(ItemID.DIAMOND_HELMET));
+        assertTrue(map.getCapacity() >= 40);
+        assertEquals(1, map.size());
+
+        assertNull(map.put(-1, Item.get(ItemID.STICK)));
+        assertNull(map.getSlot(-1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void iteratesBySlot() {
+        InventorySlotMap map = new InventorySlotMap(9);
+        map.put(7, Item.get(ItemID.STICK));
+        map.put(0, Item.get(ItemID.APPLE));
+        map.put(3, Item.get(ItemID.BOWL));
+
+        List<Integer> slots = new ArrayList<>(map.keySet());
+        assertEquals(List.of(0, 3, 7), slots);
+
+        for (Iterator<Map.Entry<Integer, Item>> iterator = map.entrySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().getKey() == 3) {
+                iterator.remove();
+            }
+        }
+        assertEquals(List.of(0, 7), new ArrayList<>(map.keySet()));
+        assertEquals(2, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.entrySet().iterator().hasNext());
+    }
+}
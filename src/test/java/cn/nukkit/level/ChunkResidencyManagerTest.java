@@ -0,0 +1,176 @@
+package cn.nukkit.level;
+
+import cn.nukkit.Server;
+import cn.nukkit.level.format.LevelProvider;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(PowerNukkitExtension.class)
+class ChunkResidencyManagerTest {
+    static final long CHUNK_BYTES = 512 * 1024;
+
+    final Map<String, Object> config = new HashMap<>();
+
+    final List<BaseFullChunk> loaded = new ArrayList<>();
+
+    Server server;
+
+    Level level;
+
+    LevelProvider provider;
+
+    @Test
+    void evictLeastRecentlyUsed() {
+        config.put("chunk-residency.memory-budget-mb", 1);
+        BaseFullChunk chunk40 = chunk(0, 40, false);
+        chunk(1, 10, false);
+        BaseFullChunk chunk30 = chunk(2, 30, false);
+        chunk(3, 20, false);
+        ChunkResidencyManager manager = new ChunkResidencyManager(server);
+
+        manager.check();
+
+        InOrder inOrder = inOrder(level);
+        inOrder.verify(level).unloadChunk(1, 0, true, true);
+        inOrder.verify(level).unloadChunk(3, 0, true, true);
+        verify(level, never()).unloadChunk(eq(0), anyInt(), anyBoolean(), anyBoolean());
+        verify(level, never()).unloadChunk(eq(2), anyInt(), anyBoolean(), anyBoolean());
+        assertEquals(List.of(chunk40, chunk30), loaded);
+        assertEquals(2, manager.getEvictions());
+        assertEquals(2, manager.getResidentChunks());
+        assertEquals(2 * CHUNK_BYTES, manager.getResidentBytes());
+    }
+
+    @Test
+    void evictLeastRecentlyUsedAcrossChecks() {
+        config.put("chunk-residency.memory-budget-mb", 2);
+        config.put("chunk-residency.chunks-per-check", 2);
+        chunk(0, 40, false);
+        chunk(1, 10, false);
+        chunk(2, 30, false);
+        chunk(3, 20, false);
+        ChunkResidencyManager manager = new ChunkResidencyManager(server);
+
+        manager.check();
+        verify(level, never()).unloadChunk(anyInt(), anyInt(), anyBoolean(), anyBoolean());
+
+        // Over the budget while the second check looks at the chunks 2 and 3, the chunk 1 is still the oldest one
+        chunk(4, 50, false);
+        manager.check();
+        verify(level).unloadChunk(1, 0, true, true);
+        verify(level, times(1)).unloadChunk(anyInt(), anyInt(), anyBoolean(), anyBoolean());
+        assertEquals(4 * CHUNK_BYTES, manager.getResidentBytes());
+        verify(provider, never()).forEachIdleChunk(anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void changedChunksKeptWithoutAutoSave() {
+        config.put("chunk-residency.memory-budget-mb", 1);
+        BaseFullChunk changed = chunk(0, 10, true);
+        BaseFullChunk inUse = chunk(1, 20, false);
+        BaseFullChunk unchanged = chunk(2, 30, false);
+        chunk(3, 40, false);
+        long inUseIndex = inUse.getIndex();
+        doReturn(true).when(level).isChunkInUse(inUseIndex);
+        ChunkResidencyManager manager = new ChunkResidencyManager(server);
+
+        doReturn(false).when(level).getAutoSave();
+        manager.check();
+        verify(level, never()).unloadChunk(eq(0), anyInt(), anyBoolean(), anyBoolean());
+        verify(level, never()).unloadChunk(eq(1), anyInt(), anyBoolean(), anyBoolean());
+        verify(level).unloadChunk(2, 0, true, true);
+        assertFalse(loaded.contains(unchanged));
+
+        // The level saves the changes on unload now
+        chunk(2, 30, false);
+        doReturn(true).when(level).getAutoSave();
+        manager.check();
+        verify(level).unloadChunk(0, 0, true, true);
+        assertFalse(loaded.contains(changed));
+        assertTrue(loaded.contains(inUse));
+    }
+
+    @Test
+    void memoryBudget() {
+        config.put("chunk-residency.memory-budget-mb", 6144);
+        assertEquals(6144L * 1024 * 1024, new ChunkResidencyManager(server).getMemoryBudget());
+
+        config.put("chunk-residency.memory-budget-mb", -1);
+        ChunkResidencyManager manager = new ChunkResidencyManager(server);
+        assertEquals(0, manager.getMemoryBudget());
+
+        // Without a budget the chunks are only counted
+        for (int i = 0; i < 8; i++) {
+            chunk(i, i, false);
+        }
+        manager.check();
+        verify(level, never()).unloadChunk(anyInt(), anyInt(), anyBoolean(), anyBoolean());
+        assertEquals(8, manager.getResidentChunks());
+        assertEquals(8 * CHUNK_BYTES, manager.getResidentBytes());
+    }
+
+    private BaseFullChunk chunk(int chunkX, long lastAccessTick, boolean changed) {
+        BaseFullChunk chunk = mock(BaseFullChunk.class);
+        doReturn(chunkX).when(chunk).getX();
+        doReturn(0).when(chunk).getZ();
+        doReturn(Level.chunkHash(chunkX, 0)).when(chunk).getIndex();
+        doReturn(lastAccessTick).when(chunk).getLastAccessTick();
+        doReturn(CHUNK_BYTES).when(chunk).getMemoryUsage();
+        doReturn(changed).when(chunk).hasChanged();
+        loaded.add(chunk);
+        return chunk;
+    }
+
+    private boolean isLoaded(int chunkX, int chunkZ) {
+        return loaded.stream().anyMatch(chunk -> chunk.getX() == chunkX && chunk.getZ() == chunkZ);
+    }
+
+    @BeforeEach
+    void setUp() {
+        server = mock(Server.class, invocation -> {
+            if (invocation.getMethod().getName().equals("getConfig") && invocation.getArguments().length == 2) {
+                return config.getOrDefault(invocation.<String>getArgument(0), invocation.getArgument(1));
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+        provider = mock(LevelProvider.class);
+        doAnswer(invocation -> {
+            Map<Long, BaseFullChunk> chunks = new LinkedHashMap<>();
+            loaded.forEach(chunk -> chunks.put(chunk.getIndex(), chunk));
+            return chunks;
+        }).when(provider).getLoadedChunks();
+        doAnswer(invocation -> loaded.size()).when(provider).getLoadedChunkCount();
+        doAnswer(invocation -> loaded.size() * CHUNK_BYTES).when(provider).getLoadedChunksMemoryUsage();
+
+        level = mock(Level.class);
+        doReturn(provider).when(level).getProvider();
+        doReturn(100L).when(level).getCurrentTick();
+        doReturn(true).when(level).getAutoSave();
+        doAnswer(invocation -> isLoaded(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(level).isChunkLoaded(anyInt(), anyInt());
+        doAnswer(invocation -> {
+            int chunkX = invocation.getArgument(0);
+            int chunkZ = invocation.getArgument(1);
+            return loaded.removeIf(chunk -> chunk.getX() == chunkX && chunk.getZ() == chunkZ);
+        }).when(level).unloadChunk(anyInt(), anyInt(), anyBoolean(), anyBoolean());
+        doReturn(Map.of(1, level)).when(server).getLevels();
+    }
+}
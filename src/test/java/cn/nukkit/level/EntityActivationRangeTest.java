@@ -0,0 +1,142 @@
+package cn.nukkit.level;
+
+import cn.nukkit.Player;
+import cn.nukkit.Server;
+import cn.nukkit.entity.Entity;
+import cn.nukkit.entity.EntityActivationType;
+import cn.nukkit.entity.mob.EntityZombie;
+import cn.nukkit.event.entity.EntityDamageEvent;
+import cn.nukkit.event.entity.EntityDamageEvent.DamageCause;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.math.Vector3;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.powernukkit.tests.api.MockLevel;
+import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(PowerNukkitExtension.class)
+class EntityActivationRangeTest {
+    static final int TICK = 100;
+
+    @MockLevel
+    Level level;
+
+    final Map<String, Object> config = new HashMap<>();
+
+    final Map<Long, BaseFullChunk> chunks = new HashMap<>();
+
+    Level rangeLevel;
+
+    Player player;
+
+    @Test
+    void disabledByDefault() {
+        EntityActivationRange activationRange = new EntityActivationRange(rangeLevel);
+        for (EntityActivationType type : EntityActivationType.values()) {
+            assertEquals(0, activationRange.getRange(type));
+        }
+
+        Entity far = zombie(100);
+        activationRange.activateEntities(TICK);
+        assertEquals(Integer.MIN_VALUE, far.getActivatedTick());
+        assertEquals(20, tickedWithin(activationRange, far, 20));
+    }
+
+    @Test
+    void activateEntitiesInRange() {
+        config.put("level-settings.entity-activation-range.monsters", 32);
+        EntityActivationRange activationRange = new EntityActivationRange(rangeLevel);
+        Entity near = zombie(10);
+        Entity far = zombie(100);
+
+        activationRange.activateEntities(TICK);
+
+        assertEquals(TICK, near.getActivatedTick());
+        assertTrue(activationRange.shouldTick(near, TICK));
+        assertEquals(Integer.MIN_VALUE, far.getActivatedTick());
+        assertEquals(1, tickedWithin(activationRange, far, 20), "The inactive entities are ticked once per interval");
+    }
+
+    @Test
+    void wakeUp() {
+        config.put("level-settings.entity-activation-range.monsters", 32);
+        EntityActivationRange activationRange = new EntityActivationRange(rangeLevel);
+        Entity far = zombie(100);
+
+        far.justCreated = true;
+        assertEquals(20, tickedWithin(activationRange, far, 20), "A new entity is ticked until its first update");
+        far.justCreated = false;
+
+        far.noDamageTicks = 10;
+        assertEquals(20, tickedWithin(activationRange, far, 20), "A damaged entity is ticked");
+        far.noDamageTicks = 0;
+
+        far.riding = zombie(101);
+        assertEquals(20, tickedWithin(activationRange, far, 20), "A riding entity is ticked");
+        far.riding = null;
+        assertEquals(1, tickedWithin(activationRange, far, 20));
+
+        far.attack(new EntityDamageEvent(far, DamageCause.MAGIC, 1));
+        far.noDamageTicks = 0;
+        assertEquals(TICK + 20, far.getActivatedTick(), "An attacked entity is ticked for a second");
+        assertTrue(activationRange.shouldTick(far, TICK + 20));
+    }
+
+    private static int tickedWithin(EntityActivationRange activationRange, Entity entity, int ticks) {
+        int ticked = 0;
+        for (int tick = TICK; tick < TICK + ticks; tick++) {
+            if (activationRange.shouldTick(entity, tick)) {
+                ticked++;
+            }
+        }
+        return ticked;
+    }
+
+    private Entity zombie(double x) {
+        Entity zombie = new EntityZombie(level.getChunk(0, 0), Entity.getDefaultNBT(new Vector3(x, 64, 0)));
+        zombie.justCreated = false;
+        chunk((int) x >> 4, 0).getEntities().put(zombie.getId(), zombie);
+        return zombie;
+    }
+
+    private BaseFullChunk chunk(int chunkX, int chunkZ) {
+        return chunks.computeIfAbsent(Level.chunkHash(chunkX, chunkZ), index -> {
+            BaseFullChunk chunk = mock(BaseFullChunk.class);
+            Map<Long, Entity> entities = new LinkedHashMap<>();
+            doReturn(entities).when(chunk).getEntities();
+            return chunk;
+        });
+    }
+
+    @BeforeEach
+    void setUp() {
+        doReturn(TICK).when(Server.getInstance()).getTick();
+        Server server = mock(Server.class, invocation -> {
+            if (invocation.getMethod().getName().equals("getConfig") && invocation.getArguments().length == 2) {
+                return config.getOrDefault(invocation.<String>getArgument(0), invocation.getArgument(1));
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+        player = mock(Player.class);
+        player.x = 0;
+        player.y = 64;
+        player.z = 0;
+        doReturn(0).when(player).getChunkX();
+        doReturn(0).when(player).getChunkZ();
+
+        rangeLevel = mock(Level.class);
+        doReturn(server).when(rangeLevel).getServer();
+        doReturn(Map.of(1L, player)).when(rangeLevel).getPlayers();
+        doAnswer(invocation -> chunks.get(Level.chunkHash(invocation.getArgument(0), invocation.getArgument(1))))
+                .when(rangeLevel).getChunkIfLoaded(anyInt(), anyInt());
+    }
+}
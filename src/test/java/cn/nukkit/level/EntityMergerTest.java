@@ -0,0 +1,152 @@
+package cn.nukkit.level;
+
+import cn.nukkit.Server;
+import cn.nukkit.entity.Entity;
+import cn.nukkit.entity.item.EntityItem;
+import cn.nukkit.item.Item;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.metrics.LevelMetrics;
+import cn.nukkit.metrics.PerformanceMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(PowerNukkitExtension.class)
+class EntityMergerTest {
+    final Map<String, Object> config = new HashMap<>();
+
+    final Map<Long, BaseFullChunk> chunks = new HashMap<>();
+
+    Level level;
+
+    @Test
+    void mergeItemsOfOneCell() {
+        EntityMerger merger = new EntityMerger(level);
+        EntityItem candidate = item(1, Item.STICK, 30, 0.5, 0.5);
+        EntityItem merged = item(2, Item.STICK, 20, 0.7, 0.2);
+        EntityItem mergedToo = item(3, Item.STICK, 10, 0.1, 0.9);
+        EntityItem overStackLimit = item(4, Item.STICK, 10, 0.5, 0.5);
+        EntityItem otherType = item(5, Item.DIAMOND, 10, 0.5, 0.5);
+        EntityItem otherCell = item(6, Item.STICK, 10, 10.5, 10.5);
+        LevelMetrics metrics = PerformanceMetrics.getLevelMetrics(level);
+
+        merger.addCandidate(candidate);
+        merger.mergeCandidates();
+
+        assertEquals(60, candidate.getItem().getCount());
+        assertTrue(merged.closed);
+        assertTrue(mergedToo.closed);
+        assertFalse(overStackLimit.closed, "The stack would go over its max size");
+        assertEquals(10, overStackLimit.getItem().getCount());
+        assertFalse(otherType.closed);
+        assertFalse(otherCell.closed);
+        assertEquals(2, merger.getMerges());
+        assertEquals(1, merger.getCandidatesChecked());
+        // The diamond and the far stick are in the chunk, but never compared with the candidate
+        assertEquals(2, merger.getEntitiesAvoided());
+
+        assertEquals(2, metrics.getEntitiesMerged());
+        assertEquals(1, metrics.getMergeCandidatesChecked());
+        assertEquals(0, metrics.getMergeCandidatesDeferred());
+        assertEquals(2, metrics.getMergeEntitiesAvoided());
+    }
+
+    @Test
+    void itemStackLimit() {
+        config.put("level-settings.entity-merging.item-stack-limit", 16);
+        EntityMerger merger = new EntityMerger(level);
+        EntityItem candidate = item(1, Item.STICK, 10, 0.5, 0.5);
+        EntityItem merged = item(2, Item.STICK, 6, 0.5, 0.5);
+        EntityItem overStackLimit = item(3, Item.STICK, 1, 0.5, 0.5);
+
+        merger.addCandidate(candidate);
+        merger.mergeCandidates();
+
+        assertEquals(16, candidate.getItem().getCount());
+        assertTrue(merged.closed);
+        assertFalse(overStackLimit.closed);
+    }
+
+    @Test
+    void deferCandidatesOverBudget() {
+        config.put("level-settings.entity-merging.max-per-tick", 1);
+        EntityMerger merger = new EntityMerger(level);
+        EntityItem first = item(1, Item.STICK, 1, 0.5, 0.5);
+        EntityItem second = item(2, Item.DIAMOND, 1, 5.5, 5.5);
+        item(3, Item.DIAMOND, 1, 5.5, 5.5);
+        LevelMetrics metrics = PerformanceMetrics.getLevelMetrics(level);
+
+        merger.addCandidate(first);
+        merger.addCandidate(second);
+        merger.mergeCandidates();
+        assertEquals(1, merger.getCandidatesChecked());
+        assertEquals(1, merger.getCandidatesDeferred());
+        assertEquals(1, merger.getPendingCandidates());
+        assertEquals(0, merger.getMerges());
+        assertEquals(1, metrics.getMergeCandidatesDeferred());
+
+        merger.mergeCandidates();
+        assertEquals(2, merger.getCandidatesChecked());
+        assertEquals(0, merger.getPendingCandidates());
+        assertEquals(1, merger.getMerges());
+        assertEquals(2, second.getItem().getCount());
+    }
+
+    private EntityItem item(long id, int itemId, int count, double x, double z) {
+        EntityItem entity = mock(EntityItem.class);
+        Item item = Item.get(itemId, 0, count);
+        entity.x = x;
+        entity.y = 64;
+        entity.z = z;
+        doReturn(id).when(entity).getId();
+        doReturn(item).when(entity).getItem();
+        doReturn(level).when(entity).getLevel();
+        doReturn(true).when(entity).isAlive();
+        doReturn(true).when(entity).isOnGround();
+        doReturn(new HashMap<>()).when(entity).getViewers();
+        doAnswer(invocation -> entity.closed = true).when(entity).close();
+        chunk((int) x >> 4, (int) z >> 4).getEntities().put(id, entity);
+        return entity;
+    }
+
+    private BaseFullChunk chunk(int chunkX, int chunkZ) {
+        return chunks.computeIfAbsent(Level.chunkHash(chunkX, chunkZ), index -> {
+            BaseFullChunk chunk = mock(BaseFullChunk.class);
+            Map<Long, Entity> entities = new LinkedHashMap<>();
+            doReturn(entities).when(chunk).getEntities();
+            return chunk;
+        });
+    }
+
+    @BeforeEach
+    void setUp() {
+        PerformanceMetrics.setEnabled(true);
+        Server server = mock(Server.class, invocation -> {
+            if (invocation.getMethod().getName().equals("getConfig") && invocation.getArguments().length == 2) {
+                return config.getOrDefault(invocation.<String>getArgument(0), invocation.getArgument(1));
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+        level = mock(Level.class);
+        doReturn(server).when(level).getServer();
+        doReturn("MergeLevel").when(level).getFolderName();
+        doAnswer(invocation -> chunks.get(Level.chunkHash(invocation.getArgument(0), invocation.getArgument(1))))
+                .when(level).getChunkIfLoaded(anyInt(), anyInt());
+    }
+
+    @AfterEach
+    void tearDown() {
+        PerformanceMetrics.removeLevel(level);
+        PerformanceMetrics.setEnabled(false);
+    }
+}
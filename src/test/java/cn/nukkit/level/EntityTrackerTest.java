@@ -0,0 +1,162 @@
+package cn.nukkit.level;
+
+import cn.nukkit.Player;
+import cn.nukkit.Server;
+import cn.nukkit.entity.Entity;
+import cn.nukkit.entity.EntityActivationType;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.network.SourceInterface;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(PowerNukkitExtension.class)
+class EntityTrackerTest {
+    @Mock
+    SourceInterface sourceInterface;
+
+    Level level;
+
+    EntityTracker tracker;
+
+    final Map<Long, Player> players = new LinkedHashMap<>();
+
+    final Map<Long, BaseFullChunk> chunks = new HashMap<>();
+
+    @Test
+    void entityCrossingChunks() {
+        Player near = player(1, 0, 0, 0, 0, 1, 0);
+        Player far = player(2, 5, 5, 5, 5);
+        Entity entity = entity(10, 2, 0);
+
+        moveEntity(entity, 1, 0);
+        assertEquals(Map.of(near.getLoaderId(), near), entity.getViewers());
+        verify(entity, times(1)).spawnTo(near);
+        verify(entity, never()).spawnTo(far);
+
+        moveEntity(entity, 5, 5);
+        assertEquals(Map.of(far.getLoaderId(), far), entity.getViewers());
+        verify(entity, times(1)).despawnFrom(near);
+
+        // Nothing changes while the entity stays in the chunks of the same players
+        moveEntity(entity, 5, 5);
+        verify(entity, times(1)).spawnTo(far);
+        verify(entity, times(1)).despawnFrom(near);
+    }
+
+    @Test
+    void playerReceivingChunk() {
+        Player player = player(1, 0, 0, 0, 0);
+        Entity entity = entity(10, 3, 0);
+        moveEntity(entity, 3, 0);
+        assertTrue(entity.getViewers().isEmpty());
+
+        // Same as a chunk sent to the player
+        player.usedChunks.put(Level.chunkHash(3, 0), true);
+        tracker.onPlayerMoved(player);
+        tracker.update();
+        assertEquals(Map.of(player.getLoaderId(), player), entity.getViewers());
+
+        player.usedChunks.remove(Level.chunkHash(3, 0));
+        tracker.onPlayerMoved(player);
+        tracker.update();
+        assertTrue(entity.getViewers().isEmpty());
+        verify(entity, times(1)).spawnTo(player);
+        verify(entity, times(1)).despawnFrom(player);
+    }
+
+    private void moveEntity(Entity entity, int chunkX, int chunkZ) {
+        entity.chunk.getEntities().remove(entity.getId());
+        entity.chunk = chunk(chunkX, chunkZ);
+        entity.chunk.getEntities().put(entity.getId(), entity);
+        tracker.onEntityMoved(entity);
+        tracker.update();
+    }
+
+    private Player player(long id, int chunkX, int chunkZ, int... usedChunks) {
+        Player player = spy(new Player(sourceInterface, id, "1.2.3.4", 19132));
+        int loaderId = (int) id;
+        doReturn(id).when(player).getId();
+        doReturn(loaderId).when(player).getLoaderId();
+        doReturn(true).when(player).isOnline();
+        doReturn(level).when(player).getLevel();
+        doReturn(chunkX).when(player).getChunkX();
+        doReturn(chunkZ).when(player).getChunkZ();
+        player.spawned = true;
+        for (int i = 0; i < usedChunks.length; i += 2) {
+            player.usedChunks.put(Level.chunkHash(usedChunks[i], usedChunks[i + 1]), true);
+        }
+        players.put(id, player);
+        return player;
+    }
+
+    private Entity entity(long id, int chunkX, int chunkZ) {
+        Entity entity = mock(Entity.class);
+        Map<Integer, Player> viewers = new HashMap<>();
+        doReturn(id).when(entity).getId();
+        doReturn(true).when(entity).isAlive();
+        doReturn(level).when(entity).getLevel();
+        doReturn(viewers).when(entity).getViewers();
+        doReturn(EntityActivationType.ANIMAL).when(entity).getActivationType();
+        doAnswer(invocation -> {
+            Player player = invocation.getArgument(0);
+            viewers.put(player.getLoaderId(), player);
+            return null;
+        }).when(entity).spawnTo(any());
+        doAnswer(invocation -> {
+            Player player = invocation.getArgument(0);
+            viewers.remove(player.getLoaderId());
+            return null;
+        }).when(entity).despawnFrom(any());
+        entity.chunk = chunk(chunkX, chunkZ);
+        entity.chunk.getEntities().put(id, entity);
+        return entity;
+    }
+
+    private BaseFullChunk chunk(int chunkX, int chunkZ) {
+        return chunks.computeIfAbsent(Level.chunkHash(chunkX, chunkZ), index -> {
+            BaseFullChunk chunk = mock(BaseFullChunk.class);
+            Map<Long, Entity> entities = new HashMap<>();
+            doReturn(chunkX).when(chunk).getX();
+            doReturn(chunkZ).when(chunk).getZ();
+            doReturn(entities).when(chunk).getEntities();
+            return chunk;
+        });
+    }
+
+    @BeforeEach
+    void setUp() {
+        Server server = mock(Server.class, invocation -> {
+            if (invocation.getMethod().getName().equals("getConfig") && invocation.getArguments().length == 2) {
+                return invocation.getArgument(1);
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+        level = mock(Level.class);
+        doReturn(server).when(level).getServer();
+        doAnswer(invocation -> chunks.get(Level.chunkHash(invocation.getArgument(0), invocation.getArgument(1))))
+                .when(level).getChunkIfLoaded(anyInt(), anyInt());
+        doAnswer(invocation -> {
+            long index = Level.chunkHash(invocation.getArgument(0), invocation.getArgument(1));
+            Map<Integer, Player> loaders = new HashMap<>();
+            for (Player player : players.values()) {
+                if (player.usedChunks.containsKey(index)) {
+                    loaders.put(player.getLoaderId(), player);
+                }
+            }
+            return loaders;
+        }).when(level).getChunkPlayers(anyInt(), anyInt());
+        tracker = new EntityTracker(level);
+    }
+}
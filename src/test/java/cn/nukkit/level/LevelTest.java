@@ -6,6 +6,11 @@ import cn.nukkit.block.BlockID;
 import cn.nukkit.block.BlockPodzol;
 import cn.nukkit.blockstate.BlockState;
 import cn.nukkit.blockstate.BlockStateRegistry;
+import cn.nukkit.blockentity.BlockEntity;
+import cn.nukkit.blockentity.BlockEntityChest;
+import cn.nukkit.blockentity.BlockEntityHopper;
+import cn.nukkit.item.Item;
+import cn.nukkit.item.ItemID;
 import cn.nukkit.level.format.anvil.Anvil;
 import cn.nukkit.level.generator.Flat;
 import cn.nukkit.math.Vector3;
@@ -21,10 +26,13 @@ import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
 
 @ExtendWith(PowerNukkitExtension.class)
 class LevelTest {
@@ -34,6 +42,8 @@ class LevelTest {
     
     Level level;
 
+    int currentTick;
+
     @Test
     void repairing() throws Exception {
         logLevelAdjuster.onlyNow(BlockStateRegistry.class, org.apache.logging.log4j.Level.OFF, ()->
@@ -51,9 +61,89 @@ class LevelTest {
         assertEquals(BlockState.of(BlockID.PODZOL), level.getBlockStateAt(2, 2, 2));
     }
 
+    @Test
+    void hopperSleepsUntilWokenUp() {
+        Vector3 hopperPos = new Vector3(2, 10, 2);
+        Vector3 chestPos = hopperPos.up();
+        level.setBlock(hopperPos, Block.get(BlockID.HOPPER_BLOCK), true, false);
+        level.setBlock(chestPos, Block.get(BlockID.CHEST), true, false);
+        BlockEntityHopper hopper = (BlockEntityHopper) BlockEntity.createBlockEntity(BlockEntity.HOPPER,
+                level.getChunk(0, 0), BlockEntity.getDefaultCompound(hopperPos, BlockEntity.HOPPER));
+        BlockEntityChest chest = (BlockEntityChest) BlockEntity.createBlockEntity(BlockEntity.CHEST,
+                level.getChunk(0, 0), BlockEntity.getDefaultCompound(chestPos, BlockEntity.CHEST));
+
+        // Nothing to move, the hopper sleeps once its transfer cooldown is over
+        tickUntilSleeping(hopper);
+
+        hopper.getInventory().addItem(Item.get(ItemID.STICK));
+        assertFalse(hopper.isSleeping(), "A change of its inventory wakes the hopper up");
+        tickUntilSleeping(hopper);
+
+        chest.getInventory().addItem(Item.get(ItemID.DIAMOND));
+        assertFalse(hopper.isSleeping(), "A change of the inventory above wakes the hopper up");
+        tickUntilSleeping(hopper);
+        assertTrue(hopper.getInventory().contains(Item.get(ItemID.DIAMOND)));
+        assertTrue(chest.getInventory().isEmpty());
+
+        level.wakeUpBlockEntity(hopperPos.getFloorX(), hopperPos.getFloorY(), hopperPos.getFloorZ());
+        assertFalse(hopper.isSleeping(), "A neighbour block update wakes the hopper up");
+        tickUntilSleeping(hopper);
+
+        // Put the item above without letting the hopper pull it
+        hopper.setDisabled(true);
+        chest.getInventory().addItem(Item.get(ItemID.DIAMOND));
+        tickUntilSleeping(hopper);
+        hopper.setDisabled(false);
+
+        hopper.wakeUpAfter(5);
+        for (int i = 0; i < 4; i++) {
+            tick();
+        }
+        assertTrue(hopper.isSleeping());
+        assertFalse(chest.getInventory().isEmpty());
+        tick();
+        assertTrue(chest.getInventory().isEmpty(), "The hopper must pull the item once woken up");
+    }
+
+    @Test
+    void wakeUpDuringOwnUpdate() {
+        Vector3 pos = new Vector3(2, 10, 2);
+        level.setBlock(pos, Block.get(BlockID.HOPPER_BLOCK), true, false);
+        AtomicInteger updates = new AtomicInteger();
+        BlockEntityHopper hopper = new BlockEntityHopper(level.getChunk(0, 0), BlockEntity.getDefaultCompound(pos, BlockEntity.HOPPER)) {
+            @Override
+            public boolean onUpdate() {
+                if (updates.incrementAndGet() < 3) {
+                    wakeUp();
+                }
+                return false;
+            }
+        };
+
+        tick();
+        assertFalse(hopper.isSleeping(), "The wake up during the update must not be lost");
+        tick();
+        assertFalse(hopper.isSleeping());
+        tick();
+        assertTrue(hopper.isSleeping());
+        assertEquals(3, updates.get());
+    }
+
+    private void tick() {
+        level.tickBlockEntities(++currentTick);
+    }
+
+    private void tickUntilSleeping(BlockEntity blockEntity) {
+        for (int i = 0; i < 50 && !blockEntity.isSleeping(); i++) {
+            tick();
+        }
+        assertTrue(blockEntity.isSleeping());
+    }
+
     @BeforeEach
     void setUp() throws IOException {
         Server server = Server.getInstance();
+        doAnswer(invocation -> currentTick).when(server).getTick();
         levelFolder = new File(server.getDataPath(), "worlds/TestLevel");
         String path = levelFolder.getAbsolutePath()+File.separator;
         Anvil.generate(path, "TestLevel", 0, Flat.class);
@@ -0,0 +1,63 @@
+package cn.nukkit.level.explosion;
+
+import cn.nukkit.Server;
+import cn.nukkit.block.BlockID;
+import cn.nukkit.blockstate.BlockState;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.anvil.Anvil;
+import cn.nukkit.level.generator.Flat;
+import cn.nukkit.utils.Hash;
+import co.aikar.timings.Timings;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import org.iq80.leveldb.util.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(PowerNukkitExtension.class)
+class ExplosionRayCasterTest {
+    static final int Y = 20;
+
+    File levelFolder;
+
+    Level level;
+
+    @Test
+    void castRays() {
+        for (int x = -3; x <= 3; x++) {
+            for (int z = -3; z <= 3; z++) {
+                level.setBlockStateAt(x, Y - 1, z, BlockState.of(BlockID.DIRT));
+                level.setBlockStateAt(x, Y - 2, z, BlockState.of(BlockID.BEDROCK));
+            }
+        }
+
+        LongLinkedOpenHashSet affected = ExplosionRayCaster.castRays(level, 0.5, Y + 0.5, 0.5, 4);
+        assertTrue(affected.contains(Hash.hashBlockPosition(0, Y - 1, 0)));
+        assertTrue(affected.contains(Hash.hashBlockPosition(1, Y - 1, -1)));
+        for (long hash : affected) {
+            assertEquals(Y - 1, Hash.hashBlockPositionY(hash), "Only the dirt can be destroyed");
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Server server = Server.getInstance();
+        levelFolder = new File(server.getDataPath(), "worlds/ExplosionLevel");
+        String path = levelFolder.getAbsolutePath() + File.separator;
+        Anvil.generate(path, "ExplosionLevel", 0, Flat.class);
+        Timings.init();
+        level = new Level(server, "ExplosionLevel", path, Anvil.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        FileUtils.deleteRecursively(levelFolder);
+    }
+}
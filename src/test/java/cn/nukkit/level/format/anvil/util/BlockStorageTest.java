@@ -382,4 +382,30 @@ class BlockStorageTest {
         BinaryStream stream = new BinaryStream();
         blockStorage.writeTo(stream);
     }
+
+    @Test
+    void randomTickableBlockCount() {
+        BlockState grass = BlockState.of(BlockID.GRASS);
+        assertEquals(0, blockStorage.getRandomTickableBlockCount());
+        assertFalse(blockStorage.hasRandomTickableBlocks());
+
+        blockStorage.setBlockState(x, y, z, STONE);
+        assertEquals(0, blockStorage.getRandomTickableBlockCount());
+
+        blockStorage.setBlockState(x, y, z, grass);
+        blockStorage.setBlockState(x, y + 1, z, grass);
+        assertEquals(2, blockStorage.getRandomTickableBlockCount());
+        assertTrue(blockStorage.hasRandomTickableBlocks());
+
+        blockStorage.setBlockState(x, y, z, grass);
+        assertEquals(2, blockStorage.getRandomTickableBlockCount());
+
+        blockStorage.setBlockState(x, y, z, DIRT);
+        assertEquals(1, blockStorage.getRandomTickableBlockCount());
+        assertEquals(1, blockStorage.copy().getRandomTickableBlockCount());
+
+        blockStorage.setBlockState(x, y + 1, z, AIR);
+        assertEquals(0, blockStorage.getRandomTickableBlockCount());
+        assertFalse(blockStorage.hasRandomTickableBlocks());
+    }
 }
@@ -0,0 +1,103 @@
+package cn.nukkit.level.format.generic;
+
+import cn.nukkit.Server;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.anvil.Anvil;
+import cn.nukkit.level.generator.Flat;
+import co.aikar.timings.Timings;
+import org.iq80.leveldb.util.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(PowerNukkitExtension.class)
+class BaseLevelProviderTest {
+    static final int CHUNKS = 10;
+
+    File levelFolder;
+
+    Level level;
+
+    BaseLevelProvider provider;
+
+    @Test
+    void idleScanResumes() {
+        int loaded = provider.getLoadedChunkCount();
+        List<BaseFullChunk> first = next(4);
+        List<BaseFullChunk> rest = next(loaded - 4);
+        Set<BaseFullChunk> seen = new HashSet<>(first);
+        seen.addAll(rest);
+        assertEquals(loaded, seen.size(), "Every chunk must be looked at once per cycle");
+        assertEquals(first, next(4), "The next cycle must start again with the first chunks");
+    }
+
+    @Test
+    void idleScanSkipsUsedAndUnloadedChunks() {
+        BaseFullChunk used = provider.getLoadedChunk(1, 0);
+        used.touch(50);
+        assertTrue(provider.unloadChunk(2, 0, false));
+
+        Set<BaseFullChunk> idle = new HashSet<>(next(provider.getLoadedChunkCount() + 1));
+        assertFalse(idle.contains(used));
+        assertEquals(provider.getLoadedChunkCount() - 1, idle.size());
+        assertTrue(idle.stream().noneMatch(chunk -> chunk.getX() == 2 && chunk.getZ() == 0));
+
+        // A lookup is not a use, only the load, the tick and the send touch the chunk
+        provider.getLoadedChunk(3, 0);
+        assertTrue(next(provider.getLoadedChunkCount()).contains(provider.getLoadedChunk(3, 0)));
+    }
+
+    @Test
+    void loadedChunksSnapshot() {
+        Map<Long, BaseFullChunk> snapshot = provider.getLoadedChunks();
+        assertSame(snapshot, provider.getLoadedChunks(), "The snapshot must only be copied after a change");
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(Level.chunkHash(0, 0)));
+
+        BaseFullChunk added = provider.getChunk(CHUNKS, 0, true);
+        Map<Long, BaseFullChunk> changed = provider.getLoadedChunks();
+        assertNotSame(snapshot, changed);
+        assertFalse(snapshot.containsKey(added.getIndex()));
+        assertSame(added, changed.get(added.getIndex()));
+
+        assertTrue(provider.unloadChunk(CHUNKS, 0, false));
+        assertFalse(provider.isChunkLoaded(CHUNKS, 0));
+        assertFalse(provider.getLoadedChunks().containsKey(added.getIndex()));
+    }
+
+    private List<BaseFullChunk> next(int maxChecks) {
+        List<BaseFullChunk> idle = new ArrayList<>();
+        provider.forEachIdleChunk(10, maxChecks, idle::add);
+        return idle;
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Server server = Server.getInstance();
+        levelFolder = new File(server.getDataPath(), "worlds/ProviderLevel");
+        String path = levelFolder.getAbsolutePath() + File.separator;
+        Anvil.generate(path, "ProviderLevel", 0, Flat.class);
+        Timings.init();
+        level = new Level(server, "ProviderLevel", path, Anvil.class);
+        provider = (BaseLevelProvider) level.getProvider();
+        for (int x = 0; x < CHUNKS; x++) {
+            provider.getChunk(x, 0, true);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        FileUtils.deleteRecursively(levelFolder);
+    }
+}
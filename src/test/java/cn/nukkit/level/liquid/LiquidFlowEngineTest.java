@@ -0,0 +1,117 @@
+package cn.nukkit.level.liquid;
+
+import cn.nukkit.Server;
+import cn.nukkit.block.Block;
+import cn.nukkit.block.BlockID;
+import cn.nukkit.block.BlockLiquid;
+import cn.nukkit.blockstate.BlockState;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.anvil.Anvil;
+import cn.nukkit.level.generator.Flat;
+import co.aikar.timings.Timings;
+import org.iq80.leveldb.util.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(PowerNukkitExtension.class)
+class LiquidFlowEngineTest {
+    static final int Y = 10;
+    static final int LAKE_SIZE = 16;
+    static final int MAX_PASSES = 64;
+
+    File levelFolder;
+
+    Level level;
+
+    LiquidFlowEngine engine;
+
+    @Test
+    void optimalFlowDirections() {
+        for (int x = -4; x <= 4; x++) {
+            for (int z = -4; z <= 4; z++) {
+                level.setBlockStateAt(x, Y - 1, z, BlockState.of(BlockID.STONE));
+            }
+        }
+        level.setBlockStateAt(2, Y - 1, 0, BlockState.AIR);
+        level.setBlockStateAt(0, Y, 0, BlockState.of(BlockID.FLOWING_WATER));
+        BlockLiquid water = (BlockLiquid) level.getBlock(0, Y, 0);
+
+        assertEquals(0x2, engine.getOptimalFlowDirections(water));
+
+        // The memoized status of the hole must be forgotten
+        level.setBlockStateAt(2, Y - 1, 0, BlockState.of(BlockID.STONE));
+        assertEquals(0xF, engine.getOptimalFlowDirections(water));
+
+        level.setBlockStateAt(-1, Y, 0, BlockState.of(BlockID.STONE));
+        assertEquals(0xE, engine.getOptimalFlowDirections(water));
+    }
+
+    @Test
+    void flowDecay() {
+        level.setBlockStateAt(0, Y, 0, BlockState.of(BlockID.FLOWING_WATER, 3));
+        assertEquals(3, engine.getFlowDecay(BlockID.FLOWING_WATER, 0, Y, 0));
+        assertEquals(-1, engine.getFlowDecay(BlockID.STILL_WATER, 0, Y, 0));
+        assertEquals(-1, engine.getFlowDecay(BlockID.FLOWING_WATER, 1, Y, 0));
+    }
+
+    /**
+     * Drains a small lake without sources, the 64x64 lake is measured by the {@code LiquidDrainBenchmark} of the
+     * benchmark module.
+     */
+    @Test
+    void drainLake() {
+        for (int x = -1; x <= LAKE_SIZE; x++) {
+            for (int z = -1; z <= LAKE_SIZE; z++) {
+                level.setBlockStateAt(x, Y - 1, z, BlockState.of(BlockID.STONE));
+                boolean wall = x < 0 || z < 0 || x == LAKE_SIZE || z == LAKE_SIZE;
+                level.setBlockStateAt(x, Y, z, wall ? BlockState.of(BlockID.STONE) : BlockState.of(BlockID.FLOWING_WATER, 1));
+            }
+        }
+
+        int passes = 0;
+        boolean drained = false;
+        while (!drained && passes++ < MAX_PASSES) {
+            drained = true;
+            for (int x = 0; x < LAKE_SIZE; x++) {
+                for (int z = 0; z < LAKE_SIZE; z++) {
+                    Block block = level.getBlock(x, Y, z);
+                    if (block instanceof BlockLiquid) {
+                        drained = false;
+                        block.onUpdate(Level.BLOCK_UPDATE_SCHEDULED);
+                    }
+                }
+            }
+        }
+
+        assertTrue(drained, "The lake was not drained after " + MAX_PASSES + " passes");
+        for (int x = 0; x < LAKE_SIZE; x++) {
+            for (int z = 0; z < LAKE_SIZE; z++) {
+                assertEquals(BlockID.AIR, level.getBlockIdAt(x, Y, z), "x:" + x + " z:" + z);
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Server server = Server.getInstance();
+        levelFolder = new File(server.getDataPath(), "worlds/LiquidLevel");
+        String path = levelFolder.getAbsolutePath() + File.separator;
+        Anvil.generate(path, "LiquidLevel", 0, Flat.class);
+        Timings.init();
+        level = new Level(server, "LiquidLevel", path, Anvil.class);
+        engine = level.getLiquidFlowEngine();
+    }
+
+    @AfterEach
+    void tearDown() {
+        FileUtils.deleteRecursively(levelFolder);
+    }
+}
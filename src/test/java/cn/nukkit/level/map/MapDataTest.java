@@ -0,0 +1,55 @@
+package cn.nukkit.level.map;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+class MapDataTest {
+    private static MapData map(byte[] colors) {
+        return new MapData(7, "world", -128, 256, colors, new BitSet());
+    }
+
+    @Test
+    void marksOnlyItsColumnsDirty() {
+        MapData map = map(new byte[MapData.SIZE * MapData.SIZE * MapData.BYTES_PER_PIXEL]);
+        assertFalse(map.isDirty());
+
+        map.markDirty(0, 256);
+        map.markDirty(-129, 300);
+        assertFalse(map.isDirty());
+
+        map.markDirty(-1, 383);
+        assertTrue(map.isDirty());
+        BitSet dirty = map.copyDirty();
+        assertEquals(1, dirty.cardinality());
+        assertTrue(dirty.get(MapData.SIZE * MapData.SIZE - 1));
+
+        map.clearDirty(dirty);
+        assertFalse(map.isDirty());
+
+        map.markAllDirty();
+        assertEquals(MapData.SIZE * MapData.SIZE, map.copyDirty().cardinality());
+    }
+
+    @Test
+    void readsTheColoursAsArgb() {
+        byte[] colors = new byte[MapData.SIZE * MapData.SIZE * MapData.BYTES_PER_PIXEL];
+        int offset = (2 * MapData.SIZE + 1) * MapData.BYTES_PER_PIXEL;
+        colors[offset] = (byte) 0x12;
+        colors[offset + 1] = (byte) 0x34;
+        colors[offset + 2] = (byte) 0x56;
+        colors[offset + 3] = (byte) 0xFF;
+
+        MapData map = map(colors);
+        assertEquals(0xFF123456, map.getColor(1, 2));
+        assertEquals(0, map.getColor(2, 1));
+        assertTrue(map.contains(-128, 256));
+        assertFalse(map.contains(0, 256));
+    }
+}
@@ -0,0 +1,163 @@
+package cn.nukkit.level.redstone;
+
+import cn.nukkit.Server;
+import cn.nukkit.block.BlockID;
+import cn.nukkit.block.BlockRedstoneWire;
+import cn.nukkit.blockstate.BlockState;
+import cn.nukkit.event.block.BlockRedstoneEvent;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.anvil.Anvil;
+import cn.nukkit.level.generator.Flat;
+import cn.nukkit.plugin.PluginManager;
+import co.aikar.timings.Timings;
+import org.iq80.leveldb.util.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(PowerNukkitExtension.class)
+class AlternateCurrentWireEngineTest {
+    static final int Y = 10;
+    static final int LENGTH = 20;
+
+    File levelFolder;
+
+    Level level;
+
+    AlternateCurrentWireEngine engine;
+
+    @Test
+    void powerLine() {
+        level.setBlockStateAt(0, Y, 0, BlockState.of(BlockID.REDSTONE_BLOCK));
+        for (int x = 1; x <= LENGTH; x++) {
+            level.setBlockStateAt(x, Y - 1, 0, BlockState.of(BlockID.STONE));
+            level.setBlockStateAt(x, Y, 0, BlockState.of(BlockID.REDSTONE_WIRE));
+        }
+
+        assertTrue(engine.updateWire((BlockRedstoneWire) level.getBlock(LENGTH, Y, 0)));
+        for (int x = 1; x <= LENGTH; x++) {
+            assertEquals(Math.max(0, 16 - x), level.getBlockDataAt(x, Y, 0), "x:" + x);
+        }
+
+        assertFalse(engine.updateWire((BlockRedstoneWire) level.getBlock(1, Y, 0)));
+
+        level.setBlockStateAt(0, Y, 0, BlockState.AIR);
+        assertTrue(engine.updateWire((BlockRedstoneWire) level.getBlock(1, Y, 0)));
+        for (int x = 1; x <= LENGTH; x++) {
+            assertEquals(0, level.getBlockDataAt(x, Y, 0), "x:" + x);
+        }
+    }
+
+    @Test
+    void breakWireInPoweredLine() {
+        placePoweredLine(0);
+        assertTrue(engine.updateWire((BlockRedstoneWire) level.getBlock(LENGTH, Y, 0)));
+
+        // Same order as BlockRedstoneWire.onBreak, the wire is already gone when the engine is called
+        BlockRedstoneWire broken = (BlockRedstoneWire) level.getBlock(10, Y, 0);
+        level.setBlockStateAt(10, Y, 0, BlockState.AIR);
+        assertTrue(engine.updateWire(broken));
+
+        assertEquals(BlockID.AIR, level.getBlockIdAt(10, Y, 0));
+        for (int x = 1; x < 10; x++) {
+            assertEquals(16 - x, level.getBlockDataAt(x, Y, 0), "x:" + x);
+        }
+        for (int x = 11; x <= LENGTH; x++) {
+            assertEquals(0, level.getBlockDataAt(x, Y, 0), "x:" + x);
+        }
+
+        assertFalse(engine.updateWire(broken));
+    }
+
+    @Test
+    void branchingNetwork() {
+        placePoweredLine(0);
+        for (int z = 1; z <= 6; z++) {
+            level.setBlockStateAt(4, Y - 1, z, BlockState.of(BlockID.STONE));
+            level.setBlockStateAt(4, Y, z, BlockState.of(BlockID.REDSTONE_WIRE));
+        }
+
+        assertTrue(engine.updateWire((BlockRedstoneWire) level.getBlock(4, Y, 6)));
+        for (int x = 1; x <= LENGTH; x++) {
+            assertEquals(Math.max(0, 16 - x), level.getBlockDataAt(x, Y, 0), "x:" + x);
+        }
+        for (int z = 1; z <= 6; z++) {
+            assertEquals(12 - z, level.getBlockDataAt(4, Y, z), "z:" + z);
+        }
+
+        // A second source at the end of the branch is stronger for the wires close to it
+        level.setBlockStateAt(4, Y, 7, BlockState.of(BlockID.REDSTONE_BLOCK));
+        assertTrue(engine.updateWire((BlockRedstoneWire) level.getBlock(4, Y, 6)));
+        for (int z = 1; z <= 6; z++) {
+            assertEquals(Math.max(12 - z, 9 + z), level.getBlockDataAt(4, Y, z), "z:" + z);
+        }
+        assertEquals(11, level.getBlockDataAt(5, Y, 0));
+
+        level.setBlockStateAt(0, Y, 0, BlockState.AIR);
+        level.setBlockStateAt(4, Y, 7, BlockState.AIR);
+        assertTrue(engine.updateWire((BlockRedstoneWire) level.getBlock(1, Y, 0)));
+        for (int x = 1; x <= LENGTH; x++) {
+            assertEquals(0, level.getBlockDataAt(x, Y, 0), "x:" + x);
+        }
+        for (int z = 1; z <= 6; z++) {
+            assertEquals(0, level.getBlockDataAt(4, Y, z), "z:" + z);
+        }
+    }
+
+    @Test
+    void updateWhileApplyingChanges() {
+        placePoweredLine(0);
+        placePoweredLine(4);
+        PluginManager pluginManager = mock(PluginManager.class);
+        BlockRedstoneWire other = (BlockRedstoneWire) level.getBlock(LENGTH, Y, 4);
+        doAnswer(invocation -> engine.updateWire(other)).when(pluginManager).callEvent(any(BlockRedstoneEvent.class));
+        when(level.getServer().getPluginManager()).thenReturn(pluginManager);
+
+        assertTrue(engine.updateWire((BlockRedstoneWire) level.getBlock(LENGTH, Y, 0)));
+        for (int x = 1; x <= LENGTH; x++) {
+            assertEquals(Math.max(0, 16 - x), level.getBlockDataAt(x, Y, 0), "x:" + x);
+            assertEquals(Math.max(0, 16 - x), level.getBlockDataAt(x, Y, 4), "x:" + x);
+        }
+    }
+
+    private void placePoweredLine(int z) {
+        level.setBlockStateAt(0, Y, z, BlockState.of(BlockID.REDSTONE_BLOCK));
+        for (int x = 1; x <= LENGTH; x++) {
+            level.setBlockStateAt(x, Y - 1, z, BlockState.of(BlockID.STONE));
+            level.setBlockStateAt(x, Y, z, BlockState.of(BlockID.REDSTONE_WIRE));
+        }
+    }
+
+    @Test
+    void fromConfig() {
+        assertEquals(RedstoneWireMode.LEGACY, RedstoneWireMode.fromConfig("Legacy"));
+        assertEquals(RedstoneWireMode.ALTERNATE_CURRENT, RedstoneWireMode.fromConfig("alternate_current"));
+        assertEquals(RedstoneWireMode.ALTERNATE_CURRENT, RedstoneWireMode.fromConfig(null));
+        assertNull(RedstoneWireMode.LEGACY.createEngine(level));
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Server server = Server.getInstance();
+        levelFolder = new File(server.getDataPath(), "worlds/WireLevel");
+        String path = levelFolder.getAbsolutePath() + File.separator;
+        Anvil.generate(path, "WireLevel", 0, Flat.class);
+        Timings.init();
+        level = new Level(server, "WireLevel", path, Anvil.class);
+        engine = new AlternateCurrentWireEngine(level);
+    }
+
+    @AfterEach
+    void tearDown() {
+        FileUtils.deleteRecursively(levelFolder);
+    }
+}
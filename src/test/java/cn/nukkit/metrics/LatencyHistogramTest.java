@@ -0,0 +1,47 @@
+package cn.nukkit.metrics;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+class LatencyHistogramTest {
+    @Test
+    void bucketsCoverEveryValueInOrder() {
+        int previous = -1;
+        for (long micros = 0; micros < 1 << 20; micros++) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(bucket == previous || bucket == previous + 1, "Bucket of " + micros);
+            assertTrue(micros <= LatencyHistogram.highestValueOf(bucket), "Highest value of " + micros);
+            // At most 1/16 above the real value
+            assertTrue(LatencyHistogram.highestValueOf(bucket) - micros <= micros / 16, "Error of " + micros);
+            previous = bucket;
+        }
+    }
+
+    @Test
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMillis(99));
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMeanMillis(), 0.001);
+        assertEquals(100, histogram.getMaxMillis(), 0.001);
+        assertEquals(50, histogram.getPercentileMillis(50), 50 / 16.0);
+        assertEquals(99, histogram.getPercentileMillis(99), 99 / 16.0);
+        assertEquals(100, histogram.getPercentileMillis(100), 0.001);
+        assertEquals(50, histogram.getCountAtMost(50, TimeUnit.MILLISECONDS), 2);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getCountAtMost(1, TimeUnit.SECONDS));
+    }
+}
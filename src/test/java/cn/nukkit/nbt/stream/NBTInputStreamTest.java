@@ -0,0 +1,86 @@
+package cn.nukkit.nbt.stream;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.nbt.NBTIO;
+import cn.nukkit.nbt.tag.CompoundTag;
+import cn.nukkit.nbt.tag.DoubleTag;
+import cn.nukkit.nbt.tag.ListTag;
+import cn.nukkit.nbt.tag.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+class NBTInputStreamTest {
+    private static CompoundTag createTag() {
+        ListTag<CompoundTag> entities = new ListTag<>("Entities");
+        for (int i = 0; i < 3; i++) {
+            entities.add(new CompoundTag()
+                    .putString("id", "Item")
+                    .putInt("index", i)
+                    .putList(new ListTag<DoubleTag>("Pos").add(new DoubleTag("", i)))
+                    .putByteArray("data", new byte[]{1, 2, 3})
+                    .putIntArray("ints", new int[]{4, 5}));
+        }
+        return new CompoundTag("root")
+                .putCompound("skipped", new CompoundTag().putLong("long", 42L).putString("text", "skip me"))
+                .putList(entities)
+                .putFloat("float", 1.5f)
+                .putShort("short", 7);
+    }
+
+    @Test
+    void visitSkipsUnreadEntries() throws IOException {
+        for (boolean network : new boolean[]{false, true}) {
+            byte[] data = NBTIO.write(createTag(), ByteOrder.LITTLE_ENDIAN, network);
+            try (NBTInputStream stream = new NBTInputStream(new ByteArrayInputStream(data), ByteOrder.LITTLE_ENDIAN, network)) {
+                assertEquals(Tag.TAG_Compound, stream.readByte());
+                assertEquals("root", stream.readUTF());
+                List<String> read = new ArrayList<>();
+                stream.visitCompound((input, type, name) -> {
+                    if (!"short".equals(name)) {
+                        return false;
+                    }
+                    read.add(name);
+                    assertEquals(7, input.readShort());
+                    return true;
+                });
+                assertEquals(List.of("short"), read);
+                assertEquals(0, stream.available());
+            }
+        }
+    }
+
+    @Test
+    void lazyListDecodesOnFirstUse() throws IOException {
+        CompoundTag expected = createTag();
+        byte[] data = NBTIO.write(expected, ByteOrder.BIG_ENDIAN);
+        List<List<CompoundTag>> lists = new ArrayList<>();
+        try (NBTInputStream stream = new NBTInputStream(new ByteArrayInputStream(data), ByteOrder.BIG_ENDIAN)) {
+            stream.readByte();
+            stream.readUTF();
+            stream.visitCompound((input, type, name) -> {
+                if (!"Entities".equals(name)) {
+                    return false;
+                }
+                lists.add(input.readLazyList());
+                return true;
+            });
+        }
+
+        assertEquals(1, lists.size());
+        LazyTagList<CompoundTag> lazy = (LazyTagList<CompoundTag>) lists.get(0);
+        assertEquals(3, lazy.size());
+        assertFalse(lazy.isDecoded());
+        assertEquals(expected.getList("Entities", CompoundTag.class).getAll(), new ArrayList<>(lazy));
+        assertTrue(lazy.isDecoded());
+    }
+}
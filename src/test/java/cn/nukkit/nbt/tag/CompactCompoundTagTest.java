@@ -0,0 +1,101 @@
+package cn.nukkit.nbt.tag;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.nbt.NBTIO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+class CompactCompoundTagTest {
+    private static CompoundTag fill(CompoundTag tag) {
+        tag.putByte("byte", -3)
+                .putShort("short", 300)
+                .putInt("int", 123456)
+                .putLong("long", 1L << 40)
+                .putFloat("float", 1.25f)
+                .putDouble("double", -2.5)
+                .putString("string", "text")
+                .putByteArray("bytes", new byte[]{1, 2})
+                .putIntArray("ints", new int[]{3, 4})
+                .putList(new ListTag<IntTag>("list").add(new IntTag("", 5)))
+                .putCompound("nested", new CompoundTag().putInt("value", 6));
+        // Enough keys to use the hash index
+        for (int i = 0; i < 10; i++) {
+            tag.putInt("key" + i, i);
+        }
+        return tag;
+    }
+
+    @Test
+    void sameContentAsCompoundTag() {
+        CompoundTag expected = fill(new CompoundTag());
+        CompoundTag compact = fill(new CompactCompoundTag());
+        assertEquals(expected, compact);
+        assertEquals(compact, expected);
+        assertEquals(expected.hashCode(), compact.hashCode());
+        assertEquals(123456, compact.getInt("int"));
+        assertEquals(1L << 40, compact.getLong("long"));
+        assertEquals(1.25f, compact.getFloat("float"));
+        assertEquals(-2.5, compact.getDouble("double"));
+        assertEquals(-3, compact.getByte("byte"));
+        assertEquals("300", compact.getString("short"));
+        assertTrue(compact.containsShort("short"));
+        assertFalse(compact.containsInt("short"));
+        assertEquals(new IntTag("int", 123456), compact.get("int"));
+        assertEquals(expected.copy(), compact.copy());
+    }
+
+    @Test
+    void binaryRoundTrip() throws IOException {
+        CompoundTag expected = fill(new CompoundTag("root"));
+        CompoundTag compact = NBTIO.readCompact(NBTIO.write(expected, ByteOrder.LITTLE_ENDIAN), ByteOrder.LITTLE_ENDIAN);
+        assertTrue(compact instanceof CompactCompoundTag);
+        assertTrue(compact.getCompound("nested") instanceof CompactCompoundTag);
+        assertEquals(expected, compact);
+        assertEquals(expected, NBTIO.read(NBTIO.write(compact, ByteOrder.LITTLE_ENDIAN), ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test
+    void removeAndOverwrite() {
+        CompoundTag compact = fill(new CompactCompoundTag());
+        compact.remove("key3");
+        compact.putString("int", "replaced");
+        assertFalse(compact.contains("key3"));
+        assertEquals(9, compact.getInt("key9"));
+        assertEquals("replaced", compact.getString("int"));
+        assertEquals(fill(new CompoundTag()).remove("key3").putString("int", "replaced"), compact);
+    }
+
+    @Test
+    void returnedTagsStayLive() throws IOException {
+        CompoundTag compact = NBTIO.readCompact(NBTIO.write(fill(new CompoundTag()), ByteOrder.LITTLE_ENDIAN), ByteOrder.LITTLE_ENDIAN);
+        IntTag tag = (IntTag) compact.get("int");
+        tag.data = 7;
+        assertSame(tag, compact.get("int"));
+        assertEquals(7, compact.getInt("int"));
+        ((DoubleTag) compact.getAllTags().stream().filter(t -> t.getName().equals("double")).findFirst().orElseThrow()).data = 4.5;
+        assertEquals(4.5, compact.getDouble("double"));
+
+        FloatTag put = new FloatTag("float", 1);
+        compact.put("float", put);
+        put.data = 2;
+        assertEquals(2, compact.getFloat("float"));
+
+        CompoundTag expected = fill(new CompoundTag()).putInt("int", 7).putDouble("double", 4.5).putFloat("float", 2);
+        assertEquals(expected, NBTIO.read(NBTIO.write(compact, ByteOrder.LITTLE_ENDIAN), ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test
+    void keysShared() throws IOException {
+        byte[] data = NBTIO.write(fill(new CompoundTag()), ByteOrder.LITTLE_ENDIAN);
+        CompoundTag first = NBTIO.readCompact(data, ByteOrder.LITTLE_ENDIAN);
+        CompoundTag second = NBTIO.readCompact(data, ByteOrder.LITTLE_ENDIAN);
+        assertSame(first.get("long").getName(), second.get("long").getName());
+    }
+}
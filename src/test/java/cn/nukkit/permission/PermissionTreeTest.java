@@ -0,0 +1,103 @@
+package cn.nukkit.permission;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import cn.nukkit.plugin.PluginManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@ExtendWith(MockitoExtension.class)
+class PermissionTreeTest {
+    @Mock
+    PluginManager pluginManager;
+
+    final Map<String, Permission> permissions = new HashMap<>();
+    final Map<String, Permission> defaults = new HashMap<>();
+
+    PermissionTree tree;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(pluginManager.getPermission(anyString())).thenAnswer(call -> permissions.get(call.<String>getArgument(0)));
+        lenient().when(pluginManager.getDefaultPermissions(false)).thenReturn(defaults);
+        lenient().when(pluginManager.getDefaultPermissions(true)).thenReturn(new HashMap<>());
+        tree = new PermissionTree(pluginManager);
+    }
+
+    private void register(Permission permission, boolean byDefault) {
+        permissions.put(permission.getName(), permission);
+        if (byDefault) {
+            defaults.put(permission.getName(), permission);
+        }
+    }
+
+    private static Permission permission(String name, Map<String, Boolean> children) {
+        return new Permission(name, null, Permission.DEFAULT_FALSE, new HashMap<>(children)) {
+            @Override
+            public void recalculatePermissibles() {
+                // No server in this test
+            }
+        };
+    }
+
+    @Test
+    void defaultsWithChildren() {
+        register(permission("plugin.*", Map.of("plugin.use", true, "plugin.admin", false)), true);
+
+        PermissionSnapshot snapshot = tree.resolve(List.of(tree.getDefaults(false)));
+        assertTrue(snapshot.getValue(tree.indexOf("plugin.*")));
+        assertTrue(snapshot.getValue(tree.indexOf("plugin.use")));
+        assertTrue(snapshot.isSet(tree.indexOf("plugin.admin")));
+        assertFalse(snapshot.getValue(tree.indexOf("plugin.admin")));
+        assertEquals(-1, tree.indexOf("plugin.unknown"));
+        assertFalse(snapshot.isSet(-1));
+    }
+
+    @Test
+    void laterAttachmentsOverrideAndSnapshotsAreShared() {
+        register(permission("plugin.use", Map.of()), true);
+
+        PermissionTree.Layer deny = tree.compile(Map.of("plugin.use", false));
+        PermissionTree.Layer grant = tree.compile(Map.of("plugin.use", true, "plugin.fly", true));
+        assertSame(deny, tree.compile(new HashMap<>(Map.of("plugin.use", false))));
+
+        PermissionSnapshot denied = tree.resolve(List.of(tree.getDefaults(false), deny));
+        assertFalse(denied.getValue(tree.indexOf("plugin.use")));
+
+        PermissionSnapshot granted = tree.resolve(List.of(tree.getDefaults(false), deny, grant));
+        assertTrue(granted.getValue(tree.indexOf("plugin.use")));
+        assertTrue(granted.getValue(tree.indexOf("plugin.fly")));
+        assertEquals(2, granted.size());
+
+        assertSame(granted, tree.resolve(List.of(tree.getDefaults(false), deny, grant)));
+    }
+
+    @Test
+    void cyclesAndInvalidation() {
+        register(permission("a", Map.of("b", true)), true);
+        register(permission("b", Map.of("a", true)), false);
+
+        PermissionSnapshot snapshot = tree.resolve(List.of(tree.getDefaults(false)));
+        assertTrue(snapshot.isSet(tree.indexOf("b")));
+        assertEquals(tree.getVersion(), snapshot.getVersion());
+
+        int index = tree.indexOf("b");
+        tree.invalidate();
+        assertNotEquals(tree.getVersion(), snapshot.getVersion());
+        assertEquals(index, tree.indexOf("b"));
+        assertNotSame(snapshot, tree.resolve(List.of(tree.getDefaults(false))));
+    }
+}
@@ -0,0 +1,79 @@
+package cn.nukkit.scheduler;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+class AsyncWorkerPoolTest {
+    @Test
+    void urgentLanesRunFirst() throws InterruptedException {
+        AsyncWorkerPool pool = AsyncWorkerPool.fixed("Test", 1, 16, AsyncRejectionPolicy.ABORT);
+        CountDownLatch blocker = new CountDownLatch(1);
+        occupy(pool, blocker);
+
+        List<AsyncTaskPriority> order = new CopyOnWriteArrayList<>();
+        pool.execute(() -> order.add(AsyncTaskPriority.PLUGIN), AsyncTaskPriority.PLUGIN);
+        pool.execute(() -> order.add(AsyncTaskPriority.GENERATION), AsyncTaskPriority.GENERATION);
+        pool.execute(() -> order.add(AsyncTaskPriority.CHUNK_SEND), AsyncTaskPriority.CHUNK_SEND);
+        assertEquals(3, pool.getQueueDepth());
+        assertEquals(1, pool.getQueueDepth(AsyncTaskPriority.GENERATION));
+
+        blocker.countDown();
+        assertTrue(pool.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(List.of(AsyncTaskPriority.CHUNK_SEND, AsyncTaskPriority.GENERATION, AsyncTaskPriority.PLUGIN), order);
+        assertEquals(4, pool.getCompletedCount());
+        assertEquals(0, pool.getQueueDepth());
+    }
+
+    @Test
+    void fullQueueAppliesThePolicy() throws InterruptedException {
+        CountDownLatch blocker = new CountDownLatch(1);
+        AsyncWorkerPool abort = AsyncWorkerPool.workStealing("Abort", 1, 1, AsyncRejectionPolicy.ABORT);
+        occupy(abort, blocker);
+        abort.execute(() -> awaitQuietly(blocker), AsyncTaskPriority.PLUGIN);
+        assertThrows(RejectedExecutionException.class, () -> abort.execute(() -> {}, AsyncTaskPriority.PLUGIN));
+        assertEquals(1, abort.getRejectedCount());
+
+        AsyncWorkerPool callerRuns = AsyncWorkerPool.fixed("CallerRuns", 1, 1, AsyncRejectionPolicy.CALLER_RUNS);
+        occupy(callerRuns, blocker);
+        callerRuns.execute(() -> awaitQuietly(blocker), AsyncTaskPriority.PLUGIN);
+        Thread caller = Thread.currentThread();
+        Thread[] ranOn = new Thread[1];
+        callerRuns.execute(() -> ranOn[0] = Thread.currentThread(), AsyncTaskPriority.PLUGIN);
+        assertSame(caller, ranOn[0]);
+
+        blocker.countDown();
+        assertTrue(abort.shutdown(5, TimeUnit.SECONDS));
+        assertTrue(callerRuns.shutdown(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Keeps the only worker of the pool busy until the blocker is released.
+     */
+    private static void occupy(AsyncWorkerPool pool, CountDownLatch blocker) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            awaitQuietly(blocker);
+        }, AsyncTaskPriority.PLUGIN);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
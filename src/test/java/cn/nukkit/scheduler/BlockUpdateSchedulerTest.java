@@ -0,0 +1,74 @@
+package cn.nukkit.scheduler;
+
+import cn.nukkit.block.Block;
+import cn.nukkit.block.BlockID;
+import cn.nukkit.math.SimpleAxisAlignedBB;
+import cn.nukkit.math.Vector3;
+import cn.nukkit.utils.BlockUpdateEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(PowerNukkitExtension.class)
+class BlockUpdateSchedulerTest {
+    private final BlockUpdateScheduler scheduler = new BlockUpdateScheduler(null, 0);
+
+    private static BlockUpdateEntry entry(Vector3 pos, long delay) {
+        return new BlockUpdateEntry(pos, Block.get(BlockID.FLOWING_WATER), delay, 0);
+    }
+
+    @Test
+    void removeEntry() {
+        Vector3 pos = new Vector3(1, 2, 3);
+        BlockUpdateEntry entry = entry(pos, 5);
+        scheduler.add(entry);
+        assertTrue(scheduler.contains(entry(pos, 10)));
+
+        assertTrue(scheduler.remove(entry(pos, 10)));
+        assertFalse(scheduler.contains(entry));
+        assertFalse(scheduler.remove(entry));
+
+        scheduler.add(entry(pos, 8));
+        assertTrue(scheduler.contains(entry));
+    }
+
+    @Test
+    void removePosition() {
+        Vector3 pos = new Vector3(1, 2, 3);
+        BlockUpdateEntry entry = entry(pos, 5);
+        scheduler.add(entry);
+        scheduler.add(entry(new Vector3(1, 2, 4), 5));
+
+        assertTrue(scheduler.remove(pos));
+        assertFalse(scheduler.contains(entry));
+        assertFalse(scheduler.remove(pos));
+        assertTrue(scheduler.contains(entry(new Vector3(1, 2, 4), 7)));
+
+        // The position can be scheduled again once removed
+        scheduler.add(entry(pos, 6));
+        assertTrue(scheduler.contains(entry));
+    }
+
+    @Test
+    void removeEntryQueuedAtTwoTicks() {
+        Vector3 pos = new Vector3(1, 2, 3);
+        BlockUpdateEntry entry = entry(pos, 5);
+        scheduler.add(entry);
+        scheduler.add(entry(pos, 9));
+        scheduler.add(entry(new Vector3(1, 3, 3), 9));
+
+        assertTrue(scheduler.remove(entry));
+        assertFalse(scheduler.contains(entry), "Every queued tick of the entry must be removed");
+        assertFalse(scheduler.remove(pos));
+        assertTrue(scheduler.contains(entry(new Vector3(1, 3, 3), 9)));
+
+        scheduler.add(entry(pos, 9));
+        scheduler.add(entry(pos, 12));
+        assertTrue(scheduler.remove(pos));
+        assertFalse(scheduler.contains(entry));
+        assertTrue(scheduler.getPendingBlockUpdates(new SimpleAxisAlignedBB(1, 0, 3, 2, 256, 4))
+                .stream().noneMatch(update -> update.pos.equals(pos)));
+    }
+}
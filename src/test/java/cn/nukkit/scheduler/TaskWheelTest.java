@@ -0,0 +1,74 @@
+package cn.nukkit.scheduler;
+
+import cn.nukkit.api.PowerNukkitOnly;
+import cn.nukkit.api.Since;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.powernukkit.tests.junit.jupiter.PowerNukkitExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PowerNukkitOnly
+@Since("1.6.0.0-PNX")
+@ExtendWith(PowerNukkitExtension.class)
+class TaskWheelTest {
+    private static TaskHandler task(int id) {
+        return new TaskHandler(null, () -> {}, id, false);
+    }
+
+    @Test
+    void tasksExpireAtTheirTick() {
+        long[] delays = {1, 2, 63, 64, 65, 100, 4095, 4096, 4097, 262_143, 262_144, 300_000, 20_000_000};
+        TaskWheel wheel = new TaskWheel(-1);
+        List<TaskHandler> tasks = new ArrayList<>();
+        for (int i = 0; i < delays.length; i++) {
+            TaskHandler task = task(i);
+            tasks.add(task);
+            wheel.add(task, 9 + delays[i]);
+        }
+        // Expired ticks are moved to the next one
+        TaskHandler late = task(-1);
+        wheel.add(late, -10);
+        assertEquals(delays.length + 1, wheel.size());
+
+        List<TaskHandler> due = new ArrayList<>();
+        wheel.advance(0, due);
+        assertEquals(List.of(late), due);
+        due.clear();
+
+        int expired = 0;
+        for (long tick = 1; tick <= 9 + delays[delays.length - 1]; tick++) {
+            wheel.advance(tick, due);
+            for (TaskHandler task : due) {
+                assertEquals(9 + delays[task.getTaskId()], tick, "Task " + task.getTaskId());
+                expired++;
+            }
+            due.clear();
+        }
+        assertEquals(delays.length, expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void jumpsExpireEverythingDueInOrder() {
+        TaskWheel wheel = new TaskWheel(0);
+        TaskHandler later = task(1);
+        TaskHandler sooner = task(2);
+        TaskHandler after = task(3);
+        wheel.add(later, 5000);
+        wheel.add(sooner, 10);
+        wheel.add(after, 20_000);
+
+        List<TaskHandler> due = new ArrayList<>();
+        wheel.advance(10_000, due);
+        assertEquals(List.of(sooner, later), due);
+        assertEquals(1, wheel.size());
+
+        due.clear();
+        wheel.advance(Integer.MAX_VALUE, due);
+        assertEquals(List.of(after), due);
+    }
+}
@@ -0,0 +1,18 @@
+package cn.nukkit.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashTest {
+    @Test
+    void hashBlockPosition() {
+        long hash = Hash.hashBlockPosition(-30_000_000, -64, 29_999_999);
+        assertEquals(-30_000_000, Hash.hashBlockPositionX(hash));
+        assertEquals(-64, Hash.hashBlockPositionY(hash));
+        assertEquals(29_999_999, Hash.hashBlockPositionZ(hash));
+
+        assertNotEquals(Hash.hashBlockPosition(0, 256, 0), Hash.hashBlockPosition(1, 0, 0));
+        assertEquals(319, Hash.hashBlockPositionY(Hash.hashBlockPosition(5, 319, -5)));
+    }
+}